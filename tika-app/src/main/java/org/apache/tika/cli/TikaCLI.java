@@ -21,7 +21,12 @@ import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -34,23 +39,38 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.net.MalformedURLException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -74,11 +94,13 @@ import org.apache.tika.fork.ForkParser;
 import org.apache.tika.gui.TikaGUI;
 import org.apache.tika.io.CloseShieldInputStream;
 import org.apache.tika.io.FilenameUtils;
+import org.apache.tika.io.IOExceptionWithCause;
 import org.apache.tika.io.IOUtils;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.language.LanguageProfilerBuilder;
 import org.apache.tika.language.ProfilingHandler;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.serialization.JsonMetadata;
 import org.apache.tika.metadata.serialization.JsonMetadataList;
 import org.apache.tika.mime.MediaType;
@@ -88,6 +110,7 @@ import org.apache.tika.mime.MimeTypeException;
 import org.apache.tika.mime.MimeTypes;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.LazyParser;
 import org.apache.tika.parser.NetworkParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
@@ -99,6 +122,7 @@ import org.apache.tika.sax.BasicContentHandlerFactory;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.sax.ExpandedTitleContentHandler;
+import org.apache.tika.utils.ExceptionUtils;
 import org.apache.tika.xmp.XMPMetadata;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -133,6 +157,12 @@ public class TikaCLI {
             for (int i = 0; i < args.length; i++) {
                 cli.process(args[i]);
             }
+            cli.processQueuedDocuments();
+            if (cli.streamWorker) {
+                cli.serveStream();
+            } else if (cli.streamMode) {
+                cli.superviseStream(args);
+            }
             if (cli.pipeMode) {
                 cli.process("-");
             }
@@ -170,8 +200,8 @@ public class TikaCLI {
     private class OutputType {
 
         public void process(
-                InputStream input, OutputStream output, Metadata metadata)
-                throws Exception {
+                InputStream input, OutputStream output, Metadata metadata,
+                ParseContext context) throws Exception {
             Parser p = parser;
             if (fork) {
                 p = new ForkParser(TikaCLI.class.getClassLoader(), p);
@@ -284,8 +314,8 @@ public class TikaCLI {
     private final OutputType DETECT = new OutputType() {
         @Override
         public void process(
-                InputStream stream, OutputStream output, Metadata metadata)
-                throws Exception {
+                InputStream stream, OutputStream output, Metadata metadata,
+                ParseContext context) throws Exception {
             PrintWriter writer =
                 new PrintWriter(getOutputWriter(output, encoding));
             writer.println(detector.detect(stream, metadata).toString());
@@ -298,8 +328,8 @@ public class TikaCLI {
     private final OutputType CREATE_PROFILE = new OutputType() {
         @Override
         public void process(
-                InputStream stream, OutputStream output, Metadata metadata)
-                throws Exception {
+                InputStream stream, OutputStream output, Metadata metadata,
+                ParseContext context) throws Exception {
             ngp = LanguageProfilerBuilder.create(profileName, stream, encoding);
             FileOutputStream fos = new FileOutputStream(new File(profileName + ".ngp"));
             ngp.save(fos);//saves ngram profile
@@ -343,7 +373,49 @@ public class TikaCLI {
     private String profileName = null;
 
     private boolean prettyPrint;
-    
+
+    /**
+     * Number of threads used to process the documents given as arguments
+     */
+    private int threads = 1;
+
+    /**
+     * Whether the output of each document is written as soon as it is
+     * ready, instead of in the order of the arguments
+     */
+    private boolean unordered = false;
+
+    /**
+     * Documents waiting to be processed by several threads
+     */
+    private final List<String> queuedDocuments = new ArrayList<String>();
+
+    /**
+     * Whether the documents to process are read from standard input, see
+     * {@link #superviseStream(String[])}
+     */
+    private boolean streamMode = false;
+
+    /**
+     * Whether this is the worker process of the stream mode
+     */
+    private boolean streamWorker = false;
+
+    /**
+     * Maximum time to process a document in the stream mode
+     */
+    private long streamTimeout = 5 * 60 * 1000; // 5 minutes
+
+    /**
+     * Stream mode request holding a document
+     */
+    private static final int STREAM_DOCUMENT = 'D';
+
+    /**
+     * Stream mode request holding the path or URL of a document, in UTF-8
+     */
+    private static final int STREAM_PATH = 'P';
+
     public TikaCLI() throws Exception {
         context = new ParseContext();
         detector = new DefaultDetector();
@@ -357,6 +429,10 @@ public class TikaCLI {
     }
 
     public void process(String arg) throws Exception {
+        if (arg.startsWith("-") || serverMode) {
+            // the queued documents are processed with the options given before them
+            processQueuedDocuments();
+        }
         if (arg.equals("-?") || arg.equals("--help")) {
             pipeMode = false;
             usage();
@@ -435,6 +511,23 @@ public class TikaCLI {
             context.set(EmbeddedDocumentExtractor.class, new FileEmbeddedDocumentExtractor());
         } else if (arg.equals("-r") || arg.equals("--pretty-print")) {
             prettyPrint = true;
+        } else if (arg.startsWith("--threads=")) {
+            threads = Integer.parseInt(arg.substring("--threads=".length()));
+            if (threads < 1) {
+                throw new IllegalArgumentException(
+                        "The number of threads must be positive: " + arg);
+            }
+        } else if (arg.equals("--unordered")) {
+            unordered = true;
+        } else if (arg.equals("--stream")) {
+            streamMode = true;
+            pipeMode = false;
+        } else if (arg.equals("--stream-worker")) {
+            streamMode = true;
+            streamWorker = true;
+            pipeMode = false;
+        } else if (arg.startsWith("--timeout=")) {
+            streamTimeout = Long.parseLong(arg.substring("--timeout=".length()));
         } else if (arg.equals("-p") || arg.equals("--port")
                 || arg.equals("-s") || arg.equals("--server")) {
             serverMode = true;
@@ -456,35 +549,424 @@ public class TikaCLI {
                 InputStream stream =
                     TikaInputStream.get(new CloseShieldInputStream(System.in));
                 try {
-                    type.process(stream, System.out, new Metadata());
+                    type.process(stream, System.out, new Metadata(), context);
                 } finally {
                     stream.close();
                 }
             } else {
-                URL url;
-                File file = new File(arg);
-                if (file.isFile()) {
-                    url = file.toURI().toURL();
+                List<String> documents = new ArrayList<String>();
+                addDocuments(arg, documents);
+                // the extracted files and profiles are written by a single thread
+                if (threads > 1 && type != NO_OUTPUT && type != CREATE_PROFILE) {
+                    queuedDocuments.addAll(documents);
                 } else {
-                    url = new URL(arg);
+                    for (String document : documents) {
+                        processDocument(document, System.out, context);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the given file or URL to the list of documents to process, or
+     * all the files of the given directory and its subdirectories.
+     */
+    private static void addDocuments(String arg, List<String> documents) {
+        File file = new File(arg);
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    addDocuments(child.getPath(), documents);
+                }
+            }
+        } else {
+            documents.add(arg);
+        }
+    }
+
+    private static URL getURL(String document) throws MalformedURLException {
+        File file = new File(document);
+        if (file.isFile()) {
+            return file.toURI().toURL();
+        } else {
+            return new URL(document);
+        }
+    }
+
+    /**
+     * Returns a parse context for a single document, when several are
+     * processed at the same time.
+     */
+    private ParseContext copyContext() {
+        ParseContext copy = new ParseContext();
+        copy.set(Parser.class, context.get(Parser.class));
+        copy.set(PasswordProvider.class, context.get(PasswordProvider.class));
+        return copy;
+    }
+
+    private void processDocument(
+            String document, OutputStream output, ParseContext context)
+            throws Exception {
+        URL url = getURL(document);
+        if (recursiveJSON) {
+            handleRecursiveJson(url, output, context);
+        } else {
+            Metadata metadata = new Metadata();
+            InputStream input = TikaInputStream.get(url, metadata);
+            try {
+                type.process(input, output, metadata, context);
+            } finally {
+                input.close();
+                output.flush();
+            }
+        }
+    }
+
+    /**
+     * Processes the queued documents with the configured number of
+     * threads, which share the parser. The output of each document is
+     * buffered, and written to standard output in the order of the
+     * documents, or as soon as it is ready if the output is unordered.
+     * Documents that can not be processed are reported, and do not stop
+     * the processing of the others.
+     *
+     * @throws TikaException if some documents could not be processed
+     */
+    private void processQueuedDocuments() throws Exception {
+        if (queuedDocuments.isEmpty()) {
+            return;
+        }
+        Iterator<String> documents =
+                new ArrayList<String>(queuedDocuments).iterator();
+        queuedDocuments.clear();
+
+        // Bounds the number of buffered outputs
+        int maxPending = 2 * threads;
+        int failures = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<byte[]> completion =
+                    new ExecutorCompletionService<byte[]>(executor);
+            LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+            int running = 0;
+            while (documents.hasNext() || running > 0) {
+                while (documents.hasNext() && running < maxPending) {
+                    DocumentTask task = new DocumentTask(documents.next());
+                    if (unordered) {
+                        completion.submit(task);
+                    } else {
+                        pending.add(executor.submit(task));
+                    }
+                    running++;
+                }
+                Future<byte[]> future =
+                        unordered ? completion.take() : pending.removeFirst();
+                running--;
+                try {
+                    System.out.write(future.get());
+                    System.out.flush();
+                } catch (ExecutionException e) {
+                    failures++;
+                    Throwable t = e.getCause();
+                    System.err.println(t.getMessage() + " (" + t.getCause() + ")");
+                    logger.debug(t.getMessage(), t.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failures > 0) {
+            throw new TikaException(
+                    "Unable to process " + failures + " of the documents");
+        }
+    }
+
+    /**
+     * Processes a document into a buffer, with its own parse context.
+     */
+    private class DocumentTask implements Callable<byte[]> {
+
+        private final String document;
+
+        public DocumentTask(String document) {
+            this.document = document;
+        }
+
+        public byte[] call() throws Exception {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try {
+                processDocument(document, output, copyContext());
+            } catch (Exception e) {
+                throw new TikaException("Unable to process " + document, e);
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Reads documents from standard input, and writes their metadata and
+     * content, in the JSON format of the -J option, to standard output,
+     * until the end of the input. Each request is a byte giving its kind,
+     * {@link #STREAM_DOCUMENT} or {@link #STREAM_PATH}, followed by the
+     * length of the document or path as a four byte big endian integer,
+     * and the document or path itself. Each response is the length of the
+     * JSON as a four byte big endian integer, followed by the JSON in UTF-8.
+     * A request of an unknown kind gets a response with the error in the
+     * X-TIKA:EXCEPTION:runtime metadata. So does a request with a negative
+     * length, after which the input can not be framed, and is not read any
+     * further.
+     * <p>
+     * The documents are processed by a worker process, which keeps the
+     * parsers loaded between documents. If a document is not processed
+     * within the timeout, or the worker process fails, the worker process
+     * is killed and restarted, and the response holds the error in the
+     * X-TIKA:EXCEPTION:runtime metadata.
+     *
+     * @param args the arguments of this process, given to the worker process
+     */
+    private void superviseStream(String[] args) throws Exception {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home")
+                + File.separator + "bin" + File.separator + "java");
+        for (String jvmArg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // a debugger can only be attached to one of the processes
+            if (!jvmArg.startsWith("-agentlib:jdwp") && !jvmArg.startsWith("-Xrunjdwp")) {
+                command.add(jvmArg);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(TikaCLI.class.getName());
+        for (String arg : args) {
+            command.add(arg.equals("--stream") ? "--stream-worker" : arg);
+        }
+
+        DataInputStream input =
+                new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream output =
+                new DataOutputStream(new BufferedOutputStream(System.out));
+        StreamWorker worker = new StreamWorker(command);
+        try {
+            int kind = input.read();
+            while (kind != -1) {
+                byte[] request = readStreamRequest(input);
+                if (request == null) {
+                    writeStreamResponse(output, getStreamError("Invalid request length"));
+                    break;
+                }
+
+                byte[] response;
+                try {
+                    if (kind != STREAM_DOCUMENT && kind != STREAM_PATH) {
+                        response = getStreamError("Unknown request kind: " + kind);
+                    } else {
+                        response = worker.process(kind, request, streamTimeout);
+                    }
+                } catch (TimeoutException e) {
+                    response = getStreamError(
+                            "Timed out after " + streamTimeout + "ms");
+                    worker.close();
+                    worker = new StreamWorker(command);
+                } catch (IOException e) {
+                    response = getStreamError(
+                            "The worker process failed: " + e.getMessage());
+                    worker.close();
+                    worker = new StreamWorker(command);
+                }
+                writeStreamResponse(output, response);
+
+                kind = input.read();
+            }
+        } finally {
+            worker.close();
+        }
+    }
+
+    /**
+     * Processes the requests of the stream mode, in the worker process.
+     *
+     * @see #superviseStream(String[])
+     */
+    private void serveStream() throws Exception {
+        DataInputStream input =
+                new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream output =
+                new DataOutputStream(new BufferedOutputStream(System.out));
+        // Stray output of the parsers must not corrupt the responses
+        System.setOut(System.err);
+        JsonMetadataList.setPrettyPrinting(prettyPrint);
+        try {
+            int kind = input.read();
+            while (kind != -1) {
+                byte[] request = readStreamRequest(input);
+                if (request == null) {
+                    writeStreamResponse(output, getStreamError("Invalid request length"));
+                    break;
                 }
-                if (recursiveJSON) {
-                    handleRecursiveJson(url, System.out);
+                if (kind != STREAM_DOCUMENT && kind != STREAM_PATH) {
+                    writeStreamResponse(output, getStreamError("Unknown request kind: " + kind));
                 } else {
-                    Metadata metadata = new Metadata();
-                    InputStream input = TikaInputStream.get(url, metadata);
+                    writeStreamResponse(output, processStreamRequest(kind, request));
+                }
+                kind = input.read();
+            }
+        } catch (Error e) {
+            // The process may be unusable. Exit without a response, so
+            // that the supervisor reports the failure and restarts it
+            logger.fatal("The stream worker failed", e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the payload of a stream mode request, after its kind.
+     *
+     * @return the payload, or null if the length of the request is negative
+     */
+    private static byte[] readStreamRequest(DataInputStream input)
+            throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] request = new byte[length];
+        input.readFully(request);
+        return request;
+    }
+
+    private static void writeStreamResponse(DataOutputStream output, byte[] response)
+            throws IOException {
+        output.writeInt(response.length);
+        output.write(response);
+        output.flush();
+    }
+
+    private byte[] processStreamRequest(int kind, byte[] request)
+            throws IOException {
+        RecursiveParserWrapper wrapper =
+                new RecursiveParserWrapper(parser, getContentHandlerFactory(type));
+        Metadata metadata = new Metadata();
+        List<Metadata> metadataList;
+        try {
+            InputStream stream;
+            if (kind == STREAM_PATH) {
+                URL url = getURL(new String(request, IOUtils.UTF_8));
+                stream = TikaInputStream.get(url, metadata);
+            } else {
+                stream = TikaInputStream.get(request);
+            }
+            try {
+                wrapper.parse(stream, null, metadata, copyContext());
+            } finally {
+                stream.close();
+            }
+            metadataList = wrapper.getMetadata();
+        } catch (Exception e) {
+            metadataList = wrapper.getMetadata();
+            Metadata m;
+            if (metadataList.isEmpty()) {
+                m = metadata;
+            } else {
+                // the container document
+                m = metadataList.remove(0);
+            }
+            m.add(TikaCoreProperties.TIKA_META_EXCEPTION_PREFIX + "runtime",
+                    ExceptionUtils.getFilteredStackTrace(e));
+            metadataList.add(0, m);
+        }
+        return toJson(metadataList);
+    }
+
+    private static byte[] getStreamError(String message) throws IOException {
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.TIKA_META_EXCEPTION_PREFIX + "runtime", message);
+        return toJson(Collections.singletonList(metadata));
+    }
+
+    private static byte[] toJson(List<Metadata> metadataList) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(buffer, IOUtils.UTF_8);
+        try {
+            JsonMetadataList.toJson(metadataList, writer);
+        } catch (TikaException e) {
+            throw new IOExceptionWithCause("Unable to serialize the metadata", e);
+        }
+        writer.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Worker process of the stream mode.
+     */
+    private static class StreamWorker {
+
+        private final Process process;
+
+        private final DataOutputStream input;
+
+        private final DataInputStream output;
+
+        private final ExecutorService reader = Executors.newSingleThreadExecutor();
+
+        public StreamWorker(List<String> command) throws IOException {
+            process = new ProcessBuilder(command).start();
+            input = new DataOutputStream(
+                    new BufferedOutputStream(process.getOutputStream()));
+            output = new DataInputStream(
+                    new BufferedInputStream(process.getInputStream()));
+            Thread errors = new Thread("Tika stream worker errors") {
+                @Override
+                public void run() {
                     try {
-                        type.process(input, System.out, metadata);
-                    } finally {
-                        input.close();
-                        System.out.flush();
+                        IOUtils.copy(process.getErrorStream(), System.err);
+                    } catch (IOException e) {
+                        // the process was killed
                     }
                 }
+            };
+            errors.setDaemon(true);
+            errors.start();
+        }
+
+        /**
+         * Sends a request to the worker process and waits for its response.
+         *
+         * @throws TimeoutException if there is no response within the timeout
+         * @throws IOException if the worker process failed
+         */
+        public byte[] process(int kind, byte[] request, long timeout)
+                throws IOException, TimeoutException, InterruptedException {
+            input.writeByte(kind);
+            input.writeInt(request.length);
+            input.write(request);
+            input.flush();
+
+            Future<byte[]> response = reader.submit(new Callable<byte[]>() {
+                public byte[] call() throws IOException {
+                    byte[] b = new byte[output.readInt()];
+                    output.readFully(b);
+                    return b;
+                }
+            });
+            try {
+                return response.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw new IOExceptionWithCause(
+                        e.getCause().toString(), e.getCause());
             }
         }
+
+        public void close() {
+            process.destroy();
+            reader.shutdownNow();
+        }
     }
 
-    private void handleRecursiveJson(URL url, OutputStream output) throws IOException, SAXException, TikaException {
+    private void handleRecursiveJson(URL url, OutputStream output, ParseContext context)
+            throws IOException, SAXException, TikaException {
         Metadata metadata = new Metadata();
         InputStream input = TikaInputStream.get(url, metadata);
         RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser, getContentHandlerFactory(type));
@@ -551,6 +1033,13 @@ public class TikaCLI {
         out.println("    --extract-dir=<dir>    Specify target directory for -z");
         out.println("    -r  or --pretty-print  For JSON, XML and XHTML outputs, adds newlines and");
         out.println("                           whitespace, for better readability");
+        out.println("    --threads=N            Process the files and directories given after");
+        out.println("                           this option with N threads (default 1)");
+        out.println("    --unordered            With --threads, write the output of each file");
+        out.println("                           as soon as it is ready, instead of in order");
+        out.println("    --stream               Read documents from standard input, see below");
+        out.println("    --timeout=X            Stop processing a document in stream mode");
+        out.println("                           after X milliseconds (default 5 minutes)");
         out.println();
         out.println("    --create-profile=X");
         out.println("         Create NGram profile, where X is a profile name");
@@ -576,7 +1065,8 @@ public class TikaCLI {
         out.println("    or metadata to standard output.");
         out.println();
         out.println("    Instead of a file name you can also specify the URL");
-        out.println("    of a document to be parsed.");
+        out.println("    of a document to be parsed. All the files of a");
+        out.println("    directory and its subdirectories are parsed.");
         out.println();
         out.println("    If no file name or URL is specified (or the special");
         out.println("    name \"-\" is used), then the standard input stream");
@@ -596,6 +1086,20 @@ public class TikaCLI {
         out.println("    Apache Tika server. The server will listen to the");
         out.println("    ports you specify as one or more arguments.");
         out.println();
+        out.println("- Stream mode");
+        out.println();
+        out.println("    Use the \"--stream\" option to process any number of");
+        out.println("    documents read from standard input in one process.");
+        out.println("    Each request is a byte, 'D' for a document or 'P' for");
+        out.println("    the path or URL of a document, followed by the length");
+        out.println("    of the document or the UTF-8 path as a 4 byte big endian");
+        out.println("    integer, and the document or path itself. For each");
+        out.println("    request, the length of the response as a 4 byte big");
+        out.println("    endian integer is written to standard output, followed");
+        out.println("    by the metadata and content in UTF-8 JSON, as with -J.");
+        out.println("    Documents are parsed by a worker process, which is");
+        out.println("    restarted if it fails or times out.");
+        out.println();
         out.println("- Batch mode");
         out.println();
         out.println("    Simplest method.");
@@ -758,14 +1262,21 @@ public class TikaCLI {
         Parser[] sortedParsers = parsers.keySet().toArray(new Parser[parsers.size()]);
         Arrays.sort(sortedParsers, new Comparator<Parser>() {
             public int compare(Parser p1, Parser p2) {
-                String name1 = p1.getClass().getName();
-                String name2 = p2.getClass().getName();
+                String name1 = getParserClassName(p1);
+                String name2 = getParserClassName(p2);
                 return name1.compareTo(name2);
             }
         });
         return sortedParsers;
     }
 
+    private static String getParserClassName(Parser p) {
+        if (p instanceof LazyParser) {
+            return ((LazyParser) p).getParserClassName();
+        }
+        return p.getClass().getName();
+    }
+
     private Map<Parser, Set<MediaType>> invertMediaTypeMap(Map<MediaType, Parser> supported) {
         Map<Parser,Set<MediaType>> parsers = new HashMap<Parser, Set<MediaType>>();
         for(Entry<MediaType, Parser> e : supported.entrySet()) {
@@ -799,7 +1310,7 @@ public class TikaCLI {
                 if (p instanceof CompositeParser) {
                     p = ((CompositeParser)p).getParsers().get(type);
                 }
-                System.out.println("  parser:    " + p.getClass().getName());
+                System.out.println("  parser:    " + getParserClassName(p));
             }
         }
     }
@@ -1113,7 +1624,7 @@ public class TikaCLI {
                             InputStream rawInput = socket.getInputStream();
                             OutputStream output = socket.getOutputStream();
                             input = TikaInputStream.get(rawInput);
-                            type.process(input, output, new Metadata());
+                            type.process(input, output, new Metadata(), context);
                             output.flush();
                         } finally {
                             if (input != null) {
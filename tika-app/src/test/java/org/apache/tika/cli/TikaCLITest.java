@@ -16,13 +16,20 @@
  */
 package org.apache.tika.cli;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.tika.exception.TikaException;
@@ -346,6 +353,176 @@ public class TikaCLITest {
         assertTrue(content.contains("org.apache.tika.parser.html.HtmlParser"));
     }
 
+    @Test
+    public void testMultiThreaded() throws Exception {
+        File directory = createTestDirectory(
+                "alice.cli.test", "coffee.xls", "testJsonMultipleInts.html",
+                "test_recursive_embedded.docx", "welsh_corpus.txt");
+        try {
+            TikaCLI.main(new String[] {"-t", directory.getPath()});
+            String expected = outContent.toString(IOUtils.UTF_8.name());
+            assertTrue(expected.contains("finished off the cake"));
+
+            // The same output, in the same order
+            outContent.reset();
+            TikaCLI.main(new String[] {"-t", "--threads=3", directory.getPath()});
+            assertEquals(expected, outContent.toString(IOUtils.UTF_8.name()));
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testMultiThreadedUnordered() throws Exception {
+        String[] names = {
+                "alice.cli.test", "coffee.xls", "testJsonMultipleInts.html",
+                "test_recursive_embedded.docx", "welsh_corpus.txt"};
+        File directory = createTestDirectory(names);
+        try {
+            String[] params = {"-J", "-m", "--threads=3", "--unordered", directory.getPath()};
+            TikaCLI.main(params);
+            String content = outContent.toString(IOUtils.UTF_8.name());
+            for (String name : names) {
+                assertTrue(content.contains("\"resourceName\":\"" + name + "\""));
+            }
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testMultiThreadedFailure() throws Exception {
+        File directory = createTestDirectory("alice.cli.test", "bad_xml.xml");
+        try {
+            String[] params = {"-t", "--threads=2", directory.getPath()};
+            boolean tikaEx = false;
+            try {
+                TikaCLI.main(params);
+            } catch (TikaException e) {
+                tikaEx = true;
+            }
+            assertTrue(tikaEx);
+            // the other documents are still processed
+            assertTrue(outContent.toString(IOUtils.UTF_8.name()).contains("finished off the cake"));
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testStreamWorker() throws Exception {
+        byte[] text = "Hello, stream".getBytes(IOUtils.UTF_8);
+        String path = new File(testDataFile, "alice.cli.test").getPath();
+        List<String> responses = stream(
+                new String[] {"--stream-worker", "-t"},
+                request('D', text),
+                request('P', path.getBytes(IOUtils.UTF_8)),
+                request('P', "does-not-exist".getBytes(IOUtils.UTF_8)));
+        assertEquals(3, responses.size());
+        assertTrue(responses.get(0).contains("Hello, stream"));
+        assertTrue(responses.get(1).contains("finished off the cake"));
+        assertTrue(responses.get(2).contains("X-TIKA:EXCEPTION:runtime"));
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        String path = new File(testDataFile, "alice.cli.test").getPath();
+        List<String> responses = stream(
+                new String[] {"--stream", "-t"},
+                request('P', path.getBytes(IOUtils.UTF_8)),
+                request('D', "Hello, stream".getBytes(IOUtils.UTF_8)));
+        assertEquals(2, responses.size());
+        assertTrue(responses.get(0).contains("finished off the cake"));
+        assertTrue(responses.get(1).contains("Hello, stream"));
+    }
+
+    @Test
+    public void testStreamTimeout() throws Exception {
+        String path = new File(testDataFile, "alice.cli.test").getPath();
+        List<String> responses = stream(
+                new String[] {"--stream", "--timeout=1", "-t"},
+                request('P', path.getBytes(IOUtils.UTF_8)),
+                request('P', path.getBytes(IOUtils.UTF_8)));
+        // the worker process is restarted after each timeout
+        assertEquals(2, responses.size());
+        for (String response : responses) {
+            assertTrue(response.contains("Timed out after 1ms"));
+        }
+    }
+
+    @Test
+    public void testStreamInvalidRequests() throws Exception {
+        byte[] text = "Hello, stream".getBytes(IOUtils.UTF_8);
+        ByteArrayOutputStream negative = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(negative);
+        data.writeByte('D');
+        data.writeInt(-1);
+        data.flush();
+        for (String mode : new String[] {"--stream", "--stream-worker"}) {
+            outContent.reset();
+            List<String> responses = stream(
+                    new String[] {mode, "-t"},
+                    request('X', text),
+                    request('D', text),
+                    negative.toByteArray(),
+                    // not read, as the input can no longer be framed
+                    request('D', text));
+            assertEquals(mode, 3, responses.size());
+            assertTrue(responses.get(0).contains("Unknown request kind: 88"));
+            assertTrue(responses.get(1).contains("Hello, stream"));
+            assertTrue(responses.get(2).contains("Invalid request length"));
+        }
+    }
+
+    private static byte[] request(char kind, byte[] payload) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(buffer);
+        data.writeByte(kind);
+        data.writeInt(payload.length);
+        data.write(payload);
+        data.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Runs the stream mode with the given requests, and returns the responses.
+     */
+    private List<String> stream(String[] params, byte[]... requests) throws Exception {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        for (byte[] request : requests) {
+            input.write(request);
+        }
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        try {
+            System.setIn(new ByteArrayInputStream(input.toByteArray()));
+            TikaCLI.main(params);
+        } finally {
+            System.setIn(stdin);
+            System.setOut(stdout);
+        }
+
+        List<String> responses = new ArrayList<String>();
+        DataInputStream output = new DataInputStream(
+                new ByteArrayInputStream(outContent.toByteArray()));
+        while (output.available() > 0) {
+            byte[] response = new byte[output.readInt()];
+            output.readFully(response);
+            responses.add(new String(response, IOUtils.UTF_8));
+        }
+        return responses;
+    }
+
+    private File createTestDirectory(String... names) throws Exception {
+        File directory = File.createTempFile("tika-test-", "");
+        directory.delete();
+        directory.mkdir();
+        for (String name : names) {
+            FileUtils.copyFileToDirectory(new File(testDataFile, name), directory);
+        }
+        return directory;
+    }
+
     @Test
     public void testJsonRecursiveMetadataParserMetadataOnly() throws Exception {
         String[] params = new String[]{"-m", "-J", "-r", resourcePrefix+"test_recursive_embedded.docx"};
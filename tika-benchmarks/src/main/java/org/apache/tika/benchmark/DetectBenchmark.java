@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.Tika;
+import org.apache.tika.detect.DefaultDetector;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Tika#detect(InputStream)} on a mixed corpus, by default
+ * the test documents of tika-parsers, which include plain, XML, image,
+ * archive, OLE2 and OOXML files. Each invocation detects the type of every
+ * file of the corpus, read into memory beforehand, either from plain
+ * streams or from TikaInputStreams, which also lets the container
+ * detectors look inside OLE2 and Zip files. The sequential benchmarks use
+ * the detectors of the same DefaultDetector one after the other, each
+ * reading the stream itself and without stopping early, for comparison.
+ * <p>
+ * Run from the root of the source tree, or give another directory with
+ * the corpus parameter:
+ * <pre>
+ * java -jar tika-benchmarks/target/tika-benchmarks.jar DetectBenchmark -p corpus=/path/to/files
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetectBenchmark {
+
+    @Param({"tika-parsers/src/test/resources/test-documents"})
+    public String corpus;
+
+    /**
+     * Files larger than this are left out, so that spooling large
+     * containers to temporary files does not dominate.
+     */
+    @Param({"1048576"})
+    public int maxFileSize;
+
+    private Tika tika;
+
+    private Tika sequential;
+
+    private List<byte[]> documents;
+
+    @Setup
+    public void setup() throws IOException {
+        File[] files = new File(corpus).listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + corpus);
+        }
+        Arrays.sort(files);
+        documents = new ArrayList<byte[]>();
+        for (File file : files) {
+            if (file.isFile() && file.length() <= maxFileSize) {
+                InputStream stream = new FileInputStream(file);
+                try {
+                    documents.add(IOUtils.toByteArray(stream));
+                } finally {
+                    stream.close();
+                }
+            }
+        }
+
+        DefaultDetector detector = new DefaultDetector();
+        tika = new Tika(detector);
+        sequential = new Tika(new SequentialDetector(
+                detector.getDetectors(), MediaTypeRegistry.getDefaultRegistry()));
+    }
+
+    @Benchmark
+    public int detectStream() throws IOException {
+        return detectAll(tika, false);
+    }
+
+    @Benchmark
+    public int detectTikaInputStream() throws IOException {
+        return detectAll(tika, true);
+    }
+
+    @Benchmark
+    public int sequentialStream() throws IOException {
+        return detectAll(sequential, false);
+    }
+
+    @Benchmark
+    public int sequentialTikaInputStream() throws IOException {
+        return detectAll(sequential, true);
+    }
+
+    private int detectAll(Tika tika, boolean tikaInputStream) throws IOException {
+        int hash = 0;
+        for (byte[] document : documents) {
+            InputStream stream = tikaInputStream
+                    ? TikaInputStream.get(document)
+                    : new ByteArrayInputStream(document);
+            try {
+                hash += tika.detect(stream).hashCode();
+            } finally {
+                stream.close();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Runs each detector on the stream in turn, as CompositeDetector did
+     * before the detectors shared the document prefix.
+     */
+    private static class SequentialDetector implements Detector {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Detector> detectors;
+
+        private final MediaTypeRegistry registry;
+
+        private SequentialDetector(List<Detector> detectors, MediaTypeRegistry registry) {
+            this.detectors = detectors;
+            this.registry = registry;
+        }
+
+        public MediaType detect(InputStream input, Metadata metadata) throws IOException {
+            MediaType type = MediaType.OCTET_STREAM;
+            for (Detector detector : detectors) {
+                MediaType detected = detector.detect(input, metadata);
+                if (registry.isSpecializationOf(detected, type)) {
+                    type = detected;
+                }
+            }
+            return type;
+        }
+    }
+}
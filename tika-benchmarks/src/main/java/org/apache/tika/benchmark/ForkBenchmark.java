@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures the throughput of the {@link ForkParser}, as seen by the parent
+ * process, on a large generated document: plain text, which gives few large
+ * character events, or HTML with a short paragraph on each line, which
+ * gives many small events. The size of the document, in megabytes, can be
+ * given with the size parameter:
+ * <pre>
+ * java -jar tika-benchmarks/target/tika-benchmarks.jar ForkBenchmark -p size=50
+ * </pre>
+ * The forked process is started once and reused by all invocations, so
+ * the score is dominated by the transport of the SAX events to the parent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForkBenchmark {
+
+    @Param({"10"})
+    public int size;
+
+    @Param({"txt", "html"})
+    public String format;
+
+    private ForkParser parser;
+
+    private byte[] document;
+
+    @Setup
+    public void setup() {
+        parser = new ForkParser(
+                ForkBenchmark.class.getClassLoader(), new AutoDetectParser());
+
+        StringBuilder builder = new StringBuilder();
+        if (format.equals("html")) {
+            builder.append("<html><head><title>Benchmark</title></head><body>\n");
+        }
+        int line = 0;
+        while (builder.length() < size * 1024 * 1024) {
+            if (format.equals("html")) {
+                builder.append("<p>Line ").append(line++)
+                        .append(" of the <b>fork</b> benchmark</p>\n");
+            } else {
+                builder.append("Line ").append(line++)
+                        .append(" of the fork benchmark\n");
+            }
+        }
+        if (format.equals("html")) {
+            builder.append("</body></html>\n");
+        }
+        document = builder.toString().getBytes(IOUtils.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parser.close();
+    }
+
+    @Benchmark
+    public long parse() throws Exception {
+        CountingHandler handler = new CountingHandler();
+        parser.parse(
+                new ByteArrayInputStream(document), handler,
+                new Metadata(), new ParseContext());
+        return handler.count;
+    }
+
+    /**
+     * Counts the characters, so that only the cost of receiving them is
+     * measured in the parent process.
+     */
+    private static class CountingHandler extends DefaultHandler {
+
+        private long count = 0;
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.tika.detect.EncodingDetector;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.html.HtmlEncodingDetector;
+import org.apache.tika.parser.html.HtmlParser;
+import org.apache.tika.utils.CharsetUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Measures the {@link HtmlEncodingDetector} and the {@link HtmlParser} on a
+ * corpus of HTML pages. Each invocation detects the encoding of, or parses,
+ * every page of the corpus, read into memory beforehand. The regex
+ * benchmark runs the two regular expressions the detector used before it
+ * scanned the bytes itself, for comparison.
+ * <p>
+ * By default the corpus is made of 200 generated pages of 5 to 50KB, with
+ * a charset declared in a meta tag, in an XML declaration, or not at all.
+ * Another directory of HTML files can be given with the corpus parameter:
+ * <pre>
+ * java -jar tika-benchmarks/target/tika-benchmarks.jar HtmlBenchmark -p corpus=/path/to/pages
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HtmlBenchmark {
+
+    private static final int PAGES = 200;
+
+    private static final int MIN_PAGE_SIZE = 5 * 1024;
+
+    private static final int MAX_PAGE_SIZE = 50 * 1024;
+
+    private static final String[] WORDS = {
+        "tika", "content", "detection", "analysis", "metadata", "parser",
+        "document", "encoding", "toolkit", "apache", "text", "extraction"
+    };
+
+    @Param({""})
+    public String corpus;
+
+    private final EncodingDetector detector = new HtmlEncodingDetector();
+
+    private final EncodingDetector regexDetector = new RegexEncodingDetector();
+
+    private final HtmlParser parser = new HtmlParser();
+
+    private final ParseContext context = new ParseContext();
+
+    private List<byte[]> pages;
+
+    @Setup
+    public void setup() throws IOException {
+        pages = new ArrayList<byte[]>();
+        if (corpus.isEmpty()) {
+            Random random = new Random(42);
+            for (int i = 0; i < PAGES; i++) {
+                pages.add(generatePage(random, i));
+            }
+            return;
+        }
+        File[] files = new File(corpus).listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + corpus);
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isFile()) {
+                InputStream stream = new FileInputStream(file);
+                try {
+                    pages.add(IOUtils.toByteArray(stream));
+                } finally {
+                    stream.close();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int detectEncoding() throws IOException {
+        return detectAll(detector);
+    }
+
+    @Benchmark
+    public int regexDetectEncoding() throws IOException {
+        return detectAll(regexDetector);
+    }
+
+    @Benchmark
+    public long parse() throws Exception {
+        long length = 0;
+        for (byte[] page : pages) {
+            CountingHandler handler = new CountingHandler();
+            parser.parse(new ByteArrayInputStream(page), handler, new Metadata(), context);
+            length += handler.count;
+        }
+        return length;
+    }
+
+    private int detectAll(EncodingDetector detector) throws IOException {
+        int hash = 0;
+        for (byte[] page : pages) {
+            Charset charset = detector.detect(new ByteArrayInputStream(page), new Metadata());
+            if (charset != null) {
+                hash += charset.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    private static byte[] generatePage(Random random, int index) {
+        int size = MIN_PAGE_SIZE + random.nextInt(MAX_PAGE_SIZE - MIN_PAGE_SIZE);
+        StringBuilder page = new StringBuilder(size + 256);
+        switch (index % 4) {
+            case 0:
+                page.append("<html><head><meta charset=\"UTF-8\">");
+                break;
+            case 1:
+                page.append("<html><head><meta http-equiv=\"Content-Type\" "
+                        + "content=\"text/html; charset=ISO-8859-1\">");
+                break;
+            case 2:
+                page.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<html xmlns=\"http://www.w3.org/1999/xhtml\"><head>");
+                break;
+            default:
+                page.append("<html><head>");
+        }
+        page.append("<meta name=\"description\" content=\"Page ").append(index).append("\">");
+        page.append("<title>Page ").append(index).append("</title></head><body>\n");
+        while (page.length() < size) {
+            page.append("<p>");
+            int words = 20 + random.nextInt(80);
+            for (int i = 0; i < words; i++) {
+                if (i > 0) {
+                    page.append(' ');
+                }
+                if (random.nextInt(30) == 0) {
+                    page.append("<a href=\"/page").append(random.nextInt(PAGES)).append("\">");
+                    page.append(WORDS[random.nextInt(WORDS.length)]).append("</a>");
+                } else {
+                    page.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+            }
+            page.append("</p>\n");
+        }
+        page.append("</body></html>\n");
+        return page.toString().getBytes(IOUtils.UTF_8);
+    }
+
+    /**
+     * Finds the charset of the meta tags with two regular expressions on
+     * the head decoded as ASCII, as the HtmlEncodingDetector did before it
+     * scanned the bytes itself.
+     */
+    private static class RegexEncodingDetector implements EncodingDetector {
+
+        private static final int META_TAG_BUFFER_SIZE = 8192;
+
+        private static final Pattern HTTP_META_PATTERN = Pattern.compile(
+                "(?is)<\\s*meta\\s+([^<>]+)");
+
+        private static final Pattern FLEXIBLE_CHARSET_ATTR_PATTERN = Pattern.compile(
+                "(?is)charset\\s*=\\s*(?:['\\\"]\\s*)?([-_:\\.a-z0-9]+)");
+
+        private static final Charset ASCII = Charset.forName("US-ASCII");
+
+        public Charset detect(InputStream input, Metadata metadata) throws IOException {
+            input.mark(META_TAG_BUFFER_SIZE);
+            byte[] buffer = new byte[META_TAG_BUFFER_SIZE];
+            int n = 0;
+            int m = input.read(buffer);
+            while (m != -1 && n < buffer.length) {
+                n += m;
+                m = input.read(buffer, n, buffer.length - n);
+            }
+            input.reset();
+
+            String head = ASCII.decode(ByteBuffer.wrap(buffer, 0, n)).toString();
+            Matcher equiv = HTTP_META_PATTERN.matcher(head);
+            Matcher charsetMatcher = FLEXIBLE_CHARSET_ATTR_PATTERN.matcher("");
+            while (equiv.find()) {
+                charsetMatcher.reset(equiv.group(1));
+                while (charsetMatcher.find()) {
+                    String candidate = charsetMatcher.group(1);
+                    if (CharsetUtils.isSupported(candidate)) {
+                        try {
+                            return CharsetUtils.forName(candidate);
+                        } catch (Exception e) {
+                            // try the next one
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Counts the characters of the text, so that only the parse is measured.
+     */
+    private static class CountingHandler extends DefaultHandler {
+
+        private long count = 0;
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            count += length;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.serialization.JsonMetadataDeserializer;
+import org.apache.tika.metadata.serialization.JsonMetadataSerializer;
+import org.apache.tika.metadata.serialization.JsonMetadataStreamReader;
+import org.apache.tika.metadata.serialization.JsonMetadataStreamWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the Gson tree based serialization of a list of Metadata objects,
+ * as returned by the /rmeta endpoint, with the {@link JsonMetadataStreamWriter}
+ * and {@link JsonMetadataStreamReader}. Each Metadata object holds a content
+ * field of the given size.
+ * <p>
+ * Run the allocation comparison with the gc profiler:
+ * <pre>
+ * java -jar tika-benchmarks/target/tika-benchmarks.jar JsonMetadataBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMetadataBenchmark {
+
+    private static final Type LIST_TYPE = new TypeToken<List<Metadata>>(){}.getType();
+
+    @Param({"1024", "1048576"})
+    public int contentLength;
+
+    @Param({"10"})
+    public int documents;
+
+    private Gson gson;
+
+    private List<Metadata> metadataList;
+
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        GsonBuilder builder = new GsonBuilder();
+        builder.registerTypeHierarchyAdapter(Metadata.class, new JsonMetadataSerializer());
+        builder.registerTypeHierarchyAdapter(Metadata.class, new JsonMetadataDeserializer());
+        gson = builder.create();
+
+        Random random = new Random(42);
+        metadataList = new ArrayList<Metadata>();
+        for (int i = 0; i < documents; i++) {
+            Metadata metadata = new Metadata();
+            metadata.set(Metadata.CONTENT_TYPE, "text/html; charset=UTF-8");
+            metadata.set("X-Parsed-By", "org.apache.tika.parser.DefaultParser");
+            metadata.add("X-Parsed-By", "org.apache.tika.parser.html.HtmlParser");
+            metadata.set("resourceName", "document-" + i + ".html");
+            metadata.set("X-TIKA:content", content(random, contentLength));
+            metadataList.add(metadata);
+        }
+        StringWriter writer = new StringWriter();
+        new JsonMetadataStreamWriter(writer, false).write(metadataList);
+        json = writer.toString();
+    }
+
+    @Benchmark
+    public long writeGson() {
+        CountingWriter writer = new CountingWriter();
+        gson.toJson(metadataList, LIST_TYPE, writer);
+        return writer.count;
+    }
+
+    @Benchmark
+    public long writeStreaming() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        new JsonMetadataStreamWriter(writer, false).write(metadataList);
+        return writer.count;
+    }
+
+    @Benchmark
+    public List<Metadata> readGson() {
+        return gson.fromJson(new StringReader(json), LIST_TYPE);
+    }
+
+    @Benchmark
+    public List<Metadata> readStreaming() throws Exception {
+        return new JsonMetadataStreamReader(new StringReader(json)).readMetadataList();
+    }
+
+    /**
+     * Extracted text: words, punctuation that needs escaping and newlines.
+     */
+    private static String content(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            int r = random.nextInt(20);
+            if (r == 0) {
+                sb.append('\n');
+            } else if (r == 1) {
+                sb.append("\"quoted\" & <b>");
+            } else {
+                for (int i = 2 + random.nextInt(8); i > 0; i--) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                }
+                sb.append(' ');
+            }
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * Discards everything written to it, so that only the cost of
+     * serialization is measured.
+     */
+    private static class CountingWriter extends Writer {
+
+        private long count = 0;
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
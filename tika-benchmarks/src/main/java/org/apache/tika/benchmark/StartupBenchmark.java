@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.mime.MimeTypes;
+import org.apache.tika.mime.MimeTypesFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cold start of Tika: each benchmark runs once in each of a
+ * number of fresh JVMs, so that class loading and the loading of the
+ * default media type registry and parsers are included. The
+ * mimeTypesFromXML benchmark parses tika-mimetypes.xml, as a baseline
+ * for the compiled image used by defaultMimeTypes.
+ * <pre>
+ * java -jar tika-benchmarks/target/tika-benchmarks.jar StartupBenchmark -f 20
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Benchmark
+    public MimeTypes defaultMimeTypes() {
+        return MimeTypes.getDefaultMimeTypes();
+    }
+
+    @Benchmark
+    public MimeTypes mimeTypesFromXML() throws Exception {
+        return MimeTypesFactory.create(
+                MimeTypes.class.getResource("tika-mimetypes.xml"));
+    }
+
+    @Benchmark
+    public Tika newTika() {
+        return new Tika();
+    }
+
+    @Benchmark
+    public TikaConfig defaultConfig() {
+        return TikaConfig.getDefaultConfig();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.external.ExternalParser;
+import org.apache.tika.parser.strings.StringsConfig;
+import org.apache.tika.parser.strings.StringsEncoding;
+import org.apache.tika.parser.strings.StringsParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compares the {@link StringsParser} running the "strings" command with the
+ * parser using the pure java extractor, on a corpus of executables. Each
+ * invocation parses every file of the corpus, which by default is the bin
+ * directory of the running JDK, or JRE. Another directory can be given with
+ * the corpus parameter:
+ * <pre>
+ * java -jar tika-benchmarks/target/tika-benchmarks.jar StringsBenchmark -p corpus=/usr/bin
+ * </pre>
+ * The command benchmark is skipped when the "strings" command is not
+ * available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StringsBenchmark {
+
+    @Param({""})
+    public String corpus;
+
+    @Param({"SINGLE_7_BIT", "LITTLEENDIAN_16_BIT"})
+    public StringsEncoding encoding;
+
+    private final StringsParser parser = new StringsParser();
+
+    private List<File> files;
+
+    private ParseContext javaContext;
+
+    private ParseContext commandContext;
+
+    private boolean hasStrings;
+
+    @Setup
+    public void setup() throws IOException {
+        File directory = corpus.isEmpty()
+                ? new File(System.getProperty("java.home"), "bin")
+                : new File(corpus);
+        File[] children = directory.listFiles();
+        if (children == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        Arrays.sort(children);
+        files = new ArrayList<File>();
+        for (File child : children) {
+            if (child.isFile()) {
+                files.add(child);
+            }
+        }
+
+        StringsConfig javaConfig = new StringsConfig();
+        javaConfig.setEncoding(encoding);
+        javaContext = new ParseContext();
+        javaContext.set(StringsConfig.class, javaConfig);
+
+        StringsConfig commandConfig = new StringsConfig();
+        commandConfig.setEncoding(encoding);
+        commandConfig.setUseStringsCommand(true);
+        commandContext = new ParseContext();
+        commandContext.set(StringsConfig.class, commandConfig);
+
+        hasStrings = ExternalParser.check(new String[] {
+                commandConfig.getStringsPath() + StringsParser.getStringsProg(), "--version"});
+    }
+
+    @Benchmark
+    public long pureJava() throws Exception {
+        return parseAll(javaContext);
+    }
+
+    @Benchmark
+    public long stringsCommand() throws Exception {
+        if (!hasStrings) {
+            return 0;
+        }
+        return parseAll(commandContext);
+    }
+
+    private long parseAll(ParseContext context) throws Exception {
+        long length = 0;
+        for (File file : files) {
+            CountingHandler handler = new CountingHandler();
+            InputStream stream = new FileInputStream(file);
+            try {
+                parser.parse(stream, handler, new Metadata(), context);
+            } finally {
+                stream.close();
+            }
+            length += handler.count;
+        }
+        return length;
+    }
+
+    /**
+     * Counts the characters of the strings, so that only the cost of finding
+     * them is measured.
+     */
+    private static class CountingHandler extends DefaultHandler {
+
+        private long count = 0;
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            count += length;
+        }
+    }
+}
@@ -209,6 +209,10 @@ public class ServiceLoader {
      *  service files.
      */
     public Enumeration<URL> findServiceResources(String filePattern) {
+       if (loader == null) {
+          List<URL> empty = Collections.emptyList();
+          return Collections.enumeration( empty );
+       }
        try {    	  
           Enumeration<URL> resources = loader.getResources(filePattern);
           return resources;
@@ -272,7 +276,7 @@ public class ServiceLoader {
      * @param iface service provider interface
      * @return static list of uninitialised service providers
      */
-    protected <T> List<String> identifyStaticServiceProviders(Class<T> iface) {
+    public <T> List<String> identifyStaticServiceProviders(Class<T> iface) {
         List<String> names = new ArrayList<String>();
 
         if (loader != null) {
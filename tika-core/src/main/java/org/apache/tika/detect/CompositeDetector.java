@@ -28,8 +28,14 @@ import org.apache.tika.mime.MediaTypeRegistry;
 
 /**
  * Content type detector that combines multiple different detection mechanisms.
+ * <p>
+ * The first bytes of the document are read only once, and shared by the
+ * component detectors that are {@link PrefixDetector}s. The detectors are
+ * used in order, each result replacing the current type if it is a
+ * specialization of it, until a type without known specializations in the
+ * media type registry is found, as no later result could replace it.
  */
-public class CompositeDetector implements Detector {
+public class CompositeDetector implements PrefixDetector {
 
     /**
      * Serial version UID
@@ -55,17 +61,87 @@ public class CompositeDetector implements Detector {
     }
 
     public MediaType detect(InputStream input, Metadata metadata)
-            throws IOException { 
+            throws IOException {
+        List<Detector> detectors = getDetectors();
+        int length = getPrefixLength(detectors);
+        if (input == null || length == 0) {
+            return detect(detectors, input, null, metadata);
+        }
+        byte[] prefix;
+        input.mark(length);
+        try {
+            prefix = readPrefix(input, length);
+        } finally {
+            input.reset();
+        }
+        return detect(detectors, input, prefix, metadata);
+    }
+
+    public MediaType detect(InputStream input, byte[] prefix, Metadata metadata)
+            throws IOException {
+        return detect(getDetectors(), input, prefix, metadata);
+    }
+
+    /**
+     * Returns the longest prefix needed by the component detectors.
+     */
+    public int getPrefixLength() {
+        return getPrefixLength(getDetectors());
+    }
+
+    private MediaType detect(
+            List<Detector> detectors, InputStream input, byte[] prefix,
+            Metadata metadata) throws IOException {
         MediaType type = MediaType.OCTET_STREAM;
-        for (Detector detector : getDetectors()) {
-            MediaType detected = detector.detect(input, metadata);
+        for (Detector detector : detectors) {
+            MediaType detected;
+            if (prefix != null && detector instanceof PrefixDetector) {
+                detected = ((PrefixDetector) detector).detect(input, prefix, metadata);
+            } else {
+                detected = detector.detect(input, metadata);
+            }
             if (registry.isSpecializationOf(detected, type)) {
                 type = detected;
+                if (!registry.hasSpecializations(type)) {
+                    // no later detector can find a more specific type
+                    break;
+                }
             }
         }
         return type;
     }
 
+    private static int getPrefixLength(List<Detector> detectors) {
+        int length = 0;
+        for (Detector detector : detectors) {
+            if (detector instanceof PrefixDetector) {
+                length = Math.max(length, ((PrefixDetector) detector).getPrefixLength());
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Reads up to the given number of bytes from the stream, returning an
+     * array of the number of bytes actually read.
+     */
+    private static byte[] readPrefix(InputStream input, int length)
+            throws IOException {
+        byte[] bytes = new byte[length];
+        int total = 0;
+        int n;
+        while (total < length
+                && (n = input.read(bytes, total, length - total)) != -1) {
+            total += n;
+        }
+        if (total == length) {
+            return bytes;
+        }
+        byte[] shorter = new byte[total];
+        System.arraycopy(bytes, 0, shorter, 0, total);
+        return shorter;
+    }
+
     /**
      * Returns the component detectors.
      */
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+
+/**
+ * Content type detector that can work from the first few bytes of the
+ * document, read by the caller. A {@link CompositeDetector} reads these
+ * bytes once, as many as the longest prefix needed by its component
+ * detectors, and shares them between all of them, instead of letting
+ * each detector mark, read and reset the stream. A detector that needs
+ * more than the prefix, for example to look inside a container format,
+ * can still read the stream, but should first check its preconditions,
+ * such as the magic bytes of the container, on the prefix.
+ *
+ * @since Apache Tika 1.9
+ */
+public interface PrefixDetector extends Detector {
+
+    /**
+     * Returns the number of bytes from the start of the document needed
+     * by {@link #detect(InputStream, byte[], Metadata)}.
+     *
+     * @return prefix length
+     */
+    int getPrefixLength();
+
+    /**
+     * Detects the content type of the given input document, as
+     * {@link #detect(InputStream, Metadata)}, given the first bytes of
+     * the document.
+     *
+     * @param input document input stream, at the start of the document
+     * @param prefix first bytes of the document, at least
+     *               {@link #getPrefixLength()} long, or shorter only if the
+     *               document itself is shorter. Must not be modified.
+     * @param metadata input metadata for the document
+     * @return detected media type, or <code>application/octet-stream</code>
+     * @throws IOException if the document input stream could not be read
+     */
+    MediaType detect(InputStream input, byte[] prefix, Metadata metadata)
+            throws IOException;
+
+}
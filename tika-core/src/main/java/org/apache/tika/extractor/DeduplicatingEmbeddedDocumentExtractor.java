@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import static org.apache.tika.sax.XHTMLContentHandler.XHTML;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.tika.exception.EncryptedDocumentException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.CloseShieldInputStream;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.DelegatingParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.EmbeddedContentHandler;
+import org.apache.tika.sax.SAXEventRecorder;
+import org.apache.tika.sax.TeeContentHandler;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Embedded document extractor that parses each distinct embedded document
+ * only once. The SHA-256 digest of each embedded document is computed
+ * while it is spooled to a temporary file. If a document with the same
+ * digest has been parsed before, its recorded content is written to the
+ * content handler, and its metadata added to the metadata of the
+ * duplicate, instead of parsing it again.
+ * <p>
+ * To find the duplicates within a document, including those in nested
+ * containers, pass an instance through the ParseContext:
+ * <p>
+ * context.set(EmbeddedDocumentExtractor.class,
+ *         new DeduplicatingEmbeddedDocumentExtractor(context));
+ * </p>
+ * To also find duplicates across documents, give the extractors of those
+ * documents the same {@link EmbeddedDocumentCache}.
+ * <p>
+ * Besides the digest, the cache key contains the class of the parser in
+ * the ParseContext, and the type hints of the embedded document: its
+ * content type and the extension of its name, if any. The key does not
+ * cover the other configuration in the ParseContext, such as the parser
+ * configuration objects or the configuration of the parser itself, so a
+ * cache must only be shared by extractors whose contexts parse documents
+ * the same way.
+ *
+ * @since Apache Tika 1.9
+ */
+public class DeduplicatingEmbeddedDocumentExtractor
+        extends ParsingEmbeddedDocumentExtractor {
+
+    /**
+     * Hex encoded SHA-256 digest of the bytes of an embedded document.
+     */
+    public static final Property EMBEDDED_DIGEST = Property.internalText(
+            TikaCoreProperties.TIKA_META_PREFIX + "embedded_digest");
+
+    /**
+     * Whether the content and metadata of an embedded document were taken
+     * from an earlier document with the same digest, instead of parsing it.
+     */
+    public static final Property EMBEDDED_DUPLICATE = Property.internalBoolean(
+            TikaCoreProperties.TIKA_META_PREFIX + "embedded_duplicate");
+
+    /**
+     * Default maximum number of characters of content kept by the cache
+     * of a single extractor.
+     */
+    public static final long DEFAULT_MAX_CHARACTERS = 16 * 1024 * 1024;
+
+    private static final Parser DELEGATING_PARSER = new DelegatingParser();
+
+    private static final Logger LOG =
+            Logger.getLogger(DeduplicatingEmbeddedDocumentExtractor.class.getName());
+
+    private final ParseContext context;
+
+    private final EmbeddedDocumentCache cache;
+
+    /**
+     * Creates an extractor with its own cache.
+     */
+    public DeduplicatingEmbeddedDocumentExtractor(ParseContext context) {
+        this(context, new EmbeddedDocumentCache(DEFAULT_MAX_CHARACTERS));
+    }
+
+    /**
+     * Creates an extractor with the given, possibly shared, cache.
+     */
+    public DeduplicatingEmbeddedDocumentExtractor(
+            ParseContext context, EmbeddedDocumentCache cache) {
+        super(context);
+        this.context = context;
+        this.cache = cache;
+    }
+
+    /**
+     * @return cache of the parse results
+     */
+    public EmbeddedDocumentCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public void parseEmbedded(
+            InputStream stream, ContentHandler handler, Metadata metadata,
+            boolean outputHtml) throws SAXException, IOException {
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            MessageDigest digest = getDigest();
+            TikaInputStream newStream = TikaInputStream.get(
+                    new DigestInputStream(new CloseShieldInputStream(stream), digest), tmp);
+            if (stream instanceof TikaInputStream) {
+                final Object container = ((TikaInputStream) stream).getOpenContainer();
+                if (container != null) {
+                    newStream.setOpenContainer(container);
+                }
+            }
+            // spooling the document passes all of it through the digest
+            newStream.getFile();
+            String hex = toHex(digest.digest());
+            metadata.set(EMBEDDED_DIGEST, hex);
+            String key = getKey(hex, metadata);
+
+            if (outputHtml) {
+                startEntry(handler, metadata);
+            }
+
+            EmbeddedDocumentCache.Result result = cache.get(key);
+            if (result != null) {
+                Metadata cached = result.getMetadata();
+                for (String name : cached.names()) {
+                    if (metadata.get(name) == null) {
+                        for (String value : cached.getValues(name)) {
+                            metadata.add(name, value);
+                        }
+                    }
+                }
+                metadata.set(EMBEDDED_DUPLICATE, Boolean.TRUE.toString());
+                result.getContent().replay(handler);
+            } else {
+                SAXEventRecorder recorder = new SAXEventRecorder();
+                try {
+                    DELEGATING_PARSER.parse(
+                            newStream,
+                            new EmbeddedContentHandler(new BodyContentHandler(
+                                    new TeeContentHandler(handler, recorder))),
+                            metadata, context);
+                    cache.put(key, recorder, metadata);
+                } catch (EncryptedDocumentException e) {
+                    // skip the content, and parse duplicates again in case
+                    // a password is available by then
+                    LOG.log(Level.INFO, "Skipped encrypted embedded document "
+                            + getName(metadata), e);
+                } catch (TikaException e) {
+                    LOG.log(Level.WARNING, "Unable to parse embedded document "
+                            + getName(metadata), e);
+                }
+            }
+
+            if (outputHtml) {
+                handler.endElement(XHTML, "div", "div");
+            }
+        } finally {
+            tmp.close();
+        }
+    }
+
+    private static void startEntry(ContentHandler handler, Metadata metadata)
+            throws SAXException {
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "class", "class", "CDATA", "package-entry");
+        handler.startElement(XHTML, "div", "div", attributes);
+
+        String name = metadata.get(Metadata.RESOURCE_NAME_KEY);
+        if (name != null && name.length() > 0) {
+            handler.startElement(XHTML, "h1", "h1", new AttributesImpl());
+            char[] chars = name.toCharArray();
+            handler.characters(chars, 0, chars.length);
+            handler.endElement(XHTML, "h1", "h1");
+        }
+    }
+
+    /**
+     * Returns the cache key of an embedded document, made of its digest and
+     * of what else decides how it is parsed.
+     */
+    private String getKey(String digest, Metadata metadata) {
+        StringBuilder key = new StringBuilder(digest);
+        key.append(' ');
+        Parser parser = context.get(Parser.class);
+        if (parser != null) {
+            key.append(parser.getClass().getName());
+        }
+        key.append(' ');
+        String type = metadata.get(Metadata.CONTENT_TYPE);
+        if (type != null) {
+            key.append(type);
+        }
+        key.append(' ');
+        String name = metadata.get(Metadata.RESOURCE_NAME_KEY);
+        if (name != null) {
+            int dot = name.lastIndexOf('.');
+            if (dot != -1 && name.indexOf('/', dot) == -1) {
+                key.append(name.substring(dot).toLowerCase(Locale.ROOT));
+            }
+        }
+        return key.toString();
+    }
+
+    private static String getName(Metadata metadata) {
+        String name = metadata.get(Metadata.RESOURCE_NAME_KEY);
+        if (name == null) {
+            name = metadata.get(EMBEDDED_DIGEST);
+        }
+        return name;
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.sax.SAXEventRecorder;
+
+/**
+ * Cache of the parse results of embedded documents for the
+ * {@link DeduplicatingEmbeddedDocumentExtractor}, keyed by the digest of
+ * the document bytes and the type hints and parser used for it. The least
+ * recently used results are evicted once the total number of characters
+ * of the cached content exceeds a limit.
+ * <p>
+ * A cache can be shared between extractors, so that duplicates are also
+ * found across the documents they are used for, as long as those are
+ * parsed with the same configuration. This class is thread safe.
+ *
+ * @since Apache Tika 1.9
+ */
+public class EmbeddedDocumentCache {
+
+    private final long maxCharacters;
+
+    private final Map<String, Result> results =
+            new LinkedHashMap<String, Result>(16, 0.75f, true);
+
+    private long characters = 0;
+
+    private long hits = 0;
+
+    private long lookups = 0;
+
+    /**
+     * @param maxCharacters maximum total number of characters of the
+     *                      cached content
+     */
+    public EmbeddedDocumentCache(long maxCharacters) {
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Looks up the parse result of a document.
+     *
+     * @param key key of the document, see
+     *            {@link DeduplicatingEmbeddedDocumentExtractor}
+     * @return the cached result, or null if there is none
+     */
+    public synchronized Result get(String key) {
+        lookups++;
+        Result result = results.get(key);
+        if (result != null) {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the parse result of a document. Results that are larger than
+     * the whole cache are not stored.
+     *
+     * @param key key of the document, see
+     *            {@link DeduplicatingEmbeddedDocumentExtractor}
+     * @param content recorded content of the document, which must not be
+     *                changed afterwards
+     * @param metadata metadata of the document, which is copied
+     */
+    public synchronized void put(
+            String key, SAXEventRecorder content, Metadata metadata) {
+        long size = content.getCharacterCount();
+        if (size > maxCharacters) {
+            return;
+        }
+        Result previous = results.put(key, new Result(content, metadata));
+        if (previous != null) {
+            characters -= previous.content.getCharacterCount();
+        }
+        characters += size;
+        Iterator<Result> iterator = results.values().iterator();
+        while (characters > maxCharacters && iterator.hasNext()) {
+            characters -= iterator.next().content.getCharacterCount();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return number of lookups that found a result
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups
+     */
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    /**
+     * Cached parse result of an embedded document.
+     */
+    public static class Result {
+
+        private final SAXEventRecorder content;
+
+        private final Metadata metadata = new Metadata();
+
+        private Result(SAXEventRecorder content, Metadata metadata) {
+            this.content = content;
+            for (String name : metadata.names()) {
+                for (String value : metadata.getValues(name)) {
+                    this.metadata.add(name, value);
+                }
+            }
+        }
+
+        /**
+         * @return recorded content of the document
+         */
+        public SAXEventRecorder getContent() {
+            return content;
+        }
+
+        /**
+         * @return metadata of the document, which must not be changed
+         */
+        public Metadata getMetadata() {
+            return metadata;
+        }
+    }
+}
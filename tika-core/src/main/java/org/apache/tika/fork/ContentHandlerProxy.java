@@ -18,14 +18,32 @@ package org.apache.tika.fork;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 
-class ContentHandlerProxy implements ContentHandler, ForkProxy {
+/**
+ * Forwards SAX events from the forked server process to the content handler
+ * of the parent process. The events are encoded into a buffer, which is
+ * sent to the {@link ContentHandlerResource} as a single frame when it is
+ * full, at the end of the document, when the previous frame was sent more
+ * than {@link #MAX_FRAME_DELAY} milliseconds ago, and before the forked
+ * server returns from a call.
+ * <p>
+ * In a frame, each event is its type followed by its arguments. Numbers
+ * are variable length, seven bits per byte. Characters are encoded like
+ * in modified UTF-8, preceded by their number. Strings are either null,
+ * a literal, or an index in a table of the names (namespaces, element and
+ * attribute names and types) sent earlier, so that each name is only sent
+ * once.
+ */
+class ContentHandlerProxy implements ContentHandler, ForkProxy, Flushable {
 
     public static final int START_DOCUMENT         =  1;
     public static final int END_DOCUMENT           =  2;
@@ -38,6 +56,33 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
     public static final int PROCESSING_INSTRUCTION =  9;
     public static final int SKIPPED_ENTITY         = 10;
 
+    /** Encoding of a null string */
+    public static final int NULL_STRING = 0;
+
+    /** Encoding of a string that is not added to the table */
+    public static final int LITERAL_STRING = 1;
+
+    /** Encoding of a string that is added to the table */
+    public static final int NEW_STRING = 2;
+
+    /** Encoding of a string of the table, followed by its index */
+    public static final int TABLE_STRING = 3;
+
+    /** Size of the frames, in bytes, after which they are sent */
+    public static final int FRAME_SIZE = 64 * 1024;
+
+    /** Maximum time to hold back the events, in milliseconds */
+    public static final long MAX_FRAME_DELAY = 1000;
+
+    /** Maximum number of strings in the table */
+    public static final int MAX_TABLE_SIZE = 4096;
+
+    /**
+     * Maximum number of characters per character event, larger arrays
+     * are split into several events.
+     */
+    private static final int MAX_CHARACTERS = FRAME_SIZE / 4;
+
     /** Serial version UID */
     private static final long serialVersionUID = 737511106054617524L;
 
@@ -45,55 +90,137 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
 
     private transient DataOutputStream output;
 
+    private transient byte[] frame;
+
+    private transient int length;
+
+    private transient long lastFrame;
+
+    private transient Map<String, Integer> table;
+
     public ContentHandlerProxy(int resource) {
         this.resource = resource;
     }
 
     public void init(DataInputStream input, DataOutputStream output) {
         this.output = output;
+        this.frame = new byte[FRAME_SIZE + 1024];
+        this.length = 0;
+        this.lastFrame = System.currentTimeMillis();
+        this.table = new HashMap<String, Integer>();
     }
 
-    private void sendRequest(int type) throws SAXException {
-        try {
+    /**
+     * Sends the buffered events to the parent process.
+     *
+     * @throws IOException if the events could not be sent
+     */
+    public void flush() throws IOException {
+        if (length > 0) {
             output.writeByte(ForkServer.RESOURCE);
             output.writeByte(resource);
-            output.writeByte(type);
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+            output.writeInt(length);
+            output.write(frame, 0, length);
+            length = 0;
         }
+        output.flush();
+        lastFrame = System.currentTimeMillis();
     }
 
-    private void sendString(String string) throws SAXException {
+    private void doneSending() throws SAXException {
         try {
-            if (string != null) {
-                output.writeBoolean(true);
-                output.writeUTF(string);
-            } else {
-                output.writeBoolean(false);
+            if (length >= FRAME_SIZE
+                    || System.currentTimeMillis() - lastFrame > MAX_FRAME_DELAY) {
+                flush();
             }
         } catch (IOException e) {
             throw new SAXException("Unexpected fork proxy problem", e);
         }
     }
 
-    private void sendCharacters(char[] ch, int start, int length)
-            throws SAXException {
-        try {
-            output.writeInt(length);
-            for (int i = 0; i < length; i++) {
-                output.writeChar(ch[start + i]);
-            }
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+    private void ensure(int n) {
+        if (length + n > frame.length) {
+            byte[] buffer = new byte[Math.max(length + n, 2 * frame.length)];
+            System.arraycopy(frame, 0, buffer, 0, length);
+            frame = buffer;
         }
     }
 
-    private void doneSending() throws SAXException {
-        try {
-            output.flush();
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+    private void sendRequest(int type) {
+        ensure(1);
+        frame[length++] = (byte) type;
+    }
+
+    private void sendNumber(int n) {
+        ensure(5);
+        while ((n & ~0x7F) != 0) {
+            frame[length++] = (byte) ((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        frame[length++] = (byte) n;
+    }
+
+    /**
+     * Sends a namespace, name or type, which is added to the table unless
+     * it is full.
+     */
+    private void sendName(String name) {
+        if (name == null) {
+            sendNumber(NULL_STRING);
+            return;
+        }
+        Integer index = table.get(name);
+        if (index != null) {
+            sendNumber(TABLE_STRING + index);
+        } else if (table.size() < MAX_TABLE_SIZE) {
+            table.put(name, table.size());
+            sendNumber(NEW_STRING);
+            sendChars(name.toCharArray(), 0, name.length());
+        } else {
+            sendString(name);
+        }
+    }
+
+    private void sendString(String string) {
+        if (string != null) {
+            sendNumber(LITERAL_STRING);
+            sendChars(string.toCharArray(), 0, string.length());
+        } else {
+            sendNumber(NULL_STRING);
+        }
+    }
+
+    private void sendChars(char[] ch, int start, int n) {
+        sendNumber(n);
+        ensure(3 * n);
+        byte[] b = frame;
+        int p = length;
+        for (int i = start; i < start + n; i++) {
+            char c = ch[i];
+            if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
         }
+        length = p;
+    }
+
+    private void sendCharacters(int type, char[] ch, int start, int n)
+            throws SAXException {
+        do {
+            int chunk = Math.min(n, MAX_CHARACTERS);
+            sendRequest(type);
+            sendChars(ch, start, chunk);
+            doneSending();
+            start += chunk;
+            n -= chunk;
+        } while (n > 0);
     }
 
     public void setDocumentLocator(Locator locator) {
@@ -107,20 +234,24 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
 
     public void endDocument() throws SAXException {
         sendRequest(END_DOCUMENT);
-        doneSending();
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new SAXException("Unexpected fork proxy problem", e);
+        }
     }
 
     public void startPrefixMapping(String prefix, String uri)
             throws SAXException {
         sendRequest(START_PREFIX_MAPPING);
-        sendString(prefix);
-        sendString(uri);
+        sendName(prefix);
+        sendName(uri);
         doneSending();
     }
 
     public void endPrefixMapping(String prefix) throws SAXException {
         sendRequest(END_PREFIX_MAPPING);
-        sendString(prefix);
+        sendName(prefix);
         doneSending();
     }
 
@@ -128,23 +259,19 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
             String uri, String localName, String qName, Attributes atts)
             throws SAXException {
         sendRequest(START_ELEMENT);
-        sendString(uri);
-        sendString(localName);
-        sendString(qName);
+        sendName(uri);
+        sendName(localName);
+        sendName(qName);
         int n = -1;
         if (atts != null) {
             n = atts.getLength();
         }
-        try {
-            output.writeInt(n);
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
-        }
+        sendNumber(n + 1);
         for (int i = 0; i < n; i++) {
-            sendString(atts.getURI(i));
-            sendString(atts.getLocalName(i));
-            sendString(atts.getQName(i));
-            sendString(atts.getType(i));
+            sendName(atts.getURI(i));
+            sendName(atts.getLocalName(i));
+            sendName(atts.getQName(i));
+            sendName(atts.getType(i));
             sendString(atts.getValue(i));
         }
         doneSending();
@@ -153,37 +280,33 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
     public void endElement(String uri, String localName, String qName)
             throws SAXException {
         sendRequest(END_ELEMENT);
-        sendString(uri);
-        sendString(localName);
-        sendString(qName);
+        sendName(uri);
+        sendName(localName);
+        sendName(qName);
         doneSending();
     }
 
     public void characters(char[] ch, int start, int length)
             throws SAXException {
-        sendRequest(CHARACTERS);
-        sendCharacters(ch, start, length);
-        doneSending();
+        sendCharacters(CHARACTERS, ch, start, length);
     }
 
     public void ignorableWhitespace(char[] ch, int start, int length)
             throws SAXException {
-        sendRequest(IGNORABLE_WHITESPACE);
-        sendCharacters(ch, start, length);
-        doneSending();
+        sendCharacters(IGNORABLE_WHITESPACE, ch, start, length);
     }
 
     public void processingInstruction(String target, String data)
             throws SAXException {
         sendRequest(PROCESSING_INSTRUCTION);
-        sendString(target);
+        sendName(target);
         sendString(data);
         doneSending();
     }
 
     public void skippedEntity(String name) throws SAXException {
         sendRequest(SKIPPED_ENTITY);
-        sendString(name);
+        sendName(name);
         doneSending();
     }
 
@@ -19,89 +19,174 @@ package org.apache.tika.fork;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
+/**
+ * Decodes the frames of SAX events sent by a {@link ContentHandlerProxy}
+ * and passes the events to the content handler.
+ */
 class ContentHandlerResource implements ForkResource {
 
     private final ContentHandler handler;
 
+    private final List<String> table = new ArrayList<String>();
+
+    private byte[] frame = new byte[ContentHandlerProxy.FRAME_SIZE];
+
+    private int length;
+
+    private int position;
+
+    private char[] buffer = new char[1024];
+
     public ContentHandlerResource(ContentHandler handler) {
         this.handler = handler;
     }
 
     public Throwable process(DataInputStream input, DataOutputStream output)
             throws IOException {
-        try {
-            internalProcess(input);
-            return null;
-        } catch (SAXException e) {
-            return e;
+        length = input.readInt();
+        if (frame.length < length) {
+            frame = new byte[length];
         }
+        input.readFully(frame, 0, length);
+        position = 0;
+
+        // As with separate messages, an event is still passed to the
+        // handler after the previous one failed
+        SAXException exception = null;
+        while (position < length) {
+            try {
+                internalProcess();
+            } catch (SAXException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+        return exception;
     }
 
-    private void internalProcess(DataInputStream input)
-            throws IOException, SAXException {
-        int type = input.readUnsignedByte();
+    private void internalProcess() throws IOException, SAXException {
+        int type = frame[position++];
         if (type == ContentHandlerProxy.START_DOCUMENT) {
             handler.startDocument();
         } else if (type == ContentHandlerProxy.END_DOCUMENT) {
             handler.endDocument();
         } else if (type == ContentHandlerProxy.START_PREFIX_MAPPING) {
-            handler.startPrefixMapping(readString(input), readString(input));
+            handler.startPrefixMapping(readString(), readString());
         } else if (type == ContentHandlerProxy.END_PREFIX_MAPPING) {
-            handler.endPrefixMapping(readString(input));
+            handler.endPrefixMapping(readString());
         } else if (type == ContentHandlerProxy.START_ELEMENT) {
-            String uri = readString(input);
-            String localName = readString(input);
-            String qName = readString(input);
+            String uri = readString();
+            String localName = readString();
+            String qName = readString();
             AttributesImpl atts = null;
-            int n = input.readInt();
+            int n = readNumber() - 1;
             if (n >= 0) {
                 atts = new AttributesImpl();
                 for (int i = 0; i < n; i++) {
                     atts.addAttribute(
-                            readString(input), readString(input),
-                            readString(input), readString(input),
-                            readString(input));
+                            readString(), readString(),
+                            readString(), readString(),
+                            readString());
                 }
             }
             handler.startElement(uri, localName, qName, atts);
         } else if (type == ContentHandlerProxy.END_ELEMENT) {
-            String uri = readString(input);
-            String localName = readString(input);
-            String qName = readString(input);
+            String uri = readString();
+            String localName = readString();
+            String qName = readString();
             handler.endElement(uri, localName, qName);
         } else if (type == ContentHandlerProxy.CHARACTERS) {
-            char[] ch = readCharacters(input);
-            handler.characters(ch, 0, ch.length);
+            int n = readCharacters();
+            handler.characters(buffer, 0, n);
         } else if (type == ContentHandlerProxy.IGNORABLE_WHITESPACE) {
-            char[] ch = readCharacters(input);
-            handler.characters(ch, 0, ch.length);
+            int n = readCharacters();
+            handler.characters(buffer, 0, n);
         } else if (type == ContentHandlerProxy.PROCESSING_INSTRUCTION) {
-            handler.processingInstruction(readString(input), readString(input));
+            handler.processingInstruction(readString(), readString());
         } else if (type == ContentHandlerProxy.SKIPPED_ENTITY) {
-            handler.skippedEntity(readString(input));
+            handler.skippedEntity(readString());
+        } else {
+            throw new IOException("Unexpected SAX event type: " + type);
         }
     }
 
-    private String readString(DataInputStream input) throws IOException {
-        if (input.readBoolean()) {
-            return input.readUTF();
-        } else {
+    private int readNumber() throws IOException {
+        int n = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (position >= length) {
+                throw new IOException("Truncated SAX event frame");
+            }
+            int b = frame[position++];
+            n |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return n;
+            }
+        }
+        throw new IOException("Invalid SAX event frame");
+    }
+
+    private String readString() throws IOException {
+        int code = readNumber();
+        if (code == ContentHandlerProxy.NULL_STRING) {
             return null;
+        } else if (code == ContentHandlerProxy.LITERAL_STRING) {
+            return new String(buffer, 0, readCharacters());
+        } else if (code == ContentHandlerProxy.NEW_STRING) {
+            String string = new String(buffer, 0, readCharacters());
+            table.add(string);
+            return string;
+        } else {
+            int index = code - ContentHandlerProxy.TABLE_STRING;
+            if (index < 0 || index >= table.size()) {
+                throw new IOException("Invalid SAX event frame");
+            }
+            return table.get(index);
         }
     }
 
-    private char[] readCharacters(DataInputStream input) throws IOException {
-        int n = input.readInt();
-        char[] ch = new char[n];
-        for (int i = 0; i < n; i++) {
-            ch[i] = input.readChar();
+    /**
+     * Decodes characters into the buffer.
+     *
+     * @return number of characters
+     */
+    private int readCharacters() throws IOException {
+        int n = readNumber();
+        if (n < 0 || n > length - position) {
+            throw new IOException("Invalid SAX event frame");
+        }
+        if (buffer.length < n) {
+            buffer = new char[Math.max(n, 2 * buffer.length)];
+        }
+        byte[] b = frame;
+        int p = position;
+        try {
+            for (int i = 0; i < n; i++) {
+                int c = b[p++];
+                if (c >= 0) {
+                    buffer[i] = (char) c;
+                } else if ((c & 0xE0) == 0xC0) {
+                    buffer[i] = (char) (((c & 0x1F) << 6) | (b[p++] & 0x3F));
+                } else {
+                    buffer[i] = (char) (((c & 0x0F) << 12)
+                            | ((b[p++] & 0x3F) << 6) | (b[p++] & 0x3F));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated SAX event frame");
+        }
+        if (p > length) {
+            throw new IOException("Truncated SAX event frame");
         }
-        return ch;
+        position = p;
+        return n;
     }
 
 }
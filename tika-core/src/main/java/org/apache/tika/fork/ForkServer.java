@@ -19,6 +19,7 @@ package org.apache.tika.fork;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
@@ -142,8 +143,10 @@ class ForkServer implements Runnable, Checksum {
         }
         try {
             method.invoke(object, args);
+            flush(args);
             output.write(DONE);
         } catch (InvocationTargetException e) {
+            flush(args);
             output.write(ERROR);
             
             // Try to send the underlying Exception itself
@@ -159,6 +162,21 @@ class ForkServer implements Runnable, Checksum {
         }
     }
 
+    /**
+     * Sends the data held back by the proxies among the given arguments,
+     * like the SAX events of a content handler, before the call returns.
+     *
+     * @param args arguments of a call
+     * @throws IOException if the data could not be sent
+     */
+    private void flush(Object[] args) throws IOException {
+        for (Object arg : args) {
+            if (arg instanceof ForkProxy && arg instanceof Flushable) {
+                ((Flushable) arg).flush();
+            }
+        }
+    }
+
     private Method getMethod(Object object, String name) {
         Class<?> klass = object.getClass();
         while (klass != null) {
@@ -18,7 +18,9 @@ package org.apache.tika.mime;
 
 import java.io.Serializable;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -55,6 +57,13 @@ public class MediaTypeRegistry implements Serializable {
     private final Map<MediaType, MediaType> inheritance =
         new HashMap<MediaType, MediaType>();
 
+    /**
+     * Known types with specializations: the supertypes of the known type
+     * inheritance relationships, and the base types of the known types
+     * with parameters.
+     */
+    private final Set<MediaType> parents = new HashSet<MediaType>();
+
     /**
      * Returns the set of all known canonical media types. Type aliases are
      * not included in the returned set.
@@ -102,6 +111,9 @@ public class MediaTypeRegistry implements Serializable {
 
     public void addType(MediaType type) {
         registry.put(type, type);
+        if (type.hasParameters()) {
+            parents.add(type.getBaseType());
+        }
     }
 
     public void addAlias(MediaType type, MediaType alias) {
@@ -110,6 +122,7 @@ public class MediaTypeRegistry implements Serializable {
 
     public void addSuperType(MediaType type, MediaType supertype) {
         inheritance.put(type, supertype);
+        parents.add(supertype);
     }
 
     public MediaType normalize(MediaType type) {
@@ -169,6 +182,28 @@ public class MediaTypeRegistry implements Serializable {
         return isInstanceOf(normalize(MediaType.parse(a)), b);
     }
 
+    /**
+     * Checks whether there are known specializations of the given type,
+     * that is, whether a type detected after the given one could replace it
+     * as more specific. This is the case for the supertypes of the known
+     * type inheritance relationships, the base types of the known types
+     * with parameters, and the generic types of the built-in heuristics of
+     * {@link #getSupertype(MediaType)}. Other types with parameters are
+     * not taken into account.
+     *
+     * @since Apache Tika 1.9
+     * @param type media type, normalised
+     * @return <code>true</code> if the type may have specializations,
+     *         <code>false</code> if it is a leaf type
+     */
+    public boolean hasSpecializations(MediaType type) {
+        return parents.contains(type)
+                || MediaType.OCTET_STREAM.equals(type)
+                || MediaType.TEXT_PLAIN.equals(type)
+                || MediaType.APPLICATION_XML.equals(type)
+                || MediaType.APPLICATION_ZIP.equals(type);
+    }
+
     /**
      * Returns the supertype of the given type. If the media type database
      * has an explicit inheritance rule for the type, then that is used. 
@@ -34,7 +34,7 @@ import java.util.Map;
 import javax.xml.namespace.QName;
 
 import org.apache.tika.Tika;
-import org.apache.tika.detect.Detector;
+import org.apache.tika.detect.PrefixDetector;
 import org.apache.tika.detect.TextDetector;
 import org.apache.tika.detect.XmlRootExtractor;
 import org.apache.tika.metadata.Metadata;
@@ -53,7 +53,7 @@ import org.apache.tika.metadata.Metadata;
  * (if available) to restore the stream back to the state it was before type
  * detection if it wants to process the stream based on the detected type.
  */
-public final class MimeTypes implements Detector, Serializable {
+public final class MimeTypes implements PrefixDetector, Serializable {
 
     /**
      * Serial version UID.
@@ -445,18 +445,55 @@ public final class MimeTypes implements Detector, Serializable {
      */
     public MediaType detect(InputStream input, Metadata metadata)
             throws IOException {
-        List<MimeType> possibleTypes = null;
-
-        // Get type based on magic prefix
+        byte[] prefix = null;
         if (input != null) {
             input.mark(getMinLength());
             try {
-                byte[] prefix = readMagicHeader(input);
-                possibleTypes = getMimeType(prefix);
+                prefix = readMagicHeader(input);
             } finally {
                 input.reset();
             }
         }
+        return detect(prefix, metadata);
+    }
+
+    /**
+     * Automatically detects the MIME type of a document based on magic
+     * markers in the given stream prefix, of which only the first
+     * {@link #getMinLength()} bytes are used, and any given metadata hints.
+     * The stream itself is not read.
+     *
+     * @since Apache Tika 1.9
+     * @param input document stream, or <code>null</code>
+     * @param prefix first bytes of the document
+     * @param metadata metadata hints
+     * @return MIME type of the document
+     */
+    public MediaType detect(InputStream input, byte[] prefix, Metadata metadata) {
+        if (prefix != null && prefix.length > getMinLength()) {
+            byte[] shorter = new byte[getMinLength()];
+            System.arraycopy(prefix, 0, shorter, 0, shorter.length);
+            prefix = shorter;
+        }
+        return detect(prefix, metadata);
+    }
+
+    /**
+     * Returns {@link #getMinLength()}.
+     *
+     * @since Apache Tika 1.9
+     */
+    public int getPrefixLength() {
+        return getMinLength();
+    }
+
+    private MediaType detect(byte[] prefix, Metadata metadata) {
+        List<MimeType> possibleTypes = null;
+
+        // Get type based on magic prefix
+        if (prefix != null) {
+            possibleTypes = getMimeType(prefix);
+        }
 
         // Get type based on resourceName hint (if available)
         String resourceName = metadata.get(Metadata.RESOURCE_NAME_KEY);
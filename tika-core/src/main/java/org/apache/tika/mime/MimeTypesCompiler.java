@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.tika.io.IOUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compiles a media type registry in the freedesktop MIME-info format into
+ * a compact binary image, so that the registry can be loaded without
+ * an XML parser. The build compiles the default tika-mimetypes.xml
+ * registry into tika-mimetypes.bin, next to it, which is then used by
+ * {@link MimeTypesFactory#create(String, String, ClassLoader)}.
+ * <p>
+ * The image holds the elements, attributes and text of the registry,
+ * with all the distinct strings in a table at its start, and is replayed
+ * into a {@link MimeTypesReader}, so that it gives exactly the same
+ * registry as the XML. It also records the length and the CRC-32 checksum
+ * of the XML it was compiled from. The image is only used when it is found
+ * next to an XML file of that length and, when known without reading the
+ * XML, that checksum, so that an outdated image can be detected and ignored
+ * without reading the XML.
+ */
+public class MimeTypesCompiler extends DefaultHandler {
+
+    private static final int MAGIC = 0x544D5449; // "TMTI"
+
+    private static final int VERSION = 3;
+
+    private static final int START_ELEMENT = 1;
+
+    private static final int END_ELEMENT = 2;
+
+    private static final int CHARACTERS = 3;
+
+    private static final int END = 0;
+
+    /**
+     * Compiles the given registry file into the given image file.
+     *
+     * @param args the XML file and the image file
+     * @throws Exception if the registry can not be compiled
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println(
+                    "Usage: MimeTypesCompiler <tika-mimetypes.xml> <image>");
+            System.exit(1);
+        }
+        byte[] xml;
+        InputStream input = new FileInputStream(args[0]);
+        try {
+            xml = IOUtils.toByteArray(input);
+        } finally {
+            input.close();
+        }
+        OutputStream output = new FileOutputStream(args[1]);
+        try {
+            compile(xml, output);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Compiles the given registry.
+     *
+     * @param xml the registry, in the freedesktop MIME-info format
+     * @param output stream for the image, which is not closed
+     * @throws IOException if the image can not be written
+     * @throws MimeTypeException if the registry is not valid XML
+     */
+    public static void compile(byte[] xml, OutputStream output)
+            throws IOException, MimeTypeException {
+        MimeTypesCompiler compiler = new MimeTypesCompiler();
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.newSAXParser().parse(new ByteArrayInputStream(xml), compiler);
+        } catch (ParserConfigurationException e) {
+            throw new MimeTypeException("Unable to create an XML parser", e);
+        } catch (SAXException e) {
+            throw new MimeTypeException("Invalid type configuration", e);
+        }
+        compiler.events.writeByte(END);
+
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(xml.length);
+        CRC32 crc = new CRC32();
+        crc.update(xml);
+        data.writeLong(crc.getValue());
+        data.writeInt(compiler.strings.size());
+        for (String string : compiler.strings) {
+            data.writeUTF(string);
+        }
+        compiler.buffer.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Loads a compiled image into the given reader, if it was compiled from
+     * a registry of the given length and checksum.
+     *
+     * @param image the compiled image
+     * @param length length of the registry the image should have been
+     *               compiled from
+     * @param crc CRC-32 checksum of the registry the image should have been
+     *            compiled from, or -1 if it is not known
+     * @param reader reader of the registry
+     * @return false if the image was compiled from another registry, or
+     *         by another version of this class, in which case nothing was
+     *         loaded
+     * @throws IOException if the image is not valid
+     * @throws MimeTypeException if the registry is not valid
+     */
+    static boolean load(
+            byte[] image, long length, long crc, MimeTypesReader reader)
+            throws IOException, MimeTypeException {
+        DataInputStream data =
+                new DataInputStream(new ByteArrayInputStream(image));
+        if (data.readInt() != MAGIC || data.readInt() != VERSION
+                || data.readInt() != length) {
+            return false;
+        }
+        long imageCrc = data.readLong();
+        if (crc != -1 && crc != imageCrc) {
+            return false;
+        }
+        String[] strings = new String[data.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = data.readUTF();
+        }
+
+        try {
+            AttributesImpl attributes = new AttributesImpl();
+            for (int event = data.readByte(); event != END; event = data.readByte()) {
+                if (event == START_ELEMENT) {
+                    String name = strings[data.readUnsignedShort()];
+                    attributes.clear();
+                    for (int n = data.readByte(); n > 0; n--) {
+                        String attribute = strings[data.readUnsignedShort()];
+                        String value = strings[data.readUnsignedShort()];
+                        attributes.addAttribute(
+                                "", "", attribute, "CDATA", value);
+                    }
+                    reader.startElement("", "", name, attributes);
+                } else if (event == END_ELEMENT) {
+                    reader.endElement("", "", strings[data.readUnsignedShort()]);
+                } else if (event == CHARACTERS) {
+                    char[] text = strings[data.readUnsignedShort()].toCharArray();
+                    reader.characters(text, 0, text.length);
+                } else {
+                    throw new IOException("Invalid media type registry image");
+                }
+            }
+        } catch (SAXException e) {
+            throw new MimeTypeException("Invalid type configuration", e);
+        }
+        return true;
+    }
+
+    private final List<String> strings = new ArrayList<String>();
+
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private final DataOutputStream events = new DataOutputStream(buffer);
+
+    private StringBuilder characters = new StringBuilder();
+
+    private MimeTypesCompiler() {
+    }
+
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) {
+        return new InputSource(new ByteArrayInputStream(new byte[0]));
+    }
+
+    @Override
+    public void startElement(
+            String uri, String localName, String qName,
+            Attributes attributes) throws SAXException {
+        try {
+            writeCharacters();
+            events.writeByte(START_ELEMENT);
+            writeString(qName);
+            events.writeByte(attributes.getLength());
+            for (int i = 0; i < attributes.getLength(); i++) {
+                writeString(attributes.getQName(i));
+                writeString(attributes.getValue(i));
+            }
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName)
+            throws SAXException {
+        try {
+            writeCharacters();
+            events.writeByte(END_ELEMENT);
+            writeString(qName);
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        characters.append(ch, start, length);
+    }
+
+    /**
+     * Writes the text since the last element, unless it is only the
+     * whitespace between elements.
+     */
+    private void writeCharacters() throws IOException {
+        if (characters.toString().trim().length() > 0) {
+            events.writeByte(CHARACTERS);
+            writeString(characters.toString());
+        }
+        characters.setLength(0);
+    }
+
+    private void writeString(String string) throws IOException {
+        Integer index = indexes.get(string);
+        if (index == null) {
+            index = strings.size();
+            if (index > 0xFFFF) {
+                throw new IOException("Too many strings in the registry");
+            }
+            strings.add(string);
+            indexes.put(string, index);
+        }
+        events.writeShort(index);
+    }
+}
@@ -16,13 +16,19 @@
  */
 package org.apache.tika.mime;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.jar.JarEntry;
 
+import org.apache.tika.io.IOUtils;
 import org.w3c.dom.Document;
 
 /**
@@ -30,6 +36,14 @@ import org.w3c.dom.Document;
  */
 public class MimeTypesFactory {
 
+    /**
+     * Suffix of the compiled images of media type registries, which
+     * replaces the .xml suffix of the registry file.
+     *
+     * @see MimeTypesCompiler
+     */
+    public static final String IMAGE_SUFFIX = ".bin";
+
     /**
      * Creates an empty instance; same as calling new MimeTypes().
      *
@@ -139,6 +153,12 @@ public class MimeTypesFactory {
      *  override mimetypes found will loaded afterwards.
      * The file paths will be interpreted by the specified class  
      *  loader in getResource().
+     * If a compiled image of the core file is found next to it, with the
+     *  {@link #IMAGE_SUFFIX} suffix instead of .xml, it is loaded instead
+     *  of parsing the XML, as long as it was compiled from a file of the
+     *  same length. In a jar file the checksums recorded for the XML must
+     *  match as well, and in a directory the image must not be older than
+     *  the XML. The XML itself is then not read.
      * 
      * @param coreFilePath The main MimeTypes file to load
      * @param extensionFilePath The name of extension MimeType files to load afterwards
@@ -162,11 +182,92 @@ public class MimeTypesFactory {
         List<URL> extensionURLs = Collections.list(
                 classLoader.getResources(classPrefix+extensionFilePath));
 
-        // Swap that into an Array, and process
-        List<URL> urls = new ArrayList<URL>();
-        urls.add(coreURL);
-        urls.addAll(extensionURLs);
-        
-        return create( urls.toArray(new URL[urls.size()]) );
+        // Use the compiled image of the core file, if there is one
+        URL imageURL = classLoader.getResource(
+                classPrefix + coreFilePath.replaceFirst("\\.xml$", "") + IMAGE_SUFFIX);
+        if (coreURL == null || imageURL == null
+                || !isSibling(imageURL, coreURL)) {
+            // Swap that into an Array, and process
+            List<URL> urls = new ArrayList<URL>();
+            urls.add(coreURL);
+            urls.addAll(extensionURLs);
+
+            return create( urls.toArray(new URL[urls.size()]) );
+        }
+
+        MimeTypes mimeTypes = new MimeTypes();
+        MimeTypesReader reader = new MimeTypesReader(mimeTypes);
+        // Check that the image was compiled from the XML, without reading it
+        URLConnection connection = coreURL.openConnection();
+        long length = connection.getContentLength();
+        long crc = -1;
+        if (connection instanceof JarURLConnection) {
+            JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+            if (entry != null) {
+                crc = entry.getCrc();
+            }
+        }
+        // some connections open the resource to find its length
+        connection.getInputStream().close();
+        if (length < 0 || isNewer(coreURL, imageURL)
+                || !MimeTypesCompiler.load(read(imageURL), length, crc, reader)) {
+            // The image is out of date
+            InputStream stream = coreURL.openStream();
+            try {
+                reader.read(stream);
+            } finally {
+                stream.close();
+            }
+        }
+        for (URL url : extensionURLs) {
+            InputStream stream = url.openStream();
+            try {
+                reader.read(stream);
+            } finally {
+                stream.close();
+            }
+        }
+        mimeTypes.init();
+        return mimeTypes;
+    }
+
+    /**
+     * Checks that the image was found in the same directory, or jar file,
+     *  as the XML, and not in an earlier entry of the class path that does
+     *  not hold the XML it would have been compiled from.
+     */
+    private static boolean isSibling(URL imageURL, URL coreURL) {
+        String image = imageURL.toExternalForm();
+        String core = coreURL.toExternalForm();
+        return image.substring(0, image.lastIndexOf('/'))
+                .equals(core.substring(0, core.lastIndexOf('/')));
+    }
+
+    /**
+     * Checks whether a file was modified after another one, which is how
+     *  an edited XML is found in a directory. Resources that are not files
+     *  are never newer.
+     */
+    private static boolean isNewer(URL url, URL other) {
+        if (!"file".equals(url.getProtocol())
+                || !"file".equals(other.getProtocol())) {
+            return false;
+        }
+        try {
+            return new File(url.toURI()).lastModified()
+                    > new File(other.toURI()).lastModified();
+        } catch (URISyntaxException e) {
+            // can not tell, so do not trust the image
+            return true;
+        }
+    }
+
+    private static byte[] read(URL url) throws IOException {
+        InputStream stream = url.openStream();
+        try {
+            return IOUtils.toByteArray(stream);
+        } finally {
+            stream.close();
+        }
     }
 }
@@ -70,7 +70,7 @@ public class CompositeParser extends AbstractParser {
         } else {
             this.parsers = new ArrayList<Parser>();
             for (Parser p : parsers) {
-                if (!isExcluded(excludeParsers, p.getClass())) {
+                if (!isExcluded(excludeParsers, getParserClass(p))) {
                     this.parsers.add(p);
                 }
             }
@@ -99,6 +99,16 @@ public class CompositeParser extends AbstractParser {
         return map;
     }
 
+    private static Class<? extends Parser> getParserClass(Parser p) {
+        if (p instanceof LazyParser) {
+            Class<? extends Parser> c = ((LazyParser) p).getParserClass();
+            if (c != null) {
+                return c;
+            }
+        }
+        return p.getClass();
+    }
+
     private boolean isExcluded(Collection<Class<? extends Parser>> excludeParsers, Class<? extends Parser> p){
         return excludeParsers.contains(p) || assignableFrom(excludeParsers, p);
     }
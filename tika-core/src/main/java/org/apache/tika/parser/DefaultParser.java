@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.tika.config.ServiceLoader;
 import org.apache.tika.mime.MediaType;
@@ -44,12 +45,29 @@ public class DefaultParser extends CompositeParser {
      * rather than discovery order. CompositeParser takes the last
      * parser for any given media type, so put the Tika parsers first
      * so that non-Tika (user supplied) parsers can take precedence.
+     * <p>
+     * The parsers listed in a {@link ParserTypesIndex} are not loaded
+     * yet, but represented by a {@link LazyParser} that loads them when
+     * they are first used.
      *
      * @param loader service loader
      * @return ordered list of statically loadable parsers
      */
     private static List<Parser> getDefaultParsers(ServiceLoader loader) {
-        List<Parser> parsers = loader.loadStaticServiceProviders(Parser.class);
+        Map<String, Set<MediaType>> index = ParserTypesIndex.read(loader);
+        List<Parser> parsers = new ArrayList<Parser>();
+        for (String name : loader.identifyStaticServiceProviders(Parser.class)) {
+            Set<MediaType> types = index.get(name);
+            if (types != null) {
+                parsers.add(new LazyParser(name, types, loader));
+                continue;
+            }
+            try {
+                parsers.add(loader.getServiceClass(Parser.class, name).newInstance());
+            } catch (Throwable t) {
+                loader.getLoadErrorHandler().handleLoadError(name, t);
+            }
+        }
         ServiceLoaderUtils.sortLoadedClasses(parsers);
         return parsers;
     }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Stand-in for a parser service that is only loaded and instantiated when
+ * it is first needed to parse a document. Until then it claims to support
+ * the media types given to it, which {@link DefaultParser} takes from the
+ * {@link ParserTypesIndex} of the parser services. Once loaded, it
+ * delegates all calls to the parser.
+ * <p>
+ * If the parser can not be loaded, the error is given to the
+ * {@link org.apache.tika.config.LoadErrorHandler} of the service loader,
+ * the parse fails with a {@link TikaException}, and no types are claimed
+ * from then on, as if the parser had never been found.
+ * <p>
+ * When serialized, for example by the ForkParser, the parser is loaded
+ * and serialized in place of this class.
+ *
+ * @since Apache Tika 1.9
+ */
+public class LazyParser extends ParserDecorator {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = 6047396573429460916L;
+
+    private final String className;
+
+    private final Set<MediaType> types;
+
+    private final transient ServiceLoader loader;
+
+    private volatile Parser parser = null;
+
+    private volatile boolean failed = false;
+
+    /**
+     * @param className name of the parser class
+     * @param types media types supported by the parser
+     * @param loader service loader used to load the parser class
+     */
+    public LazyParser(
+            String className, Set<MediaType> types, ServiceLoader loader) {
+        super(null);
+        this.className = className;
+        this.types = Collections.unmodifiableSet(types);
+        this.loader = loader;
+    }
+
+    /**
+     * @return name of the parser class
+     */
+    public String getParserClassName() {
+        return className;
+    }
+
+    /**
+     * Loads the parser class, without instantiating it.
+     *
+     * @return the parser class, or null if it can not be loaded
+     */
+    public Class<? extends Parser> getParserClass() {
+        try {
+            return loader.getServiceClass(Parser.class, className);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the parser has been instantiated
+     */
+    public boolean isLoaded() {
+        return parser != null;
+    }
+
+    @Override
+    public Set<MediaType> getSupportedTypes(ParseContext context) {
+        Parser p = parser;
+        if (p != null) {
+            return p.getSupportedTypes(context);
+        } else if (failed) {
+            return Collections.emptySet();
+        } else {
+            return types;
+        }
+    }
+
+    @Override
+    public void parse(
+            InputStream stream, ContentHandler handler,
+            Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        load().parse(stream, handler, metadata, context);
+    }
+
+    /**
+     * Returns the parser, instantiating it if needed.
+     *
+     * @return the parser, or an {@link EmptyParser} if it can not be loaded
+     */
+    @Override
+    public Parser getWrappedParser() {
+        try {
+            return load();
+        } catch (TikaException e) {
+            return EmptyParser.INSTANCE;
+        }
+    }
+
+    private Parser load() throws TikaException {
+        Parser p = parser;
+        if (p != null) {
+            return p;
+        }
+        synchronized (this) {
+            if (parser == null) {
+                if (failed) {
+                    throw new TikaException("Unable to load parser " + className);
+                }
+                try {
+                    parser = loader.getServiceClass(Parser.class, className).newInstance();
+                } catch (Throwable t) {
+                    failed = true;
+                    loader.getLoadErrorHandler().handleLoadError(className, t);
+                    throw new TikaException("Unable to load parser " + className, t);
+                }
+            }
+            return parser;
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return getWrappedParser();
+    }
+
+    @Override
+    public String toString() {
+        return "LazyParser[" + className + "]";
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.mime.MediaType;
+
+/**
+ * Index of the media types supported by parser services, which lets
+ * {@link DefaultParser} use a {@link LazyParser} for them instead of
+ * instantiating every parser up front.
+ * <p>
+ * The index is a META-INF/services/org.apache.tika.parser.Parser.types
+ * resource next to the service file, with a line for each parser: the
+ * class name followed by the supported media types, separated by
+ * whitespace. It is generated by the build with the {@link #main(String[])}
+ * method of this class. Parsers whose supported types depend on the parse
+ * context or on the environment, for example on the availability of an
+ * external command or of an optional library, must not be indexed, and
+ * are instantiated as before.
+ *
+ * @since Apache Tika 1.9
+ */
+public class ParserTypesIndex {
+
+    /**
+     * Name of the index resources.
+     */
+    public static final String RESOURCE =
+            "META-INF/services/" + Parser.class.getName() + ".types";
+
+    private static final Pattern COMMENT = Pattern.compile("#.*");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Writes the index of the parsers listed in a service file.
+     *
+     * @param args the service file, the index file, and the names of the
+     *             parsers of the service file that must not be indexed
+     * @throws Exception if a parser can not be instantiated, or the index
+     *                   can not be written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: ParserTypesIndex <service file> <index file> [excluded parser...]");
+            System.exit(1);
+        }
+        Set<String> excluded =
+                new HashSet<String>(Arrays.asList(args).subList(2, args.length));
+
+        List<String> names = new ArrayList<String>();
+        InputStream stream = new FileInputStream(args[0]);
+        try {
+            read(stream, names, null);
+        } finally {
+            stream.close();
+        }
+
+        Writer writer = new OutputStreamWriter(
+                new FileOutputStream(new File(args[1])), IOUtils.UTF_8);
+        try {
+            writer.write("# Media types of the parsers of " + new File(args[0]).getName()
+                    + ", generated by " + ParserTypesIndex.class.getName() + "\n");
+            ParseContext context = new ParseContext();
+            for (String name : names) {
+                if (excluded.contains(name)) {
+                    continue;
+                }
+                Parser parser = (Parser) Class.forName(name).newInstance();
+                Set<String> types = new TreeSet<String>();
+                for (MediaType type : parser.getSupportedTypes(context)) {
+                    // without the space after the parameter separators
+                    types.add(WHITESPACE.matcher(type.toString()).replaceAll(""));
+                }
+                if (types.isEmpty()) {
+                    // nothing to dispatch to a proxy
+                    continue;
+                }
+                writer.write(name);
+                for (String type : types) {
+                    writer.write(' ');
+                    writer.write(type);
+                }
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reads all the index resources of the given service loader.
+     *
+     * @param loader service loader
+     * @return the supported media types of the indexed parsers, by class name
+     */
+    public static Map<String, Set<MediaType>> read(ServiceLoader loader) {
+        Map<String, Set<MediaType>> index = new HashMap<String, Set<MediaType>>();
+        for (URL resource : Collections.list(loader.findServiceResources(RESOURCE))) {
+            try {
+                InputStream stream = resource.openStream();
+                try {
+                    read(stream, null, index);
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                loader.getLoadErrorHandler().handleLoadError(RESOURCE, e);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads the class names, and the media types that follow them, from a
+     * service file or an index.
+     */
+    private static void read(
+            InputStream stream, List<String> names,
+            Map<String, Set<MediaType>> index) throws IOException {
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(stream, IOUtils.UTF_8));
+        String line = reader.readLine();
+        while (line != null) {
+            line = COMMENT.matcher(line).replaceFirst("").trim();
+            if (line.length() > 0) {
+                String[] tokens = WHITESPACE.split(line);
+                if (names != null) {
+                    names.add(tokens[0]);
+                }
+                if (index != null) {
+                    Set<MediaType> types = new HashSet<MediaType>();
+                    for (int i = 1; i < tokens.length; i++) {
+                        MediaType type = MediaType.parse(tokens[i]);
+                        if (type != null) {
+                            types.add(type);
+                        }
+                    }
+                    index.put(tokens[0], types);
+                }
+            }
+            line = reader.readLine();
+        }
+    }
+}
@@ -61,7 +61,9 @@ import org.xml.sax.helpers.DefaultHandler;
  * <a href="http://wiki.apache.org/tika/RecursiveMetadata#Jukka.27s_RecursiveMetadata_Parser">RecursiveMetadataParser</a>.
  * <p>
  * Note that this wrapper holds all data in memory and is not appropriate
- * for files with content too large to be held in memory.
+ * for files with content too large to be held in memory, unless
+ * {@link #handleMetadata(Metadata, boolean)} is overridden to process
+ * the Metadata of each document as soon as it has been parsed.
  * <p>
  * Note, too, that this wrapper is not thread safe because it stores state.  
  * The client must initialize a new wrapper for each thread, and the client
@@ -95,6 +97,9 @@ public class RecursiveParserWrapper implements Parser {
     private final ContentHandlerFactory contentHandlerFactory;
     private final List<Metadata> metadatas = new LinkedList<Metadata>();
 
+    //number of embedded resources handled so far
+    private int embeddedCount = 0;
+
     private final boolean catchEmbeddedExceptions;
 
     //used in naming embedded resources that don't have a name.
@@ -171,7 +176,31 @@ public class RecursiveParserWrapper implements Parser {
         if (hitMaxEmbeddedResources) {
             metadata.set(EMBEDDED_RESOURCE_LIMIT_REACHED, "true");
         }
-        metadatas.add(0, deepCopy(metadata));
+        handleMetadata(deepCopy(metadata), true);
+    }
+
+    /**
+     * Called with a copy of the Metadata of each document as soon as it
+     * has been parsed: the embedded resources as they complete, and
+     * the container document last. By default this adds it to the list
+     * returned by {@link #getMetadata()}, with the container document first.
+     * <p>
+     * Override this to process the Metadata as it becomes available, e.g.
+     * to write it out, instead of holding all of it in memory.
+     *
+     * @param metadata metadata of the parsed document
+     * @param container whether this is the container document, which is
+     *                  always the last one
+     * @throws SAXException to stop the parse
+     * @since Apache Tika 1.9
+     */
+    protected void handleMetadata(Metadata metadata, boolean container)
+            throws SAXException {
+        if (container) {
+            metadatas.add(0, metadata);
+        } else {
+            metadatas.add(metadata);
+        }
     }
 
     /**
@@ -207,6 +236,7 @@ public class RecursiveParserWrapper implements Parser {
      */
     public void reset() {
         metadatas.clear();
+        embeddedCount = 0;
         unknownCount = 0;
         hitMaxEmbeddedResources = false;
     }
@@ -296,7 +326,7 @@ public class RecursiveParserWrapper implements Parser {
                 SAXException, TikaException {
             //Test to see if we should avoid parsing
             if (maxEmbeddedResources > -1 && 
-                    metadatas.size() >= maxEmbeddedResources) {
+                    embeddedCount >= maxEmbeddedResources) {
                 hitMaxEmbeddedResources = true;
                 return;
             }
@@ -349,12 +379,13 @@ public class RecursiveParserWrapper implements Parser {
             //to re-test to make sure that we limit the 
             //number of stored resources
             if (maxEmbeddedResources > -1 && 
-                    metadatas.size() >= maxEmbeddedResources) {
+                    embeddedCount >= maxEmbeddedResources) {
                 hitMaxEmbeddedResources = true;
                 return;
             }
             addContent(localHandler, metadata);
-            metadatas.add(deepCopy(metadata));
+            embeddedCount++;
+            handleMetadata(deepCopy(metadata), false);
         }        
     }
 
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.sax;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Content handler that records the SAX events it receives, so that they
+ * can later be replayed, any number of times, to other handlers. The
+ * document start and end events are not recorded.
+ *
+ * @since Apache Tika 1.9
+ */
+public class SAXEventRecorder extends DefaultHandler {
+
+    private static final int START_ELEMENT = 0;
+
+    private static final int END_ELEMENT = 1;
+
+    private static final int CHARACTERS = 2;
+
+    private static final int IGNORABLE_WHITESPACE = 3;
+
+    private static final int START_PREFIX_MAPPING = 4;
+
+    private static final int END_PREFIX_MAPPING = 5;
+
+    private static final int PROCESSING_INSTRUCTION = 6;
+
+    private static final int SKIPPED_ENTITY = 7;
+
+    private final List<Event> events = new ArrayList<Event>();
+
+    private long characterCount = 0;
+
+    @Override
+    public void startElement(
+            String uri, String localName, String qName, Attributes atts) {
+        events.add(new Event(
+                START_ELEMENT, uri, localName, qName, new AttributesImpl(atts)));
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        events.add(new Event(END_ELEMENT, uri, localName, qName, null));
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        addCharacters(CHARACTERS, ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        addCharacters(IGNORABLE_WHITESPACE, ch, start, length);
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) {
+        events.add(new Event(START_PREFIX_MAPPING, prefix, uri, null, null));
+    }
+
+    @Override
+    public void endPrefixMapping(String prefix) {
+        events.add(new Event(END_PREFIX_MAPPING, prefix, null, null, null));
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) {
+        events.add(new Event(PROCESSING_INSTRUCTION, target, data, null, null));
+    }
+
+    @Override
+    public void skippedEntity(String name) {
+        events.add(new Event(SKIPPED_ENTITY, name, null, null, null));
+    }
+
+    /**
+     * @return number of characters recorded so far
+     */
+    public long getCharacterCount() {
+        return characterCount;
+    }
+
+    /**
+     * Sends the recorded events to the given handler.
+     *
+     * @param handler content handler
+     * @throws SAXException if the handler fails
+     */
+    public void replay(ContentHandler handler) throws SAXException {
+        for (Event event : events) {
+            switch (event.type) {
+            case START_ELEMENT:
+                handler.startElement(
+                        event.a, event.b, event.c, event.attributes);
+                break;
+            case END_ELEMENT:
+                handler.endElement(event.a, event.b, event.c);
+                break;
+            case CHARACTERS:
+                handler.characters(event.ch, 0, event.ch.length);
+                break;
+            case IGNORABLE_WHITESPACE:
+                handler.ignorableWhitespace(event.ch, 0, event.ch.length);
+                break;
+            case START_PREFIX_MAPPING:
+                handler.startPrefixMapping(event.a, event.b);
+                break;
+            case END_PREFIX_MAPPING:
+                handler.endPrefixMapping(event.a);
+                break;
+            case PROCESSING_INSTRUCTION:
+                handler.processingInstruction(event.a, event.b);
+                break;
+            case SKIPPED_ENTITY:
+                handler.skippedEntity(event.a);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event " + event.type);
+            }
+        }
+    }
+
+    private void addCharacters(int type, char[] ch, int start, int length) {
+        if (length > 0) {
+            Event event = new Event(type, null, null, null, null);
+            event.ch = Arrays.copyOfRange(ch, start, start + length);
+            events.add(event);
+            characterCount += length;
+        }
+    }
+
+    private static class Event {
+
+        private final int type;
+
+        private final String a;
+
+        private final String b;
+
+        private final String c;
+
+        private final Attributes attributes;
+
+        private char[] ch;
+
+        private Event(
+                int type, String a, String b, String c, Attributes attributes) {
+            this.type = type;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.attributes = attributes;
+        }
+    }
+}
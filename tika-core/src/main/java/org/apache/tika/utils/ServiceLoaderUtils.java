@@ -20,6 +20,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import org.apache.tika.parser.LazyParser;
+
 /**
  * Service Loading and Ordering related utils
  */
@@ -31,8 +33,8 @@ public class ServiceLoaderUtils {
     public static <T> void sortLoadedClasses(List<T> loaded) {
         Collections.sort(loaded, new Comparator<T>() {
             public int compare(T c1, T c2) {
-                String n1 = c1.getClass().getName();
-                String n2 = c2.getClass().getName();
+                String n1 = getClassName(c1);
+                String n2 = getClassName(c2);
                 boolean t1 = n1.startsWith("org.apache.tika.");
                 boolean t2 = n2.startsWith("org.apache.tika.");
                 if (t1 == t2) {
@@ -45,4 +47,15 @@ public class ServiceLoaderUtils {
             }
         });
     }
+
+    /**
+     * Returns the class name of a loaded service, which for a
+     *  {@link LazyParser} is the name of the parser it will load
+     */
+    private static String getClassName(Object service) {
+        if (service instanceof LazyParser) {
+            return ((LazyParser) service).getParserClassName();
+        }
+        return service.getClass().getName();
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.detect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompositeDetectorTest {
+
+    private static final MediaType PARENT = MediaType.parse("x-test/parent");
+
+    private static final MediaType CHILD = MediaType.parse("x-test/child");
+
+    private MediaTypeRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new MediaTypeRegistry();
+        registry.addType(PARENT);
+        registry.addType(CHILD);
+        registry.addSuperType(CHILD, PARENT);
+    }
+
+    @Test
+    public void testHasSpecializations() {
+        assertTrue(registry.hasSpecializations(PARENT));
+        assertFalse(registry.hasSpecializations(CHILD));
+        assertTrue(registry.hasSpecializations(MediaType.OCTET_STREAM));
+        assertTrue(registry.hasSpecializations(MediaType.TEXT_PLAIN));
+
+        registry.addType(MediaType.parse("x-test/child; version=2"));
+        assertTrue(registry.hasSpecializations(CHILD));
+    }
+
+    @Test
+    public void testSharedPrefix() throws Exception {
+        FixedDetector first = new FixedDetector(PARENT, 4);
+        FixedDetector second = new FixedDetector(MediaType.OCTET_STREAM, 8);
+        Detector detector = new CompositeDetector(registry, Arrays.<Detector>asList(first, second));
+
+        CountingInputStream stream = new CountingInputStream(
+                new ByteArrayInputStream("0123456789".getBytes(IOUtils.UTF_8)));
+        assertEquals(PARENT, detector.detect(stream, new Metadata()));
+        assertEquals(1, stream.marks);
+        assertEquals("01234567", first.prefix);
+        assertEquals("01234567", second.prefix);
+        assertEquals('0', stream.read());
+
+        // a shorter document
+        stream = new CountingInputStream(
+                new ByteArrayInputStream("012".getBytes(IOUtils.UTF_8)));
+        detector.detect(stream, new Metadata());
+        assertEquals("012", second.prefix);
+    }
+
+    @Test
+    public void testStopAtLeafType() throws Exception {
+        FixedDetector first = new FixedDetector(CHILD, 0);
+        FixedDetector second = new FixedDetector(CHILD, 0);
+        Detector detector = new CompositeDetector(registry, Arrays.<Detector>asList(first, second));
+        assertEquals(CHILD, detector.detect(null, new Metadata()));
+        assertEquals(1, first.calls);
+        assertEquals(0, second.calls);
+
+        // a type with specializations does not stop the detection
+        first = new FixedDetector(PARENT, 0);
+        detector = new CompositeDetector(registry, Arrays.<Detector>asList(first, second));
+        assertEquals(CHILD, detector.detect(null, new Metadata()));
+        assertEquals(1, second.calls);
+    }
+
+    /**
+     * Returns the given type, recording the prefix it was given.
+     */
+    private static class FixedDetector implements PrefixDetector {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MediaType type;
+
+        private final int prefixLength;
+
+        private String prefix;
+
+        private int calls = 0;
+
+        private FixedDetector(MediaType type, int prefixLength) {
+            this.type = type;
+            this.prefixLength = prefixLength;
+        }
+
+        public int getPrefixLength() {
+            return prefixLength;
+        }
+
+        public MediaType detect(InputStream input, byte[] prefix, Metadata metadata) {
+            calls++;
+            this.prefix = new String(prefix, IOUtils.UTF_8);
+            return type;
+        }
+
+        public MediaType detect(InputStream input, Metadata metadata) {
+            calls++;
+            return type;
+        }
+    }
+
+    /**
+     * Counts the calls to mark.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private int marks = 0;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            marks++;
+            super.mark(readlimit);
+        }
+    }
+}
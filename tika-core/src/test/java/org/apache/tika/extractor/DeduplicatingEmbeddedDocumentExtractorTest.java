@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.extractor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.ToXMLContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+public class DeduplicatingEmbeddedDocumentExtractorTest {
+
+    private CountingParser parser;
+
+    private ParseContext context;
+
+    @Before
+    public void setUp() {
+        parser = new CountingParser();
+        context = new ParseContext();
+        context.set(Parser.class, parser);
+    }
+
+    @Test
+    public void testDuplicatesAreNotReparsed() throws Exception {
+        DeduplicatingEmbeddedDocumentExtractor extractor =
+                new DeduplicatingEmbeddedDocumentExtractor(context);
+
+        Metadata first = new Metadata();
+        String firstXML = parse(extractor, "a.txt", "hello", first);
+        Metadata second = new Metadata();
+        String secondXML = parse(extractor, "b.txt", "hello", second);
+        Metadata third = new Metadata();
+        parse(extractor, "c.txt", "world", third);
+
+        assertEquals(2, parser.count);
+        assertTrue(firstXML.contains("<h1>a.txt</h1>"));
+        assertTrue(firstXML.contains("<p>hello</p>"));
+        assertEquals(firstXML.replace("a.txt", "b.txt"), secondXML);
+
+        assertEquals(first.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DIGEST),
+                second.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DIGEST));
+        assertNull(first.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DUPLICATE));
+        assertEquals("true", second.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DUPLICATE));
+        assertNull(third.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DUPLICATE));
+
+        // metadata of the parse is copied, but not the name
+        assertEquals("5", second.get("length"));
+        assertEquals("b.txt", second.get(Metadata.RESOURCE_NAME_KEY));
+        assertEquals(1, extractor.getCache().getHits());
+    }
+
+    @Test
+    public void testSharedCache() throws Exception {
+        EmbeddedDocumentCache cache = new EmbeddedDocumentCache(1000);
+        parse(new DeduplicatingEmbeddedDocumentExtractor(context, cache),
+                "a.txt", "hello", new Metadata());
+        parse(new DeduplicatingEmbeddedDocumentExtractor(context, cache),
+                "a.txt", "hello", new Metadata());
+        assertEquals(1, parser.count);
+    }
+
+    @Test
+    public void testKeyContainsTypeHints() throws Exception {
+        DeduplicatingEmbeddedDocumentExtractor extractor =
+                new DeduplicatingEmbeddedDocumentExtractor(context);
+        Metadata first = new Metadata();
+        parse(extractor, "a.txt", "hello", first);
+        Metadata second = new Metadata();
+        parse(extractor, "a.csv", "hello", second);
+        Metadata third = new Metadata();
+        third.set(Metadata.CONTENT_TYPE, "text/plain");
+        parse(extractor, "b.TXT", "hello", third);
+        parse(extractor, "c.txt", "hello", new Metadata());
+
+        assertEquals(3, parser.count);
+        assertEquals(first.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DIGEST),
+                second.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DIGEST));
+        assertNull(second.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DUPLICATE));
+        assertNull(third.get(DeduplicatingEmbeddedDocumentExtractor.EMBEDDED_DUPLICATE));
+    }
+
+    @Test
+    public void testSharedCacheOtherParser() throws Exception {
+        EmbeddedDocumentCache cache = new EmbeddedDocumentCache(1000);
+        parse(new DeduplicatingEmbeddedDocumentExtractor(context, cache),
+                "a.txt", "hello", new Metadata());
+
+        ParseContext other = new ParseContext();
+        other.set(Parser.class, new CountingParser() {
+            private static final long serialVersionUID = 1L;
+        });
+        parse(new DeduplicatingEmbeddedDocumentExtractor(other, cache),
+                "a.txt", "hello", new Metadata());
+        assertEquals(1, parser.count);
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        // room for the content of a single document
+        EmbeddedDocumentCache cache = new EmbeddedDocumentCache(10);
+        DeduplicatingEmbeddedDocumentExtractor extractor =
+                new DeduplicatingEmbeddedDocumentExtractor(context, cache);
+        parse(extractor, "a.txt", "hello", new Metadata());
+        parse(extractor, "b.txt", "world", new Metadata());
+        parse(extractor, "c.txt", "world", new Metadata());
+        parse(extractor, "d.txt", "hello", new Metadata());
+        assertEquals(3, parser.count);
+
+        // too large to be cached at all
+        parse(extractor, "e.txt", "a longer text", new Metadata());
+        parse(extractor, "f.txt", "a longer text", new Metadata());
+        assertEquals(5, parser.count);
+    }
+
+    private String parse(
+            EmbeddedDocumentExtractor extractor, String name, String text,
+            Metadata metadata) throws Exception {
+        metadata.set(Metadata.RESOURCE_NAME_KEY, name);
+        ContentHandler handler = new ToXMLContentHandler();
+        handler.startPrefixMapping("", XHTMLContentHandler.XHTML);
+        extractor.parseEmbedded(
+                new ByteArrayInputStream(text.getBytes(IOUtils.UTF_8)),
+                handler, metadata, true);
+        return handler.toString();
+    }
+
+    /**
+     * Writes the document text as a paragraph, and counts its calls.
+     */
+    private static class CountingParser extends AbstractParser {
+
+        private static final long serialVersionUID = 1L;
+
+        private int count = 0;
+
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return MediaType.set(MediaType.OCTET_STREAM);
+        }
+
+        public void parse(
+                InputStream stream, ContentHandler handler,
+                Metadata metadata, ParseContext context)
+                throws IOException, SAXException, TikaException {
+            count++;
+            String text = IOUtils.toString(stream, IOUtils.UTF_8.name());
+            metadata.set("length", Integer.toString(text.length()));
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", text);
+            xhtml.endDocument();
+        }
+    }
+}
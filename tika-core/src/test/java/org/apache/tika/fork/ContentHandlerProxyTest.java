@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.fork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class ContentHandlerProxyTest {
+
+    @Test
+    public void testEvents() throws Exception {
+        EventRecorder expected = new EventRecorder();
+        writeEvents(expected);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ContentHandlerProxy proxy = new ContentHandlerProxy(0);
+        proxy.init(null, new DataOutputStream(buffer));
+        writeEvents(proxy);
+
+        EventRecorder actual = new EventRecorder();
+        int frames = process(buffer.toByteArray(), actual);
+        assertEquals(expected.events, actual.events);
+        // the events before endDocument() are sent in one frame
+        assertEquals(1, frames);
+    }
+
+    @Test
+    public void testLargeCharacters() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; builder.length() < 3 * ContentHandlerProxy.FRAME_SIZE; i++) {
+            builder.append("caf\u00e9 \u20ac ").append(i).append('\n');
+        }
+        char[] text = builder.toString().toCharArray();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ContentHandlerProxy proxy = new ContentHandlerProxy(0);
+        proxy.init(null, new DataOutputStream(buffer));
+        proxy.startDocument();
+        proxy.characters(text, 0, text.length);
+        proxy.endDocument();
+
+        EventRecorder actual = new EventRecorder();
+        int frames = process(buffer.toByteArray(), actual);
+        assertTrue(frames > 1);
+        assertEquals(builder.toString(), actual.text.toString());
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ContentHandlerProxy proxy = new ContentHandlerProxy(0);
+        proxy.init(null, new DataOutputStream(buffer));
+        proxy.startDocument();
+        proxy.startElement("", "p", "p", new AttributesImpl());
+        assertEquals(0, buffer.size());
+
+        proxy.flush();
+        EventRecorder actual = new EventRecorder();
+        assertEquals(1, process(buffer.toByteArray(), actual));
+        assertEquals(2, actual.events.size());
+    }
+
+    private static void writeEvents(DefaultHandler handler) throws SAXException {
+        handler.startDocument();
+        handler.startPrefixMapping("", "http://www.w3.org/1999/xhtml");
+        for (int i = 0; i < 100; i++) {
+            AttributesImpl atts = new AttributesImpl();
+            atts.addAttribute("", "class", "class", "CDATA", "line" + i);
+            atts.addAttribute(null, "id", "id", "ID", null);
+            handler.startElement("http://www.w3.org/1999/xhtml", "p", "p", atts);
+            char[] ch = ("Line " + i + " \u00e0 \u4e2d \ud83d\ude00").toCharArray();
+            handler.characters(ch, 0, ch.length);
+            handler.ignorableWhitespace(new char[] {'\n'}, 0, 1);
+            handler.endElement("http://www.w3.org/1999/xhtml", "p", "p");
+        }
+        handler.startElement(null, null, "empty", null);
+        handler.characters(new char[0], 0, 0);
+        handler.endElement(null, null, "empty");
+        handler.processingInstruction("target", "data");
+        handler.skippedEntity("entity");
+        handler.endPrefixMapping("");
+        handler.endDocument();
+    }
+
+    /**
+     * Writes the events to the proxy, which is not a {@link DefaultHandler}.
+     */
+    private static void writeEvents(final ContentHandlerProxy proxy) throws SAXException {
+        writeEvents(new DefaultHandler() {
+            @Override
+            public void startDocument() throws SAXException {
+                proxy.startDocument();
+            }
+            @Override
+            public void endDocument() throws SAXException {
+                proxy.endDocument();
+            }
+            @Override
+            public void startPrefixMapping(String prefix, String uri) throws SAXException {
+                proxy.startPrefixMapping(prefix, uri);
+            }
+            @Override
+            public void endPrefixMapping(String prefix) throws SAXException {
+                proxy.endPrefixMapping(prefix);
+            }
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes atts)
+                    throws SAXException {
+                proxy.startElement(uri, localName, qName, atts);
+            }
+            @Override
+            public void endElement(String uri, String localName, String qName) throws SAXException {
+                proxy.endElement(uri, localName, qName);
+            }
+            @Override
+            public void characters(char[] ch, int start, int length) throws SAXException {
+                proxy.characters(ch, start, length);
+            }
+            @Override
+            public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+                proxy.ignorableWhitespace(ch, start, length);
+            }
+            @Override
+            public void processingInstruction(String target, String data) throws SAXException {
+                proxy.processingInstruction(target, data);
+            }
+            @Override
+            public void skippedEntity(String name) throws SAXException {
+                proxy.skippedEntity(name);
+            }
+        });
+    }
+
+    /**
+     * Passes the frames written by a proxy to a resource.
+     *
+     * @return number of frames
+     */
+    private static int process(byte[] data, EventRecorder handler) throws Exception {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        ContentHandlerResource resource = new ContentHandlerResource(handler);
+        int frames = 0;
+        while (input.available() > 0) {
+            assertEquals(ForkServer.RESOURCE, input.readByte());
+            assertEquals(0, input.readUnsignedByte());
+            Throwable t = resource.process(input, null);
+            if (t != null) {
+                throw new Exception(t);
+            }
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Records the events, with the ignorable whitespace as characters like
+     * the resource passes it.
+     */
+    private static class EventRecorder extends DefaultHandler {
+
+        private final List<String> events = new ArrayList<String>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public void startDocument() {
+            events.add("startDocument");
+        }
+
+        @Override
+        public void endDocument() {
+            events.add("endDocument");
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            events.add("startPrefixMapping " + prefix + " " + uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+            events.add("endPrefixMapping " + prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            StringBuilder event = new StringBuilder("startElement ")
+                    .append(uri).append(' ').append(localName).append(' ').append(qName);
+            if (atts == null) {
+                event.append(" null");
+            } else {
+                for (int i = 0; i < atts.getLength(); i++) {
+                    event.append(' ').append(atts.getURI(i))
+                            .append(' ').append(atts.getLocalName(i))
+                            .append(' ').append(atts.getQName(i))
+                            .append(' ').append(atts.getType(i))
+                            .append(' ').append(atts.getValue(i));
+                }
+            }
+            events.add(event.toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            events.add("endElement " + uri + " " + localName + " " + qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            events.add("characters " + new String(ch, start, length));
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            characters(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            events.add("processingInstruction " + target + " " + data);
+        }
+
+        @Override
+        public void skippedEntity(String name) {
+            events.add("skippedEntity " + name);
+        }
+    }
+}
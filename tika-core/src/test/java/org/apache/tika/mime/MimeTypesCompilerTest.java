@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MimeTypesCompilerTest {
+
+    private byte[] xml;
+
+    private byte[] image;
+
+    @Before
+    public void setUp() throws Exception {
+        InputStream stream =
+                MimeTypesReader.class.getResourceAsStream("tika-mimetypes.xml");
+        try {
+            xml = IOUtils.toByteArray(stream);
+        } finally {
+            stream.close();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MimeTypesCompiler.compile(xml, output);
+        image = output.toByteArray();
+    }
+
+    @Test
+    public void testSameRegistryAsXML() throws Exception {
+        MimeTypes expected = MimeTypesFactory.create(new ByteArrayInputStream(xml));
+
+        MimeTypes actual = new MimeTypes();
+        assertTrue(MimeTypesCompiler.load(
+                image, xml.length, crc(xml), new MimeTypesReader(actual)));
+        actual.init();
+
+        assertTrue(image.length < xml.length);
+        MediaTypeRegistry registry = expected.getMediaTypeRegistry();
+        assertEquals(registry.getTypes(), actual.getMediaTypeRegistry().getTypes());
+        for (MediaType type : registry.getTypes()) {
+            assertEquals(describe(expected, type), describe(actual, type));
+        }
+        assertEquals(getMagics(expected), getMagics(actual));
+        assertEquals(expected.getMinLength(), actual.getMinLength());
+    }
+
+    @Test
+    public void testOutdatedImage() throws Exception {
+        MimeTypes types = new MimeTypes();
+        assertFalse(MimeTypesCompiler.load(
+                image, xml.length + 1, -1, new MimeTypesReader(types)));
+        assertFalse(MimeTypesCompiler.load(
+                image, xml.length, crc(xml) ^ 1, new MimeTypesReader(types)));
+        assertFalse(types.getMediaTypeRegistry().getTypes().contains(
+                MediaType.application("pdf")));
+    }
+
+    @Test
+    public void testDefaultImage() throws Exception {
+        // compiled by the build, and used for the default registry
+        assertNotNull(MimeTypesReader.class.getResource(
+                "tika-mimetypes" + MimeTypesFactory.IMAGE_SUFFIX));
+        assertEquals("application/pdf", MimeTypes.getDefaultMimeTypes().detect(
+                new ByteArrayInputStream("%PDF-1.4".getBytes(IOUtils.UTF_8)),
+                new Metadata()).toString());
+    }
+
+    @Test
+    public void testImageOfAnotherRegistry() throws Exception {
+        // a registry of the same length, ahead of the one of the image
+        // on the class path
+        byte[] other = getOtherRegistry();
+        File directory = createTempDirectory();
+        File xmlDirectory = new File(directory, "xml/org/apache/tika/mime");
+        File imageDirectory = new File(directory, "image/org/apache/tika/mime");
+        xmlDirectory.mkdirs();
+        imageDirectory.mkdirs();
+        try {
+            write(new File(xmlDirectory, "tika-mimetypes.xml"), other);
+            write(new File(imageDirectory, "tika-mimetypes.bin"), image);
+            assertOtherRegistry(new URLClassLoader(new URL[] {
+                    new File(directory, "xml").toURI().toURL(),
+                    new File(directory, "image").toURI().toURL()}, null));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testEditedRegistryInDirectory() throws Exception {
+        // a registry of the same length, saved after the image
+        File directory = createTempDirectory();
+        File mimeDirectory = new File(directory, "org/apache/tika/mime");
+        mimeDirectory.mkdirs();
+        try {
+            File image = new File(mimeDirectory, "tika-mimetypes.bin");
+            write(image, this.image);
+            image.setLastModified(System.currentTimeMillis() - 60 * 1000);
+            write(new File(mimeDirectory, "tika-mimetypes.xml"), getOtherRegistry());
+            assertOtherRegistry(new URLClassLoader(
+                    new URL[] {directory.toURI().toURL()}, null));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testEditedRegistryInJar() throws Exception {
+        // a registry of the same length, packaged with the old image
+        File jar = File.createTempFile("tika", ".jar");
+        try {
+            JarOutputStream output = new JarOutputStream(new FileOutputStream(jar));
+            try {
+                output.putNextEntry(new JarEntry("org/apache/tika/mime/tika-mimetypes.xml"));
+                output.write(getOtherRegistry());
+                output.putNextEntry(new JarEntry("org/apache/tika/mime/tika-mimetypes.bin"));
+                output.write(image);
+            } finally {
+                output.close();
+            }
+            assertOtherRegistry(new URLClassLoader(
+                    new URL[] {jar.toURI().toURL()}, null));
+        } finally {
+            jar.delete();
+        }
+    }
+
+    /**
+     * Returns a registry of only the application/x-tika-test type, with
+     * the length of the default one.
+     */
+    private byte[] getOtherRegistry() {
+        StringBuilder builder = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<mime-info>"
+                + "<mime-type type=\"application/x-tika-test\">"
+                + "<glob pattern=\"*.tikatest\"/></mime-type></mime-info>\n");
+        while (builder.length() < xml.length) {
+            builder.append(' ');
+        }
+        byte[] other = builder.toString().getBytes(IOUtils.UTF_8);
+        assertEquals(xml.length, other.length);
+        return other;
+    }
+
+    /**
+     * Checks that the registry is read from the XML found by the given
+     * class loader, which is the one of {@link #getOtherRegistry()},
+     * and not from the image.
+     */
+    private static void assertOtherRegistry(ClassLoader loader)
+            throws Exception {
+        MimeTypes types = MimeTypesFactory.create(
+                "tika-mimetypes.xml", "custom-mimetypes.xml", loader);
+        assertEquals("application/x-tika-test",
+                types.getMimeType("a.tikatest").toString());
+        assertFalse(types.getMediaTypeRegistry().getTypes().contains(
+                MediaType.application("pdf")));
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static File createTempDirectory() throws IOException {
+        File directory = File.createTempFile("tika", "mime");
+        directory.delete();
+        directory.mkdirs();
+        return directory;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void write(File file, byte[] data) throws IOException {
+        OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(data);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static String describe(MimeTypes types, MediaType type)
+            throws MimeTypeException {
+        MimeType mime = types.forName(type.toString());
+        MediaTypeRegistry registry = types.getMediaTypeRegistry();
+        StringBuilder builder = new StringBuilder();
+        builder.append(mime.getDescription()).append('|');
+        builder.append(mime.getAcronym()).append('|');
+        builder.append(mime.getUniformTypeIdentifier()).append('|');
+        builder.append(mime.getLinks()).append('|');
+        builder.append(mime.getExtensions()).append('|');
+        builder.append(registry.getAliases(type)).append('|');
+        builder.append(registry.getSupertype(type));
+        for (String extension : mime.getExtensions()) {
+            // the globs give the same type
+            builder.append('|').append(types.getMimeType("x" + extension));
+        }
+        return builder.toString();
+    }
+
+    private static String getMagics(MimeTypes types) throws Exception {
+        Field field = MimeTypes.class.getDeclaredField("magics");
+        field.setAccessible(true);
+        return field.get(types).toString();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.tika.config.LoadErrorHandler;
+import org.apache.tika.config.ServiceLoader;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.sax.ToTextContentHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+public class LazyParserTest {
+
+    private static final Set<MediaType> TYPES =
+            Collections.singleton(MediaType.text("x-lazy"));
+
+    private ServiceLoader loader;
+
+    @Before
+    public void setUp() {
+        loader = new ServiceLoader(LazyParserTest.class.getClassLoader());
+        InstanceCountingParser.instances = 0;
+    }
+
+    @Test
+    public void testLoadedOnFirstParse() throws Exception {
+        LazyParser lazy = new LazyParser(
+                InstanceCountingParser.class.getName(), TYPES, loader);
+        assertEquals(TYPES, lazy.getSupportedTypes(new ParseContext()));
+
+        CompositeParser composite = new CompositeParser(
+                new MediaTypeRegistry(), Arrays.<Parser>asList(lazy));
+        assertEquals(lazy, composite.getParsers().get(MediaType.text("x-lazy")));
+        assertFalse(lazy.isLoaded());
+        assertEquals(0, InstanceCountingParser.instances);
+
+        assertEquals("lazy", parse(lazy));
+        assertEquals("lazy", parse(lazy));
+        assertTrue(lazy.isLoaded());
+        assertEquals(1, InstanceCountingParser.instances);
+        assertEquals(InstanceCountingParser.class, lazy.getWrappedParser().getClass());
+    }
+
+    @Test
+    public void testExcludedWithoutLoading() throws Exception {
+        LazyParser lazy = new LazyParser(
+                InstanceCountingParser.class.getName(), TYPES, loader);
+        Set<Class<? extends Parser>> excluded = Collections.<Class<? extends Parser>>
+                singleton(InstanceCountingParser.class);
+        CompositeParser composite = new CompositeParser(
+                new MediaTypeRegistry(), Arrays.<Parser>asList(lazy), excluded);
+        assertTrue(composite.getAllComponentParsers().isEmpty());
+        assertEquals(0, InstanceCountingParser.instances);
+    }
+
+    @Test
+    public void testLoadError() throws Exception {
+        final StringBuilder errors = new StringBuilder();
+        ServiceLoader reporting = new ServiceLoader(
+                LazyParserTest.class.getClassLoader(), new LoadErrorHandler() {
+                    public void handleLoadError(String classname, Throwable throwable) {
+                        errors.append(classname);
+                    }
+                });
+        LazyParser lazy = new LazyParser("org.example.MissingParser", TYPES, reporting);
+        try {
+            parse(lazy);
+            fail("Missing parser class");
+        } catch (TikaException expected) {
+        }
+        assertEquals("org.example.MissingParser", errors.toString());
+        // no longer claims the types, as if it had never been found
+        assertTrue(lazy.getSupportedTypes(new ParseContext()).isEmpty());
+    }
+
+    @Test
+    public void testSerializedAsParser() throws Exception {
+        LazyParser lazy = new LazyParser(
+                InstanceCountingParser.class.getName(), TYPES, loader);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream output = new ObjectOutputStream(buffer);
+        output.writeObject(lazy);
+        output.close();
+        ObjectInputStream input = new ObjectInputStream(
+                new ByteArrayInputStream(buffer.toByteArray()));
+        Parser parser = (Parser) input.readObject();
+        assertEquals(InstanceCountingParser.class, parser.getClass());
+    }
+
+    private static String parse(Parser parser) throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/x-lazy");
+        ContentHandler handler = new ToTextContentHandler();
+        parser.parse(new ByteArrayInputStream(new byte[0]), handler,
+                metadata, new ParseContext());
+        return handler.toString().trim();
+    }
+
+    /**
+     * Counts its instances, to tell when it is loaded.
+     */
+    public static class InstanceCountingParser extends AbstractParser {
+
+        private static final long serialVersionUID = 1L;
+
+        private static int instances = 0;
+
+        public InstanceCountingParser() {
+            instances++;
+        }
+
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return TYPES;
+        }
+
+        public void parse(
+                InputStream stream, ContentHandler handler,
+                Metadata metadata, ParseContext context)
+                throws IOException, SAXException, TikaException {
+            handler.startDocument();
+            handler.characters("lazy".toCharArray(), 0, 4);
+            handler.endDocument();
+        }
+    }
+}
@@ -19,18 +19,17 @@ package org.apache.tika.parser.grib;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.File;
 import java.util.Collections;
 import java.util.Set;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TemporaryResources;
-import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.netcdf.NetCDFMetadataReader;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -38,7 +37,6 @@ import ucar.nc2.Attribute;
 import ucar.nc2.Dimension;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
-import ucar.nc2.dataset.NetcdfDataset;
 
 public class GribParser extends AbstractParser {
 
@@ -60,20 +58,19 @@ public class GribParser extends AbstractParser {
         //Set MIME type as grib2
         metadata.set(Metadata.CONTENT_TYPE, GRIB_MIME_TYPE);
 
-        TikaInputStream tis = TikaInputStream.get(stream, new TemporaryResources());
-        File gribFile = tis.getFile();
-
+        TemporaryResources tmp = new TemporaryResources();
         try {
-            NetcdfFile ncFile = NetcdfDataset.openFile(gribFile.getAbsolutePath(), null);
+            NetcdfFile ncFile = NetCDFMetadataReader.open(stream, tmp, true);
+            NetCDFMetadataReader reader = new NetCDFMetadataReader(metadata, context);
 
             // first parse out the set of global attributes
             for (Attribute attr : ncFile.getGlobalAttributes()) {
                 Property property = resolveMetadataKey(attr.getFullName());
                 if (attr.getDataType().isString()) {
-                    metadata.add(property, attr.getStringValue());
+                    reader.add(property, attr.getStringValue());
                 } else if (attr.getDataType().isNumeric()) {
                     int value = attr.getNumericValue().intValue();
-                    metadata.add(property, String.valueOf(value));
+                    reader.add(property, String.valueOf(value));
                 }
             }
 
@@ -98,16 +95,18 @@ public class GribParser extends AbstractParser {
             for (Variable var : ncFile.getVariables()){
                 xhtml.element("p", String.valueOf(var.getDataType()) + var.getNameAndDimensions() + ";");
                 for(Attribute element : var.getAttributes()){
-                    xhtml.element("li", " :" + element + ";");
-                    xhtml.newline();
+                    if (reader.allow(element)) {
+                        xhtml.element("li", " :" + element + ";");
+                        xhtml.newline();
+                    }
                 }
             }
             xhtml.endElement("ul");
             xhtml.endElement("ul");
             xhtml.endDocument();
 
-        } catch (IOException e) {
-            throw new TikaException("NetCDF parse error", e);
+        } finally {
+            tmp.dispose();
         }
     }
 
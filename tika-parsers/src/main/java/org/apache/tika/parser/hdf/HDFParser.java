@@ -18,18 +18,18 @@
 package org.apache.tika.parser.hdf;
 
 //JDK imports
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
 import java.util.Set;
 
 import org.apache.tika.exception.TikaException;
-import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.netcdf.NetCDFMetadataReader;
 import org.apache.tika.parser.netcdf.NetCDFParser;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
@@ -77,18 +77,14 @@ public class HDFParser extends AbstractParser {
     public void parse(InputStream stream, ContentHandler handler,
             Metadata metadata, ParseContext context) throws IOException,
             SAXException, TikaException {
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-        IOUtils.copy(stream, os);
-
-        String name = metadata.get(Metadata.RESOURCE_NAME_KEY);
-        if (name == null) {
-            name = "";
-        }
+        TemporaryResources tmp = new TemporaryResources();
         try {
-            NetcdfFile ncFile = NetcdfFile.openInMemory(name, os.toByteArray());
-            unravelStringMet(ncFile, null, metadata);
-        } catch (IOException e) {
-            throw new TikaException("HDF parse error", e);
+            NetcdfFile ncFile = NetCDFMetadataReader.open(stream, tmp, false);
+            metadata.set("File-Type-Description", ncFile.getFileTypeDescription());
+            unravelStringMet(
+                    ncFile, null, new NetCDFMetadataReader(metadata, context));
+        } finally {
+            tmp.dispose();
         }
 
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
@@ -97,12 +93,16 @@ public class HDFParser extends AbstractParser {
     }
 
     protected void unravelStringMet(NetcdfFile ncFile, Group group, Metadata met) {
+        met.set("File-Type-Description", ncFile.getFileTypeDescription());
+        unravelStringMet(ncFile, group, new NetCDFMetadataReader(met, new ParseContext()));
+    }
+
+    protected void unravelStringMet(
+            NetcdfFile ncFile, Group group, NetCDFMetadataReader met) {
         if (group == null) {
             group = ncFile.getRootGroup();
         }
 
-        // get file type
-        met.set("File-Type-Description", ncFile.getFileTypeDescription());
         // unravel its string attrs
         for (Attribute attribute : group.getAttributes()) {
             if (attribute.isString()) {
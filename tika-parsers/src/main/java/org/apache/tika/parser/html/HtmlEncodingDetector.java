@@ -18,12 +18,10 @@ package org.apache.tika.parser.html;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.tika.detect.EncodingDetector;
+import org.apache.tika.io.IOUtils;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.utils.CharsetUtils;
 
@@ -33,6 +31,10 @@ import org.apache.tika.utils.CharsetUtils;
  * Content-Type http-equiv meta tag somewhere near the beginning. Especially
  * useful for determining the type among multiple closely related encodings
  * (ISO-8859-*) for which other types of encoding detection are unreliable.
+ * <p>
+ * The head of the document is scanned once, byte by byte, for a byte order
+ * mark, the meta tags and an XML declaration. A byte order mark wins over
+ * a meta tag, which wins over the encoding of the XML declaration.
  *
  * @since Apache Tika 1.2
  */
@@ -41,26 +43,17 @@ public class HtmlEncodingDetector implements EncodingDetector {
     // TIKA-357 - use bigger buffer for meta tag sniffing (was 4K)
     private static final int META_TAG_BUFFER_SIZE = 8192;
 
+    private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
 
-    private static final Pattern HTTP_META_PATTERN = Pattern.compile(
-            "(?is)<\\s*meta\\s+([^<>]+)"
-    );
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
 
-    //this should match both the older:
-    //<meta http-equiv="content-type" content="text/html; charset=xyz"/>
-    //and 
-    //html5 <meta charset="xyz">
-    //See http://webdesign.about.com/od/metatags/qt/meta-charset.htm
-    //for the noisiness that one might encounter in charset attrs.
-    //Chose to go with strict ([-_:\\.a-z0-9]+) to match encodings
-    //following http://docs.oracle.com/javase/7/docs/api/java/nio/charset/Charset.html
-    //For a more general "not" matcher, try:
-    //("(?is)charset\\s*=\\s*['\\\"]?\\s*([^<>\\s'\\\";]+)")
-    private static final Pattern FLEXIBLE_CHARSET_ATTR_PATTERN = Pattern.compile(
-            ("(?is)charset\\s*=\\s*(?:['\\\"]\\s*)?([-_:\\.a-z0-9]+)")
-    );
+    private static final byte[] META = "meta".getBytes(IOUtils.UTF_8);
 
-    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final byte[] CHARSET = "charset".getBytes(IOUtils.UTF_8);
+
+    private static final byte[] XML_DECLARATION = "<?xml".getBytes(IOUtils.UTF_8);
+
+    private static final byte[] ENCODING = "encoding".getBytes(IOUtils.UTF_8);
 
     public Charset detect(InputStream input, Metadata metadata)
             throws IOException {
@@ -79,31 +72,183 @@ public class HtmlEncodingDetector implements EncodingDetector {
         }
         input.reset();
 
-        // Interpret the head as ASCII and try to spot a meta tag with
-        // a possible character encoding hint
-
-        String head = ASCII.decode(ByteBuffer.wrap(buffer, 0, n)).toString();
-
-        Matcher equiv = HTTP_META_PATTERN.matcher(head);
-        Matcher charsetMatcher = FLEXIBLE_CHARSET_ATTR_PATTERN.matcher("");
-        //iterate through meta tags
-        while (equiv.find()) {
-            String attrs = equiv.group(1);
-            charsetMatcher.reset(attrs);
-            //iterate through charset= and return the first match
-            //that is valid
-            while (charsetMatcher.find()) {
-                String candCharset = charsetMatcher.group(1);
-                if (CharsetUtils.isSupported(candCharset)) {
-                    try {
-                        return CharsetUtils.forName(candCharset);
-                    } catch (Exception e) {
-                        //ignore
-                    }
+        return detect(buffer, n);
+    }
+
+    /**
+     * Scans the head of a document for a byte order mark, a meta tag
+     * with a supported charset or an XML declaration with a supported
+     * encoding.
+     *
+     * @param head   the first bytes of the document
+     * @param length number of valid bytes in the head
+     * @return the charset, or null if none was found
+     */
+    static Charset detect(byte[] head, int length) {
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF
+                && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            return IOUtils.UTF_8;
+        } else if (length >= 2 && (head[0] & 0xFF) == 0xFE && (head[1] & 0xFF) == 0xFF) {
+            return UTF_16BE;
+        } else if (length >= 2 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xFE) {
+            return UTF_16LE;
+        }
+
+        String xmlEncoding = null;
+        if (startsWith(head, 0, length, XML_DECLARATION)) {
+            xmlEncoding = findXmlEncoding(head, XML_DECLARATION.length, length);
+        }
+
+        int i = 0;
+        while (i < length) {
+            if (head[i] != '<') {
+                i++;
+                continue;
+            }
+            // <\s*meta\s+([^<>]+)
+            int j = skipWhitespace(head, i + 1, length);
+            if (!startsWith(head, j, length, META)) {
+                i++;
+                continue;
+            }
+            j += META.length;
+            int attrs = skipWhitespace(head, j, length);
+            if (attrs == j) {
+                i = j;
+                continue;
+            }
+            int end = attrs;
+            while (end < length && head[end] != '<' && head[end] != '>') {
+                end++;
+            }
+            Charset charset = findCharset(head, attrs, end);
+            if (charset != null) {
+                return charset;
+            }
+            i = end;
+        }
+
+        if (xmlEncoding != null) {
+            return forName(xmlEncoding);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first supported charset=xyz value between start and end.
+     * This should match both the older:
+     * &lt;meta http-equiv="content-type" content="text/html; charset=xyz"/&gt;
+     * and html5 &lt;meta charset="xyz"&gt;
+     * <p>
+     * See http://webdesign.about.com/od/metatags/qt/meta-charset.htm
+     * for the noisiness that one might encounter in charset attrs.
+     * Chose to go with strict ([-_:\.a-z0-9]+) to match encodings
+     * following http://docs.oracle.com/javase/7/docs/api/java/nio/charset/Charset.html
+     */
+    private static Charset findCharset(byte[] head, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!startsWith(head, i, end, CHARSET)) {
+                continue;
+            }
+            // charset\s*=\s*(?:['"]\s*)?([-_:\.a-z0-9]+)
+            int j = skipWhitespace(head, i + CHARSET.length, end);
+            if (j >= end || head[j] != '=') {
+                continue;
+            }
+            j = skipWhitespace(head, j + 1, end);
+            if (j < end && (head[j] == '\'' || head[j] == '"')) {
+                j = skipWhitespace(head, j + 1, end);
+            }
+            int nameEnd = j;
+            while (nameEnd < end && isCharsetNameChar(head[nameEnd])) {
+                nameEnd++;
+            }
+            if (nameEnd > j) {
+                Charset charset = forName(new String(head, j, nameEnd - j, IOUtils.UTF_8));
+                if (charset != null) {
+                    return charset;
                 }
             }
         }
         return null;
     }
 
+    /**
+     * Returns the encoding="xyz" value of the XML declaration which
+     * starts just before the given offset.
+     */
+    private static String findXmlEncoding(byte[] head, int start, int length) {
+        for (int i = start; i < length - 1; i++) {
+            if (head[i] == '?' && head[i + 1] == '>') {
+                return null;
+            }
+            if (!startsWith(head, i, length, ENCODING)) {
+                continue;
+            }
+            int j = skipWhitespace(head, i + ENCODING.length, length);
+            if (j >= length || head[j] != '=') {
+                continue;
+            }
+            j = skipWhitespace(head, j + 1, length);
+            if (j >= length || (head[j] != '\'' && head[j] != '"')) {
+                continue;
+            }
+            byte quote = head[j++];
+            int nameEnd = j;
+            while (nameEnd < length && head[nameEnd] != quote && isCharsetNameChar(head[nameEnd])) {
+                nameEnd++;
+            }
+            if (nameEnd < length && head[nameEnd] == quote && nameEnd > j) {
+                return new String(head, j, nameEnd - j, IOUtils.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static Charset forName(String name) {
+        if (CharsetUtils.isSupported(name)) {
+            try {
+                return CharsetUtils.forName(name);
+            } catch (Exception e) {
+                //ignore
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Case insensitive match of the given lower case ASCII bytes.
+     */
+    private static boolean startsWith(byte[] head, int offset, int end, byte[] lowerCase) {
+        if (offset + lowerCase.length > end) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length; i++) {
+            int b = head[offset + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != lowerCase[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipWhitespace(byte[] head, int offset, int end) {
+        while (offset < end && isWhitespace(head[offset])) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    private static boolean isCharsetNameChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                || b == '-' || b == '_' || b == ':' || b == '.';
+    }
+
 }
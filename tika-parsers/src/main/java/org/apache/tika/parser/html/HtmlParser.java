@@ -23,6 +23,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.apache.tika.config.ServiceLoader;
 import org.apache.tika.detect.AutoDetectReader;
@@ -36,6 +38,7 @@ import org.ccil.cowan.tagsoup.HTMLSchema;
 import org.ccil.cowan.tagsoup.Schema;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 /**
  * HTML parser. Uses TagSoup to turn the input document to HTML SAX events,
@@ -68,6 +71,22 @@ public class HtmlParser extends AbstractParser {
      */
     private static final Schema HTML_SCHEMA = new HTMLSchema();
 
+    /**
+     * Maximum number of idle TagSoup parsers kept for reuse.
+     */
+    private static final int MAX_POOLED_PARSERS = 64;
+
+    /**
+     * Idle TagSoup parsers configured with the shared {@link #HTML_SCHEMA}.
+     * A TagSoup parser resets its state at the start of each parse, so
+     * reusing it saves the set up of the parser and its scanner for every
+     * document, which matters for lots of small pages.
+     */
+    private static final BlockingQueue<org.ccil.cowan.tagsoup.Parser> PARSER_POOL =
+            new ArrayBlockingQueue<org.ccil.cowan.tagsoup.Parser>(MAX_POOLED_PARSERS);
+
+    private static final ContentHandler IDLE_HANDLER = new DefaultHandler();
+
 
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return SUPPORTED_TYPES;
@@ -104,29 +123,57 @@ public class HtmlParser extends AbstractParser {
             HtmlMapper mapper =
                     context.get(HtmlMapper.class, new HtmlParserMapper());
 
-            // Parse the HTML document
-            org.ccil.cowan.tagsoup.Parser parser =
-                    new org.ccil.cowan.tagsoup.Parser();
-
             // Use schema from context or default
             Schema schema = context.get(Schema.class, HTML_SCHEMA);
 
-            // TIKA-528: Reuse share schema to avoid heavy instantiation
-            parser.setProperty(
-                    org.ccil.cowan.tagsoup.Parser.schemaProperty, schema);
-            // TIKA-599: Shared schema is thread-safe only if bogons are ignored
-            parser.setFeature(
-                    org.ccil.cowan.tagsoup.Parser.ignoreBogonsFeature, true);
+            // Parse the HTML document
+            org.ccil.cowan.tagsoup.Parser parser = acquireParser(schema);
 
             parser.setContentHandler(new XHTMLDowngradeHandler(
                     new HtmlHandler(mapper, handler, metadata)));
 
             parser.parse(reader.asInputSource());
+
+            // Only parsers that completed normally are reused
+            releaseParser(parser, schema);
         } finally {
             reader.close();
         }
     }
 
+    /**
+     * Returns a pooled TagSoup parser for the default schema, or a new
+     * parser if none is available or a custom schema is used.
+     */
+    private static org.ccil.cowan.tagsoup.Parser acquireParser(Schema schema)
+            throws SAXException {
+        if (schema == HTML_SCHEMA) {
+            org.ccil.cowan.tagsoup.Parser parser = PARSER_POOL.poll();
+            if (parser != null) {
+                return parser;
+            }
+        }
+        org.ccil.cowan.tagsoup.Parser parser =
+                new org.ccil.cowan.tagsoup.Parser();
+
+        // TIKA-528: Reuse share schema to avoid heavy instantiation
+        parser.setProperty(
+                org.ccil.cowan.tagsoup.Parser.schemaProperty, schema);
+        // TIKA-599: Shared schema is thread-safe only if bogons are ignored
+        parser.setFeature(
+                org.ccil.cowan.tagsoup.Parser.ignoreBogonsFeature, true);
+        return parser;
+    }
+
+    private static void releaseParser(
+            org.ccil.cowan.tagsoup.Parser parser, Schema schema) {
+        if (schema == HTML_SCHEMA) {
+            // Don't keep the client's handler reachable from the pool
+            parser.setContentHandler(IDLE_HANDLER);
+            PARSER_POOL.offer(parser);
+        }
+    }
+
     /**
      * Maps "safe" HTML element names to semantic XHTML equivalents. If the
      * given element is unknown or deemed unsafe for inclusion in the parse
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.image;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the metadata extraction of the {@link TiffParser} and
+ * the {@link org.apache.tika.parser.jpeg.JpegParser}, passed in through the
+ * {@link org.apache.tika.parser.ParseContext}.
+ */
+public class ImageMetadataConfig implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = -3716420138729164538L;
+
+    private int maxPrefixLength = 1024 * 1024;
+
+    /**
+     * Maximum number of bytes read into memory to extract the metadata of
+     * an image that is not already available as a file. For a JPEG these
+     * are its marker segments up to the image data, for a TIFF the start
+     * of the file. Only if the metadata does not fit, or a TIFF directory
+     * points beyond these bytes, is the image spooled to a temporary file.
+     * Default is 1MB; 0 always spools the image to a file.
+     */
+    public int getMaxPrefixLength() {
+        return maxPrefixLength;
+    }
+
+    /**
+     * @see #getMaxPrefixLength()
+     */
+    public void setMaxPrefixLength(int maxPrefixLength) {
+        this.maxPrefixLength = maxPrefixLength;
+    }
+}
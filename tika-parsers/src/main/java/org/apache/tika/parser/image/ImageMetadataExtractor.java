@@ -33,9 +33,12 @@ import com.drew.imaging.jpeg.JpegProcessingException;
 import com.drew.imaging.riff.RiffProcessingException;
 import com.drew.imaging.tiff.TiffMetadataReader;
 import com.drew.imaging.tiff.TiffProcessingException;
+import com.drew.imaging.tiff.TiffReader;
 import com.drew.imaging.webp.WebpMetadataReader;
+import com.drew.lang.BufferBoundsException;
 import com.drew.lang.ByteArrayReader;
 import com.drew.lang.GeoLocation;
+import com.drew.lang.RandomAccessReader;
 import com.drew.lang.Rational;
 import com.drew.metadata.Directory;
 import com.drew.metadata.MetadataException;
@@ -44,6 +47,7 @@ import com.drew.metadata.exif.ExifIFD0Directory;
 import com.drew.metadata.exif.ExifReader;
 import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.drew.metadata.exif.ExifThumbnailDirectory;
+import com.drew.metadata.exif.ExifTiffHandler;
 import com.drew.metadata.exif.GpsDirectory;
 import com.drew.metadata.iptc.IptcDirectory;
 import com.drew.metadata.jpeg.JpegCommentDirectory;
@@ -126,6 +130,59 @@ public class ImageMetadataExtractor {
         }
     }
 
+    /**
+     * Reads the metadata of a JPEG from its marker segments, as read by
+     * {@link ImagePrefixReader#readJpegSegments()}.
+     *
+     * @param segments stream of the JPEG marker segments
+     */
+    public void parseJpeg(InputStream segments)
+            throws IOException, SAXException, TikaException {
+        try {
+            com.drew.metadata.Metadata jpegMetadata = JpegMetadataReader.readMetadata(segments);
+            handle(jpegMetadata);
+        } catch (JpegProcessingException e) {
+            throw new TikaException("Can't read JPEG metadata", e);
+        } catch (MetadataException e) {
+            throw new TikaException("Can't read JPEG metadata", e);
+        }
+    }
+
+    /**
+     * Reads the metadata of a TIFF from the first bytes of the file. Nothing
+     * is extracted if any of the directories or values of the file lie
+     * beyond these bytes.
+     *
+     * @param prefix first bytes of the file
+     * @param complete whether the prefix is the whole file
+     * @return true if the metadata has been extracted, false if more of
+     *         the file is needed
+     */
+    public boolean parseTiff(byte[] prefix, boolean complete)
+            throws IOException, SAXException, TikaException {
+        PrefixReader reader = new PrefixReader(prefix, complete);
+        com.drew.metadata.Metadata tiffMetadata = new com.drew.metadata.Metadata();
+        try {
+            new TiffReader().processTiff(reader, new ExifTiffHandler(tiffMetadata, false), 0);
+        } catch (BufferBoundsException e) {
+            if (reader.beyondPrefix) {
+                return false;
+            }
+            throw e;
+        } catch (TiffProcessingException e) {
+            throw new TikaException("Can't read TIFF metadata", e);
+        }
+        if (reader.beyondPrefix) {
+            return false;
+        }
+        try {
+            handle(tiffMetadata);
+        } catch (MetadataException e) {
+            throw new TikaException("Can't read TIFF metadata", e);
+        }
+        return true;
+    }
+
     public void parseWebP(File file) throws IOException, TikaException {
 
         try {
@@ -212,6 +269,60 @@ public class ImageMetadataExtractor {
         }
     }
 
+    /**
+     * Reader of the first bytes of a file, which records any attempt to
+     * read beyond them. Unless the bytes are the whole file, its length is
+     * unknown, so the TIFF reader tries to follow all offsets.
+     */
+    private static class PrefixReader extends RandomAccessReader {
+
+        private final byte[] prefix;
+
+        private final boolean complete;
+
+        private boolean beyondPrefix = false;
+
+        PrefixReader(byte[] prefix, boolean complete) {
+            this.prefix = prefix;
+            this.complete = complete;
+        }
+
+        @Override
+        public long getLength() {
+            return complete ? prefix.length : Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected byte getByte(int index) throws IOException {
+            return prefix[index];
+        }
+
+        @Override
+        public byte[] getBytes(int index, int count) throws IOException {
+            validateIndex(index, count);
+            byte[] bytes = new byte[count];
+            System.arraycopy(prefix, index, bytes, 0, count);
+            return bytes;
+        }
+
+        @Override
+        protected void validateIndex(int index, int bytesRequested) throws IOException {
+            if (!isValidIndex(index, bytesRequested)) {
+                throw new BufferBoundsException(index, bytesRequested, prefix.length);
+            }
+        }
+
+        @Override
+        protected boolean isValidIndex(int index, int bytesRequested) throws IOException {
+            boolean valid = bytesRequested >= 0 && index >= 0
+                    && (long) index + (long) bytesRequested - 1L < prefix.length;
+            if (!valid && !complete && index >= 0 && bytesRequested >= 0) {
+                beyondPrefix = true;
+            }
+            return valid;
+        }
+    }
+
     /**
      * Reads one or more type of Metadata Extractor fields.
      */
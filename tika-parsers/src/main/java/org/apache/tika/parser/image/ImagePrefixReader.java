@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.image;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the part of an image stream that holds its metadata into memory,
+ * so that the metadata can be extracted without spooling the whole image
+ * to a temporary file. At most a given number of bytes is read. If the
+ * metadata turns out not to fit, {@link #getFullStream()} gives the
+ * complete stream again, including the bytes that have already been read.
+ */
+public class ImagePrefixReader {
+
+    private static final int SOS = 0xDA;
+
+    private static final int EOI = 0xD9;
+
+    private final InputStream stream;
+
+    private final int limit;
+
+    private byte[] buffer = new byte[4096];
+
+    private int length = 0;
+
+    private boolean complete = false;
+
+    private boolean limitReached = false;
+
+    /**
+     * @param stream image stream
+     * @param limit maximum number of bytes to read
+     */
+    public ImagePrefixReader(InputStream stream, int limit) {
+        this.stream = new BufferedInputStream(stream);
+        this.limit = limit;
+    }
+
+    /**
+     * Reads the marker segments of a JPEG image, which hold all of its
+     * metadata, up to the start of the compressed image data. The image
+     * data itself is not read.
+     *
+     * @return true if the segments have been read, or the stream ended,
+     *         within the limit; false if the limit was reached first
+     * @throws IOException if the stream could not be read
+     */
+    public boolean readJpegSegments() throws IOException {
+        if (read() != 0xFF || read() != 0xD8) {
+            // not a JPEG; let the metadata reader fail on what has been read
+            return !limitReached;
+        }
+        while (true) {
+            int b = read();
+            if (b != 0xFF) {
+                // end of stream, or not a marker
+                return !limitReached;
+            }
+            int marker = read();
+            while (marker == 0xFF) {
+                // fill bytes
+                marker = read();
+            }
+            if (marker == -1 || marker == SOS || marker == EOI) {
+                return !limitReached;
+            }
+            if ((marker >= 0xD0 && marker <= 0xD7) || marker == 0x01) {
+                // markers without a segment
+                continue;
+            }
+            int high = read();
+            int low = read();
+            if (low == -1) {
+                return !limitReached;
+            }
+            int segmentLength = ((high << 8) | low) - 2;
+            if (segmentLength < 0) {
+                return !limitReached;
+            }
+            if (length + segmentLength > limit) {
+                return false;
+            }
+            if (!read(segmentLength)) {
+                return !limitReached;
+            }
+        }
+    }
+
+    /**
+     * Reads the first bytes of the stream, up to the limit.
+     *
+     * @throws IOException if the stream could not be read
+     */
+    public void readPrefix() throws IOException {
+        read(limit - length);
+    }
+
+    /**
+     * @return true if the whole stream has been read
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the bytes that have been read
+     */
+    public byte[] getPrefix() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * @return stream of the bytes that have been read
+     */
+    public InputStream getPrefixStream() {
+        return new ByteArrayInputStream(buffer, 0, length);
+    }
+
+    /**
+     * @return stream of the bytes that have been read, followed by the
+     *         rest of the image stream
+     */
+    public InputStream getFullStream() {
+        return new SequenceInputStream(getPrefixStream(), stream);
+    }
+
+    private int read() throws IOException {
+        if (length >= limit) {
+            limitReached = true;
+            return -1;
+        }
+        int b = stream.read();
+        if (b == -1) {
+            complete = true;
+            return -1;
+        }
+        ensureCapacity(length + 1);
+        buffer[length++] = (byte) b;
+        return b;
+    }
+
+    /**
+     * Reads up to n bytes, or to the end of the stream or the limit.
+     *
+     * @return true if n bytes have been read
+     */
+    private boolean read(int n) throws IOException {
+        int wanted = length + n;
+        int end = Math.min(wanted, limit);
+        while (length < end) {
+            ensureCapacity(Math.min(end, length + 8192));
+            int r = stream.read(buffer, length, Math.min(end, buffer.length) - length);
+            if (r == -1) {
+                complete = true;
+                return false;
+            }
+            length += r;
+        }
+        return end == wanted;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+        }
+    }
+}
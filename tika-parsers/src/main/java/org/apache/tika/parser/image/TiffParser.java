@@ -43,6 +43,8 @@ public class TiffParser extends AbstractParser {
     private static final Set<MediaType> SUPPORTED_TYPES =
             Collections.singleton(MediaType.image("tiff"));
 
+    private static final ImageMetadataConfig DEFAULT_CONFIG = new ImageMetadataConfig();
+
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return SUPPORTED_TYPES;
     }
@@ -51,13 +53,30 @@ public class TiffParser extends AbstractParser {
             InputStream stream, ContentHandler handler,
             Metadata metadata, ParseContext context)
             throws IOException, SAXException, TikaException {
-        TemporaryResources tmp = new TemporaryResources();
-        try {
-            TikaInputStream tis = TikaInputStream.get(stream, tmp);
-            new ImageMetadataExtractor(metadata).parseTiff(tis.getFile());
-            new JempboxExtractor(metadata).parse(tis);
-        } finally {
-            tmp.dispose();
+        ImageMetadataConfig config = context.get(ImageMetadataConfig.class, DEFAULT_CONFIG);
+        boolean extracted = false;
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if ((tis == null || !tis.hasFile()) && config.getMaxPrefixLength() > 0) {
+            // Try the start of the image before spooling it to a file
+            ImagePrefixReader reader = new ImagePrefixReader(stream, config.getMaxPrefixLength());
+            reader.readPrefix();
+            if (new ImageMetadataExtractor(metadata).parseTiff(reader.getPrefix(), reader.isComplete())) {
+                new JempboxExtractor(metadata).parse(reader.getPrefixStream());
+                extracted = true;
+            } else {
+                stream = reader.getFullStream();
+            }
+        }
+
+        if (!extracted) {
+            TemporaryResources tmp = new TemporaryResources();
+            try {
+                tis = TikaInputStream.get(stream, tmp);
+                new ImageMetadataExtractor(metadata).parseTiff(tis.getFile());
+                new JempboxExtractor(metadata).parse(tis);
+            } finally {
+                tmp.dispose();
+            }
         }
 
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
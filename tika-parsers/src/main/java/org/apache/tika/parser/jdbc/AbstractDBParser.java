@@ -21,6 +21,7 @@ import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -44,6 +45,8 @@ abstract class AbstractDBParser extends AbstractParser {
 
     private final static byte[] EMPTY_BYTE_ARR = new byte[0];
 
+    private static final DBParserConfig DEFAULT_CONFIG = new DBParserConfig();
+
     private Connection connection;
 
     protected static EmbeddedDocumentExtractor getEmbeddedDocumentExtractor(ParseContext context) {
@@ -51,6 +54,10 @@ abstract class AbstractDBParser extends AbstractParser {
                 new ParsingEmbeddedDocumentExtractor(context));
     }
 
+    protected static DBParserConfig getConfig(ParseContext context) {
+        return context.get(DBParserConfig.class, DEFAULT_CONFIG);
+    }
+
     @Override
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return null;
@@ -58,11 +65,16 @@ abstract class AbstractDBParser extends AbstractParser {
 
     @Override
     public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) throws IOException, SAXException, TikaException {
+        DBParserConfig config = getConfig(context);
         connection = getConnection(stream, metadata, context);
         XHTMLContentHandler xHandler = null;
-        List<String> tableNames = null;
+        List<String> tableNames = new ArrayList<String>();
         try {
-            tableNames = getTableNames(connection, metadata, context);
+            for (String tableName : getTableNames(connection, metadata, context)) {
+                if (config.isTableIncluded(tableName)) {
+                    tableNames.add(tableName);
+                }
+            }
         } catch (SQLException e) {
             throw new IOExceptionWithCause(e);
         }
@@ -76,22 +88,27 @@ abstract class AbstractDBParser extends AbstractParser {
         try {
             for (String tableName : tableNames) {
                 JDBCTableReader tableReader = getTableReader(connection, tableName, context);
-                xHandler.startElement("table", "name", tableReader.getTableName());
-                xHandler.startElement("thead");
-                xHandler.startElement("tr");
-                for (String header : tableReader.getHeaders()) {
-                    xHandler.startElement("th");
-                    xHandler.characters(header);
-                    xHandler.endElement("th");
-                }
-                xHandler.endElement("tr");
-                xHandler.endElement("thead");
-                xHandler.startElement("tbody");
-                while (tableReader.nextRow(xHandler, context)) {
-                    //no-op
+                try {
+                    xHandler.startElement("table", "name", tableReader.getTableName());
+                    xHandler.startElement("thead");
+                    xHandler.startElement("tr");
+                    for (String header : tableReader.getHeaders()) {
+                        xHandler.startElement("th");
+                        xHandler.characters(header);
+                        xHandler.endElement("th");
+                    }
+                    xHandler.endElement("tr");
+                    xHandler.endElement("thead");
+                    xHandler.startElement("tbody");
+                    while (tableReader.nextRow(xHandler, context)) {
+                        //no-op
+                    }
+                    xHandler.endElement("tbody");
+                    xHandler.endElement("table");
+                } finally {
+                    //release the result set before moving on to the next table
+                    tableReader.close();
                 }
-                xHandler.endElement("tbody");
-                xHandler.endElement("table");
             }
         } finally {
             if (xHandler != null) {
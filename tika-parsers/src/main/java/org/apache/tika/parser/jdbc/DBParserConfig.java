@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.jdbc;
+
+import java.io.Serializable;
+import java.util.regex.Pattern;
+
+/**
+ * Configuration for the database parsers, such as the {@link SQLite3Parser},
+ * passed in through the {@link org.apache.tika.parser.ParseContext}.
+ * <p>
+ * The defaults extract every row and every blob of every table.
+ */
+public class DBParserConfig implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = 6283469187344527329L;
+
+    private int maxRowsPerTable = -1;
+
+    private long maxBlobSize = -1;
+
+    private Pattern includeTables = null;
+
+    private Pattern excludeTables = null;
+
+    private int fetchSize = 0;
+
+    /**
+     * Maximum number of rows to extract from each table, or -1
+     * (the default) to extract all rows.
+     */
+    public int getMaxRowsPerTable() {
+        return maxRowsPerTable;
+    }
+
+    /**
+     * @see #getMaxRowsPerTable()
+     */
+    public void setMaxRowsPerTable(int maxRowsPerTable) {
+        this.maxRowsPerTable = maxRowsPerTable;
+    }
+
+    /**
+     * Maximum size in bytes of a blob to be handed to the
+     * {@link org.apache.tika.extractor.EmbeddedDocumentExtractor}, or -1
+     * (the default) for no limit. Larger blobs are not read at all; only
+     * their placeholder <code>span</code> with the blob's length is output.
+     * If the length of a blob can't be determined, it is extracted.
+     */
+    public long getMaxBlobSize() {
+        return maxBlobSize;
+    }
+
+    /**
+     * @see #getMaxBlobSize()
+     */
+    public void setMaxBlobSize(long maxBlobSize) {
+        this.maxBlobSize = maxBlobSize;
+    }
+
+    /**
+     * Regular expression that table names must match to be extracted,
+     * or null (the default) to include all tables.
+     */
+    public String getIncludeTables() {
+        return includeTables == null ? null : includeTables.pattern();
+    }
+
+    /**
+     * @see #getIncludeTables()
+     */
+    public void setIncludeTables(String regex) {
+        this.includeTables = regex == null ? null : Pattern.compile(regex);
+    }
+
+    /**
+     * Regular expression for table names that are not extracted,
+     * or null (the default) to exclude no tables.
+     */
+    public String getExcludeTables() {
+        return excludeTables == null ? null : excludeTables.pattern();
+    }
+
+    /**
+     * @see #getExcludeTables()
+     */
+    public void setExcludeTables(String regex) {
+        this.excludeTables = regex == null ? null : Pattern.compile(regex);
+    }
+
+    /**
+     * Number of rows the JDBC driver should fetch at a time, or 0
+     * (the default) to use the driver's default.
+     *
+     * @see java.sql.Statement#setFetchSize(int)
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @see #getFetchSize()
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Checks the table name against the include and exclude patterns.
+     *
+     * @param tableName name of the table
+     * @return true if the table should be extracted
+     */
+    public boolean isTableIncluded(String tableName) {
+        if (includeTables != null && !includeTables.matcher(tableName).matches()) {
+            return false;
+        }
+        return excludeTables == null || !excludeTables.matcher(tableName).matches();
+    }
+}
@@ -60,8 +60,11 @@ class JDBCTableReader {
     private final static Attributes EMPTY_ATTRIBUTES = new AttributesImpl();
     private final Connection connection;
     private final String tableName;
+    private final DBParserConfig config;
     int maxClobLength = 1000000;
+    Statement statement = null;
     ResultSet results = null;
+    int columnCount = 0;
     int rows = 0;
     private TikaConfig tikaConfig = null;
     private Detector detector = null;
@@ -71,6 +74,7 @@ class JDBCTableReader {
         this.connection = connection;
         this.tableName = tableName;
         this.tikaConfig = context.get(TikaConfig.class);
+        this.config = AbstractDBParser.getConfig(context);
     }
 
     public boolean nextRow(ContentHandler handler, ParseContext context) throws IOException, SAXException {
@@ -78,6 +82,9 @@ class JDBCTableReader {
         if (results == null) {
             reset();
         }
+        if (config.getMaxRowsPerTable() >= 0 && rows >= config.getMaxRowsPerTable()) {
+            return false;
+        }
         try {
             if (!results.next()) {
                 return false;
@@ -88,7 +95,7 @@ class JDBCTableReader {
         try {
             ResultSetMetaData meta = results.getMetaData();
             handler.startElement(XHTMLContentHandler.XHTML, "tr", "tr", EMPTY_ATTRIBUTES);
-            for (int i = 1; i <= meta.getColumnCount(); i++) {
+            for (int i = 1; i <= columnCount; i++) {
                 handler.startElement(XHTMLContentHandler.XHTML, "td", "td", EMPTY_ATTRIBUTES);
                 handleCell(meta, i, handler, context);
                 handler.endElement(XHTMLContentHandler.XHTML, "td", "td");
@@ -143,7 +150,7 @@ class JDBCTableReader {
         }
         try {
             ResultSetMetaData meta = results.getMetaData();
-            for (int i = 1; i <= meta.getColumnCount(); i++) {
+            for (int i = 1; i <= columnCount; i++) {
                 headers.add(meta.getColumnName(i));
             }
         } catch (SQLException e) {
@@ -198,29 +205,35 @@ class JDBCTableReader {
         Blob blob = null;
         InputStream is = null;
         EmbeddedDocumentExtractor ex = AbstractDBParser.getEmbeddedDocumentExtractor(context);
+        AttributesImpl attrs = new AttributesImpl();
+        attrs.addAttribute("", "type", "type", "CDATA", "blob");
+        attrs.addAttribute("", "column_name", "column_name", "CDATA", columnName);
+        attrs.addAttribute("", "row_number", "row_number", "CDATA", Integer.toString(rowNum));
         try {
-            is = TikaInputStream.get(getInputStreamFromBlob(resultSet, columnIndex, blob, m));
-
-            Attributes attrs = new AttributesImpl();
-            ((AttributesImpl) attrs).addAttribute("", "type", "type", "CDATA", "blob");
-            ((AttributesImpl) attrs).addAttribute("", "column_name", "column_name", "CDATA", columnName);
-            ((AttributesImpl) attrs).addAttribute("", "row_number", "row_number", "CDATA", Integer.toString(rowNum));
-            handler.startElement("", "span", "span", attrs);
-            MediaType mediaType = getDetector().detect(is, new Metadata());
-            String extension = "";
-            try {
-                MimeType mimeType = getMimeTypes().forName(mediaType.toString());
-                m.set(Metadata.CONTENT_TYPE, mimeType.toString());
-                extension = mimeType.getExtension();
-            } catch (MimeTypeException e) {
-                //swallow
-            }
-            m.set(TikaMetadataKeys.RESOURCE_NAME_KEY,
-                    //just in case something screwy is going on with the column name
-                    FilenameUtils.normalize(FilenameUtils.getName(columnName + "_" + rowNum + extension)));
-
-            ex.parseEmbedded(is, handler, m, true);
+            blob = getBlob(resultSet, columnIndex);
+            long length = getBlobLength(resultSet, columnIndex, blob);
+            if (config.getMaxBlobSize() >= 0 && length > config.getMaxBlobSize()) {
+                //too big to extract, just record that it is there
+                attrs.addAttribute("", "length", "length", "CDATA", Long.toString(length));
+                handler.startElement("", "span", "span", attrs);
+            } else {
+                is = TikaInputStream.get(getInputStreamFromBlob(resultSet, columnIndex, blob, m));
+                handler.startElement("", "span", "span", attrs);
+                MediaType mediaType = getDetector().detect(is, new Metadata());
+                String extension = "";
+                try {
+                    MimeType mimeType = getMimeTypes().forName(mediaType.toString());
+                    m.set(Metadata.CONTENT_TYPE, mimeType.toString());
+                    extension = mimeType.getExtension();
+                } catch (MimeTypeException e) {
+                    //swallow
+                }
+                m.set(TikaMetadataKeys.RESOURCE_NAME_KEY,
+                        //just in case something screwy is going on with the column name
+                        FilenameUtils.normalize(FilenameUtils.getName(columnName + "_" + rowNum + extension)));
 
+                ex.parseEmbedded(is, handler, m, true);
+            }
         } finally {
             if (blob != null) {
                 try {
@@ -234,6 +247,26 @@ class JDBCTableReader {
         handler.endElement("", "span", "span");
     }
 
+    /**
+     * Returns the blob in the given column, or null if the driver
+     * only supports reading blobs through {@link #getInputStreamFromBlob}.
+     */
+    protected Blob getBlob(ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getBlob(columnIndex);
+    }
+
+    /**
+     * Returns the length of the blob in the given column without reading
+     * its content, or -1 if the length is unknown.
+     */
+    protected long getBlobLength(ResultSet resultSet, int columnIndex, Blob blob) throws SQLException {
+        return blob == null ? -1 : blob.length();
+    }
+
+    /**
+     * Large blobs are streamed from the database rather than read into memory,
+     * see {@link TikaInputStream#get(Blob, Metadata)}.
+     */
     protected InputStream getInputStreamFromBlob(ResultSet resultSet, int columnIndex, Blob blob, Metadata metadata) throws SQLException {
         return TikaInputStream.get(blob, metadata);
     }
@@ -252,23 +285,73 @@ class JDBCTableReader {
     }
 
     void reset() throws IOException {
+        close();
 
+        try {
+            String sql = getSelectStatement();
+            statement = connection.createStatement();
+            if (config.getFetchSize() > 0) {
+                statement.setFetchSize(config.getFetchSize());
+            }
+            if (config.getMaxRowsPerTable() > 0) {
+                statement.setMaxRows(config.getMaxRowsPerTable());
+            }
+            results = statement.executeQuery(sql);
+            columnCount = getTableColumnCount(results.getMetaData());
+        } catch (SQLException e) {
+            throw new IOExceptionWithCause(e);
+        }
+        rows = 0;
+    }
+
+    /**
+     * Closes the result set and statement, if any.
+     */
+    void close() {
         if (results != null) {
             try {
                 results.close();
             } catch (SQLException e) {
                 //swallow
             }
+            results = null;
         }
-
-        String sql = "SELECT * from " + tableName;
-        try {
-            Statement st = connection.createStatement();
-            results = st.executeQuery(sql);
-        } catch (SQLException e) {
-            throw new IOExceptionWithCause(e);
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                //swallow
+            }
+            statement = null;
         }
-        rows = 0;
+    }
+
+    /**
+     * Override this to select extra columns for internal use, which must
+     * come after the columns of the table.
+     *
+     * @return the sql to select the rows of the table
+     * @throws SQLException
+     */
+    protected String getSelectStatement() throws SQLException {
+        return "SELECT * from " + tableName;
+    }
+
+    /**
+     * @param meta metadata of the result set of {@link #getSelectStatement()}
+     * @return the number of columns of the table to output
+     * @throws SQLException
+     */
+    protected int getTableColumnCount(ResultSetMetaData meta) throws SQLException {
+        return meta.getColumnCount();
+    }
+
+    protected Connection getConnection() {
+        return connection;
+    }
+
+    protected DBParserConfig getConfig() {
+        return config;
     }
 
     public String getTableName() {
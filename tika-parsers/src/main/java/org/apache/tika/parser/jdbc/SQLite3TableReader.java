@@ -21,9 +21,13 @@ import java.io.InputStream;
 import java.sql.Blob;
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import org.apache.tika.io.TikaInputStream;
@@ -48,6 +52,12 @@ class SQLite3TableReader extends JDBCTableReader {
 
     DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
 
+    /**
+     * Number of columns in the table if the blob lengths are selected
+     * after them, otherwise -1
+     */
+    private int tableColumns = -1;
+
     public SQLite3TableReader(Connection connection, String tableName, ParseContext context) {
         super(connection, tableName, context);
     }
@@ -74,6 +84,60 @@ class SQLite3TableReader extends JDBCTableReader {
         //no-op for now.
     }
 
+    /**
+     * If there's a maximum blob size, the length of every column is selected
+     * too: SQLite's length() doesn't need to load the content of a blob, so
+     * this allows large blobs to be skipped without reading them.
+     */
+    @Override
+    protected String getSelectStatement() throws SQLException {
+        tableColumns = -1;
+        if (getConfig().getMaxBlobSize() < 0) {
+            return super.getSelectStatement();
+        }
+        List<String> columns = new ArrayList<String>();
+        Statement st = getConnection().createStatement();
+        try {
+            ResultSet rs = st.executeQuery("PRAGMA table_info(" + quote(getTableName()) + ")");
+            while (rs.next()) {
+                columns.add(rs.getString(2));
+            }
+        } finally {
+            st.close();
+        }
+        StringBuilder sql = new StringBuilder("SELECT *");
+        for (String column : columns) {
+            sql.append(", length(").append(quote(column)).append(")");
+        }
+        sql.append(" from ").append(getTableName());
+        tableColumns = columns.size();
+        return sql.toString();
+    }
+
+    @Override
+    protected int getTableColumnCount(ResultSetMetaData meta) throws SQLException {
+        return tableColumns >= 0 ? tableColumns : super.getTableColumnCount(meta);
+    }
+
+    /**
+     * The jdbc connection to Sqlite does not implement blob.
+     *
+     * @return null (always)
+     */
+    @Override
+    protected Blob getBlob(ResultSet resultSet, int columnIndex) throws SQLException {
+        return null;
+    }
+
+    @Override
+    protected long getBlobLength(ResultSet resultSet, int columnIndex, Blob blob) throws SQLException {
+        return tableColumns >= 0 ? resultSet.getLong(tableColumns + columnIndex) : -1;
+    }
+
+    private static String quote(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
     /**
      * The jdbc connection to Sqlite does not yet implement blob, have to getBytes().
      *
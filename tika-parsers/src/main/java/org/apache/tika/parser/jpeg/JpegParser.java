@@ -28,7 +28,9 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.image.ImageMetadataConfig;
 import org.apache.tika.parser.image.ImageMetadataExtractor;
+import org.apache.tika.parser.image.ImagePrefixReader;
 import org.apache.tika.parser.image.xmp.JempboxExtractor;
 import org.apache.tika.sax.XHTMLContentHandler;
 import org.xml.sax.ContentHandler;
@@ -44,6 +46,8 @@ public class JpegParser extends AbstractParser {
     private static final Set<MediaType> SUPPORTED_TYPES =
             Collections.singleton(MediaType.image("jpeg"));
 
+    private static final ImageMetadataConfig DEFAULT_CONFIG = new ImageMetadataConfig();
+
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return SUPPORTED_TYPES;
     }
@@ -52,13 +56,30 @@ public class JpegParser extends AbstractParser {
             InputStream stream, ContentHandler handler,
             Metadata metadata, ParseContext context)
             throws IOException, SAXException, TikaException {
-        TemporaryResources tmp = new TemporaryResources();
-        try {
-            TikaInputStream tis = TikaInputStream.get(stream, tmp);
-            new ImageMetadataExtractor(metadata).parseJpeg(tis.getFile());
-            new JempboxExtractor(metadata).parse(tis);
-        } finally {
-            tmp.dispose();
+        ImageMetadataConfig config = context.get(ImageMetadataConfig.class, DEFAULT_CONFIG);
+        boolean extracted = false;
+        TikaInputStream tis = TikaInputStream.cast(stream);
+        if ((tis == null || !tis.hasFile()) && config.getMaxPrefixLength() > 0) {
+            // Only read the marker segments rather than spooling the image to a file
+            ImagePrefixReader reader = new ImagePrefixReader(stream, config.getMaxPrefixLength());
+            if (reader.readJpegSegments()) {
+                new ImageMetadataExtractor(metadata).parseJpeg(reader.getPrefixStream());
+                new JempboxExtractor(metadata).parse(reader.getPrefixStream());
+                extracted = true;
+            } else {
+                stream = reader.getFullStream();
+            }
+        }
+
+        if (!extracted) {
+            TemporaryResources tmp = new TemporaryResources();
+            try {
+                tis = TikaInputStream.get(stream, tmp);
+                new ImageMetadataExtractor(metadata).parseJpeg(tis.getFile());
+                new JempboxExtractor(metadata).parse(tis);
+            } finally {
+                tmp.dispose();
+            }
         }
 
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Minimal reader of the header, the file allocation table and the root
+ * directory of an OLE2 (compound file) document, used to list the names of
+ * the top level entries without spooling the document to a file or opening
+ * it with POI. Only the sectors that are needed are read from the stream,
+ * and never more than a given number of bytes, which is enough for the
+ * directory of most documents as it is usually written near their start.
+ * <p>
+ * The stream is read from its current position, which must be the start of
+ * the document; the caller is responsible for marking and resetting it.
+ */
+class OLE2DirectorySniffer {
+
+    private static final int END_OF_CHAIN = -2;
+
+    private static final int NO_STREAM = -1;
+
+    private static final int DIRECTORY_ENTRY_SIZE = 128;
+
+    /**
+     * Number of FAT sector locations in the header. Documents whose
+     * directory is in a sector described by a further FAT sector are not
+     * supported.
+     */
+    private static final int HEADER_DIFAT_ENTRIES = 109;
+
+    private static final int HEADER_DIFAT_OFFSET = 0x4C;
+
+    private static final int TYPE_STORAGE = 1;
+
+    private static final int TYPE_STREAM = 2;
+
+    private static final int TYPE_ROOT = 5;
+
+    private final InputStream stream;
+
+    private final int maxLength;
+
+    private byte[] data;
+
+    /**
+     * Number of bytes of the document in the buffer.
+     */
+    private int length;
+
+    /**
+     * Number of bytes read from the stream, the first of which may have
+     * been given as the prefix.
+     */
+    private int position = 0;
+
+    private boolean complete = false;
+
+    /**
+     * @param stream the document, at its start
+     * @param prefix the first bytes of the document already read, or null
+     * @param maxLength maximum number of bytes to read from the stream
+     */
+    OLE2DirectorySniffer(InputStream stream, byte[] prefix, int maxLength) {
+        this.stream = stream;
+        this.maxLength = maxLength;
+        if (prefix != null) {
+            this.data = prefix;
+            this.length = Math.min(prefix.length, maxLength);
+        } else {
+            this.data = new byte[0];
+            this.length = 0;
+        }
+    }
+
+    /**
+     * Returns the names of the entries of the root directory.
+     *
+     * @return the names, or null if the document is not a valid OLE2
+     *         document or its directory is not within the bytes that
+     *         may be read
+     * @throws IOException if the stream can not be read
+     */
+    Set<String> getTopLevelNames() throws IOException {
+        if (!ensure(512)) {
+            return null;
+        }
+        int shift = getShort(0x1E);
+        if (shift != 9 && shift != 12) {
+            return null;
+        }
+        int sectorSize = 1 << shift;
+        int fatSectors = getInt(0x2C);
+        int entriesPerSector = sectorSize / DIRECTORY_ENTRY_SIZE;
+
+        // Sectors of the directory, following the chain through the FAT
+        List<Integer> chain = new ArrayList<Integer>();
+        int sector = getInt(0x30);
+        int maxSectors = maxLength / sectorSize;
+        while (sector != END_OF_CHAIN) {
+            if (sector < 0 || chain.size() >= maxSectors) {
+                return null;
+            }
+            chain.add(sector);
+            int fatIndex = sector / (sectorSize / 4);
+            if (fatIndex >= HEADER_DIFAT_ENTRIES || fatIndex >= fatSectors) {
+                return null;
+            }
+            int fatSector = getInt(HEADER_DIFAT_OFFSET + 4 * fatIndex);
+            if (fatSector < 0) {
+                return null;
+            }
+            long offset = getOffset(fatSector, shift) + 4 * (sector % (sectorSize / 4));
+            if (!ensure(offset + 4)) {
+                return null;
+            }
+            sector = getInt((int) offset);
+        }
+
+        long root = getEntryOffset(0, chain, entriesPerSector, shift);
+        if (root < 0 || data[(int) root + 0x42] != TYPE_ROOT) {
+            return null;
+        }
+
+        // Walk the red-black tree of the children of the root
+        Set<String> names = new HashSet<String>();
+        Set<Integer> visited = new HashSet<Integer>();
+        LinkedList<Integer> pending = new LinkedList<Integer>();
+        pending.add(getInt((int) root + 0x4C));
+        int maxEntries = chain.size() * entriesPerSector;
+        while (!pending.isEmpty()) {
+            int id = pending.removeFirst();
+            if (id == NO_STREAM) {
+                continue;
+            }
+            if (id < 0 || id >= maxEntries || !visited.add(id)) {
+                return null;
+            }
+            long entry = getEntryOffset(id, chain, entriesPerSector, shift);
+            if (entry < 0) {
+                return null;
+            }
+            int offset = (int) entry;
+            int type = data[offset + 0x42];
+            if (type == TYPE_STORAGE || type == TYPE_STREAM) {
+                int nameLength = getShort(offset + 0x40) / 2 - 1;
+                if (nameLength < 0 || nameLength > 31) {
+                    return null;
+                }
+                char[] name = new char[nameLength];
+                for (int i = 0; i < nameLength; i++) {
+                    name[i] = (char) getShort(offset + 2 * i);
+                }
+                names.add(new String(name));
+            }
+            pending.add(getInt(offset + 0x44));
+            pending.add(getInt(offset + 0x48));
+        }
+        return names;
+    }
+
+    /**
+     * Reads the rest of the document, as long as it is no longer than the
+     * maximum length.
+     *
+     * @return true if the whole document is in the buffer
+     * @throws IOException if the stream can not be read
+     */
+    boolean readAll() throws IOException {
+        while (!complete && length < maxLength) {
+            ensure(Math.min(Math.max(2L * length, 4096), maxLength));
+        }
+        if (!complete && position == maxLength && stream.read() == -1) {
+            complete = true;
+        }
+        return complete;
+    }
+
+    /**
+     * @return the buffer holding the first {@link #getLength()} bytes of
+     *         the document
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    private long getEntryOffset(
+            int id, List<Integer> chain, int entriesPerSector, int shift)
+            throws IOException {
+        int index = id / entriesPerSector;
+        if (index >= chain.size()) {
+            return -1;
+        }
+        long offset = getOffset(chain.get(index), shift)
+                + DIRECTORY_ENTRY_SIZE * (id % entriesPerSector);
+        return ensure(offset + DIRECTORY_ENTRY_SIZE) ? offset : -1;
+    }
+
+    private static long getOffset(int sector, int shift) {
+        return ((long) sector + 1) << shift;
+    }
+
+    /**
+     * Makes sure that the first bytes of the document, up to the given
+     * offset, are in the buffer, reading more of the stream if needed.
+     *
+     * @return false if the document is shorter, or if the offset is
+     *         beyond the maximum length
+     */
+    private boolean ensure(long end) throws IOException {
+        if (end <= length) {
+            return true;
+        }
+        if (end > maxLength || complete) {
+            return false;
+        }
+        if (data.length < end) {
+            int size = (int) Math.min(Math.max(end, 2L * data.length), maxLength);
+            byte[] buffer = new byte[size];
+            // the prefix belongs to the caller, so it is never written to
+            System.arraycopy(data, 0, buffer, 0, length);
+            data = buffer;
+        }
+        while (position < end) {
+            int n = stream.read(data, position, data.length - position);
+            if (n == -1) {
+                complete = true;
+                break;
+            }
+            position += n;
+        }
+        length = Math.max(length, position);
+        return end <= length;
+    }
+
+    private int getShort(int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8;
+    }
+
+    private int getInt(int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+                | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+}
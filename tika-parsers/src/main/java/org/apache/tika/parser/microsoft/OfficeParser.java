@@ -60,6 +60,8 @@ public class OfficeParser extends AbstractParser {
      */
     private static final long serialVersionUID = 7393462244028653479L;
 
+    private static final OfficeParserConfig DEFAULT_CONFIG = new OfficeParserConfig();
+
     private static final Set<MediaType> SUPPORTED_TYPES =
             Collections.unmodifiableSet(new HashSet<MediaType>(Arrays.asList(
                     POIFSDocumentType.WORKBOOK.type,
@@ -105,7 +107,10 @@ public class OfficeParser extends AbstractParser {
                 root = (DirectoryNode) container;
             } else {
                 NPOIFSFileSystem fs;
-                if (tstream.hasFile()) {
+                // In low memory mode, spool to a file rather than
+                //  reading the whole stream into memory
+                if (tstream.hasFile() || context.get(OfficeParserConfig.class,
+                        DEFAULT_CONFIG).isUseStreamingWordExtractor()) {
                     fs = new NPOIFSFileSystem(tstream.getFile(), true);
                 } else {
                     fs = new NPOIFSFileSystem(new CloseShieldInputStream(tstream));
@@ -143,7 +148,12 @@ public class OfficeParser extends AbstractParser {
                 xhtml.element("p", publisherTextExtractor.getText());
                 break;
             case WORDDOCUMENT:
-                new WordExtractor(context).parse(root, xhtml);
+                if (context.get(OfficeParserConfig.class, DEFAULT_CONFIG)
+                        .isUseStreamingWordExtractor()) {
+                    new StreamingWordExtractor(context).parse(root, xhtml);
+                } else {
+                    new WordExtractor(context).parse(root, xhtml);
+                }
                 break;
             case POWERPOINT:
                 new HSLFExtractor(context).parse(root, xhtml);
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the {@link OfficeParser}, passed in through the
+ * {@link org.apache.tika.parser.ParseContext}.
+ */
+public class OfficeParserConfig implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = -3932616233446932215L;
+
+    private boolean useStreamingWordExtractor = false;
+
+    /**
+     * If true, Word 97-2003 (.doc) documents are processed with a low
+     * memory extractor, which reads the text stream incrementally and
+     * emits paragraphs as they are decoded, rather than building a full
+     * HWPFDocument first. The plain text is the same, but styles, tables,
+     * list numbering and hyperlinks are not output. OLE2 streams which
+     * are not backed by a file are spooled to a temporary file, rather
+     * than being read into memory.
+     * <p>
+     * Default is false.
+     */
+    public boolean isUseStreamingWordExtractor() {
+        return useStreamingWordExtractor;
+    }
+
+    /**
+     * @see #isUseStreamingWordExtractor()
+     */
+    public void setUseStreamingWordExtractor(boolean useStreamingWordExtractor) {
+        this.useStreamingWordExtractor = useStreamingWordExtractor;
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.tika.parser.microsoft;
 
 import static org.apache.tika.mime.MediaType.application;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -32,7 +33,7 @@ import org.apache.poi.poifs.filesystem.DocumentInputStream;
 import org.apache.poi.poifs.filesystem.DocumentNode;
 import org.apache.poi.poifs.filesystem.Entry;
 import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
-import org.apache.tika.detect.Detector;
+import org.apache.tika.detect.PrefixDetector;
 import org.apache.tika.io.IOUtils;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
@@ -44,7 +45,21 @@ import org.apache.tika.mime.MediaType;
  * This should work for all OLE2 documents, whether
  * they are ones supported by POI or not.
  */
-public class POIFSContainerDetector implements Detector {
+public class POIFSContainerDetector implements PrefixDetector {
+
+    /**
+     * The magic bytes at the start of all OLE2 documents
+     */
+    private static final byte[] OLE_HEADER = {
+        (byte) 0xd0, (byte) 0xcf, (byte) 0x11, (byte) 0xe0,
+        (byte) 0xa1, (byte) 0xb1, (byte) 0x1a, (byte) 0xe1
+    };
+
+    /**
+     * The maximum number of bytes read to find the top level names of a
+     * document that is not backed by a file
+     */
+    private static final int MAX_SNIFF_LENGTH = 1024 * 1024;
 
     /**
      * The OLE base file format
@@ -367,6 +382,56 @@ public class POIFSContainerDetector implements Detector {
         }
     }
 
+    /**
+     * Reads the top level names from the start of a document that is not
+     * backed by a file, without spooling it. A document that is no longer
+     * than {@link #MAX_SNIFF_LENGTH} is also opened from memory, and kept as
+     * the open container of the stream for a later parsing process.
+     *
+     * @return the names, or null if they could not be read this way or if
+     *         the type can only be detected from the root directory
+     */
+    private static Set<String> sniffTopLevelNames(TikaInputStream stream, byte[] prefix)
+            throws IOException {
+        Set<String> names;
+        byte[] data = null;
+        int length = 0;
+        stream.mark(MAX_SNIFF_LENGTH + 1);
+        try {
+            OLE2DirectorySniffer sniffer =
+                    new OLE2DirectorySniffer(stream, prefix, MAX_SNIFF_LENGTH);
+            names = sniffer.getTopLevelNames();
+            if (names != null && sniffer.readAll()) {
+                data = sniffer.getData();
+                length = sniffer.getLength();
+            }
+        } finally {
+            stream.reset();
+        }
+
+        if (data != null) {
+            try {
+                NPOIFSFileSystem fs =
+                        new NPOIFSFileSystem(new ByteArrayInputStream(data, 0, length));
+                stream.setOpenContainer(fs);
+                return getTopLevelNames(fs.getRoot());
+            } catch (IOException e) {
+                // Parse error in POI, so we don't know the file type
+                return Collections.emptySet();
+            } catch (RuntimeException e) {
+                // Another problem in POI
+                return Collections.emptySet();
+            }
+        }
+
+        if (names != null && (names.contains("StarDrawDocument3")
+                || (names.contains("CONTENTS") && names.contains("\u0001CompObj")))) {
+            // The CompObj stream is needed to tell these apart
+            return null;
+        }
+        return names;
+    }
+
     private static Set<String> getTopLevelNames(DirectoryNode root) {
         Set<String> names = new HashSet<String>();
         for (Entry entry : root) {
@@ -377,6 +442,20 @@ public class POIFSContainerDetector implements Detector {
 
     public MediaType detect(InputStream input, Metadata metadata)
             throws IOException {
+        return detect(input, null, metadata);
+    }
+
+    public int getPrefixLength() {
+        return OLE_HEADER.length;
+    }
+
+    /**
+     * Detects the exact type of an OLE2 document. The stream is only read
+     * if the given prefix starts with the OLE header, or if there is no
+     * prefix.
+     */
+    public MediaType detect(InputStream input, byte[] prefix, Metadata metadata)
+            throws IOException {
         // Check if we have access to the document
         if (input == null) {
             return MediaType.OCTET_STREAM;
@@ -398,23 +477,38 @@ public class POIFSContainerDetector implements Detector {
 
         if (names == null) {
             // Check if the document starts with the OLE header
-            input.mark(8);
-            try {
-                if (input.read() != 0xd0 || input.read() != 0xcf
-                        || input.read() != 0x11 || input.read() != 0xe0
-                        || input.read() != 0xa1 || input.read() != 0xb1
-                        || input.read() != 0x1a || input.read() != 0xe1) {
+            if (prefix != null) {
+                if (prefix.length < OLE_HEADER.length) {
                     return MediaType.OCTET_STREAM;
                 }
-            } finally {
-                input.reset();
+                for (int i = 0; i < OLE_HEADER.length; i++) {
+                    if (prefix[i] != OLE_HEADER[i]) {
+                        return MediaType.OCTET_STREAM;
+                    }
+                }
+            } else {
+                input.mark(OLE_HEADER.length);
+                try {
+                    for (byte b : OLE_HEADER) {
+                        if (input.read() != (b & 0xff)) {
+                            return MediaType.OCTET_STREAM;
+                        }
+                    }
+                } finally {
+                    input.reset();
+                }
             }
         }
 
         // We can only detect the exact type when given a TikaInputStream
         if (names == null && tis != null) {
             // Look for known top level entry names to detect the document type
-            names = getTopLevelNames(tis);
+            if (!tis.hasFile()) {
+                names = sniffTopLevelNames(tis, prefix);
+            }
+            if (names == null) {
+                names = getTopLevelNames(tis);
+            }
         }
 
         // Detect based on the names (as available)
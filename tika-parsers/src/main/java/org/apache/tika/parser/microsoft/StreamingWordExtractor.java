@@ -0,0 +1,839 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.poi.ddf.DefaultEscherRecordFactory;
+import org.apache.poi.ddf.EscherBSERecord;
+import org.apache.poi.ddf.EscherBlipRecord;
+import org.apache.poi.ddf.EscherContainerRecord;
+import org.apache.poi.ddf.EscherRecord;
+import org.apache.poi.hwpf.usermodel.Picture;
+import org.apache.poi.poifs.filesystem.DirectoryEntry;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.Entry;
+import org.apache.poi.util.LittleEndian;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Low memory alternative to the {@link WordExtractor}, for Word 97-2003
+ * documents. Instead of building a full HWPFDocument, this reads the
+ * File Information Block, the piece table and the character formatting
+ * pages needed to find pictures and deleted text, and then decodes the
+ * text stream piece by piece, emitting each paragraph as soon as it
+ * has been read. Pictures are only loaded from the Data stream if the
+ * {@link org.apache.tika.extractor.EmbeddedDocumentExtractor} actually
+ * reads them.
+ * <p>
+ * The plain text is the same as that of the {@link WordExtractor}, except
+ * for list numbers, and no paragraph or character styles, tables or hyperlinks
+ * are output. Word 6/95 and encrypted documents are handed to the
+ * {@link WordExtractor}.
+ */
+class StreamingWordExtractor extends AbstractPOIFSExtractor {
+
+    private static final char UNICODECHAR_NONBREAKING_HYPHEN = '\u2011';
+    private static final char UNICODECHAR_ZERO_WIDTH_SPACE = '\u200b';
+
+    private static final Charset CP1252 = Charset.forName("Cp1252");
+
+    /** The File Information Block is always well within the first 4kb */
+    private static final int MAX_FIB_SIZE = 4096;
+
+    private static final int FKP_SIZE = 512;
+
+    // Indexes of the story lengths in the FibRgLw97, in text stream order
+    private static final int CCP_TEXT = 3;
+    private static final int CCP_FTN = 4;
+    private static final int CCP_HDD = 5;
+    private static final int CCP_ATN = 7;
+    private static final int CCP_EDN = 8;
+    private static final int CCP_TXBX = 9;
+
+    // Indexes of the fc/lcb pairs in the FibRgFcLcb97
+    private static final int FC_PLCF_HDD = 11;
+    private static final int FC_PLCF_BTE_CHPX = 12;
+    private static final int FC_CLX = 33;
+    private static final int FC_DGG_INFO = 50;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Character sprms needed to find pictures and deleted text
+    private static final int SPRM_C_F_R_MARK_DEL = 0x0800;
+    private static final int SPRM_C_F_DATA = 0x0806;
+    private static final int SPRM_C_F_OLE2 = 0x080A;
+    private static final int SPRM_C_F_SPEC = 0x0855;
+    private static final int SPRM_C_F_OBJ = 0x085A;
+    private static final int SPRM_C_PIC_LOCATION = 0x6A03;
+
+    private final ParseContext context;
+
+    private DocumentEntry wordDocument;
+
+    private DocumentEntry dataStream;
+
+    /** Reader of the text of the stories, and of the character property pages */
+    private StreamReader wordReader;
+
+    /** Reader of the pictures, which are loaded while the text is read */
+    private StreamReader blipReader;
+
+    /** Reader of the inline pictures in the Data stream */
+    private StreamReader dataReader;
+
+    private List<Piece> pieces;
+
+    private List<Run> runs;
+
+    /** Floating pictures from the drawing group's blip store, in order */
+    private List<EscherBSERecord> floatingPictures;
+
+    private int nextFloatingPicture = 0;
+
+    private int pictureCount = 0;
+
+    StreamingWordExtractor(ParseContext context) {
+        super(context);
+        this.context = context;
+    }
+
+    protected void parse(
+            DirectoryNode root, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        wordDocument = (DocumentEntry) root.getEntry("WordDocument");
+        wordReader = new StreamReader(wordDocument);
+        try {
+            parse(root, wordReader.read(0, MAX_FIB_SIZE), xhtml);
+        } finally {
+            wordReader.close();
+            if (blipReader != null) {
+                blipReader.close();
+            }
+            if (dataReader != null) {
+                dataReader.close();
+            }
+        }
+    }
+
+    private void parse(DirectoryNode root, byte[] fibData, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        int nFib = LittleEndian.getUShort(fibData, 2);
+        int flags = LittleEndian.getUShort(fibData, 10);
+        boolean encrypted = (flags & 0x0100) != 0;
+        if (nFib < 106 || encrypted) {
+            // Word 6/95 and encrypted files are left to the HWPF based code
+            new WordExtractor(context).parse(root, xhtml);
+            return;
+        }
+
+        Fib fib = new Fib(fibData);
+        DocumentEntry table = (DocumentEntry) root.getEntry(
+                (flags & 0x0200) != 0 ? "1Table" : "0Table");
+        if (root.hasEntry("Data")) {
+            dataStream = (DocumentEntry) root.getEntry("Data");
+        }
+        byte[] clx;
+        byte[] plcBteChpx;
+        byte[] plcfHdd;
+        byte[] dggInfo;
+        StreamReader tableReader = new StreamReader(table);
+        try {
+            clx = tableReader.read(fib.getFc(FC_CLX), fib.getLcb(FC_CLX));
+            plcBteChpx = tableReader.read(
+                    fib.getFc(FC_PLCF_BTE_CHPX), fib.getLcb(FC_PLCF_BTE_CHPX));
+            plcfHdd = tableReader.read(fib.getFc(FC_PLCF_HDD), fib.getLcb(FC_PLCF_HDD));
+            dggInfo = tableReader.read(fib.getFc(FC_DGG_INFO), fib.getLcb(FC_DGG_INFO));
+        } finally {
+            tableReader.close();
+        }
+        pieces = readPieces(clx);
+        runs = readRuns(plcBteChpx);
+        int[] headers = readHeaderStories(plcfHdd);
+        int headerStart = fib.getStoryStart(CCP_HDD);
+        floatingPictures = readFloatingPictures(dggInfo);
+
+        // Headers, then the main text, then the other stories, then footers,
+        //  in the same order as the WordExtractor
+        handleHeaderFooter(headers, headerStart, new int[] {4, 0, 1}, "header", xhtml);
+        handleStory(fib, CCP_TEXT, xhtml);
+        handleStory(fib, CCP_TXBX, xhtml);
+        handleStory(fib, CCP_FTN, xhtml);
+        handleStory(fib, CCP_ATN, xhtml);
+        handleStory(fib, CCP_EDN, xhtml);
+        handleHeaderFooter(headers, headerStart, new int[] {5, 2, 3}, "footer", xhtml);
+
+        // Handle any floating pictures that we haven't output yet
+        while (nextFloatingPicture < floatingPictures.size()) {
+            handleFloatingPicture(xhtml);
+        }
+
+        // Handle any embeded office documents
+        try {
+            DirectoryEntry op = (DirectoryEntry) root.getEntry("ObjectPool");
+            for (Entry entry : op) {
+                if (entry.getName().startsWith("_")
+                        && entry instanceof DirectoryEntry) {
+                    handleEmbeddedOfficeDoc((DirectoryEntry) entry, xhtml);
+                }
+            }
+        } catch (FileNotFoundException e) {
+        }
+    }
+
+    private void handleStory(Fib fib, int story, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        int start = fib.getStoryStart(story);
+        handleStory(start, start + fib.getCcp(story), xhtml);
+    }
+
+    /**
+     * Outputs the header or footer stories of the first section. The
+     * header story is made up of 6 footnote and endnote separators,
+     * followed by the even header, odd header, even footer, odd footer,
+     * first header and first footer of each section.
+     */
+    private void handleHeaderFooter(
+            int[] headers, int headerStart, int[] indexes, String type,
+            XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        boolean started = false;
+        for (int index : indexes) {
+            int i = 6 + index;
+            if (i + 1 < headers.length && headers[i + 1] > headers[i]) {
+                if (!started) {
+                    xhtml.startElement("div", "class", type);
+                    started = true;
+                }
+                handleStory(headerStart + headers[i], headerStart + headers[i + 1], xhtml);
+            }
+        }
+        if (started) {
+            xhtml.endElement("div");
+        }
+    }
+
+    /**
+     * Decodes the text between the given character positions piece by
+     * piece, and outputs each paragraph as soon as it is complete. The
+     * pieces of a story normally follow each other in the WordDocument
+     * stream, so that it is read in a single pass.
+     */
+    private void handleStory(int cpStart, int cpEnd, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        if (cpEnd <= cpStart) {
+            return;
+        }
+        ParagraphBuilder paragraph = new ParagraphBuilder(xhtml);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (Piece piece : pieces) {
+            int start = Math.max(cpStart, piece.cpStart);
+            int end = Math.min(cpEnd, piece.cpEnd);
+            if (start >= end) {
+                continue;
+            }
+            int bytesPerChar = piece.compressed ? 1 : 2;
+            int fc = piece.fc + (start - piece.cpStart) * bytesPerChar;
+            int remaining = (end - start) * bytesPerChar;
+            wordReader.seek(fc);
+            while (remaining > 0) {
+                int length = Math.min(remaining, buffer.length);
+                wordReader.readFully(buffer, length);
+                if (piece.compressed) {
+                    String chars = new String(buffer, 0, length, CP1252);
+                    for (int i = 0; i < length; i++) {
+                        paragraph.add(chars.charAt(i), fc + i);
+                    }
+                } else {
+                    for (int i = 0; i < length; i += 2) {
+                        paragraph.add(
+                                (char) LittleEndian.getUShort(buffer, i), fc + i);
+                    }
+                }
+                fc += length;
+                remaining -= length;
+            }
+        }
+        paragraph.endParagraph();
+    }
+
+    private void handlePicture(final int picOffset, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        handlePicture(new PictureInputStream() {
+            @Override
+            protected byte[] loadPicture() throws IOException {
+                if (dataStream == null || picOffset < 0
+                        || picOffset + 4 > dataStream.getSize()) {
+                    return new byte[0];
+                }
+                if (dataReader == null) {
+                    dataReader = new StreamReader(dataStream);
+                }
+                int lcb = LittleEndian.getInt(dataReader.read(picOffset, 4));
+                byte[] block = dataReader.read(picOffset, lcb);
+                return new Picture(0, block, true).getContent();
+            }
+        }, xhtml);
+    }
+
+    /**
+     * Floating pictures are referenced by \u0008 characters, and are
+     * assumed to be in the same order as in the blip store, as is done
+     * by the {@link WordExtractor}.
+     */
+    private void handleFloatingPicture(XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        if (nextFloatingPicture >= floatingPictures.size()) {
+            return;
+        }
+        final EscherBSERecord bse = floatingPictures.get(nextFloatingPicture++);
+        handlePicture(new PictureInputStream() {
+            @Override
+            protected byte[] loadPicture() throws IOException {
+                EscherBlipRecord blip = bse.getBlipRecord();
+                if (blip == null) {
+                    // The blip lives in the WordDocument stream
+                    if (blipReader == null) {
+                        blipReader = new StreamReader(wordDocument);
+                    }
+                    byte[] data = blipReader.read(bse.getOffset(), bse.getSize());
+                    if (data.length < 8) {
+                        return new byte[0];
+                    }
+                    DefaultEscherRecordFactory factory = new DefaultEscherRecordFactory();
+                    EscherRecord record = factory.createRecord(data, 0);
+                    record.fillFields(data, 0, factory);
+                    if (!(record instanceof EscherBlipRecord)) {
+                        return new byte[0];
+                    }
+                    blip = (EscherBlipRecord) record;
+                }
+                return new Picture(blip).getContent();
+            }
+        }, xhtml);
+    }
+
+    private void handlePicture(PictureInputStream picture, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        pictureCount++;
+        String filename = "image" + pictureCount;
+
+        AttributesImpl attr = new AttributesImpl();
+        attr.addAttribute("", "src", "src", "CDATA", "embedded:" + filename);
+        attr.addAttribute("", "alt", "alt", "CDATA", filename);
+        xhtml.startElement("img", attr);
+        xhtml.endElement("img");
+
+        // The picture is only read if the embedded document
+        //  extractor asks for its content
+        handleEmbeddedResource(
+                TikaInputStream.get(picture), filename, null, null, xhtml, false);
+    }
+
+    /**
+     * Reads the blip store entries of the drawing group, which describe
+     * the floating pictures. The pictures themselves aren't read.
+     */
+    private static List<EscherBSERecord> readFloatingPictures(byte[] dggInfo) {
+        List<EscherBSERecord> pictures = new ArrayList<EscherBSERecord>();
+        if (dggInfo.length < 8) {
+            return pictures;
+        }
+        try {
+            DefaultEscherRecordFactory factory = new DefaultEscherRecordFactory();
+            EscherRecord dgg = factory.createRecord(dggInfo, 0);
+            dgg.fillFields(dggInfo, 0, factory);
+            if (dgg instanceof EscherContainerRecord) {
+                EscherContainerRecord bstore = ((EscherContainerRecord) dgg)
+                        .getChildById(EscherContainerRecord.BSTORE_CONTAINER);
+                if (bstore != null) {
+                    for (EscherRecord record : bstore.getChildRecords()) {
+                        if (record instanceof EscherBSERecord) {
+                            pictures.add((EscherBSERecord) record);
+                        }
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Invalid drawing records, so no floating pictures
+        }
+        return pictures;
+    }
+
+    /**
+     * Reads the piece table from the CLX, which is made up of any number
+     * of property modifier (Prc) entries, followed by the piece descriptors.
+     */
+    private static List<Piece> readPieces(byte[] clx) throws TikaException {
+        int pos = 0;
+        while (pos < clx.length && clx[pos] == 0x01) {
+            pos += 3 + LittleEndian.getShort(clx, pos + 1);
+        }
+        if (pos + 5 > clx.length || clx[pos] != 0x02) {
+            throw new TikaException("Invalid piece table in Word document");
+        }
+        int lcb = LittleEndian.getInt(clx, pos + 1);
+        pos += 5;
+        int count = (lcb - 4) / 12;
+
+        List<Piece> pieces = new ArrayList<Piece>(count);
+        for (int i = 0; i < count; i++) {
+            int cpStart = LittleEndian.getInt(clx, pos + i * 4);
+            int cpEnd = LittleEndian.getInt(clx, pos + (i + 1) * 4);
+            int fcValue = LittleEndian.getInt(clx, pos + (count + 1) * 4 + i * 8 + 2);
+            boolean compressed = (fcValue & 0x40000000) != 0;
+            int fc = fcValue & 0x3FFFFFFF;
+            if (compressed) {
+                fc /= 2;
+            }
+            pieces.add(new Piece(cpStart, cpEnd, fc, compressed));
+        }
+        Collections.sort(pieces);
+        return pieces;
+    }
+
+    /**
+     * Reads the character property pages listed in the PlcBteChpx, in
+     * the order of the WordDocument stream, and keeps only those runs
+     * which are deleted or which hold a picture.
+     */
+    private List<Run> readRuns(byte[] plcBteChpx) throws IOException {
+        List<Run> runs = new ArrayList<Run>();
+        int count = (plcBteChpx.length - 4) / 8;
+        int[] pns = new int[count];
+        for (int i = 0; i < count; i++) {
+            pns[i] = LittleEndian.getInt(plcBteChpx, (count + 1) * 4 + i * 4) & 0x3FFFFF;
+        }
+        Arrays.sort(pns);
+        byte[] fkp = new byte[FKP_SIZE];
+        for (int pn : pns) {
+            if ((long) (pn + 1) * FKP_SIZE > wordDocument.getSize()) {
+                continue;
+            }
+            wordReader.seek(pn * FKP_SIZE);
+            wordReader.readFully(fkp, FKP_SIZE);
+            int crun = fkp[FKP_SIZE - 1] & 0xFF;
+            for (int r = 0; r < crun; r++) {
+                int offset = (fkp[(crun + 1) * 4 + r] & 0xFF) * 2;
+                if (offset == 0) {
+                    continue;
+                }
+                Run run = readRun(fkp, offset);
+                if (run.deleted || run.picOffset >= 0) {
+                    run.fcStart = LittleEndian.getInt(fkp, r * 4);
+                    run.fcEnd = LittleEndian.getInt(fkp, (r + 1) * 4);
+                    runs.add(run);
+                }
+            }
+        }
+        Collections.sort(runs);
+        return runs;
+    }
+
+    private static Run readRun(byte[] fkp, int offset) {
+        Run run = new Run();
+        boolean special = false;
+        boolean notPicture = false;
+        int picOffset = -1;
+
+        int end = Math.min(FKP_SIZE, offset + 1 + (fkp[offset] & 0xFF));
+        int pos = offset + 1;
+        while (pos + 2 <= end) {
+            int sprm = LittleEndian.getUShort(fkp, pos);
+            pos += 2;
+            int size;
+            switch ((sprm >> 13) & 0x07) {
+                case 0:
+                case 1:
+                    size = 1;
+                    break;
+                case 2:
+                case 4:
+                case 5:
+                    size = 2;
+                    break;
+                case 3:
+                    size = 4;
+                    break;
+                case 7:
+                    size = 3;
+                    break;
+                default:
+                    size = pos < end ? 1 + (fkp[pos] & 0xFF) : 1;
+            }
+            if (pos + size > end) {
+                break;
+            }
+            int operand = fkp[pos] & 0xFF;
+            switch (sprm) {
+                case SPRM_C_F_R_MARK_DEL:
+                    run.deleted = operand == 1 || operand == 0x81;
+                    break;
+                case SPRM_C_F_SPEC:
+                    special = operand == 1 || operand == 0x81;
+                    break;
+                case SPRM_C_F_DATA:
+                case SPRM_C_F_OLE2:
+                case SPRM_C_F_OBJ:
+                    notPicture |= operand == 1 || operand == 0x81;
+                    break;
+                case SPRM_C_PIC_LOCATION:
+                    picOffset = LittleEndian.getInt(fkp, pos);
+                    break;
+            }
+            pos += size;
+        }
+        if (special && !notPicture) {
+            run.picOffset = picOffset;
+        }
+        return run;
+    }
+
+    /**
+     * Reads the character positions of the header stories from the PlcfHdd.
+     */
+    private static int[] readHeaderStories(byte[] plcfHdd) {
+        int[] cps = new int[plcfHdd.length / 4];
+        for (int i = 0; i < cps.length; i++) {
+            cps[i] = LittleEndian.getInt(plcfHdd, i * 4);
+        }
+        return cps;
+    }
+
+    private Run findRun(int fc) {
+        int low = 0;
+        int high = runs.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Run run = runs.get(mid);
+            if (fc < run.fcStart) {
+                high = mid - 1;
+            } else if (fc >= run.fcEnd) {
+                low = mid + 1;
+            } else {
+                return run;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a document stream through a single {@link DocumentInputStream},
+     * which is only reopened when an earlier offset is asked for. Skipping
+     * forward goes through a small reused buffer, as the skip of the
+     * stream would allocate the skipped bytes, so that reads in offset
+     * order cost one pass over the stream.
+     */
+    private static class StreamReader {
+
+        private final DocumentEntry entry;
+
+        private final byte[] skipBuffer = new byte[BUFFER_SIZE];
+
+        private DocumentInputStream stream;
+
+        private int position;
+
+        private StreamReader(DocumentEntry entry) {
+            this.entry = entry;
+        }
+
+        /**
+         * Reads up to the given number of bytes at the given offset,
+         * less if the stream ends before.
+         */
+        private byte[] read(int offset, int length) throws IOException {
+            if (offset < 0 || length <= 0 || offset >= entry.getSize()) {
+                return new byte[0];
+            }
+            length = Math.min(length, entry.getSize() - offset);
+            byte[] data = new byte[length];
+            seek(offset);
+            readFully(data, length);
+            return data;
+        }
+
+        private void seek(int offset) throws IOException {
+            if (offset > entry.getSize()) {
+                throw new IOException("Unexpected end of Word document stream");
+            }
+            if (stream == null || offset < position) {
+                close();
+                stream = new DocumentInputStream(entry);
+                position = 0;
+            }
+            while (position < offset) {
+                readFully(skipBuffer, Math.min(offset - position, skipBuffer.length));
+            }
+        }
+
+        private void readFully(byte[] buffer, int length) throws IOException {
+            if (stream == null) {
+                seek(0);
+            }
+            if (length > entry.getSize() - position) {
+                throw new IOException("Unexpected end of Word document stream");
+            }
+            stream.readFully(buffer, 0, length);
+            position += length;
+        }
+
+        private void close() {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+    }
+
+    /**
+     * Collects the characters of a paragraph, taking care of fields,
+     * deleted text and pictures, and outputs the paragraph once its
+     * end is reached.
+     */
+    private class ParagraphBuilder {
+
+        private final XHTMLContentHandler xhtml;
+
+        private final StringBuilder text = new StringBuilder();
+
+        /** Open fields, innermost last */
+        private final List<Field> fields = new ArrayList<Field>();
+
+        private ParagraphBuilder(XHTMLContentHandler xhtml) {
+            this.xhtml = xhtml;
+        }
+
+        private void add(char c, int fc)
+                throws IOException, SAXException, TikaException {
+            Run run = runs.isEmpty() ? null : findRun(fc);
+            if (run != null && run.deleted) {
+                return;
+            }
+
+            switch (c) {
+                case '\r':
+                case '\u0007':
+                case '\u000C':
+                    // End of paragraph, table cell or page/section
+                    endParagraph();
+                    return;
+                case '\u0013':
+                    fields.add(new Field());
+                    return;
+                case '\u0014':
+                    if (!fields.isEmpty()) {
+                        fields.get(fields.size() - 1).inResult = true;
+                    }
+                    return;
+                case '\u0015':
+                    if (!fields.isEmpty()) {
+                        Field field = fields.remove(fields.size() - 1);
+                        if (!field.inResult) {
+                            // No separator, so the field shows its code
+                            append(field.code);
+                        }
+                    }
+                    return;
+                case '\u0001':
+                    if (run != null && run.picOffset >= 0 && isVisible()) {
+                        handlePicture(run.picOffset, xhtml);
+                        return;
+                    }
+                    break;
+                case '\u0008':
+                    if (isVisible()) {
+                        handleFloatingPicture(xhtml);
+                    }
+                    return;
+            }
+
+            if (c == 30) {
+                c = UNICODECHAR_NONBREAKING_HYPHEN;
+            } else if (c == 31) {
+                c = UNICODECHAR_ZERO_WIDTH_SPACE;
+            } else if (c < 0x20) {
+                c = '\n';
+            }
+            append(c);
+        }
+
+        private boolean isVisible() {
+            for (Field field : fields) {
+                if (!field.inResult) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void append(CharSequence chars) {
+            if (fields.isEmpty() || isVisible()) {
+                text.append(chars);
+            } else {
+                fields.get(fields.size() - 1).code.append(chars);
+            }
+        }
+
+        private void append(char c) {
+            if (fields.isEmpty() || isVisible()) {
+                text.append(c);
+            } else {
+                fields.get(fields.size() - 1).code.append(c);
+            }
+        }
+
+        private void endParagraph() throws SAXException {
+            if (text.length() > 0) {
+                String paragraph = text.toString();
+                if (!paragraph.replaceAll("[\\r\\n\\s]+", "").isEmpty()) {
+                    xhtml.element("p", paragraph);
+                }
+                text.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * The parts of the File Information Block needed to find the stories
+     * and the piece table. Unlike the POI FileInformationBlock, this only
+     * needs the start of the WordDocument stream.
+     */
+    private static class Fib {
+        private final byte[] data;
+        private final int rgLw;
+        private final int rgFcLcb;
+        private final int cbRgFcLcb;
+
+        private Fib(byte[] data) throws TikaException {
+            this.data = data;
+            try {
+                int csw = LittleEndian.getUShort(data, 32);
+                int cslw = LittleEndian.getUShort(data, 34 + csw * 2);
+                rgLw = 36 + csw * 2;
+                cbRgFcLcb = LittleEndian.getUShort(data, rgLw + cslw * 4);
+                rgFcLcb = rgLw + cslw * 4 + 2;
+            } catch (IndexOutOfBoundsException e) {
+                throw new TikaException("Invalid File Information Block", e);
+            }
+        }
+
+        private int getCcp(int index) {
+            return LittleEndian.getInt(data, rgLw + index * 4);
+        }
+
+        /** Stories follow each other in the text stream, in index order */
+        private int getStoryStart(int index) {
+            int start = 0;
+            for (int i = CCP_TEXT; i < index; i++) {
+                start += getCcp(i);
+            }
+            return start;
+        }
+
+        private int getFc(int index) {
+            return index < cbRgFcLcb ? LittleEndian.getInt(data, rgFcLcb + index * 8) : -1;
+        }
+
+        private int getLcb(int index) {
+            return index < cbRgFcLcb ? LittleEndian.getInt(data, rgFcLcb + index * 8 + 4) : 0;
+        }
+    }
+
+    private static class Field {
+        private final StringBuilder code = new StringBuilder();
+        private boolean inResult = false;
+    }
+
+    private static class Piece implements Comparable<Piece> {
+        private final int cpStart;
+        private final int cpEnd;
+        private final int fc;
+        private final boolean compressed;
+
+        private Piece(int cpStart, int cpEnd, int fc, boolean compressed) {
+            this.cpStart = cpStart;
+            this.cpEnd = cpEnd;
+            this.fc = fc;
+            this.compressed = compressed;
+        }
+
+        public int compareTo(Piece o) {
+            return cpStart < o.cpStart ? -1 : (cpStart == o.cpStart ? 0 : 1);
+        }
+    }
+
+    private static class Run implements Comparable<Run> {
+        private int fcStart;
+        private int fcEnd;
+        private boolean deleted = false;
+        private int picOffset = -1;
+
+        public int compareTo(Run o) {
+            return fcStart < o.fcStart ? -1 : (fcStart == o.fcStart ? 0 : 1);
+        }
+    }
+
+    /**
+     * Loads a picture the first time it is read.
+     */
+    private abstract static class PictureInputStream extends InputStream {
+
+        private InputStream content;
+
+        protected abstract byte[] loadPicture() throws IOException;
+
+        private InputStream getContent() throws IOException {
+            if (content == null) {
+                byte[] data;
+                try {
+                    data = loadPicture();
+                } catch (RuntimeException e) {
+                    // Not a valid picture, skip it
+                    data = new byte[0];
+                }
+                content = new ByteArrayInputStream(data);
+            }
+            return content;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return getContent().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return getContent().read(b, off, len);
+        }
+    }
+}
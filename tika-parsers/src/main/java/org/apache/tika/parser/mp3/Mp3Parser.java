@@ -25,6 +25,7 @@ import java.util.Set;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TailStream;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.XMPDM;
@@ -52,6 +53,11 @@ public class Mp3Parser extends AbstractParser {
     private static final Set<MediaType> SUPPORTED_TYPES =
         Collections.singleton(MediaType.audio("mpeg"));
 
+    /** Number of bytes at the end of a file that may hold ID3v1 and Lyrics3 tags */
+    private static final int TAIL_SIZE = 10240 + 128;
+
+    private static final Mp3ParserConfig DEFAULT_CONFIG = new Mp3ParserConfig();
+
     public Set<MediaType> getSupportedTypes(ParseContext context) {
         return SUPPORTED_TYPES;
     }
@@ -67,8 +73,11 @@ public class Mp3Parser extends AbstractParser {
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
         xhtml.startDocument();
 
+        Mp3ParserConfig config = context.get(Mp3ParserConfig.class, DEFAULT_CONFIG);
+
         // Create handlers for the various kinds of ID3 tags
-        ID3TagsAndAudio audioAndTags = getAllTagHandlers(stream, handler);
+        ID3TagsAndAudio audioAndTags =
+                getAllTagHandlers(stream, handler, config.isFastDuration());
 
         // Process tags metadata if the file has supported tags
         if (audioAndTags.tags.length > 0) {
@@ -164,6 +173,20 @@ public class Mp3Parser extends AbstractParser {
      */
     protected static ID3TagsAndAudio getAllTagHandlers(InputStream stream, ContentHandler handler)
            throws IOException, SAXException, TikaException {
+       return getAllTagHandlers(stream, handler, false);
+    }
+
+    /**
+     * Scans the MP3 frames for ID3 tags, and creates ID3Tag Handlers
+     *  for each supported set of tags.
+     * If fastDuration is set and the stream length is known, only the
+     *  first audio frame is read, and the duration is taken from its
+     *  Xing/Info/VBRI header, or calculated from the bit rate for CBR
+     *  files. The audio data is then skipped to get to the trailing tags.
+     */
+    protected static ID3TagsAndAudio getAllTagHandlers(
+           InputStream stream, ContentHandler handler, boolean fastDuration)
+           throws IOException, SAXException, TikaException {
        ID3v24Handler v24 = null;
        ID3v23Handler v23 = null;
        ID3v22Handler v22 = null;
@@ -171,7 +194,7 @@ public class Mp3Parser extends AbstractParser {
        LyricsHandler lyrics = null;
        AudioFrame firstAudio = null;
 
-       TailStream tailStream = new TailStream(stream, 10240+128);
+       TailStream tailStream = new TailStream(stream, TAIL_SIZE);
        MpegStream mpegStream = new MpegStream(tailStream);
 
        // ID3v2 tags live at the start of the file
@@ -191,25 +214,68 @@ public class Mp3Parser extends AbstractParser {
            }
        }
 
-        // Now iterate over all audio frames in the file
         AudioFrame frame = mpegStream.nextFrame();
         float duration = 0;
-        while (frame != null)
-        {
-            duration += frame.getDuration();
-            if (firstAudio == null)
+        long length = -1;
+        if (fastDuration && TikaInputStream.isTikaInputStream(stream)
+                && ((TikaInputStream) stream).hasLength()) {
+            length = ((TikaInputStream) stream).getLength();
+        }
+
+        if (frame != null && length > 0) {
+            // Only look at the first audio frame, then jump to the tail
+            firstAudio = frame;
+            long audioStart = mpegStream.getPosition() - 4;
+            long frameCount = mpegStream.readVbrFrameCount();
+
+            // Skip the underlying stream directly, so that the audio data
+            //  isn't read through the tail buffer. For file backed streams
+            //  this is a seek
+            long toSkip = length - TAIL_SIZE - mpegStream.getUnderlyingPosition();
+            while (toSkip > 0) {
+                long skipped = stream.skip(toSkip);
+                if (skipped <= 0) {
+                    break;
+                }
+                toSkip -= skipped;
+            }
+            byte[] buffer = new byte[4096];
+            while (tailStream.read(buffer) != -1) {
+                // Fill the tail buffer
+            }
+
+            lyrics = new LyricsHandler(tailStream.getTail());
+            v1 = lyrics.id3v1;
+
+            if (frameCount > 0) {
+                duration = frameCount * MpegStream.getSamplesPerFrame(frame)
+                        * 1000.0f / frame.getSampleRate();
+            } else if (frame.getBitRate() > 0) {
+                long audioEnd = length;
+                if (lyrics.hasID3v1()) {
+                    audioEnd -= 128;
+                }
+                duration = (audioEnd - audioStart) * 8000.0f / frame.getBitRate();
+            }
+        } else {
+            // Now iterate over all audio frames in the file
+            while (frame != null)
             {
-                firstAudio = frame;
+                duration += frame.getDuration();
+                if (firstAudio == null)
+                {
+                    firstAudio = frame;
+                }
+                mpegStream.skipFrame();
+                frame = mpegStream.nextFrame();
             }
-            mpegStream.skipFrame();
-            frame = mpegStream.nextFrame();
-        }
 
-       // ID3v1 tags live at the end of the file
-       // Lyrics live just before ID3v1, at the end of the file
-       // Search for both (handlers seek to the end for us)
-       lyrics = new LyricsHandler(tailStream.getTail());
-       v1 = lyrics.id3v1;
+            // ID3v1 tags live at the end of the file
+            // Lyrics live just before ID3v1, at the end of the file
+            // Search for both (handlers seek to the end for us)
+            lyrics = new LyricsHandler(tailStream.getTail());
+            v1 = lyrics.id3v1;
+        }
 
        // Go in order of preference
        // Currently, that's newest to oldest
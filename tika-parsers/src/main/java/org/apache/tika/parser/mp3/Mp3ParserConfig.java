@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.mp3;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the {@link Mp3Parser}, passed in through the
+ * {@link org.apache.tika.parser.ParseContext}.
+ */
+public class Mp3ParserConfig implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = -2578913394626557405L;
+
+    private boolean fastDuration = false;
+
+    /**
+     * If true, the duration is calculated from the Xing/Info or VBRI header
+     * of the first audio frame (VBR files), or from the bit rate and the
+     * size of the audio data (CBR files), and the parser then jumps straight
+     * to the ID3v1/Lyrics3 tags at the end of the file instead of reading
+     * every audio frame. This only works if the length of the stream is known,
+     * i.e. for a {@link org.apache.tika.io.TikaInputStream} backed by a file
+     * or with a known length; otherwise all frames are scanned as usual.
+     * <p>
+     * Default is false.
+     */
+    public boolean isFastDuration() {
+        return fastDuration;
+    }
+
+    /**
+     * @see #isFastDuration()
+     */
+    public void setFastDuration(boolean fastDuration) {
+        this.fastDuration = fastDuration;
+    }
+}
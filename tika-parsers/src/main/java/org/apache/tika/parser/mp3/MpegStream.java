@@ -88,15 +88,24 @@ class MpegStream extends PushbackInputStream
     /** Constant for the number of samples for a layer 2 or 3 frame. */
     private static final int SAMPLE_COUNT_L2 = 1152;
 
+    /** Constant for the number of samples for an MPEG V2/V2.5 layer 3 frame. */
+    private static final int SAMPLE_COUNT_V2_L3 = 576;
+
     /** Constant for the size of an MPEG frame header in bytes. */
     private static final int HEADER_SIZE = 4;
 
+    /** Offset of a VBRI header from the end of the frame header. */
+    private static final int VBRI_OFFSET = 32;
+
     /** The current MPEG header. */
     private AudioFrame currentHeader;
 
     /** A flag whether the end of the stream is reached. */
     private boolean endOfStream;
 
+    /** The number of bytes consumed from this stream so far. */
+    private long position;
+
     /**
      * Creates a new instance of {@code MpegStream} and initializes it with the
      * underlying stream.
@@ -158,12 +167,157 @@ class MpegStream extends PushbackInputStream
         if (currentHeader != null)
         {
             skipStream(in, currentHeader.getLength() - HEADER_SIZE);
+            position += currentHeader.getLength() - HEADER_SIZE;
             currentHeader = null;
             return true;
         }
         return false;
     }
 
+    /**
+     * Reads the remaining data of the current MPEG frame and checks whether it
+     * contains a Xing/Info or VBRI header. Such headers are written by most
+     * encoders into the first audio frame of a file and announce the total
+     * number of frames, which allows the duration of a VBR file to be
+     * determined without reading all the frames. This method can be called
+     * after a valid MPEG header has been retrieved using {@code nextFrame()};
+     * like {@code skipFrame()} it advances the stream to the end of the frame.
+     * 
+     * @return the number of audio frames announced by a Xing/Info or VBRI
+     *         header, or -1 if the current frame does not contain such a
+     *         header
+     * @throws IOException if an IO error occurs
+     */
+    public long readVbrFrameCount() throws IOException
+    {
+        if (currentHeader == null)
+        {
+            return -1;
+        }
+        AudioFrame frame = currentHeader;
+        currentHeader = null;
+
+        byte[] data = new byte[Math.max(0, frame.getLength() - HEADER_SIZE)];
+        int count = 0;
+        int n = 0;
+        while (count < data.length && n != -1)
+        {
+            n = read(data, count, data.length - count);
+            if (n > 0)
+            {
+                count += n;
+            }
+        }
+
+        // Xing/Info headers are located directly behind the side info
+        int xing = calculateSideInfoSize(frame);
+        if (matches(data, count, xing, "Xing")
+                || matches(data, count, xing, "Info"))
+        {
+            // Frame count is only present if bit 0 of the flags is set
+            if (count >= xing + 12 && (data[xing + 7] & 0x01) != 0)
+            {
+                return readInt(data, xing + 8);
+            }
+            return -1;
+        }
+
+        if (matches(data, count, VBRI_OFFSET, "VBRI") 
+                && count >= VBRI_OFFSET + 18)
+        {
+            return readInt(data, VBRI_OFFSET + 14);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of bytes which have been read from this stream so
+     * far. Bytes which have been pushed back are not counted.
+     * 
+     * @return the current position in the audio stream
+     */
+    public long getPosition()
+    {
+        return position;
+    }
+
+    /**
+     * Returns the number of bytes which have been read from the underlying
+     * stream so far. This may be larger than {@link #getPosition()} if data
+     * has been pushed back.
+     * 
+     * @return the current position in the underlying stream
+     */
+    public long getUnderlyingPosition()
+    {
+        return position + (buf.length - pos);
+    }
+
+    /**
+     * Returns the number of audio samples contained in a frame of the given
+     * type.
+     * 
+     * @param frame the audio frame
+     * @return the number of samples per frame
+     */
+    public static int getSamplesPerFrame(AudioFrame frame)
+    {
+        if (frame.getLayer() == AudioFrame.LAYER_1)
+        {
+            return SAMPLE_COUNT_L1;
+        }
+        if (frame.getLayer() == AudioFrame.LAYER_3
+                && frame.getVersionCode() != AudioFrame.MPEG_V1)
+        {
+            return SAMPLE_COUNT_V2_L3;
+        }
+        return SAMPLE_COUNT_L2;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int result = super.read();
+        if (result != -1)
+        {
+            position++;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        int result = super.read(b, off, len);
+        if (result > 0)
+        {
+            position += result;
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long result = super.skip(n);
+        position += result;
+        return result;
+    }
+
+    @Override
+    public void unread(int b) throws IOException
+    {
+        super.unread(b);
+        position--;
+    }
+
+    @Override
+    public void unread(byte[] b, int off, int len) throws IOException
+    {
+        super.unread(b, off, len);
+        position -= len;
+    }
+
     /**
      * Advances the underlying stream until the first byte of frame sync is
      * found.
@@ -288,6 +442,64 @@ class MpegStream extends PushbackInputStream
         }
     }
     
+    /**
+     * Calculates the size of the layer 3 side information which precedes a
+     * Xing/Info header in the first frame.
+     * 
+     * @param frame the audio frame
+     * @return the size of the side information in bytes
+     */
+    private static int calculateSideInfoSize(AudioFrame frame)
+    {
+        if (frame.getVersionCode() == AudioFrame.MPEG_V1)
+        {
+            return frame.getChannels() == 1 ? 17 : 32;
+        }
+        return frame.getChannels() == 1 ? 9 : 17;
+    }
+
+    /**
+     * Checks whether the given data contains the given ASCII tag at the
+     * specified offset.
+     * 
+     * @param data the data
+     * @param count the number of valid bytes in the data array
+     * @param offset the offset of the tag
+     * @param tag the tag to look for
+     * @return a flag whether the tag was found
+     */
+    private static boolean matches(byte[] data, int count, int offset,
+            String tag)
+    {
+        if (offset + tag.length() > count)
+        {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++)
+        {
+            if (data[offset + i] != tag.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a big endian unsigned 32 bit value from the given data.
+     * 
+     * @param data the data
+     * @param offset the offset of the value
+     * @return the value
+     */
+    private static long readInt(byte[] data, int offset)
+    {
+        return ((data[offset] & 0xFFL) << 24)
+                | ((data[offset + 1] & 0xFFL) << 16)
+                | ((data[offset + 2] & 0xFFL) << 8)
+                | (data[offset + 3] & 0xFFL);
+    }
+
     /**
      * Calculates the bit rate based on the given parameters.
      * 
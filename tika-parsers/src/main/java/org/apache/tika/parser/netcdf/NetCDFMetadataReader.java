@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.netcdf;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
+import org.apache.tika.parser.ParseContext;
+
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.dataset.NetcdfDataset;
+
+/**
+ * Shared, file backed access to NetCDF, HDF and GRIB files for the
+ * NetCDF-Java based parsers. The file is opened from the
+ * {@link TikaInputStream} file (the stream is only spooled to a temporary
+ * file if it isn't already backed by one) and only its header is read, i.e.
+ * the global/group attributes and the variable descriptors. Data arrays
+ * are never read.
+ * <p>
+ * The number of attribute characters extracted is bounded by
+ * {@link NetCDFParserConfig#getMaxAttributeBytes()}.
+ */
+public class NetCDFMetadataReader {
+
+    /**
+     * Set to "true" if attributes were skipped because the
+     * {@link NetCDFParserConfig#getMaxAttributeBytes()} limit was reached.
+     */
+    public static final Property ATTRIBUTES_TRUNCATED =
+            Property.internalBoolean("NetCDF:attributesTruncated");
+
+    private static final NetCDFParserConfig DEFAULT_CONFIG =
+            new NetCDFParserConfig();
+
+    private final Metadata metadata;
+
+    private final int maxAttributeBytes;
+
+    private long attributeBytes = 0;
+
+    private boolean truncated = false;
+
+    public NetCDFMetadataReader(Metadata metadata, ParseContext context) {
+        this.metadata = metadata;
+        this.maxAttributeBytes = context.get(
+                NetCDFParserConfig.class, DEFAULT_CONFIG).getMaxAttributeBytes();
+    }
+
+    /**
+     * Opens the given stream as a NetCDF-Java file, reading only its header.
+     * Any temporary file needed is registered with the given temporary
+     * resources, as is the opened file, so that both are cleaned up
+     * on {@link TemporaryResources#dispose()}.
+     *
+     * @param stream the document stream
+     * @param tmp temporary resources of the current parse
+     * @param dataset whether to open the file through {@link NetcdfDataset},
+     *        as is needed for GRIB files
+     * @return the opened file
+     * @throws IOException if the stream can not be read
+     * @throws TikaException if the file can not be opened
+     */
+    public static NetcdfFile open(
+            InputStream stream, TemporaryResources tmp, boolean dataset)
+            throws IOException, TikaException {
+        TikaInputStream tis = TikaInputStream.get(stream, tmp);
+        File file = tis.getFile();
+        try {
+            final NetcdfFile ncFile;
+            if (dataset) {
+                ncFile = NetcdfDataset.openFile(file.getAbsolutePath(), null);
+            } else {
+                ncFile = NetcdfFile.open(file.getAbsolutePath());
+            }
+            tmp.addResource(new Closeable() {
+                public void close() throws IOException {
+                    ncFile.close();
+                }
+            });
+            return ncFile;
+        } catch (IOException e) {
+            throw new TikaException("NetCDF parse error", e);
+        }
+    }
+
+    /**
+     * Checks whether the given name and value fit into the remaining
+     * attribute budget, and uses them up if so.
+     *
+     * @param name attribute name
+     * @param value attribute value
+     * @return true if the attribute should be extracted, false if the
+     *         limit has been reached
+     */
+    public boolean allow(String name, String value) {
+        if (truncated) {
+            return false;
+        }
+        if (maxAttributeBytes >= 0) {
+            long size = (name == null ? 0 : name.length())
+                    + (value == null ? 0 : value.length());
+            if (attributeBytes + size > maxAttributeBytes) {
+                truncated = true;
+                metadata.set(ATTRIBUTES_TRUNCATED, "true");
+                return false;
+            }
+            attributeBytes += size;
+        }
+        return true;
+    }
+
+    /**
+     * Adds the given value to the metadata, if it fits into the
+     * remaining attribute budget.
+     *
+     * @param property metadata property
+     * @param value attribute value
+     * @return true if the value was added
+     */
+    public boolean add(Property property, String value) {
+        if (allow(property.getName(), value)) {
+            metadata.add(property, value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the given value to the metadata, if it fits into the
+     * remaining attribute budget.
+     *
+     * @param name metadata name
+     * @param value attribute value
+     * @return true if the value was added
+     */
+    public boolean add(String name, String value) {
+        if (allow(name, value)) {
+            metadata.add(name, value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the given attribute, as rendered in the XHTML output,
+     * fits into the remaining attribute budget.
+     *
+     * @param attribute variable or group attribute
+     * @return true if the attribute should be output
+     */
+    public boolean allow(Attribute attribute) {
+        return allow(null, attribute.toString());
+    }
+
+    /**
+     * Returns true if attributes have been skipped because the limit
+     * was reached.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
@@ -26,7 +26,6 @@ import java.util.List;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TemporaryResources;
-import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.Property;
 import org.apache.tika.metadata.TikaCoreProperties;
@@ -82,18 +81,19 @@ public class NetCDFParser extends AbstractParser {
                       Metadata metadata, ParseContext context) throws IOException,
             SAXException, TikaException {
 
-        TikaInputStream tis = TikaInputStream.get(stream, new TemporaryResources());
+        TemporaryResources tmp = new TemporaryResources();
         try {
-            NetcdfFile ncFile = NetcdfFile.open(tis.getFile().getAbsolutePath());
+            NetcdfFile ncFile = NetCDFMetadataReader.open(stream, tmp, false);
+            NetCDFMetadataReader reader = new NetCDFMetadataReader(metadata, context);
             metadata.set("File-Type-Description", ncFile.getFileTypeDescription());
             // first parse out the set of global attributes
             for (Attribute attr : ncFile.getGlobalAttributes()) {
                 Property property = resolveMetadataKey(attr.getFullName());
                 if (attr.getDataType().isString()) {
-                    metadata.add(property, attr.getStringValue());
+                    reader.add(property, attr.getStringValue());
                 } else if (attr.getDataType().isNumeric()) {
                     int value = attr.getNumericValue().intValue();
-                    metadata.add(property, String.valueOf(value));
+                    reader.add(property, String.valueOf(value));
                 }
             }
 
@@ -120,7 +120,9 @@ public class NetCDFParser extends AbstractParser {
                 if (!attributes.isEmpty()) {
                     xhtml.startElement("ul");
                     for (Attribute element : attributes) {
-                        xhtml.element("li", element.toString());
+                        if (reader.allow(element)) {
+                            xhtml.element("li", element.toString());
+                        }
                     }
                     xhtml.endElement("ul");
                 }
@@ -130,8 +132,8 @@ public class NetCDFParser extends AbstractParser {
 
             xhtml.endDocument();
 
-        } catch (IOException e) {
-            throw new TikaException("NetCDF parse error", e);
+        } finally {
+            tmp.dispose();
         }
     }
 
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.netcdf;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the NetCDF-Java based parsers ({@link NetCDFParser},
+ * {@link org.apache.tika.parser.hdf.HDFParser} and
+ * {@link org.apache.tika.parser.grib.GribParser}), passed in through the
+ * {@link org.apache.tika.parser.ParseContext}.
+ */
+public class NetCDFParserConfig implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = 4420542738012366104L;
+
+    private int maxAttributeBytes = 10 * 1024 * 1024;
+
+    /**
+     * Returns the maximum number of bytes (UTF-16 code units, i.e. characters)
+     * of attribute names and values that are extracted from a single file,
+     * both into the metadata and the XHTML output. Once the limit is reached,
+     * the remaining attributes are skipped and the
+     * {@link NetCDFMetadataReader#ATTRIBUTES_TRUNCATED} flag is set.
+     * A negative value means no limit.
+     * <p>
+     * Default is 10MB.
+     */
+    public int getMaxAttributeBytes() {
+        return maxAttributeBytes;
+    }
+
+    /**
+     * @see #getMaxAttributeBytes()
+     */
+    public void setMaxAttributeBytes(int maxAttributeBytes) {
+        this.maxAttributeBytes = maxAttributeBytes;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.ocr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.Property;
+import org.apache.tika.metadata.TikaCoreProperties;
+
+/**
+ * Cache of OCR results, keyed by the SHA-256 digest of the image bytes
+ * together with the language and page segmentation mode of the
+ * {@link TesseractOCRConfig}. To enable it, pass an instance through the
+ * ParseContext; the {@link TesseractOCRParser} then consults it before
+ * running tesseract:
+ * <p>
+ * parseContext.set(OCRResultCache.class, new OCRResultCache(10000, cacheDir));
+ * </p>
+ * Results are kept in an in-memory LRU map with a maximum number of entries
+ * and, if a directory is given, in one UTF-8 text file per result in that
+ * directory, which can be shared between runs. Once the files take more
+ * than the maximum number of bytes on disk, the least recently used ones
+ * are deleted, until they take less than three quarters of it. Whether
+ * the image was found in the cache, and the running hit and lookup counts
+ * of the cache, are recorded in the Metadata of the image.
+ * <p>
+ * This class is thread safe.
+ */
+public class OCRResultCache {
+
+    /**
+     * Where the OCR result of the image came from: "memory", "disk" or "miss".
+     */
+    public static final Property OCR_CACHE =
+            Property.internalText(TikaCoreProperties.TIKA_META_PREFIX + "ocr_cache");
+
+    /**
+     * Number of cache hits so far, including this image.
+     */
+    public static final Property OCR_CACHE_HITS =
+            Property.internalInteger(TikaCoreProperties.TIKA_META_PREFIX + "ocr_cache_hits");
+
+    /**
+     * Number of cache lookups so far, including this image.
+     */
+    public static final Property OCR_CACHE_LOOKUPS =
+            Property.internalInteger(TikaCoreProperties.TIKA_META_PREFIX + "ocr_cache_lookups");
+
+    /**
+     * Default maximum size of the results on disk, 1GB.
+     */
+    public static final long DEFAULT_MAX_DISK_BYTES = 1024L * 1024 * 1024;
+
+    private static final String SUFFIX = ".txt";
+
+    private final Map<String, String> memory;
+
+    private final File directory;
+
+    private final long maxDiskBytes;
+
+    // approximate size of the results on disk, recomputed on eviction
+    private long diskBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    /**
+     * Creates a cache that only keeps results in memory.
+     *
+     * @param maxEntries maximum number of results kept in memory
+     */
+    public OCRResultCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * Creates a cache that keeps at most {@link #DEFAULT_MAX_DISK_BYTES}
+     * of results on disk.
+     *
+     * @param maxEntries maximum number of results kept in memory
+     * @param directory directory for the results on disk, or null to only
+     *                  keep results in memory. It is created if needed.
+     */
+    public OCRResultCache(int maxEntries, File directory) {
+        this(maxEntries, directory, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * @param maxEntries maximum number of results kept in memory
+     * @param directory directory for the results on disk, or null to only
+     *                  keep results in memory. It is created if needed.
+     * @param maxDiskBytes maximum size of the results on disk
+     */
+    public OCRResultCache(final int maxEntries, File directory, long maxDiskBytes) {
+        this.memory = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 8235916372059264071L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (directory != null) {
+            directory.mkdirs();
+            evict();
+        }
+    }
+
+    /**
+     * Computes the cache key of an image.
+     *
+     * @param image image file
+     * @param config configuration the image will be OCRed with
+     * @return hex encoded digest of the image and the configuration
+     * @throws IOException if the image could not be read
+     */
+    public String getKey(File image, TesseractOCRConfig config) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        InputStream stream = new FileInputStream(image);
+        try {
+            byte[] buffer = new byte[8192];
+            for (int n = stream.read(buffer); n != -1; n = stream.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+        } finally {
+            stream.close();
+        }
+        digest.update((byte) 0);
+        digest.update(config.getLanguage().getBytes(IOUtils.UTF_8));
+        digest.update((byte) 0);
+        digest.update(config.getPageSegMode().getBytes(IOUtils.UTF_8));
+        return new String(Hex.encodeHex(digest.digest()));
+    }
+
+    /**
+     * Looks up the result for the given key, first in memory and then on
+     * disk, and records the outcome in the given metadata.
+     *
+     * @param key key from {@link #getKey(File, TesseractOCRConfig)}
+     * @param metadata metadata of the image
+     * @return cached text, or null if there is none
+     * @throws IOException if the result on disk could not be read
+     */
+    public String get(String key, Metadata metadata) throws IOException {
+        String text;
+        synchronized (memory) {
+            text = memory.get(key);
+        }
+        String status = "memory";
+        if (text == null && directory != null) {
+            File file = getFile(key);
+            if (file.isFile()) {
+                InputStream stream = new FileInputStream(file);
+                try {
+                    text = IOUtils.toString(stream, IOUtils.UTF_8.name());
+                } finally {
+                    stream.close();
+                }
+                // for the least recently used eviction
+                file.setLastModified(System.currentTimeMillis());
+                synchronized (memory) {
+                    memory.put(key, text);
+                }
+                status = "disk";
+            }
+        }
+        long lookupCount = lookups.incrementAndGet();
+        long hitCount = text == null ? hits.get() : hits.incrementAndGet();
+        metadata.set(OCR_CACHE, text == null ? "miss" : status);
+        metadata.set(OCR_CACHE_HITS, (int) hitCount);
+        metadata.set(OCR_CACHE_LOOKUPS, (int) lookupCount);
+        return text;
+    }
+
+    /**
+     * Stores the result for the given key.
+     *
+     * @param key key from {@link #getKey(File, TesseractOCRConfig)}
+     * @param text OCR result
+     * @throws IOException if the result could not be written to disk
+     */
+    public void put(String key, String text) throws IOException {
+        synchronized (memory) {
+            memory.put(key, text);
+        }
+        if (directory == null) {
+            return;
+        }
+        // write to a temporary file first, so that readers never see
+        // a partial result
+        File tmp = File.createTempFile("ocr", ".tmp", directory);
+        try {
+            OutputStream stream = new FileOutputStream(tmp);
+            try {
+                stream.write(text.getBytes(IOUtils.UTF_8));
+            } finally {
+                stream.close();
+            }
+            File file = getFile(key);
+            if (!tmp.renameTo(file) && !file.isFile()) {
+                throw new IOException("Could not write " + file);
+            }
+            boolean full;
+            synchronized (this) {
+                diskBytes += file.length();
+                full = diskBytes > maxDiskBytes;
+            }
+            if (full) {
+                evict();
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * @return number of lookups that found a result
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups
+     */
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    /**
+     * @return approximate size of the results on disk
+     */
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * Computes the size of the results on disk, and if it is larger than
+     * the maximum, deletes the least recently used ones until they take
+     * less than three quarters of it.
+     */
+    private synchronized void evict() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> results = new ArrayList<File>();
+        final Map<File, Long> used = new HashMap<File, Long>();
+        long total = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX) && file.isFile()) {
+                results.add(file);
+                used.put(file, file.lastModified());
+                total += file.length();
+            }
+        }
+        if (total > maxDiskBytes) {
+            Collections.sort(results, new Comparator<File>() {
+                public int compare(File a, File b) {
+                    return used.get(a).compareTo(used.get(b));
+                }
+            });
+            for (File file : results) {
+                if (total <= maxDiskBytes / 4 * 3) {
+                    break;
+                }
+                long length = file.length();
+                if (file.delete()) {
+                    total -= length;
+                }
+            }
+        }
+        diskBytes = total;
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+}
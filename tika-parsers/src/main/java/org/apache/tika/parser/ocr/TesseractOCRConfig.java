@@ -60,6 +60,15 @@ public class TesseractOCRConfig implements Serializable{
 	// Maximum time (seconds) to wait for the ocring process termination
 	private int timeout = 120;
 
+	// Maximum number of tesseract processes shared by all parses, 0 for no limit
+	private int maxWorkers = 0;
+
+	// Maximum number of images given to one tesseract process
+	private int batchSize = 10;
+
+	// Time (milliseconds) to wait for more images before starting a process
+	private int batchWindow = 50;
+
 	/**
 	 * Default contructor.
 	 */
@@ -108,6 +117,12 @@ public class TesseractOCRConfig implements Serializable{
 				getProp(props, "maxFileSizeToOcr", getMaxFileSizeToOcr()));
 		setTimeout(
 				getProp(props, "timeout", getTimeout()));
+		setMaxWorkers(
+				getProp(props, "maxWorkers", getMaxWorkers()));
+		setBatchSize(
+				getProp(props, "batchSize", getBatchSize()));
+		setBatchWindow(
+				getProp(props, "batchWindow", getBatchWindow()));
 
 	}
 
@@ -197,6 +212,55 @@ public class TesseractOCRConfig implements Serializable{
 		return timeout;
 	}
 
+	/**
+	 * Set the maximum number of tesseract processes that run at the same
+	 * time for all parses with the same tesseract path, language and page
+	 * segmentation mode. Further images wait, in order, until a process is
+	 * free, and are then given to it in batches, see
+	 * {@link #setBatchSize(int)}. The timeout applies to each batch once
+	 * its process has started. Default is 0, which runs a process for each
+	 * image as soon as it is parsed, without any limit. The limit is that
+	 * of the first parse, as the processes are shared by all parses.
+	 *
+	 * @see TesseractOCRPool
+	 */
+	public void setMaxWorkers(int maxWorkers) {
+		this.maxWorkers = maxWorkers;
+	}
+
+	/** @see #setMaxWorkers(int maxWorkers)*/
+	public int getMaxWorkers() {
+		return maxWorkers;
+	}
+
+	/**
+	 * Set the maximum number of images that are given to one tesseract
+	 * process, as a list file, when {@link #setMaxWorkers(int)} is set.
+	 * Default is 10. Set it to 1 to run a process for each image.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/** @see #setBatchSize(int batchSize)*/
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set the time (milliseconds) a free tesseract process waits for more
+	 * images to be queued, so that they get into the same batch, when
+	 * {@link #setMaxWorkers(int)} is set. Default value is 50ms.
+	 */
+	public void setBatchWindow(int batchWindow) {
+		this.batchWindow = batchWindow;
+	}
+
+	/** @see #setBatchWindow(int batchWindow)*/
+	public int getBatchWindow() {
+		return batchWindow;
+	}
+
 	/**
 	 * Get property from the properties file passed in.
 	 * @param properties properties file to read from.
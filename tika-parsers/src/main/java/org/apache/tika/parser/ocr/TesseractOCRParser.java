@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -175,15 +176,43 @@ public class TesseractOCRParser extends AbstractParser {
 
             if (size >= config.getMinFileSizeToOcr() && size <= config.getMaxFileSizeToOcr()) {
 
-                output = tmp.createTemporaryFile();
-                doOCR(input, output, config);
-
-                // Tesseract appends .txt to output file name
-                output = new File(output.getAbsolutePath() + ".txt");
+                OCRResultCache cache = context.get(OCRResultCache.class);
+                String key = null;
+                String text = null;
+                if (cache != null) {
+                    key = cache.getKey(input, config);
+                    text = cache.get(key, metadata);
+                }
 
-                if (output.exists())
-                    extractOutput(new FileInputStream(output), xhtml);
+                if (text == null && config.getMaxWorkers() > 0) {
+                    text = TesseractOCRPool.getPool(config).ocr(
+                            input, TimeUnit.SECONDS.toMillis(config.getTimeout()));
+                    if (text != null && cache != null) {
+                        cache.put(key, text);
+                    }
+                } else if (text == null) {
+                    output = tmp.createTemporaryFile();
+                    doOCR(input, output, config);
+
+                    // Tesseract appends .txt to output file name
+                    output = new File(output.getAbsolutePath() + ".txt");
+
+                    if (output.exists() && cache != null) {
+                        InputStream outputStream = new FileInputStream(output);
+                        try {
+                            text = IOUtils.toString(outputStream, IOUtils.UTF_8.name());
+                        } finally {
+                            outputStream.close();
+                        }
+                        cache.put(key, text);
+                    } else if (output.exists()) {
+                        extractOutput(new FileInputStream(output), xhtml);
+                    }
+                }
 
+                if (text != null) {
+                    extractOutput(new StringReader(text), xhtml);
+                }
             }
 
             // Temporary workaround for TIKA-1445 - until we can specify
@@ -282,8 +311,14 @@ public class TesseractOCRParser extends AbstractParser {
      *           if an input error occurred
      */
     private void extractOutput(InputStream stream, XHTMLContentHandler xhtml) throws SAXException, IOException {
+        extractOutput(new InputStreamReader(stream, IOUtils.UTF_8), xhtml);
+    }
 
-        Reader reader = new InputStreamReader(stream, IOUtils.UTF_8);
+    /**
+     * Reads the ocr result from the given reader and writes it to the given
+     * XHTML content handler. The reader is closed once fully processed.
+     */
+    private void extractOutput(Reader reader, XHTMLContentHandler xhtml) throws SAXException, IOException {
         xhtml.startDocument();
         xhtml.startElement("div");
         try {
@@ -0,0 +1,615 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.ocr;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.IOUtils;
+
+/**
+ * Bounded pool of tesseract processes, shared by all the parses with the
+ * same tesseract installation, language and page segmentation mode.
+ * Tesseract reads the whole of its standard input before it starts, so a
+ * long-lived process can not be fed one image at a time. Instead, the
+ * images queued while the processes are busy, or within a short window,
+ * are given to a single process as a list file, which saves the start-up
+ * of tesseract and the loading of its language data for all but the first
+ * image of a batch. The pool limits the number of processes running at
+ * the same time, whatever the number of documents being parsed.
+ * <p>
+ * Tesseract writes the text of all the pages of a batch to one file, with
+ * a form feed after each page, so the text of each image is cut out by
+ * the number of its pages. Images whose pages can not be counted are
+ * given to a process of their own, and if the text of a batch does not
+ * match its pages, or the batch fails or times out, each of its images is
+ * run again on its own. The text of each image is that of all its pages,
+ * separated by form feeds.
+ * <p>
+ * Threads calling {@link #ocr(File, long)} queue up, in order, until one of
+ * the processes has handled their image. A process that does not finish
+ * within the timeout is killed. The running processes are killed when the
+ * pool is closed, and the shared pools are closed when the JVM exits.
+ */
+public class TesseractOCRPool {
+
+    private static final Map<String, TesseractOCRPool> POOLS =
+            new HashMap<String, TesseractOCRPool>();
+
+    // guards against loops in the page directories of broken TIFF images
+    private static final int MAX_PAGES = 10000;
+
+    private static Thread shutdownHook = null;
+
+    private final String[] command;
+
+    private final Map<String, String> environment;
+
+    private final int batchSize;
+
+    private final long batchWindow;
+
+    // images waiting for a process, in order
+    private final LinkedList<Request> queue = new LinkedList<Request>();
+
+    private final List<Thread> workers = new ArrayList<Thread>();
+
+    private final List<Process> processes = new ArrayList<Process>();
+
+    private boolean closed = false;
+
+    /**
+     * Creates a pool that runs each image in a process of its own.
+     *
+     * @param command the tesseract program, followed by its options, which
+     *                are given after the image and the output file
+     * @param environment additional environment variables of the processes
+     * @param size maximum number of processes running at the same time
+     */
+    public TesseractOCRPool(String[] command, Map<String, String> environment, int size) {
+        this(command, environment, size, 1, 0);
+    }
+
+    /**
+     * @param command the tesseract program, followed by its options, which
+     *                are given after the image and the output file
+     * @param environment additional environment variables of the processes
+     * @param size maximum number of processes running at the same time
+     * @param batchSize maximum number of images given to one process
+     * @param batchWindow time in milliseconds a free process waits for
+     *                    more images before it starts on a batch
+     */
+    public TesseractOCRPool(
+            String[] command, Map<String, String> environment,
+            int size, int batchSize, long batchWindow) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.command = command.clone();
+        this.environment = new HashMap<String, String>(environment);
+        this.batchSize = batchSize;
+        this.batchWindow = batchWindow;
+        for (int i = 0; i < size; i++) {
+            Thread worker = new Thread("Tesseract pool worker " + i) {
+                public void run() {
+                    work();
+                }
+            };
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Returns the shared pool for the tesseract installation, language and
+     * page segmentation mode of the given configuration, creating it with
+     * {@link TesseractOCRConfig#getMaxWorkers()} processes, and the batches
+     * of the configuration, if needed. The limits are those of the
+     * configuration that created the pool, so that they hold for all the
+     * parses.
+     */
+    static TesseractOCRPool getPool(TesseractOCRConfig config) {
+        String[] cmd = { config.getTesseractPath() + TesseractOCRParser.getTesseractProg(),
+                "-l", config.getLanguage(), "-psm", config.getPageSegMode() };
+        Map<String, String> env = new HashMap<String, String>();
+        if (!config.getTesseractPath().isEmpty()) {
+            env.put("TESSDATA_PREFIX", config.getTesseractPath());
+        }
+        String key = Arrays.asList(cmd) + " " + env;
+        synchronized (POOLS) {
+            TesseractOCRPool pool = POOLS.get(key);
+            if (pool == null || pool.isClosed()) {
+                pool = new TesseractOCRPool(
+                        cmd, env, config.getMaxWorkers(),
+                        Math.max(config.getBatchSize(), 1),
+                        config.getBatchWindow());
+                POOLS.put(key, pool);
+            }
+            if (shutdownHook == null) {
+                shutdownHook = new Thread("Tesseract pool shutdown") {
+                    public void run() {
+                        closeAll();
+                    }
+                };
+                Runtime.getRuntime().addShutdownHook(shutdownHook);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Closes all the shared pools, which kills their running processes.
+     * The pools are created again when needed.
+     */
+    public static void closeAll() {
+        List<TesseractOCRPool> pools;
+        synchronized (POOLS) {
+            pools = new ArrayList<TesseractOCRPool>(POOLS.values());
+            POOLS.clear();
+        }
+        for (TesseractOCRPool pool : pools) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Runs OCR on the given image once a process is free.
+     *
+     * @param image image file
+     * @param timeoutMillis maximum time to wait for the text of the batch
+     *                      of the image, once its process has started
+     * @return text of the image, or null if tesseract did not write any
+     * @throws TikaException if the process timed out, if the pool has been
+     *                       closed, or if the waiting thread was interrupted
+     * @throws IOException if the process could not be started
+     */
+    public String ocr(File image, long timeoutMillis) throws IOException, TikaException {
+        Request request = new Request(image, countPages(image), timeoutMillis);
+        synchronized (this) {
+            if (closed) {
+                throw new TikaException("Tesseract pool has been closed");
+            }
+            queue.add(request);
+            notifyAll();
+            try {
+                while (!request.done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                // an image already in a batch is simply not waited for
+                queue.remove(request);
+                Thread.currentThread().interrupt();
+                throw new TikaException("TesseractOCRParser interrupted", e);
+            }
+        }
+        if (request.error instanceof IOException) {
+            throw (IOException) request.error;
+        } else if (request.error instanceof TikaException) {
+            throw (TikaException) request.error;
+        }
+        return request.text;
+    }
+
+    /**
+     * Kills the running processes, and makes any further image fail.
+     */
+    public void close() {
+        List<Process> running;
+        synchronized (this) {
+            closed = true;
+            running = new ArrayList<Process>(processes);
+            for (Request request : queue) {
+                request.error = new TikaException("Tesseract pool has been closed");
+                request.done = true;
+            }
+            queue.clear();
+            notifyAll();
+        }
+        for (Process process : running) {
+            process.destroy();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * @return true if {@link #close()} has been called
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return number of tesseract processes currently running
+     */
+    public synchronized int getWorkerCount() {
+        return processes.size();
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                List<Request> batch = takeBatch();
+                if (batch == null) {
+                    return;
+                }
+                try {
+                    runBatch(batch);
+                } finally {
+                    // do not leave the parses waiting after an unexpected error
+                    for (Request request : batch) {
+                        if (!request.done) {
+                            complete(request, null, new TikaException(
+                                    "Tesseract batch failed"));
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // the pool has been closed
+        }
+    }
+
+    /**
+     * Waits for the next batch of images, which is the first image of the
+     * queue and the images after it whose pages are known, up to the batch
+     * size. Returns null once the pool is closed.
+     */
+    private synchronized List<Request> takeBatch() throws InterruptedException {
+        List<Request> batch = new ArrayList<Request>();
+        while (batch.isEmpty()) {
+            while (!closed && queue.isEmpty()) {
+                wait();
+            }
+            // give the other parses a moment to queue their images
+            long end = System.currentTimeMillis() + batchWindow;
+            long remaining = batchWindow;
+            while (!closed && queue.size() < batchSize && remaining > 0) {
+                wait(remaining);
+                remaining = end - System.currentTimeMillis();
+            }
+            if (closed) {
+                return null;
+            }
+            // another worker may have taken the images meanwhile
+            if (!queue.isEmpty()) {
+                batch.add(queue.removeFirst());
+            }
+            while (!batch.isEmpty() && batch.get(0).pages > 0
+                    && batch.size() < batchSize && !queue.isEmpty()
+                    && queue.getFirst().pages > 0) {
+                batch.add(queue.removeFirst());
+            }
+        }
+        return batch;
+    }
+
+    private void runBatch(List<Request> batch) {
+        if (batch.size() > 1) {
+            try {
+                String[] texts = runList(batch);
+                if (texts != null) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        complete(batch.get(i), texts[i], null);
+                    }
+                    return;
+                }
+                LogFactory.getLog(TesseractOCRParser.class).debug(
+                        "The text of a batch does not match its pages");
+            } catch (IOException e) {
+                LogFactory.getLog(TesseractOCRParser.class).debug(
+                        "Failed to run a batch", e);
+            } catch (TikaException e) {
+                LogFactory.getLog(TesseractOCRParser.class).debug(
+                        "Failed to run a batch", e);
+            }
+        }
+        // each image on its own, so that a bad one only fails itself
+        for (Request request : batch) {
+            try {
+                complete(request, run(request.image.getPath(), request.timeout), null);
+            } catch (IOException e) {
+                complete(request, null, e);
+            } catch (TikaException e) {
+                complete(request, null, e);
+            }
+        }
+    }
+
+    /**
+     * Runs the images of a batch in one process, with a list file.
+     *
+     * @return the text of each image, or null if the text of the batch
+     *         does not match the pages of its images
+     */
+    private String[] runList(List<Request> batch) throws IOException, TikaException {
+        File list = File.createTempFile("tika-tesseract-", ".txt");
+        try {
+            Writer writer = new OutputStreamWriter(
+                    new FileOutputStream(list), IOUtils.UTF_8);
+            long timeout = 0;
+            int[] pages = new int[batch.size()];
+            try {
+                for (int i = 0; i < pages.length; i++) {
+                    Request request = batch.get(i);
+                    writer.write(request.image.getAbsolutePath());
+                    writer.write('\n');
+                    timeout = Math.max(timeout, request.timeout);
+                    pages[i] = request.pages;
+                }
+            } finally {
+                writer.close();
+            }
+            String text = run(list.getPath(), timeout);
+            if (text == null) {
+                return null;
+            }
+            return split(text, pages);
+        } finally {
+            list.delete();
+        }
+    }
+
+    private synchronized void complete(Request request, String text, Exception error) {
+        request.text = text;
+        request.error = error;
+        request.done = true;
+        notifyAll();
+    }
+
+    /**
+     * Splits the text of a batch by the form feeds that end each page.
+     *
+     * @param text text of the batch
+     * @param pages number of pages of each image of the batch
+     * @return text of each image, or null if the form feeds do not match
+     *         the pages
+     */
+    static String[] split(String text, int[] pages) {
+        String[] texts = new String[pages.length];
+        int start = 0;
+        for (int i = 0; i < pages.length; i++) {
+            int end = start;
+            for (int page = 0; page < pages[i]; page++) {
+                int feed = text.indexOf('\f', end);
+                if (feed == -1) {
+                    return null;
+                }
+                end = feed + 1;
+            }
+            texts[i] = text.substring(start, end);
+            start = end;
+        }
+        if (text.substring(start).trim().length() > 0) {
+            return null;
+        }
+        return texts;
+    }
+
+    /**
+     * Counts the pages tesseract finds in an image, which are the images of
+     * the page directories of a TIFF file, and one for any other format.
+     *
+     * @return number of pages, or -1 if they can not be counted
+     */
+    static int countPages(File image) {
+        try {
+            RandomAccessFile file = new RandomAccessFile(image, "r");
+            try {
+                if (file.length() < 8) {
+                    return 1;
+                }
+                int order = (int) read(file, 2, false);
+                boolean little;
+                if (order == 0x4949) { // "II"
+                    little = true;
+                } else if (order == 0x4D4D) { // "MM"
+                    little = false;
+                } else {
+                    return 1;
+                }
+                if (read(file, 2, little) != 42) {
+                    // BigTIFF, or not a TIFF at all
+                    return -1;
+                }
+                int pages = 0;
+                long offset = read(file, 4, little);
+                while (offset != 0) {
+                    if (pages == MAX_PAGES) {
+                        return -1;
+                    }
+                    file.seek(offset);
+                    long entries = read(file, 2, little);
+                    file.seek(offset + 2 + 12 * entries);
+                    offset = read(file, 4, little);
+                    pages++;
+                }
+                return pages;
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static long read(RandomAccessFile file, int length, boolean little)
+            throws IOException {
+        byte[] bytes = new byte[length];
+        file.readFully(bytes);
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = bytes[little ? length - 1 - i : i] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    /**
+     * Runs tesseract on an image or a list file.
+     *
+     * @return text written by tesseract, or null if it did not write any
+     */
+    private String run(String input, long timeoutMillis)
+            throws IOException, TikaException {
+        File output = File.createTempFile("tika-tesseract-", "");
+        // tesseract appends .txt to the output file name
+        File text = new File(output.getPath() + ".txt");
+        try {
+            run(input, output, timeoutMillis);
+            if (!text.exists()) {
+                return null;
+            }
+            InputStream stream = new FileInputStream(text);
+            try {
+                return IOUtils.toString(stream, IOUtils.UTF_8.name());
+            } finally {
+                stream.close();
+            }
+        } finally {
+            output.delete();
+            text.delete();
+        }
+    }
+
+    private void run(String input, File output, long timeoutMillis)
+            throws IOException, TikaException {
+        List<String> cmd = new ArrayList<String>();
+        cmd.add(command[0]);
+        cmd.add(input);
+        cmd.add(output.getPath());
+        cmd.addAll(Arrays.asList(command).subList(1, command.length));
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.environment().putAll(environment);
+
+        final Process process;
+        synchronized (this) {
+            if (closed) {
+                throw new TikaException("Tesseract pool has been closed");
+            }
+            process = pb.start();
+            processes.add(process);
+        }
+        try {
+            process.getOutputStream().close();
+            logStream(process.getInputStream());
+            logStream(process.getErrorStream());
+
+            FutureTask<Integer> waitTask = new FutureTask<Integer>(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    return process.waitFor();
+                }
+            });
+            Thread waitThread = new Thread(waitTask, "Tesseract process");
+            waitThread.setDaemon(true);
+            waitThread.start();
+            try {
+                waitTask.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                waitThread.interrupt();
+                process.destroy();
+                Thread.currentThread().interrupt();
+                throw new TikaException("TesseractOCRParser interrupted", e);
+            } catch (ExecutionException e) {
+                // should not be thrown
+            } catch (TimeoutException e) {
+                waitThread.interrupt();
+                process.destroy();
+                throw new TikaException("TesseractOCRParser timeout", e);
+            }
+        } finally {
+            synchronized (this) {
+                processes.remove(process);
+            }
+        }
+        if (isClosed()) {
+            throw new TikaException("Tesseract pool has been closed");
+        }
+    }
+
+    private static void logStream(final InputStream stream) {
+        Thread thread = new Thread("Tesseract process output") {
+            public void run() {
+                Reader reader = new InputStreamReader(stream, IOUtils.UTF_8);
+                StringBuilder out = new StringBuilder();
+                char[] buffer = new char[1024];
+                try {
+                    for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
+                        out.append(buffer, 0, n);
+                    }
+                } catch (IOException e) {
+
+                } finally {
+                    IOUtils.closeQuietly(stream);
+                }
+                LogFactory.getLog(TesseractOCRParser.class).debug(out.toString());
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * An image waiting for its text.
+     */
+    private static class Request {
+
+        private final File image;
+
+        private final int pages;
+
+        private final long timeout;
+
+        private boolean done = false;
+
+        private String text = null;
+
+        private Exception error = null;
+
+        private Request(File image, int pages, long timeout) {
+            this.image = image;
+            this.pages = pages;
+            this.timeout = timeout;
+        }
+    }
+}
@@ -19,10 +19,15 @@ package org.apache.tika.parser.pkg;
 import static org.apache.tika.metadata.HttpHeaders.CONTENT_TYPE;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipException;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveException;
@@ -38,6 +43,7 @@ import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
 import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException.Feature;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.tika.exception.EncryptedDocumentException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.extractor.EmbeddedDocumentExtractor;
@@ -66,6 +72,9 @@ import org.xml.sax.helpers.AttributesImpl;
  * work with 7Z files (see: COMPRESS-299 and TIKA-1521).  If the jars
  * are not installed, an IOException will be thrown, and potentially
  * wrapped in a TikaException.
+ * <p>
+ * The entries of ZIP, JAR and 7z archives can be parsed on several threads,
+ * see {@link PackageParserConfig}.
  */
 public class PackageParser extends AbstractParser {
 
@@ -83,6 +92,8 @@ public class PackageParser extends AbstractParser {
     private static final Set<MediaType> SUPPORTED_TYPES =
             MediaType.set(ZIP, JAR, AR, CPIO, DUMP, TAR, SEVENZ);
 
+    private static final PackageParserConfig DEFAULT_CONFIG = new PackageParserConfig();
+
     static MediaType getMediaType(ArchiveInputStream stream) {
         if (stream instanceof JarArchiveInputStream) {
             return JAR;
@@ -123,8 +134,8 @@ public class PackageParser extends AbstractParser {
         
         TemporaryResources tmp = new TemporaryResources();
         ArchiveInputStream ais = null;
+        ArchiveStreamFactory factory = context.get(ArchiveStreamFactory.class, new ArchiveStreamFactory());
         try {
-            ArchiveStreamFactory factory = context.get(ArchiveStreamFactory.class, new ArchiveStreamFactory());
             // At the end we want to close the archive stream to release
             // any associated resources, but the underlying document stream
             // should not be closed
@@ -174,13 +185,70 @@ public class PackageParser extends AbstractParser {
         XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
         xhtml.startDocument();
 
+        PackageParserConfig config =
+                context.get(PackageParserConfig.class, DEFAULT_CONFIG);
         try {
-            ArchiveEntry entry = ais.getNextEntry();
-            while (entry != null) {
-                if (!entry.isDirectory()) {
-                    parseEntry(ais, entry, extractor, xhtml);
+            if (config.getMaxThreads() > 1
+                    && !ParallelEntryParser.isParsingEntry()
+                    && (isZipArchive(type) || type.equals(SEVENZ))) {
+                ExecutorService executor = context.get(ExecutorService.class);
+                boolean shared = executor != null;
+                if (!shared) {
+                    // Archives nested in this one and parsed in this thread
+                    // find the pool in the context, and use it as well
+                    executor = Executors.newFixedThreadPool(config.getMaxThreads());
+                    context.set(ExecutorService.class, executor);
+                }
+                ParallelEntryParser parallel =
+                        new ParallelEntryParser(extractor, xhtml, config, executor);
+                try {
+                    if (isZipArchive(type)) {
+                        // Read the entries through the central directory,
+                        // which lets the parsing threads access them at once
+                        ais.close();
+                        File file = TikaInputStream.get(stream, tmp).getFile();
+                        String encoding = factory.getEntryEncoding();
+                        ZipFile zip = null;
+                        try {
+                            if (encoding == null) {
+                                zip = new ZipFile(file);
+                            } else {
+                                zip = new ZipFile(file, encoding);
+                            }
+                        } catch (ZipException e) {
+                            // A truncated or damaged archive has no usable
+                            // central directory, so read the local entries
+                        }
+                        if (zip != null) {
+                            tmp.addResource(zip);
+                            parallel.parse(zip);
+                        } else {
+                            InputStream input = new FileInputStream(file);
+                            tmp.addResource(input);
+                            if (encoding == null) {
+                                parallel.parse(new ZipArchiveInputStream(input));
+                            } else {
+                                parallel.parse(new ZipArchiveInputStream(input, encoding));
+                            }
+                        }
+                    } else {
+                        parallel.parse(ais);
+                    }
+                } finally {
+                    parallel.close();
+                    if (!shared) {
+                        context.set(ExecutorService.class, null);
+                        executor.shutdownNow();
+                    }
+                }
+            } else {
+                ArchiveEntry entry = ais.getNextEntry();
+                while (entry != null) {
+                    if (!entry.isDirectory()) {
+                        parseEntry(ais, entry, extractor, xhtml);
+                    }
+                    entry = ais.getNextEntry();
                 }
-                entry = ais.getNextEntry();
             }
         } catch (UnsupportedZipFeatureException zfe) {
             // If it's an encrypted document of unknown password, report as such
@@ -235,6 +303,13 @@ public class PackageParser extends AbstractParser {
             String name, Date createAt, Date modifiedAt,
             Long size, XHTMLContentHandler xhtml)
             throws SAXException, IOException, TikaException {
+        Metadata entrydata = createEntryMetadata(name, createAt, modifiedAt, size);
+        writeEntryAnchor(entrydata, xhtml);
+        return entrydata;
+    }
+
+    static Metadata createEntryMetadata(
+            String name, Date createAt, Date modifiedAt, Long size) {
         Metadata entrydata = new Metadata();
         if (createAt != null) {
             entrydata.set(TikaCoreProperties.CREATED, createAt);
@@ -248,15 +323,21 @@ public class PackageParser extends AbstractParser {
         if (name != null && name.length() > 0) {
             name = name.replace("\\", "/");
             entrydata.set(Metadata.RESOURCE_NAME_KEY, name);
+            entrydata.set(Metadata.EMBEDDED_RELATIONSHIP_ID, name);
+        }
+        return entrydata;
+    }
+
+    static void writeEntryAnchor(Metadata entrydata, XHTMLContentHandler xhtml)
+            throws SAXException {
+        String name = entrydata.get(Metadata.EMBEDDED_RELATIONSHIP_ID);
+        if (name != null) {
             AttributesImpl attributes = new AttributesImpl();
             attributes.addAttribute("", "class", "class", "CDATA", "embedded");
             attributes.addAttribute("", "id", "id", "CDATA", name);
             xhtml.startElement("div", attributes);
             xhtml.endElement("div");
-
-            entrydata.set(Metadata.EMBEDDED_RELATIONSHIP_ID, name);
         }
-        return entrydata;
     }
 
     // Pending a fix for COMPRESS-269, we have to wrap ourselves
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pkg;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the {@link PackageParser}, passed in through the
+ * {@link org.apache.tika.parser.ParseContext}.
+ * <p>
+ * With more than one thread, the entries of ZIP, JAR and 7z archives are
+ * parsed concurrently. The output of each entry is buffered, and written
+ * in the order of the entries in the archive, so the XHTML output is the
+ * same as with one thread. This requires that the
+ * {@link org.apache.tika.extractor.EmbeddedDocumentExtractor} and the
+ * parsers in the ParseContext can be used from several threads at once,
+ * which is the case for the default extractor and the AutoDetectParser,
+ * but not, for example, for the RecursiveParserWrapper.
+ * <p>
+ * The entries are parsed on the {@link java.util.concurrent.ExecutorService}
+ * in the ParseContext, if there is one, which lets several documents share
+ * a pool of threads. Otherwise a pool of {@link #getMaxThreads()} threads
+ * is created for the archive, and shut down once it is parsed. Archives
+ * nested in the archive share that pool when they are parsed in the
+ * calling thread, and are parsed sequentially when they are parsed in one
+ * of its threads, so the number of threads does not grow with the depth
+ * of the nesting.
+ * <p>
+ * ZIP archives are read through their central directory, so the parsing
+ * threads read the data of their entries from the archive themselves. 7z
+ * archives can only be read sequentially, so the data of each of their
+ * entries is read fully into memory before the entry is handed to a
+ * parsing thread. The memory used this way is bounded by
+ * {@link #getMaxBytesInFlight()}.
+ */
+public class PackageParserConfig implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = 4927301866452150938L;
+
+    private int maxThreads = 1;
+
+    private long maxBytesInFlight = 64 * 1024 * 1024;
+
+    /**
+     * Number of threads used to parse the entries of an archive. Default
+     * is 1, which parses the entries one after another in the calling
+     * thread.
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @see #getMaxThreads()
+     */
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Maximum total uncompressed size of the entries that are being parsed,
+     * or whose output is waiting to be written, at any one time. Entries
+     * larger than this are parsed in the calling thread, once the entries
+     * before them have been written. This also bounds the memory used to
+     * hold the data of the entries of archives that are read sequentially,
+     * such as 7z archives, until they are parsed. Default is 64MB.
+     */
+    public long getMaxBytesInFlight() {
+        return maxBytesInFlight;
+    }
+
+    /**
+     * @see #getMaxBytesInFlight()
+     */
+    public void setMaxBytesInFlight(long maxBytesInFlight) {
+        this.maxBytesInFlight = maxBytesInFlight;
+    }
+}
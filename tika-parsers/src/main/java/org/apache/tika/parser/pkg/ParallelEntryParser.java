@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pkg;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.io.CloseShieldInputStream;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.sax.SAXEventRecorder;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Parses the entries of an archive on a pool of threads for the
+ * {@link PackageParser}. The output of each entry is recorded, and
+ * written to the XHTML output in entry order, once all entries before
+ * it have been written.
+ * <p>
+ * The executor is not owned by this class, so that the entries of nested
+ * archives can share it. An archive nested in an entry that is parsed on
+ * one of its threads should be parsed sequentially, see
+ * {@link #isParsingEntry()}, since waiting on the same executor from its
+ * own threads could exhaust it.
+ *
+ * @see PackageParserConfig
+ */
+class ParallelEntryParser {
+
+    /** Set while the current thread is parsing an entry for this class */
+    private static final ThreadLocal<Boolean> PARSING_ENTRY = new ThreadLocal<Boolean>();
+
+    private final EmbeddedDocumentExtractor extractor;
+
+    private final XHTMLContentHandler xhtml;
+
+    private final long maxBytesInFlight;
+
+    private final int maxPending;
+
+    private final ExecutorService executor;
+
+    private final LinkedList<PendingEntry> pending = new LinkedList<PendingEntry>();
+
+    private long bytesInFlight = 0;
+
+    ParallelEntryParser(
+            EmbeddedDocumentExtractor extractor, XHTMLContentHandler xhtml,
+            PackageParserConfig config, ExecutorService executor) {
+        this.extractor = extractor;
+        this.xhtml = xhtml;
+        this.maxBytesInFlight = config.getMaxBytesInFlight();
+        // enough queued entries to keep all threads busy while the
+        // output of the oldest one is being waited for
+        this.maxPending = 2 * config.getMaxThreads();
+        this.executor = executor;
+    }
+
+    /**
+     * Returns whether the current thread is parsing the entry of an archive
+     * on behalf of a ParallelEntryParser.
+     */
+    static boolean isParsingEntry() {
+        return PARSING_ENTRY.get() != null;
+    }
+
+    /**
+     * Parses the entries of a ZIP file in the order in which they are
+     * stored. The entries are read from the file by the parsing threads.
+     */
+    void parse(final ZipFile zip)
+            throws IOException, SAXException, TikaException {
+        Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+        while (entries.hasMoreElements()) {
+            final ZipArchiveEntry entry = entries.nextElement();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            parseEntry(entry, zip.canReadEntryData(entry), false, new EntryData() {
+                public InputStream open() throws IOException {
+                    return zip.getInputStream(entry);
+                }
+            });
+        }
+        flush(0);
+    }
+
+    /**
+     * Parses the entries of an archive that can only be read sequentially.
+     * The data of each entry is read into memory by the calling thread,
+     * and parsed by the parsing threads.
+     */
+    void parse(final ArchiveInputStream archive)
+            throws IOException, SAXException, TikaException {
+        ArchiveEntry entry = archive.getNextEntry();
+        while (entry != null) {
+            if (!entry.isDirectory()) {
+                parseEntry(
+                        entry, archive.canReadEntryData(entry), true, new EntryData() {
+                    public InputStream open() throws IOException {
+                        return new CloseShieldInputStream(archive);
+                    }
+                });
+            }
+            entry = archive.getNextEntry();
+        }
+        flush(0);
+    }
+
+    /**
+     * Cancels the entries that have not been written yet. The executor is
+     * left running.
+     */
+    void close() {
+        for (PendingEntry entry : pending) {
+            if (entry.future != null) {
+                entry.future.cancel(true);
+            }
+        }
+        pending.clear();
+    }
+
+    private void parseEntry(
+            ArchiveEntry entry, boolean readable, boolean sequential,
+            EntryData data)
+            throws IOException, SAXException, TikaException {
+        String name = entry.getName();
+        if (!readable) {
+            pending.add(new PendingEntry(name, null, 0, null));
+            flush(maxPending);
+            return;
+        }
+
+        Metadata entrydata = PackageParser.createEntryMetadata(
+                name, null, entry.getLastModifiedDate(), entry.getSize());
+        if (!extractor.shouldParseEmbedded(entrydata)) {
+            pending.add(new PendingEntry(name, entrydata, 0, null));
+            flush(maxPending);
+            return;
+        }
+
+        long size = entry.getSize();
+        if (size < 0 || size > maxBytesInFlight) {
+            // too large to buffer, parse it in this thread once the
+            // entries before it have been written
+            flush(0);
+            PackageParser.writeEntryAnchor(entrydata, xhtml);
+            parse(data, xhtml, entrydata);
+            return;
+        }
+
+        // wait until the entry fits in the budget
+        while (!pending.isEmpty()
+                && (bytesInFlight + size > maxBytesInFlight
+                        || pending.size() >= maxPending)) {
+            write(pending.removeFirst());
+        }
+
+        if (sequential) {
+            // the archive moves on to the next entry, so read the data now
+            InputStream stream = data.open();
+            final byte[] bytes;
+            try {
+                bytes = IOUtils.toByteArray(stream);
+            } finally {
+                stream.close();
+            }
+            data = new EntryData() {
+                public InputStream open() {
+                    return new ByteArrayInputStream(bytes);
+                }
+            };
+        }
+        Future<SAXEventRecorder> future =
+                executor.submit(new EntryTask(data, entrydata));
+        pending.add(new PendingEntry(name, entrydata, size, future));
+        bytesInFlight += size;
+    }
+
+    /**
+     * Writes the oldest entries until no more than the given number of
+     * entries is pending.
+     */
+    private void flush(int max)
+            throws IOException, SAXException, TikaException {
+        while (pending.size() > max) {
+            write(pending.removeFirst());
+        }
+    }
+
+    private void write(PendingEntry entry)
+            throws IOException, SAXException, TikaException {
+        if (entry.entrydata == null) {
+            if (entry.name != null && entry.name.length() > 0) {
+                xhtml.element("p", entry.name);
+            }
+            return;
+        }
+        if (entry.future == null) {
+            PackageParser.writeEntryAnchor(entry.entrydata, xhtml);
+            return;
+        }
+        try {
+            SAXEventRecorder recorder = entry.future.get();
+            // only touch the entry metadata once its parser is done with it
+            PackageParser.writeEntryAnchor(entry.entrydata, xhtml);
+            recorder.replay(xhtml);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TikaException("Interrupted while parsing " + entry.name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof TikaException) {
+                throw (TikaException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TikaException("Unable to parse " + entry.name, cause);
+        } finally {
+            bytesInFlight -= entry.size;
+        }
+    }
+
+    private void parse(EntryData data, ContentHandler handler, Metadata entrydata)
+            throws IOException, SAXException, TikaException {
+        // For detectors to work, we need a mark/reset supporting
+        // InputStream, so wrap
+        TemporaryResources tmp = new TemporaryResources();
+        InputStream stream = data.open();
+        try {
+            TikaInputStream tis = TikaInputStream.get(stream, tmp);
+            extractor.parseEmbedded(tis, handler, entrydata, true);
+        } finally {
+            stream.close();
+            tmp.dispose();
+        }
+    }
+
+    /**
+     * Source of the data of an archive entry.
+     */
+    private interface EntryData {
+
+        InputStream open() throws IOException;
+
+    }
+
+    private class EntryTask implements Callable<SAXEventRecorder> {
+
+        private final EntryData data;
+
+        private final Metadata entrydata;
+
+        private EntryTask(EntryData data, Metadata entrydata) {
+            this.data = data;
+            this.entrydata = entrydata;
+        }
+
+        public SAXEventRecorder call() throws Exception {
+            PARSING_ENTRY.set(Boolean.TRUE);
+            try {
+                SAXEventRecorder recorder = new SAXEventRecorder();
+                parse(data, recorder, entrydata);
+                return recorder;
+            } finally {
+                PARSING_ENTRY.remove();
+            }
+        }
+    }
+
+    private static class PendingEntry {
+
+        private final String name;
+
+        private final Metadata entrydata;
+
+        private final long size;
+
+        private final Future<SAXEventRecorder> future;
+
+        private PendingEntry(
+                String name, Metadata entrydata, long size,
+                Future<SAXEventRecorder> future) {
+            this.name = name;
+            this.entrydata = entrydata;
+            this.size = size;
+            this.future = future;
+        }
+    }
+}
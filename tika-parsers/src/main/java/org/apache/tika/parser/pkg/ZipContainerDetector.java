@@ -41,7 +41,7 @@ import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.openxml4j.opc.PackagePart;
 import org.apache.poi.openxml4j.opc.PackageRelationshipCollection;
 import org.apache.poi.openxml4j.opc.PackageRelationshipTypes;
-import org.apache.tika.detect.Detector;
+import org.apache.tika.detect.PrefixDetector;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.IOUtils;
 import org.apache.tika.io.TemporaryResources;
@@ -55,7 +55,7 @@ import org.apache.tika.parser.iwork.IWorkPackageParser.IWORKDocumentType;
  * A detector that works on Zip documents and other archive and compression
  * formats to figure out exactly what the file is.
  */
-public class ZipContainerDetector implements Detector {
+public class ZipContainerDetector implements PrefixDetector {
     private static final Pattern MACRO_TEMPLATE_PATTERN = Pattern.compile("macroenabledtemplate$", Pattern.CASE_INSENSITIVE);
 
     // TODO Remove this constant once we upgrade to POI 3.12 beta 2, then use PackageRelationshipTypes 
@@ -68,6 +68,12 @@ public class ZipContainerDetector implements Detector {
     /** Serial version UID */
     private static final long serialVersionUID = 2891763938430295453L;
 
+    /**
+     * Length of the prefix used to detect the archive and compression
+     * formats, enough for all known formats.
+     */
+    private static final int PREFIX_LENGTH = 1024;
+
     public MediaType detect(InputStream input, Metadata metadata)
             throws IOException {
         // Check if we have access to the document
@@ -79,18 +85,10 @@ public class ZipContainerDetector implements Detector {
         try {
             TikaInputStream tis = TikaInputStream.get(input, tmp);
 
-            byte[] prefix = new byte[1024]; // enough for all known formats
+            byte[] prefix = new byte[PREFIX_LENGTH];
             int length = tis.peek(prefix);
 
-            MediaType type = detectArchiveFormat(prefix, length);
-            if (PackageParser.isZipArchive(type)
-                    && TikaInputStream.isTikaInputStream(input)) {
-                return detectZipFormat(tis);
-            } else if (!type.equals(MediaType.OCTET_STREAM)) {
-                return type;
-            } else {
-                return detectCompressorFormat(prefix, length);
-            }
+            return detect(input, prefix, length);
         } finally {
             try {
                 tmp.dispose();
@@ -100,6 +98,35 @@ public class ZipContainerDetector implements Detector {
         }
     }
 
+    public int getPrefixLength() {
+        return PREFIX_LENGTH;
+    }
+
+    /**
+     * Detects the archive or compression format from the given prefix. The
+     * stream is only read to find the exact type of a Zip file.
+     */
+    public MediaType detect(InputStream input, byte[] prefix, Metadata metadata)
+            throws IOException {
+        // Check if we have access to the document
+        if (input == null) {
+            return MediaType.OCTET_STREAM;
+        }
+        return detect(input, prefix, Math.min(prefix.length, PREFIX_LENGTH));
+    }
+
+    private static MediaType detect(InputStream input, byte[] prefix, int length) {
+        MediaType type = detectArchiveFormat(prefix, length);
+        if (PackageParser.isZipArchive(type)
+                && TikaInputStream.isTikaInputStream(input)) {
+            return detectZipFormat(TikaInputStream.cast(input));
+        } else if (!type.equals(MediaType.OCTET_STREAM)) {
+            return type;
+        } else {
+            return detectCompressorFormat(prefix, length);
+        }
+    }
+
     private static MediaType detectCompressorFormat(byte[] prefix, int length) {
         try {
             CompressorStreamFactory factory = new CompressorStreamFactory();
@@ -216,8 +216,8 @@ class RTFEmbObjHandler {
         if (embeddedExtractor.shouldParseEmbedded(metadata)) {
             TikaInputStream stream = TikaInputStream.get(bytes);
             if (metadata.get(Metadata.RESOURCE_NAME_KEY) == null) {
+                // the detector resets the stream itself
                 String extension = getExtension(stream, metadata);
-                stream.reset();
                 if (inObject && state == EMB_STATE.PICT) {
                     metadata.set(Metadata.RESOURCE_NAME_KEY, "thumbnail_" + thumbCount++ + extension);
                     metadata.set(RTFMetadata.THUMBNAIL, "true");
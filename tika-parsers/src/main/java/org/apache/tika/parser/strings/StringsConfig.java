@@ -40,6 +40,12 @@ public class StringsConfig implements Serializable {
 	// Maximum time (seconds) to wait for the strings process termination
 	private int timeout = 120;
 
+	// Whether to run the strings command instead of the pure java extractor
+	private boolean useStringsCommand = false;
+
+	// Whether to run the file command to add its output to the metadata
+	private boolean useFileCommand = false;
+
 	/**
 	 * Default contructor.
 	 */
@@ -92,6 +98,10 @@ public class StringsConfig implements Serializable {
 
 		setTimeout(Integer.parseInt(props.getProperty("timeout", ""
 				+ getTimeout())));
+		setUseStringsCommand(Boolean.parseBoolean(props.getProperty(
+				"useStringsCommand", "" + isUseStringsCommand())));
+		setUseFileCommand(Boolean.parseBoolean(props.getProperty(
+				"useFileCommand", "" + isUseFileCommand())));
 	}
 
 	/**
@@ -133,6 +143,26 @@ public class StringsConfig implements Serializable {
 		return this.timeout;
 	}
 
+	/**
+	 * Returns whether the "strings" command is run to find the strings,
+	 * instead of the pure java {@link StringsExtractor}.
+	 * 
+	 * @return {@code true} if the "strings" command is run.
+	 */
+	public boolean isUseStringsCommand() {
+		return this.useStringsCommand;
+	}
+
+	/**
+	 * Returns whether the "file" command is run to add its description of
+	 * the file to the metadata.
+	 * 
+	 * @return {@code true} if the "file" command is run.
+	 */
+	public boolean isUseFileCommand() {
+		return this.useFileCommand;
+	}
+
 	/**
 	 * Sets the "strings" installation folder.
 	 * 
@@ -184,4 +214,32 @@ public class StringsConfig implements Serializable {
 		}
 		this.timeout = timeout;
 	}
+
+	/**
+	 * Sets whether the "strings" command is run to find the strings. By
+	 * default the strings are found by the pure java
+	 * {@link StringsExtractor}, which avoids starting a process for each
+	 * file. The pure java extractor is also used when the command is not
+	 * available.
+	 * 
+	 * @param useStringsCommand
+	 *            {@code true} to run the "strings" command.
+	 */
+	public void setUseStringsCommand(boolean useStringsCommand) {
+		this.useStringsCommand = useStringsCommand;
+	}
+
+	/**
+	 * Sets whether the "file" command, configured with a {@link FileConfig},
+	 * is run to add its description of the file to the metadata, as
+	 * "strings:file_output". This is off by default, since the input then
+	 * has to be spooled to a temporary file, and a process started for
+	 * each file. It has no effect when the command is not available.
+	 * 
+	 * @param useFileCommand
+	 *            {@code true} to run the "file" command.
+	 */
+	public void setUseFileCommand(boolean useFileCommand) {
+		this.useFileCommand = useFileCommand;
+	}
 }
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.strings;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Pure java equivalent of the "strings" command. Finds the sequences of at
+ * least {@link StringsConfig#getMinLength()} printable characters in the
+ * {@link StringsConfig#getEncoding() encoding} of the configuration, and
+ * writes each of them, followed by a newline, to a content handler.
+ * <p>
+ * As with GNU strings, a printable character is a tab or a printable ASCII
+ * character, and also any byte above 127 with the
+ * {@link StringsEncoding#SINGLE_8_BIT} encoding. With the 16 and 32-bit
+ * encodings, each character is a 16 or 32-bit unit holding a printable
+ * ASCII character, found at any byte offset.
+ * <p>
+ * The input is read in large blocks in a single pass, and the input and
+ * output buffers are reused, so that the memory used does not depend on
+ * the size of the input or of the strings found. An instance is not thread
+ * safe, but can be used for any number of extractions.
+ */
+public class StringsExtractor {
+
+	/**
+	 * The size of the input buffer.
+	 */
+	private static final int BUF_SIZE = 64 * 1024;
+
+	/**
+	 * The printable characters of the 7-bit encodings.
+	 */
+	private static final boolean[] PRINTABLE_7_BIT = getCharMap(false);
+
+	/**
+	 * The printable characters of the 8-bit encoding.
+	 */
+	private static final boolean[] PRINTABLE_8_BIT = getCharMap(true);
+
+	private final int minLength;
+
+	private final int width;
+
+	private final boolean bigEndian;
+
+	private final boolean[] printable;
+
+	private final byte[] input = new byte[BUF_SIZE];
+
+	private final char[] output;
+
+	/**
+	 * The end of the strings of the output buffer that are long enough.
+	 */
+	private int outPos;
+
+	/**
+	 * The end of the output buffer, including the current sequence of
+	 * printable characters.
+	 */
+	private int tmpPos;
+
+	/**
+	 * The length of the current sequence of printable characters.
+	 */
+	private long sequenceLength;
+
+	/**
+	 * The last bytes read, the most recent in the lowest byte.
+	 */
+	private int last;
+
+	/**
+	 * The number of consecutive zero bytes read before the current byte.
+	 */
+	private int zeros;
+
+	/**
+	 * The offset of the last byte of the last printable character, or -1 if
+	 * the current sequence was ended.
+	 */
+	private long lastEnd;
+
+	/**
+	 * The number of characters written to the content handler.
+	 */
+	private long length;
+
+	public StringsExtractor(StringsConfig config) {
+		this.minLength = config.getMinLength();
+		StringsEncoding encoding = config.getEncoding();
+		switch (encoding) {
+			case BIGENDIAN_16_BIT:
+			case LITTLEENDIAN_16_BIT:
+				width = 2;
+				break;
+			case BIGENDIAN_32_BIT:
+			case LITTLEENDIAN_32_BIT:
+				width = 4;
+				break;
+			default:
+				width = 1;
+		}
+		// a single byte is its own last byte
+		this.bigEndian = width == 1
+				|| encoding == StringsEncoding.BIGENDIAN_16_BIT
+				|| encoding == StringsEncoding.BIGENDIAN_32_BIT;
+		this.printable = encoding == StringsEncoding.SINGLE_8_BIT
+				? PRINTABLE_8_BIT : PRINTABLE_7_BIT;
+		// a sequence shorter than the minimum length must always fit
+		this.output = new char[Math.max(BUF_SIZE, 2 * minLength + 1)];
+	}
+
+	/**
+	 * Writes the strings found in the given stream to the given handler.
+	 * The stream is not closed.
+	 *
+	 * @param stream the binary input
+	 * @param handler handler for the strings
+	 * @return the number of characters written, including the newlines
+	 * @throws IOException if the stream can not be read
+	 * @throws SAXException if the handler fails
+	 */
+	public long extract(InputStream stream, ContentHandler handler)
+			throws IOException, SAXException {
+		outPos = 0;
+		tmpPos = 0;
+		sequenceLength = 0;
+		last = 0;
+		zeros = 0;
+		lastEnd = -1;
+		length = 0;
+
+		long offset = 0;
+		int n;
+		while ((n = stream.read(input)) != -1) {
+			for (int i = 0; i < n; i++, offset++) {
+				int b = input[i] & 0xFF;
+				last = (last << 8) | b;
+
+				int c = bigEndian ? bigEndianChar(b) : littleEndianChar(b);
+				zeros = b == 0 ? zeros + 1 : 0;
+
+				if (c != -1) {
+					if (lastEnd != offset - width) {
+						// a printable character at another alignment
+						endSequence(handler);
+					}
+					output[tmpPos++] = (char) c;
+					sequenceLength++;
+					lastEnd = offset;
+					if (tmpPos == output.length) {
+						flush(handler);
+					}
+				} else if (lastEnd != -1 && offset - lastEnd >= width) {
+					// the next character of the sequence is not printable
+					endSequence(handler);
+					lastEnd = -1;
+				}
+			}
+		}
+		endSequence(handler);
+		flush(handler);
+		return length;
+	}
+
+	/**
+	 * Returns the big endian (or single byte) character that ends with the
+	 * current byte, or -1 if it is not printable.
+	 */
+	private int bigEndianChar(int b) {
+		// all bytes but the last of the character are zero
+		if (zeros < width - 1 || !printable[b]) {
+			return -1;
+		}
+		return b;
+	}
+
+	/**
+	 * Returns the little endian character that ends with the current byte,
+	 * or -1 if it is not printable.
+	 */
+	private int littleEndianChar(int b) {
+		// all bytes but the first of the character are zero
+		if (b != 0 || zeros < width - 2) {
+			return -1;
+		}
+		int first = (last >>> (8 * (width - 1))) & 0xFF;
+		return printable[first] ? first : -1;
+	}
+
+	/**
+	 * Ends the current sequence of printable characters, keeping it only if
+	 * it is long enough.
+	 */
+	private void endSequence(ContentHandler handler) throws SAXException {
+		if (sequenceLength >= minLength) {
+			output[tmpPos++] = '\n';
+			outPos = tmpPos;
+			if (tmpPos == output.length) {
+				flush(handler);
+			}
+		} else {
+			tmpPos = outPos;
+		}
+		sequenceLength = 0;
+	}
+
+	/**
+	 * Writes the strings that are known to be long enough to the handler,
+	 * and moves the rest of the current sequence to the start of the
+	 * output buffer.
+	 */
+	private void flush(ContentHandler handler) throws SAXException {
+		if (sequenceLength >= minLength) {
+			// the current sequence is long enough already
+			outPos = tmpPos;
+		}
+		if (outPos > 0) {
+			handler.characters(output, 0, outPos);
+			length += outPos;
+		}
+		System.arraycopy(output, outPos, output, 0, tmpPos - outPos);
+		tmpPos -= outPos;
+		outPos = 0;
+	}
+
+	private static boolean[] getCharMap(boolean eightBit) {
+		boolean[] map = new boolean[256];
+		map['\t'] = true;
+		for (int c = 0x20; c < 0x7F; c++) {
+			map[c] = true;
+		}
+		if (eightBit) {
+			for (int c = 0x80; c < 0x100; c++) {
+				map[c] = true;
+			}
+		}
+		return map;
+	}
+}
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -42,10 +43,14 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 /**
- * Parser that uses the "strings" (or strings-alternative) command to find the
- * printable strings in a object, or other binary, file
+ * Parser that finds the printable strings in a object, or other binary, file
  * (application/octet-stream). Useful as "best-effort" parser for files detected
- * as application/octet-stream.
+ * as application/octet-stream. By default the strings are found with the pure
+ * java {@link StringsExtractor}; the "strings" (or strings-alternative) command
+ * is run instead if {@link StringsConfig#setUseStringsCommand(boolean)} is set
+ * and the command is available. The output of the "file" command is only
+ * added to the metadata if {@link StringsConfig#setUseFileCommand(boolean)}
+ * is set.
  * 
  * @author gtotaro
  *
@@ -70,6 +75,11 @@ public class StringsParser extends AbstractParser {
 	 */
 	private static Map<String,Boolean[]> STRINGS_PRESENT = new HashMap<String, Boolean[]>();
 
+	/*
+	 * Command's pathname (String) -> is it present? (Boolean), for the "file" command.
+	 */
+	private static Map<String,Boolean> FILE_PRESENT = new ConcurrentHashMap<String, Boolean>();
+
 	@Override
 	public Set<MediaType> getSupportedTypes(ParseContext context) {
 		return SUPPORTED_TYPES;
@@ -82,26 +92,30 @@ public class StringsParser extends AbstractParser {
 		StringsConfig stringsConfig = context.get(StringsConfig.class, DEFAULT_STRINGS_CONFIG);
 		FileConfig fileConfig = context.get(FileConfig.class, DEFAULT_FILE_CONFIG);
 
-		if (!hasStrings(stringsConfig)) {
-			return;
-		}
+		boolean useStrings = stringsConfig.isUseStringsCommand()
+				&& hasStrings(stringsConfig);
 
 		TikaInputStream tis = TikaInputStream.get(stream);
-		File input = tis.getFile();
 
 		// Metadata
 		metadata.set("strings:min-len", "" + stringsConfig.getMinLength());
 		metadata.set("strings:encoding", stringsConfig.toString());
-		metadata.set("strings:file_output", doFile(input, fileConfig));
+		if (stringsConfig.isUseFileCommand() && hasFile(fileConfig)) {
+			metadata.set("strings:file_output", doFile(tis.getFile(), fileConfig));
+		}
 
-		int totalBytes = 0;
+		long totalBytes = 0;
 
 		// Content
 		XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
 
 		xhtml.startDocument();
 
-		totalBytes = doStrings(input, stringsConfig, xhtml);
+		if (useStrings) {
+			totalBytes = doStrings(tis.getFile(), stringsConfig, xhtml);
+		} else {
+			totalBytes = new StringsExtractor(stringsConfig).extract(tis, xhtml);
+		}
 
 		xhtml.endDocument();
 
@@ -160,10 +174,17 @@ public class StringsParser extends AbstractParser {
 	private boolean hasFile(FileConfig config) {
 		String fileProg = config.getFilePath() + getFileProg();
 
+		Boolean present = FILE_PRESENT.get(fileProg);
+		if (present != null) {
+			return present;
+		}
+
 		String[] checkCmd = { fileProg, "--version" };
 
 		boolean hasFile = ExternalParser.check(checkCmd);
 
+		FILE_PRESENT.put(fileProg, hasFile);
+
 		return hasFile;
 	}
 
@@ -296,10 +317,6 @@ public class StringsParser extends AbstractParser {
 	 *             if any I/O error occurs.
 	 */
 	private String doFile(File input, FileConfig config) throws IOException {
-		if (!hasFile(config)) {
-			return null;
-		}
-		
 		// Builds the command array
 		ArrayList<String> cmdList = new ArrayList<String>(3);
 		cmdList.add(config.getFilePath() + getFileProg());
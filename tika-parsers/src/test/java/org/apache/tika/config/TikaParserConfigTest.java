@@ -29,6 +29,7 @@ import java.util.List;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.CompositeParser;
 import org.apache.tika.parser.DefaultParser;
+import org.apache.tika.parser.LazyParser;
 import org.apache.tika.parser.EmptyParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
@@ -116,7 +117,7 @@ public class TikaParserConfigTest {
         
         boolean hasExec = false;
         for (Parser p : normParser.getParsers().values()) {
-            if (p instanceof ExecutableParser) {
+            if (ExecutableParser.class.isAssignableFrom(getParserClass(p))) {
                 hasExec = true;
                 break;
             }
@@ -129,7 +130,7 @@ public class TikaParserConfigTest {
         assertNotContained(ELF, confParser.getSupportedTypes(context));
         
         for (Parser p : confParser.getParsers().values()) {
-            if (p instanceof ExecutableParser)
+            if (ExecutableParser.class.isAssignableFrom(getParserClass(p)))
                 fail("Shouldn't have the Executable Parser from config");
         }
     }
@@ -145,7 +146,7 @@ public class TikaParserConfigTest {
 
         boolean hasXML = false;
         for (Parser p : parsers) {
-            if (p instanceof XMLParser) {
+            if (XMLParser.class.isAssignableFrom(getParserClass(p))) {
                 hasXML = true;
                 break;
             }
@@ -158,8 +159,19 @@ public class TikaParserConfigTest {
         parsers = cp.getAllComponentParsers();
 
         for (Parser p : parsers) {
-            if (p instanceof XMLParser)
-                fail("Custom config should not include an XMLParser (" + p.getClass() + ").");
+            if (XMLParser.class.isAssignableFrom(getParserClass(p)))
+                fail("Custom config should not include an XMLParser (" + getParserClass(p) + ").");
         }
     }
+
+    /**
+     * The DefaultParser only loads the parser class behind a LazyParser
+     * when it is used.
+     */
+    private static Class<?> getParserClass(Parser p) {
+        if (p instanceof LazyParser) {
+            return ((LazyParser) p).getParserClass();
+        }
+        return p.getClass();
+    }
 }
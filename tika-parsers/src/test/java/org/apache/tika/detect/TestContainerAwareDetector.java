@@ -17,6 +17,7 @@
 package org.apache.tika.detect;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -125,6 +126,35 @@ public class TestContainerAwareDetector {
         assertTypeByNameAndData("testEXCEL.xls", "notPDF.pdf",  "application/vnd.ms-excel");
         assertTypeByNameAndData("testEXCEL.xls", "notPNG.png",  "application/vnd.ms-excel");
     }
+
+    @Test
+    public void testDetectOLE2WithoutSpooling() throws Exception {
+        assertTypeWithoutSpooling("testEXCEL.xls", "application/vnd.ms-excel");
+        assertTypeWithoutSpooling("testWORD.doc", "application/msword");
+        assertTypeWithoutSpooling("testPPT.ppt", "application/vnd.ms-powerpoint");
+        assertTypeWithoutSpooling("test-outlook.msg", "application/vnd.ms-outlook");
+        assertTypeWithoutSpooling("testMSG_att_doc.msg", "application/vnd.ms-outlook");
+        assertTypeWithoutSpooling("testVISIO.vsd", "application/vnd.visio");
+        assertTypeWithoutSpooling("testWORKS.wps", "application/vnd.ms-works");
+        assertTypeWithoutSpooling("testPROJECT2007.mpp", "application/vnd.ms-project");
+        assertTypeWithoutSpooling("testQUATTRO.qpw", "application/x-quattro-pro");
+    }
+
+    private void assertTypeWithoutSpooling(String file, String type) throws Exception {
+        TikaInputStream stream = TikaInputStream.get(
+                TestContainerAwareDetector.class.getResourceAsStream(
+                        "/test-documents/" + file));
+        try {
+            assertEquals(MediaType.parse(type), detector.detect(stream, new Metadata()));
+            // the directory is read from the stream, not from a temporary file
+            assertFalse(stream.hasFile());
+            assertEquals(0, stream.getPosition());
+            // and the whole document is kept open for the parser
+            assertTrue(stream.getOpenContainer() instanceof NPOIFSFileSystem);
+        } finally {
+            stream.close();
+        }
+    }
     
     /**
      * There is no way to distinguish "proper" StarOffice files from templates.
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.external.CompositeExternalParser;
+import org.apache.tika.parser.jdbc.SQLite3Parser;
+import org.apache.tika.parser.microsoft.OfficeParser;
+import org.apache.tika.parser.ocr.TesseractOCRParser;
+import org.apache.tika.parser.pdf.PDFParser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.junit.Test;
+
+public class DefaultParserTest {
+
+    @Test
+    public void testIndexedTypesMatchParsers() throws Exception {
+        ParseContext context = new ParseContext();
+        int lazy = 0;
+        for (Parser parser : new DefaultParser().getAllComponentParsers()) {
+            if (parser instanceof LazyParser) {
+                LazyParser proxy = (LazyParser) parser;
+                Parser real = proxy.getParserClass().newInstance();
+                assertEquals(proxy.getParserClassName(),
+                        real.getSupportedTypes(context),
+                        proxy.getSupportedTypes(context));
+                lazy++;
+            }
+        }
+        assertTrue(lazy > 40);
+    }
+
+    @Test
+    public void testParsersAreLoadedWhenUsed() throws Exception {
+        DefaultParser parser = new DefaultParser();
+        Map<String, Parser> parsers = new HashMap<String, Parser>();
+        for (Parser component : parser.getAllComponentParsers()) {
+            String name = component instanceof LazyParser
+                    ? ((LazyParser) component).getParserClassName()
+                    : component.getClass().getName();
+            parsers.put(name, component);
+        }
+        LazyParser pdf = (LazyParser) parsers.get(PDFParser.class.getName());
+        LazyParser office = (LazyParser) parsers.get(OfficeParser.class.getName());
+        // the types of these depend on the installed commands, or on the
+        // class path, so they are not indexed
+        assertFalse(parsers.get(TesseractOCRParser.class.getName()) instanceof LazyParser);
+        assertFalse(parsers.get(CompositeExternalParser.class.getName()) instanceof LazyParser);
+        assertFalse(parsers.get(SQLite3Parser.class.getName()) instanceof LazyParser);
+
+        InputStream stream = DefaultParserTest.class.getResourceAsStream(
+                "/test-documents/testPDF.pdf");
+        try {
+            BodyContentHandler handler = new BodyContentHandler();
+            new AutoDetectParser(parser).parse(
+                    stream, handler, new Metadata(), new ParseContext());
+            assertTrue(handler.toString().contains("Apache Tika"));
+        } finally {
+            stream.close();
+        }
+        assertTrue(pdf.isLoaded());
+        assertFalse(office.isLoaded());
+    }
+}
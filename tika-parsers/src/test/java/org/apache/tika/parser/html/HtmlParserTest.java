@@ -1112,4 +1112,62 @@ public class HtmlParserTest {
         assertEquals("application/xhtml+xml; charset=ISO-8859-1", metadata.get(Metadata.CONTENT_TYPE));
 
     }
+
+    @Test
+    public void testByteOrderMarkAndXmlDeclarationEncoding() throws Exception {
+        //BOM wins over the meta tag
+        byte[] body = ("<html><head><meta charset=\"ISO-8859-1\" /></head>"
+                + "<body>caf\u00e9</body></html>").getBytes(IOUtils.UTF_8);
+        byte[] bom = new byte[body.length + 3];
+        bom[0] = (byte) 0xEF;
+        bom[1] = (byte) 0xBB;
+        bom[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, bom, 3, body.length);
+        Metadata metadata = new Metadata();
+        BodyContentHandler handler = new BodyContentHandler();
+        new HtmlParser().parse(
+                new ByteArrayInputStream(bom), handler, metadata, new ParseContext());
+        assertEquals("text/html; charset=UTF-8", metadata.get(Metadata.CONTENT_TYPE));
+        assertContains("caf\u00e9", handler.toString());
+
+        //XML declaration is used when there's no meta tag
+        String test = "<?xml version=\"1.0\" encoding='ISO-8859-15' ?>"
+                + "<html><head><title>title</title></head><body>\u20ac</body></html>";
+        metadata = new Metadata();
+        handler = new BodyContentHandler();
+        new HtmlParser().parse(
+                new ByteArrayInputStream(test.getBytes("ISO-8859-15")),
+                handler, metadata, new ParseContext());
+        assertEquals("text/html; charset=ISO-8859-15", metadata.get(Metadata.CONTENT_TYPE));
+        assertContains("\u20ac", handler.toString());
+
+        //meta tag wins over the XML declaration
+        test = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><html><head>"
+                + "<META HTTP-EQUIV=\"Content-Type\" CONTENT=\"text/html; charset=ISO-8859-15\">"
+                + "</head><body>body</body></html>";
+        metadata = new Metadata();
+        new HtmlParser().parse(
+                new ByteArrayInputStream(test.getBytes("ISO-8859-15")),
+                new BodyContentHandler(), metadata, new ParseContext());
+        assertEquals("text/html; charset=ISO-8859-15", metadata.get(Metadata.CONTENT_TYPE));
+    }
+
+    @Test
+    public void testReusedTagSoupParsers() throws Exception {
+        //the pooled parsers must not carry any state between documents
+        HtmlParser parser = new HtmlParser();
+        for (int i = 0; i < 3; i++) {
+            String test = "<html><head><title>title" + i + "</title></head>"
+                    + "<body><p>paragraph" + i + "<table><tr><td>cell";
+            Metadata metadata = new Metadata();
+            BodyContentHandler handler = new BodyContentHandler();
+            parser.parse(
+                    new ByteArrayInputStream(test.getBytes(IOUtils.UTF_8)),
+                    handler, metadata, new ParseContext());
+            assertEquals("title" + i, metadata.get(TikaCoreProperties.TITLE));
+            String content = handler.toString();
+            assertContains("paragraph" + i, content);
+            assertFalse(content.contains("paragraph" + (i - 1)));
+        }
+    }
 }
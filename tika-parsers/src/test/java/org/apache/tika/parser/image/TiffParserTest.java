@@ -17,12 +17,15 @@
 package org.apache.tika.parser.image;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
@@ -63,4 +66,55 @@ public class TiffParserTest {
         assertTrue("got " + subject, subject.contains("cat"));
         assertTrue("got " + subject, subject.contains("garden"));
     }
+
+    @Test
+    public void testMetadataFromStreamPrefix() throws Exception {
+        Metadata fromFile = parse(TikaInputStream.get(
+                getClass().getResource("/test-documents/testTIFF.tif")), new ParseContext());
+
+        // read into memory from a plain stream
+        Metadata fromStream = parse(getClass().getResourceAsStream(
+                "/test-documents/testTIFF.tif"), new ParseContext());
+        assertEquals(null, fromStream.get("File Name"));
+
+        // directories beyond the prefix make it fall back to a file
+        ImageMetadataConfig config = new ImageMetadataConfig();
+        config.setMaxPrefixLength(16);
+        ParseContext context = new ParseContext();
+        context.set(ImageMetadataConfig.class, config);
+        Metadata fromSpooledFile = parse(getClass().getResourceAsStream(
+                "/test-documents/testTIFF.tif"), context);
+        assertEquals("25584 bytes", fromSpooledFile.get("File Size"));
+
+        // tags about the (temporary) file the image was read from
+        for (Metadata m : new Metadata[]{fromFile, fromSpooledFile}) {
+            m.remove("File Name");
+            m.remove("File Size");
+            m.remove("File Modified Date");
+        }
+        assertEquals(fromFile, fromStream);
+        assertEquals(fromFile, fromSpooledFile);
+
+        byte[] prefix;
+        InputStream stream = getClass().getResourceAsStream("/test-documents/testTIFF.tif");
+        try {
+            prefix = Arrays.copyOf(IOUtils.toByteArray(stream), 16);
+        } finally {
+            stream.close();
+        }
+        Metadata metadata = new Metadata();
+        assertFalse(new ImageMetadataExtractor(metadata).parseTiff(prefix, false));
+        assertEquals(0, metadata.size());
+    }
+
+    private Metadata parse(InputStream stream, ParseContext context) throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "image/tiff");
+        try {
+            parser.parse(stream, new DefaultHandler(), metadata, context);
+        } finally {
+            stream.close();
+        }
+        return metadata;
+    }
 }
@@ -213,6 +213,40 @@ public class SQLite3ParserTest extends TikaTest {
         assertContains("PNG", strings[3]);
     }
 
+    @Test
+    public void testDBParserConfig() throws Exception {
+        Parser p = new AutoDetectParser();
+        DBParserConfig config = new DBParserConfig();
+        config.setMaxRowsPerTable(1);
+        config.setMaxBlobSize(10);
+        config.setExcludeTables("my_table2");
+        config.setFetchSize(100);
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, p);
+        context.set(DBParserConfig.class, config);
+
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.RESOURCE_NAME_KEY, TEST_FILE_NAME);
+        ContentHandler handler = new ToXMLContentHandler();
+        InputStream is = getResourceAsStream(TEST_FILE1);
+        try {
+            p.parse(is, handler, metadata, context);
+        } finally {
+            is.close();
+        }
+        String xml = handler.toString();
+        assertContains("<table name=\"my_table1\">", xml);
+        assertNotContained("my_table2", xml);
+        assertEquals(1, metadata.getValues(Database.TABLE_NAME).length);
+        //only the first row
+        assertContains("row_number=\"0\"", xml);
+        assertNotContained("row_number=\"1\"", xml);
+        //the blob is too big to be parsed
+        assertContains("<span type=\"blob\" column_name=\"BYTES_COL\" row_number=\"0\" length=\"", xml);
+        assertNotContained("The quick brown fox", xml);
+        assertNotContained("BYTES_COL_0.doc", xml);
+    }
+
     //This confirms that reading the stream twice is not
     //quadrupling the number of attachments.
     @Test
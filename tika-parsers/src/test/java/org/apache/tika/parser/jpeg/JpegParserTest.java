@@ -24,11 +24,13 @@ import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TIFF;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.image.ImageMetadataConfig;
 import org.junit.Test;
 import org.xml.sax.helpers.DefaultHandler;
 
@@ -247,4 +249,46 @@ public class JpegParserTest {
         assertEquals("300.0", metadata.get(TIFF.RESOLUTION_HORIZONTAL));
         assertEquals("300.0", metadata.get(TIFF.RESOLUTION_VERTICAL));
     }
+
+    @Test
+    public void testMetadataFromStreamSegments() throws Exception {
+        String[] files = {
+                "testJPEG_EXIF.jpg", "testJPEG_GEO.jpg", "testJPEG_commented.jpg",
+                "testJPEG_commented_pspcs2mac.jpg", "testJPEG_oddTagComponent.jpg"
+        };
+        ImageMetadataConfig tiny = new ImageMetadataConfig();
+        tiny.setMaxPrefixLength(100);
+        ParseContext fallback = new ParseContext();
+        fallback.set(ImageMetadataConfig.class, tiny);
+
+        for (String file : files) {
+            String path = "/test-documents/" + file;
+            Metadata fromFile = parse(
+                    TikaInputStream.get(getClass().getResource(path)), new ParseContext());
+            // only the marker segments are read from a plain stream
+            Metadata fromStream = parse(getClass().getResourceAsStream(path), new ParseContext());
+            // segments beyond the limit make it fall back to a file
+            Metadata fromSpooledFile = parse(getClass().getResourceAsStream(path), fallback);
+
+            // tags about the (temporary) file the image was read from
+            for (Metadata m : new Metadata[]{fromFile, fromSpooledFile}) {
+                m.remove("File Name");
+                m.remove("File Size");
+                m.remove("File Modified Date");
+            }
+            assertEquals(file, fromFile, fromStream);
+            assertEquals(file, fromFile, fromSpooledFile);
+        }
+    }
+
+    private Metadata parse(InputStream stream, ParseContext context) throws Exception {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "image/jpeg");
+        try {
+            parser.parse(stream, new DefaultHandler(), metadata, context);
+        } finally {
+            stream.close();
+        }
+        return metadata;
+    }
 }
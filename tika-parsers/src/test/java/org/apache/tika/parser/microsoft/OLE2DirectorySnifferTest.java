@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.poi.poifs.filesystem.Entry;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.tika.io.IOUtils;
+import org.junit.Test;
+
+public class OLE2DirectorySnifferTest {
+
+    private static final String[] DOCUMENTS = {
+        "testWORD.doc", "testEXCEL.xls", "testPPT.ppt", "testVISIO.vsd",
+        "testPUBLISHER.pub", "test-outlook.msg", "testMSG_att_doc.msg",
+        "testWORKS.wps", "testPROJECT2007.mpp", "testCOREL.shw",
+        "testEXCEL_embeded.xls"
+    };
+
+    @Test
+    public void testSameNamesAsPOI() throws Exception {
+        for (String document : DOCUMENTS) {
+            byte[] data = getBytes(document);
+            Set<String> expected = new HashSet<String>();
+            NPOIFSFileSystem fs = new NPOIFSFileSystem(new ByteArrayInputStream(data));
+            try {
+                for (Entry entry : fs.getRoot()) {
+                    expected.add(entry.getName());
+                }
+            } finally {
+                fs.close();
+            }
+
+            OLE2DirectorySniffer sniffer = new OLE2DirectorySniffer(
+                    new ByteArrayInputStream(data), null, data.length);
+            assertEquals(document, expected, sniffer.getTopLevelNames());
+        }
+    }
+
+    @Test
+    public void testPrefix() throws Exception {
+        byte[] data = getBytes("testWORD.doc");
+        InputStream stream = new ByteArrayInputStream(data);
+        byte[] prefix = Arrays.copyOf(data, 8);
+        OLE2DirectorySniffer sniffer =
+                new OLE2DirectorySniffer(stream, prefix, 1024 * 1024);
+        assertTrue(sniffer.getTopLevelNames().contains("WordDocument"));
+        // the prefix is copied, not written to
+        assertTrue(Arrays.equals(Arrays.copyOf(data, 8), prefix));
+
+        assertTrue(sniffer.readAll());
+        assertEquals(data.length, sniffer.getLength());
+        assertTrue(Arrays.equals(
+                data, Arrays.copyOf(sniffer.getData(), sniffer.getLength())));
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        byte[] data = getBytes("testWORD.doc");
+        OLE2DirectorySniffer sniffer = new OLE2DirectorySniffer(
+                new ByteArrayInputStream(data), null, 1024);
+        assertNull(sniffer.getTopLevelNames());
+        assertFalse(sniffer.readAll());
+        assertEquals(1024, sniffer.getLength());
+
+        // not an OLE2 document
+        sniffer = new OLE2DirectorySniffer(
+                new ByteArrayInputStream(new byte[600]), null, 1024);
+        assertNull(sniffer.getTopLevelNames());
+    }
+
+    private static byte[] getBytes(String document) throws Exception {
+        InputStream stream = OLE2DirectorySnifferTest.class.getResourceAsStream(
+                "/test-documents/" + document);
+        try {
+            return IOUtils.toByteArray(stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -21,11 +21,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.tika.TikaTest;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.io.IOUtils;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.Office;
 import org.apache.tika.metadata.OfficeOpenXMLCore;
@@ -36,6 +40,7 @@ import org.apache.tika.sax.BodyContentHandler;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 public class WordParserTest extends TikaTest {
 
@@ -497,5 +502,68 @@ public class WordParserTest extends TikaTest {
         assertContains(">01..1 01..1", xml);
         assertContains(">02 02", xml);
     }
-}
 
+    @Test
+    public void testStreamingWordExtractor() throws Exception {
+        ParseContext context = new ParseContext();
+        OfficeParserConfig config = new OfficeParserConfig();
+        config.setUseStreamingWordExtractor(true);
+        context.set(OfficeParserConfig.class, config);
+
+        // Same plain text for documents without list numbering
+        for (String file : new String[] {
+                "testWORD.doc", "testWORD_embeded.doc", "testDocumentLink.doc",
+                "testWORD_header_hyperlink.doc", "testWORD_tabular_symbol.doc"}) {
+            String expected = getText(getResourceAsStream("/test-documents/" + file),
+                    new OfficeParser());
+            String actual = getText(getResourceAsStream("/test-documents/" + file),
+                    new OfficeParser(), context);
+            assertEquals(file, expected.replaceAll("\\s+", " ").trim(),
+                    actual.replaceAll("\\s+", " ").trim());
+        }
+
+        String content = getText(getResourceAsStream("/test-documents/testWORD_various.doc"),
+                new OfficeParser(), context);
+        assertContains("Footnote appears here", content);
+        assertContains("This is a footnote.", content);
+        assertContains("This is the header text.", content);
+        assertContains("This is the footer text.", content);
+        assertContains("Here is a text box", content);
+        assertContains("Row 1 Col 1 Row 1 Col 2 Row 1 Col 3 Row 2 Col 1 Row 2 Col 2 Row 2 Col 3",
+                content.replaceAll("\\s+", " "));
+        assertContains("This is a hyperlink", content);
+        assertContains("\uff08\uff27\uff28\uff31\uff09", content);
+        assertContains("\uD800\uDF32\uD800\uDF3f\uD800\uDF44\uD800\uDF39\uD800\uDF43\uD800\uDF3A", content);
+    }
+
+    @Test
+    public void testStreamingWordExtractorPictures() throws Exception {
+        ParseContext context = new ParseContext();
+        OfficeParserConfig config = new OfficeParserConfig();
+        config.setUseStreamingWordExtractor(true);
+        context.set(OfficeParserConfig.class, config);
+
+        final List<String> names = new ArrayList<String>();
+        final List<byte[]> pictures = new ArrayList<byte[]>();
+        context.set(EmbeddedDocumentExtractor.class, new EmbeddedDocumentExtractor() {
+            public boolean shouldParseEmbedded(Metadata metadata) {
+                return true;
+            }
+
+            public void parseEmbedded(InputStream stream, ContentHandler handler,
+                    Metadata metadata, boolean outputHtml) throws SAXException, java.io.IOException {
+                names.add(metadata.get(Metadata.RESOURCE_NAME_KEY));
+                pictures.add(IOUtils.toByteArray(stream));
+            }
+        });
+
+        String xml = getText(getResourceAsStream("/test-documents/testWORD_3imgs.doc"),
+                new OfficeParser(), context);
+        assertEquals(3, pictures.size());
+        assertEquals("image1", names.get(0));
+        // PNG, JPEG, PNG
+        assertEquals((byte) 0x89, pictures.get(0)[0]);
+        assertEquals((byte) 0xFF, pictures.get(1)[0]);
+        assertEquals((byte) 0x89, pictures.get(2)[0]);
+    }
+}
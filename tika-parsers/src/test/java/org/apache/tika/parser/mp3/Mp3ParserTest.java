@@ -22,6 +22,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.metadata.XMPDM;
@@ -445,4 +446,44 @@ public class Mp3ParserTest {
        assertEquals("audio/mpeg", metadata.get(Metadata.CONTENT_TYPE));
        assertEquals("", metadata.get(XMPDM.GENRE));
     }
+
+    /**
+     * The fast duration mode should give the same duration and tags as
+     *  a full scan of all the audio frames.
+     */
+    @Test
+    public void testFastDuration() throws Exception {
+       String[] files = {
+               "testMP3id3v1.mp3", "testMP3id3v2.mp3", "testMP3id3v1_v2.mp3",
+               "testMP3id3v24.mp3", "testMP3lyrics.mp3", "testMP3noid3.mp3"
+       };
+       Mp3ParserConfig config = new Mp3ParserConfig();
+       config.setFastDuration(true);
+
+       for (String file : files) {
+          Metadata full = parseFromFile(file, new ParseContext());
+          ParseContext context = new ParseContext();
+          context.set(Mp3ParserConfig.class, config);
+          Metadata fast = parseFromFile(file, context);
+
+          assertEquals(file,
+                  Math.round(Float.valueOf(full.get(XMPDM.DURATION)) / 100),
+                  Math.round(Float.valueOf(fast.get(XMPDM.DURATION)) / 100));
+          assertEquals(file, full.get(TikaCoreProperties.TITLE), fast.get(TikaCoreProperties.TITLE));
+          assertEquals(file, full.get(XMPDM.ALBUM), fast.get(XMPDM.ALBUM));
+          assertEquals(file, full.get(XMPDM.AUDIO_SAMPLE_RATE), fast.get(XMPDM.AUDIO_SAMPLE_RATE));
+       }
+    }
+
+    private static Metadata parseFromFile(String file, ParseContext context) throws Exception {
+       Metadata metadata = new Metadata();
+       TikaInputStream stream = TikaInputStream.get(
+               Mp3ParserTest.class.getResource("/test-documents/" + file));
+       try {
+           new Mp3Parser().parse(stream, new BodyContentHandler(), metadata, context);
+       } finally {
+           stream.close();
+       }
+       return metadata;
+    }
 }
@@ -30,6 +30,7 @@ import org.xml.sax.ContentHandler;
 
 import static org.apache.tika.TikaTest.assertContains;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Test cases to exercise the {@link NetCDFParser}.
@@ -73,4 +74,32 @@ public class NetCDFParserTest {
 
     }
 
+    @Test
+    public void testMaxAttributeBytes() throws Exception {
+        Parser parser = new NetCDFParser();
+        ContentHandler handler = new BodyContentHandler();
+        Metadata metadata = new Metadata();
+        NetCDFParserConfig config = new NetCDFParserConfig();
+        config.setMaxAttributeBytes(50);
+        ParseContext context = new ParseContext();
+        context.set(NetCDFParserConfig.class, config);
+
+        InputStream stream = NetCDFParser.class
+                .getResourceAsStream("/test-documents/sresa1b_ncar_ccsm3_0_run1_200001.nc");
+        try {
+            parser.parse(stream, handler, metadata, context);
+        } finally {
+            stream.close();
+        }
+
+        assertEquals("true", metadata.get(NetCDFMetadataReader.ATTRIBUTES_TRUNCATED));
+        assertNull(metadata.get(Metadata.EXPERIMENT_ID));
+        assertEquals("NetCDF-3/CDM", metadata.get("File-Type-Description"));
+
+        // Variable descriptors are still there, their attributes aren't
+        String content = handler.toString();
+        assertContains("float area(lat=128, lon=256)", content);
+        assertEquals(-1, content.indexOf("long_name = \"Surface area\""));
+    }
+
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.ocr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.tika.TikaTest;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OCRResultCacheTest extends TikaTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("tika-ocr-cache", "");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testKeys() throws Exception {
+        OCRResultCache cache = new OCRResultCache(10);
+        TesseractOCRConfig config = new TesseractOCRConfig();
+        File a = write("a.png", "image a");
+        File b = write("b.png", "image b");
+        File c = write("c.png", "image a");
+
+        assertEquals(cache.getKey(a, config), cache.getKey(c, config));
+        assertFalse(cache.getKey(a, config).equals(cache.getKey(b, config)));
+
+        TesseractOCRConfig french = new TesseractOCRConfig();
+        french.setLanguage("fra");
+        assertFalse(cache.getKey(a, config).equals(cache.getKey(a, french)));
+    }
+
+    @Test
+    public void testMemoryAndDisk() throws Exception {
+        OCRResultCache cache = new OCRResultCache(1, dir);
+        cache.put("k1", "text 1");
+        cache.put("k2", "text 2");
+
+        Metadata metadata = new Metadata();
+        assertEquals("text 2", cache.get("k2", metadata));
+        assertEquals("memory", metadata.get(OCRResultCache.OCR_CACHE));
+
+        // evicted from memory, but still on disk
+        metadata = new Metadata();
+        assertEquals("text 1", cache.get("k1", metadata));
+        assertEquals("disk", metadata.get(OCRResultCache.OCR_CACHE));
+
+        metadata = new Metadata();
+        assertNull(cache.get("k3", metadata));
+        assertEquals("miss", metadata.get(OCRResultCache.OCR_CACHE));
+        assertEquals("2", metadata.get(OCRResultCache.OCR_CACHE_HITS));
+        assertEquals("3", metadata.get(OCRResultCache.OCR_CACHE_LOOKUPS));
+
+        // a new cache on the same directory starts with the results on disk
+        OCRResultCache reopened = new OCRResultCache(10, dir);
+        assertEquals("text 2", reopened.get("k2", new Metadata()));
+        assertEquals(1, reopened.getHits());
+
+        // memory only
+        OCRResultCache memoryOnly = new OCRResultCache(1);
+        memoryOnly.put("k1", "text 1");
+        memoryOnly.put("k2", "text 2");
+        assertNull(memoryOnly.get("k1", new Metadata()));
+        assertEquals("text 2", memoryOnly.get("k2", new Metadata()));
+    }
+
+    @Test
+    public void testDiskLimit() throws Exception {
+        OCRResultCache cache = new OCRResultCache(1, dir, 100);
+        long used = System.currentTimeMillis() - 24 * 3600 * 1000;
+        for (int i = 0; i < 10; i++) {
+            // 20 bytes each
+            cache.put("k" + i, "text of the image " + i);
+            new File(dir, "k" + i + ".txt").setLastModified(used + i * 1000);
+            assertTrue(cache.getDiskBytes() <= 100);
+        }
+
+        // the least recently used results have been deleted
+        OCRResultCache reopened = new OCRResultCache(1, dir, 100);
+        assertEquals(cache.getDiskBytes(), reopened.getDiskBytes());
+        assertNull(reopened.get("k0", new Metadata()));
+        assertEquals("text of the image 9", reopened.get("k9", new Metadata()));
+    }
+
+    @Test
+    public void testParserConsultsCache() throws Exception {
+        assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+        assumeTrue(new File("/bin/sh").canExecute());
+        TesseractOCRPoolTest.createStub(dir);
+
+        TesseractOCRConfig config = new TesseractOCRConfig();
+        config.setTesseractPath(dir.getPath());
+        config.setMaxWorkers(1);
+        ParseContext context = new ParseContext();
+        context.set(TesseractOCRConfig.class, config);
+        context.set(OCRResultCache.class, new OCRResultCache(10));
+
+        try {
+            Metadata metadata = new Metadata();
+            assertTrue(parse(context, metadata).contains("text of "));
+            assertEquals("miss", metadata.get(OCRResultCache.OCR_CACHE));
+
+            metadata = new Metadata();
+            assertTrue(parse(context, metadata).contains("text of "));
+            assertEquals("memory", metadata.get(OCRResultCache.OCR_CACHE));
+            assertEquals("1", metadata.get(OCRResultCache.OCR_CACHE_HITS));
+        } finally {
+            TesseractOCRPool.getPool(config).close();
+        }
+    }
+
+    private String parse(ParseContext context, Metadata metadata) throws Exception {
+        BodyContentHandler handler = new BodyContentHandler();
+        InputStream stream = getResourceAsStream("/test-documents/testPNG.png");
+        try {
+            new TesseractOCRParser().parse(stream, handler, metadata, context);
+        } finally {
+            stream.close();
+        }
+        return handler.toString();
+    }
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(dir, name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(IOUtils.UTF_8));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
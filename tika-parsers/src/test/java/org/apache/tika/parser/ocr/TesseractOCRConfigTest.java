@@ -37,6 +37,9 @@ public class TesseractOCRConfigTest extends TikaTest {
         assertEquals("Invalid default minFileSizeToOcr value", 0, config.getMinFileSizeToOcr());
         assertEquals("Invalid default maxFileSizeToOcr value", Integer.MAX_VALUE, config.getMaxFileSizeToOcr());
         assertEquals("Invalid default timeout value", 120, config.getTimeout());
+        assertEquals("Invalid default maxWorkers value", 0, config.getMaxWorkers());
+        assertEquals("Invalid default batchSize value", 10, config.getBatchSize());
+        assertEquals("Invalid default batchWindow value", 50, config.getBatchWindow());
     }
 
     @Test
@@ -67,6 +70,9 @@ public class TesseractOCRConfigTest extends TikaTest {
         assertEquals("Invalid overridden minFileSizeToOcr value", 1, config.getMinFileSizeToOcr());
         assertEquals("Invalid overridden maxFileSizeToOcr value", 2000000, config.getMaxFileSizeToOcr());
         assertEquals("Invalid overridden timeout value", 240, config.getTimeout());
+        assertEquals("Invalid overridden maxWorkers value", 4, config.getMaxWorkers());
+        assertEquals("Invalid overridden batchSize value", 5, config.getBatchSize());
+        assertEquals("Invalid overridden batchWindow value", 100, config.getBatchWindow());
     }
 
     @Test(expected=IllegalArgumentException.class)
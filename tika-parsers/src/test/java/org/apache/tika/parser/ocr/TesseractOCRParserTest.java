@@ -29,6 +29,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.DefaultParser;
+import org.apache.tika.parser.LazyParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.RecursiveParserWrapper;
@@ -73,8 +74,10 @@ public class TesseractOCRParserTest extends TikaTest {
         // No types offered
         assertEquals(0, parser.getSupportedTypes(parseContext).size());
 
-        // And DefaultParser won't use us
-        assertEquals(ImageParser.class, defaultParser.getParsers(parseContext).get(png).getClass());
+        // And DefaultParser won't use us, but the (lazily loaded) ImageParser
+        Parser pngParser = defaultParser.getParsers(parseContext).get(png);
+        assertTrue(pngParser instanceof LazyParser);
+        assertEquals(ImageParser.class, ((LazyParser) pngParser).getParserClass());
     }
 
     /*
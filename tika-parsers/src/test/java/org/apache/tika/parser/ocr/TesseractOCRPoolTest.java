@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.ocr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.tika.TikaTest;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.BodyContentHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link TesseractOCRPool} with a shell script standing in for
+ * tesseract, which writes a line of text and a form feed for each page of
+ * the image to the output file, as tesseract does. Like tesseract, it takes
+ * a file that is not an image as a list of images, and it records the
+ * number of images of each list in the batches file next to it.
+ */
+public class TesseractOCRPoolTest extends TikaTest {
+
+    private static final String STUB =
+            "#!/bin/sh\n" +
+            "[ $# -lt 2 ] && exit 1\n" +
+            "ocr() {\n" +
+            "  name=$(basename \"$1\")\n" +
+            "  case \"$name\" in\n" +
+            "    *slow*) sleep 10;;\n" +
+            "    *blank*) ;;\n" +
+            "    *multipage*) printf 'page 1 of %s\\n\\fpage 2 of %s\\n\\f' \"$name\" \"$name\";;\n" +
+            "    *) printf 'text of %s\\n\\f' \"$name\";;\n" +
+            "  esac\n" +
+            "}\n" +
+            "if [ -f \"$(head -n 1 \"$1\")\" ]; then\n" +
+            "  wc -l < \"$1\" >> \"$(dirname \"$0\")/batches\"\n" +
+            "  while read -r image; do ocr \"$image\"; done < \"$1\" > \"$2.txt\"\n" +
+            "else\n" +
+            "  ocr \"$1\" > \"$2.txt\"\n" +
+            "fi\n";
+
+    // a little-endian TIFF header with two empty page directories
+    private static final byte[] TWO_PAGE_TIFF = {
+            'I', 'I', 42, 0, 8, 0, 0, 0,
+            0, 0, 14, 0, 0, 0,
+            0, 0, 0, 0, 0, 0 };
+
+    private File dir;
+
+    private File stub;
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+        assumeTrue(new File("/bin/sh").canExecute());
+
+        dir = File.createTempFile("tika-tesseract-stub", "");
+        dir.delete();
+        dir.mkdir();
+        stub = createStub(dir);
+    }
+
+    /**
+     * Writes the stand-in for tesseract to the given directory.
+     */
+    static File createStub(File dir) throws IOException {
+        File stub = new File(dir, "tesseract");
+        OutputStream out = new FileOutputStream(stub);
+        try {
+            out.write(STUB.getBytes(IOUtils.UTF_8));
+        } finally {
+            out.close();
+        }
+        stub.setExecutable(true);
+        return stub;
+    }
+
+    @After
+    public void tearDown() {
+        if (dir != null) {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Creates an image with the given name, which is a two page TIFF image
+     * if the name ends with .tif, and a single page image otherwise.
+     */
+    private File image(String name) throws IOException {
+        File image = new File(dir, name);
+        OutputStream out = new FileOutputStream(image);
+        try {
+            if (name.endsWith(".tif")) {
+                out.write(TWO_PAGE_TIFF);
+            } else {
+                out.write(new byte[] { (byte) 0x89, 'P', 'N', 'G' });
+            }
+        } finally {
+            out.close();
+        }
+        return image;
+    }
+
+    /**
+     * Runs OCR on the given images at the same time, from a thread each,
+     * and returns their text, or the exception they failed with.
+     */
+    private List<Object> ocrAll(
+            final TesseractOCRPool pool, final long timeout, String... names)
+            throws Exception {
+        final List<Object> results = new ArrayList<Object>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < names.length; i++) {
+            final File image = image(names[i]);
+            final int index = i;
+            results.add(null);
+            threads.add(new Thread() {
+                public void run() {
+                    Object result;
+                    try {
+                        result = pool.ocr(image, timeout);
+                    } catch (Exception e) {
+                        result = e;
+                    }
+                    synchronized (results) {
+                        results.set(index, result);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return results;
+    }
+
+    /**
+     * @return number of images of each list given to the stub
+     */
+    private List<Integer> getBatches() throws IOException {
+        List<Integer> batches = new ArrayList<Integer>();
+        File file = new File(dir, "batches");
+        if (file.exists()) {
+            InputStream stream = new FileInputStream(file);
+            try {
+                for (String line : IOUtils.readLines(stream, IOUtils.UTF_8.name())) {
+                    batches.add(Integer.valueOf(line.trim()));
+                }
+            } finally {
+                stream.close();
+            }
+        }
+        return batches;
+    }
+
+    @Test
+    public void testImagesFromManyThreads() throws Exception {
+        final TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 2, 4, 10);
+        final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int t = 0; t < 6; t++) {
+                final int thread = t;
+                for (int i = 0; i < 10; i++) {
+                    image("image-" + thread + "-" + i + ".png");
+                }
+                threads.add(new Thread() {
+                    public void run() {
+                        for (int i = 0; i < 10; i++) {
+                            String name = "image-" + thread + "-" + i + ".png";
+                            try {
+                                String text = pool.ocr(new File(dir, name), 10000);
+                                if (!text.equals("text of " + name + "\n\f")) {
+                                    errors.add(text);
+                                }
+                                if (pool.getWorkerCount() > 2) {
+                                    errors.add("Too many processes: " + pool.getWorkerCount());
+                                }
+                            } catch (Exception e) {
+                                errors.add(e.toString());
+                            }
+                        }
+                    }
+                });
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(Collections.emptyList(), errors);
+            assertEquals(0, pool.getWorkerCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testMultiPageImage() throws Exception {
+        TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 1);
+        try {
+            assertEquals("page 1 of multipage.tif\n\fpage 2 of multipage.tif\n\f",
+                    pool.ocr(image("multipage.tif"), 10000));
+            // the next image only gets its own text
+            assertEquals("text of next.png\n\f", pool.ocr(image("next.png"), 10000));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 1);
+        try {
+            try {
+                pool.ocr(image("slow.png"), 200);
+                fail("should have timed out");
+            } catch (TikaException e) {
+                assertTrue(e.getMessage().contains("timeout"));
+            }
+            assertEquals(0, pool.getWorkerCount());
+
+            // the next image gets the free process
+            assertEquals("text of fast.png\n\f", pool.ocr(image("fast.png"), 10000));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testBatch() throws Exception {
+        TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 1, 10, 500);
+        try {
+            List<Object> results = ocrAll(
+                    pool, 10000, "a.png", "multipage.tif", "b.png", "c.png");
+            assertEquals(Arrays.<Object>asList(
+                    "text of a.png\n\f",
+                    "page 1 of multipage.tif\n\fpage 2 of multipage.tif\n\f",
+                    "text of b.png\n\f",
+                    "text of c.png\n\f"), results);
+            // the images queued within the window share a process
+            List<Integer> batches = getBatches();
+            assertTrue(batches.toString(), Collections.max(batches) > 1);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testBatchTextMismatch() throws Exception {
+        TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 1, 10, 500);
+        try {
+            // no form feed for the blank image, so each image is run again
+            List<Object> results = ocrAll(pool, 10000, "blank.png", "other.png");
+            assertEquals(Arrays.<Object>asList("", "text of other.png\n\f"), results);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testBatchTimeout() throws Exception {
+        TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 1, 10, 500);
+        try {
+            // the batch times out, and then only the slow image on its own
+            List<Object> results = ocrAll(pool, 1000, "first.png", "slow.png", "last.png");
+            assertEquals("text of first.png\n\f", results.get(0));
+            assertTrue(results.get(1) instanceof TikaException);
+            assertEquals("text of last.png\n\f", results.get(2));
+            assertEquals(0, pool.getWorkerCount());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        assertEquals(Arrays.asList("a\n\f", "b\n\fc\n\f", "d\n\f"), Arrays.asList(
+                TesseractOCRPool.split("a\n\fb\n\fc\n\fd\n\f\n", new int[] { 1, 2, 1 })));
+        // missing and extra pages
+        assertNull(TesseractOCRPool.split("a\n\fb\n\f", new int[] { 1, 2 }));
+        assertNull(TesseractOCRPool.split("a\n\fb\n\fc\n\f", new int[] { 1, 1 }));
+    }
+
+    @Test
+    public void testCountPages() throws Exception {
+        assertEquals(2, TesseractOCRPool.countPages(image("multipage.tif")));
+        assertEquals(1, TesseractOCRPool.countPages(image("image.png")));
+        assertEquals(-1, TesseractOCRPool.countPages(new File(dir, "missing.png")));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final TesseractOCRPool pool = new TesseractOCRPool(
+                new String[]{stub.getPath()}, Collections.<String, String>emptyMap(), 1);
+        final File slow = image("slow.png");
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        Thread thread = new Thread() {
+            public void run() {
+                try {
+                    pool.ocr(slow, 60000);
+                } catch (Exception e) {
+                    errors.add(e);
+                }
+            }
+        };
+        thread.start();
+        long timeout = System.currentTimeMillis() + 10000;
+        while (pool.getWorkerCount() == 0) {
+            assertTrue(System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+
+        // the running process is killed
+        pool.close();
+        thread.join(5000);
+        assertTrue(!thread.isAlive());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof TikaException);
+        assertEquals(0, pool.getWorkerCount());
+        try {
+            pool.ocr(image("fast.png"), 10000);
+            fail("The pool is closed");
+        } catch (TikaException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testParserUsesPool() throws Exception {
+        TesseractOCRConfig config = new TesseractOCRConfig();
+        config.setTesseractPath(dir.getPath());
+        config.setMaxWorkers(1);
+        ParseContext context = new ParseContext();
+        context.set(TesseractOCRConfig.class, config);
+
+        BodyContentHandler handler = new BodyContentHandler();
+        InputStream stream = getResourceAsStream("/test-documents/testPNG.png");
+        try {
+            new TesseractOCRParser().parse(stream, handler, new Metadata(), context);
+        } finally {
+            stream.close();
+        }
+        assertTrue(handler.toString().contains("text of "));
+        TesseractOCRPool.getPool(config).close();
+    }
+}
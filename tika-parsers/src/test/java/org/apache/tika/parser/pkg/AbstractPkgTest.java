@@ -31,6 +31,7 @@ import org.apache.tika.parser.AbstractParser;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.ToXMLContentHandler;
 import org.junit.Before;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
@@ -56,6 +57,31 @@ public abstract class AbstractPkgTest extends TikaTest {
       recursingContext.set(Parser.class, autoDetectParser);
    }
 
+   /**
+    * Parses a test document with the given package parser configuration,
+    * recursing into the entries, and returns the XHTML output.
+    */
+   protected String getXML(String name, PackageParserConfig config) throws Exception {
+      ParseContext context = new ParseContext();
+      context.set(PackageParserConfig.class, config);
+      return getXML(name, context);
+   }
+
+   /**
+    * Parses a test document with the given context, recursing into the
+    * entries, and returns the XHTML output.
+    */
+   protected String getXML(String name, ParseContext context) throws Exception {
+      context.set(Parser.class, autoDetectParser);
+      ContentHandler handler = new ToXMLContentHandler();
+      InputStream stream = getResourceAsStream("/test-documents/" + name);
+      try {
+         autoDetectParser.parse(stream, handler, new Metadata(), context);
+      } finally {
+         stream.close();
+      }
+      return handler.toString();
+   }
 
    @SuppressWarnings("serial")
    protected static class EmbeddedTrackingParser extends AbstractParser {
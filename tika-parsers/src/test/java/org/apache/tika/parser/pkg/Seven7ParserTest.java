@@ -234,4 +234,17 @@ public class Seven7ParserTest extends AbstractPkgTest {
     private static boolean isStrongCryptoAvailable() throws NoSuchAlgorithmException {
         return Cipher.getMaxAllowedKeyLength("AES/ECB/PKCS5Padding") >= 256;
     }
+
+    @Test
+    public void testParallelParsing() throws Exception {
+        String expected = getXML("test-documents.7z", new PackageParserConfig());
+
+        PackageParserConfig config = new PackageParserConfig();
+        config.setMaxThreads(4);
+        assertEquals(expected, getXML("test-documents.7z", config));
+
+        // entries larger than the budget are parsed in the calling thread
+        config.setMaxBytesInFlight(10000);
+        assertEquals(expected, getXML("test-documents.7z", config));
+    }
 }
@@ -17,13 +17,17 @@
 package org.apache.tika.parser.pkg;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
@@ -210,4 +214,64 @@ public class ZipParserTest extends AbstractPkgTest {
                 tracker.filenames.get(0));
     }
 
+    @Test
+    public void testParallelParsing() throws Exception {
+        String expected = getXML("test-documents.zip", new PackageParserConfig());
+
+        PackageParserConfig config = new PackageParserConfig();
+        config.setMaxThreads(4);
+        assertEquals(expected, getXML("test-documents.zip", config));
+
+        // entries larger than the budget are parsed in the calling thread
+        config.setMaxBytesInFlight(10000);
+        assertEquals(expected, getXML("test-documents.zip", config));
+    }
+
+    @Test
+    public void testParallelParsingTruncated() throws Exception {
+        // test-documents.zip cut before its central directory
+        String expected = getXML(
+                "test-documents-truncated.zip", new PackageParserConfig());
+        assertContains("testEXCEL.xls", expected);
+        assertContains("Sample Excel Worksheet", expected);
+
+        PackageParserConfig config = new PackageParserConfig();
+        config.setMaxThreads(4);
+        assertEquals(expected, getXML("test-documents-truncated.zip", config));
+    }
+
+    @Test
+    public void testParallelParsingNested() throws Exception {
+        String expected = getXML("test-zip-of-zip.zip", new PackageParserConfig());
+
+        PackageParserConfig config = new PackageParserConfig();
+        config.setMaxThreads(4);
+        assertEquals(expected, getXML("test-zip-of-zip.zip", config));
+
+        // nested archives parsed in the calling thread share the pool
+        config.setMaxBytesInFlight(100);
+        assertEquals(expected, getXML("test-zip-of-zip.zip", config));
+    }
+
+    @Test
+    public void testParallelParsingSharedExecutor() throws Exception {
+        String expected = getXML("test-documents.zip", new PackageParserConfig());
+
+        PackageParserConfig config = new PackageParserConfig();
+        config.setMaxThreads(4);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2; i++) {
+                ParseContext context = new ParseContext();
+                context.set(PackageParserConfig.class, config);
+                context.set(ExecutorService.class, executor);
+                assertEquals(expected, getXML("test-documents.zip", context));
+                // the executor belongs to the caller
+                assertFalse(executor.isShutdown());
+                assertSame(executor, context.get(ExecutorService.class));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
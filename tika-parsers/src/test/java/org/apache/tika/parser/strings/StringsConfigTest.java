@@ -29,6 +29,8 @@ public class StringsConfigTest {
 		assertEquals("Invalid default encoding value", StringsEncoding.SINGLE_7_BIT, config.getEncoding());
 		assertEquals("Invalid default min-len value", 4, config.getMinLength());
 		assertEquals("Invalid default timeout value", 120, config.getTimeout());
+		assertFalse("Invalid default useStringsCommand value", config.isUseStringsCommand());
+		assertFalse("Invalid default useFileCommand value", config.isUseFileCommand());
 	}
 	
 	@Test
@@ -51,6 +53,8 @@ public class StringsConfigTest {
 		assertEquals("Invalid overridden encoding value", StringsEncoding.BIGENDIAN_16_BIT, config.getEncoding());
 		assertEquals("Invalid overridden min-len value", 3, config.getMinLength());
 		assertEquals("Invalid overridden timeout value", 60, config.getTimeout());
+		assertTrue("Invalid overridden useStringsCommand value", config.isUseStringsCommand());
+		assertTrue("Invalid overridden useFileCommand value", config.isUseFileCommand());
 	}
 	
 	@Test(expected=IllegalArgumentException.class)
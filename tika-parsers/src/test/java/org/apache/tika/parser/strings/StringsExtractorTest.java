@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.strings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.sax.ToTextContentHandler;
+import org.junit.Test;
+
+public class StringsExtractorTest {
+
+	@Test
+	public void testSingleByte() throws Exception {
+		byte[] input = bytes("ab\u0000hello\tworld\u0001étésé\u0000xyz", "ISO-8859-1");
+		assertEquals("hello\tworld\n", extract(input, StringsEncoding.SINGLE_7_BIT, 4));
+		assertEquals("hello\tworld\nétésé\n",
+				extract(input, StringsEncoding.SINGLE_8_BIT, 4));
+		assertEquals("ab\nhello\tworld\nxyz\n", extract(input, StringsEncoding.SINGLE_7_BIT, 2));
+	}
+
+	@Test
+	public void testMultiByte() throws Exception {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		buffer.write(bytes("ascii text", "US-ASCII"));
+		buffer.write(1);
+		buffer.write(bytes("big endian", "UTF-16BE"));
+		buffer.write(new byte[] {1, 1});
+		buffer.write(bytes("little endian", "UTF-16LE"));
+		buffer.write(7);
+		// odd offset
+		buffer.write(bytes("odd", "UTF-16LE"));
+		buffer.write(bytes("é", "UTF-16LE"));
+		byte[] input = buffer.toByteArray();
+
+		// as with the strings command, most of the text in one byte order
+		// is also found at the next or previous offset in the other
+		assertEquals("ascii text\n", extract(input, StringsEncoding.SINGLE_7_BIT, 4));
+		assertEquals("big endian\nittle endian\n",
+				extract(input, StringsEncoding.BIGENDIAN_16_BIT, 4));
+		assertEquals("big endia\nlittle endian\nodd\n",
+				extract(input, StringsEncoding.LITTLEENDIAN_16_BIT, 3));
+
+		buffer = new ByteArrayOutputStream();
+		buffer.write(new byte[] {'x', 0, 0});
+		buffer.write(bytes("big", "UTF-32BE"));
+		buffer.write(new byte[] {0, 0, 1, 0});
+		buffer.write(bytes("little", "UTF-32LE"));
+		input = buffer.toByteArray();
+		assertEquals("big\nittle\n", extract(input, StringsEncoding.BIGENDIAN_32_BIT, 3));
+		assertEquals("little\n", extract(input, StringsEncoding.LITTLEENDIAN_32_BIT, 3));
+	}
+
+	@Test
+	public void testLongStrings() throws Exception {
+		// strings longer than the buffers, around their boundaries
+		StringBuilder expected = new StringBuilder();
+		String longest = null;
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		for (int length : new int[] {65535, 3, 65536, 65537, 200000, 5}) {
+			StringBuilder string = new StringBuilder();
+			for (int i = 0; i < length; i++) {
+				string.append((char) ('a' + i % 26));
+			}
+			buffer.write(bytes(string.toString(), "US-ASCII"));
+			buffer.write(0);
+			if (length >= 4) {
+				expected.append(string).append('\n');
+			}
+			if (length == 200000) {
+				longest = string.toString();
+			}
+		}
+		assertEquals(expected.toString(),
+				extract(buffer.toByteArray(), StringsEncoding.SINGLE_7_BIT, 4));
+
+		// a minimum length longer than the buffers
+		assertEquals(longest + "\n",
+				extract(buffer.toByteArray(), StringsEncoding.SINGLE_7_BIT, 100000));
+	}
+
+	@Test
+	public void testReuse() throws Exception {
+		StringsConfig config = new StringsConfig();
+		StringsExtractor extractor = new StringsExtractor(config);
+		for (String text : new String[] {"first", "second"}) {
+			ToTextContentHandler handler = new ToTextContentHandler();
+			long length = extractor.extract(
+					new ByteArrayInputStream(bytes("\u0000" + text + "\u0000ab", "US-ASCII")),
+					handler);
+			assertEquals(text + "\n", handler.toString());
+			assertEquals(text.length() + 1, length);
+		}
+	}
+
+	@Test
+	public void testSameAsStringsCommand() throws Exception {
+		assumeTrue(StringsParserTest.canRun());
+
+		// random bytes, with runs of printable single and multi byte text
+		Random random = new Random(42);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		String[] charsets = {"US-ASCII", "ISO-8859-1", "UTF-16BE", "UTF-16LE", "UTF-32BE", "UTF-32LE"};
+		while (buffer.size() < 1024 * 1024) {
+			byte[] noise = new byte[random.nextInt(64)];
+			random.nextBytes(noise);
+			buffer.write(noise);
+			StringBuilder text = new StringBuilder();
+			for (int i = random.nextInt(20); i > 0; i--) {
+				text.append((char) (random.nextInt(10) == 0 ? '\t' : 0x20 + random.nextInt(0xFF - 0x20)));
+			}
+			buffer.write(bytes(text.toString(), charsets[random.nextInt(charsets.length)]));
+		}
+		byte[] input = buffer.toByteArray();
+
+		File file = File.createTempFile("strings", ".bin");
+		try {
+			OutputStream out = new FileOutputStream(file);
+			try {
+				out.write(input);
+			} finally {
+				out.close();
+			}
+			for (StringsEncoding encoding : StringsEncoding.values()) {
+				// the command writes bytes above 127 as they are
+				String expected = run(file, encoding, 4);
+				assertEquals(encoding.toString(),
+						expected, extract(input, encoding, 4));
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private static String run(File file, StringsEncoding encoding, int minLength)
+			throws Exception {
+		StringsConfig config = new StringsConfig();
+		Process process = new ProcessBuilder(
+				config.getStringsPath() + StringsParser.getStringsProg(),
+				"-n", Integer.toString(minLength), "-e", "" + encoding.get(),
+				file.getPath()).start();
+		try {
+			process.getOutputStream().close();
+			InputStream out = process.getInputStream();
+			try {
+				return IOUtils.toString(out, "ISO-8859-1");
+			} finally {
+				out.close();
+			}
+		} finally {
+			process.waitFor();
+			process.getErrorStream().close();
+		}
+	}
+
+	private static String extract(byte[] input, StringsEncoding encoding, int minLength)
+			throws Exception {
+		StringsConfig config = new StringsConfig();
+		config.setEncoding(encoding);
+		config.setMinLength(minLength);
+		ToTextContentHandler handler = new ToTextContentHandler();
+		long length = new StringsExtractor(config).extract(
+				new ByteArrayInputStream(input), handler);
+		assertEquals(handler.toString().length(), length);
+		return handler.toString();
+	}
+
+	private static byte[] bytes(String string, String charset) throws Exception {
+		return string.getBytes(charset);
+	}
+}
@@ -38,15 +38,41 @@ public class StringsParserTest {
 
 	@Test
 	public void testParse() throws Exception {
+		// the pure java extractor needs no command
+		Metadata metadata = testParse(new StringsConfig());
+
+		// the file command is not run by default
+		assertNull(metadata.get("strings:file_output"));
+	}
+
+	@Test
+	public void testParseWithFileCommand() throws Exception {
+		FileConfig fileConfig = new FileConfig();
+		assumeTrue(ExternalParser.check(new String[] {
+				fileConfig.getFilePath() + StringsParser.getFileProg(), "--version"}));
+
+		StringsConfig stringsConfig = new StringsConfig();
+		stringsConfig.setUseFileCommand(true);
+		Metadata metadata = testParse(stringsConfig);
+		assertNotNull(metadata.get("strings:file_output"));
+	}
+
+	@Test
+	public void testParseWithStringsCommand() throws Exception {
 		assumeTrue(canRun());
-		
+
+		StringsConfig stringsConfig = new StringsConfig();
+		stringsConfig.setUseStringsCommand(true);
+		testParse(stringsConfig);
+	}
+
+	private Metadata testParse(StringsConfig stringsConfig) throws Exception {
 		String resource = "/test-documents/testOCTET_header.dbase3";
 
 		String[] content = { "CLASSNO", "TITLE", "ITEMNO", "LISTNO", "LISTDATE" };
 		
 		String[] met_attributes = {"min-len", "encoding", "strings:file_output"};
 
-		StringsConfig stringsConfig = new StringsConfig();
 		FileConfig fileConfig = new FileConfig();
 
 		Parser parser = new StringsParser();
@@ -74,5 +100,6 @@ public class StringsParserTest {
 		
 		// Metadata
 		Arrays.equals(met_attributes, metadata.names());
+		return metadata;
 	}
 }
@@ -18,6 +18,7 @@ package org.apache.tika.metadata.serialization;
  */
 
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 
@@ -32,6 +33,9 @@ public class JsonMetadata extends JsonMetadataBase{
     static {
         GSON = defaultInit();
     }
+    //the hand-written streaming writer and reader are used unless a custom Gson is set
+    private static boolean CUSTOM_GSON = false;
+    private static boolean PRETTY_PRINT = false;
     /**
      * Serializes a Metadata object to Json.  This does not flush or close the writer.
      * 
@@ -40,9 +44,17 @@ public class JsonMetadata extends JsonMetadataBase{
      * @throws TikaException if there is an IOException during writing
      */
     public static void toJson(Metadata metadata, Writer writer) throws TikaException {
+        if (CUSTOM_GSON) {
+            try {
+                GSON.toJson(metadata, writer);
+            } catch (JsonIOException e) {
+                throw new TikaException(e.getMessage());
+            }
+            return;
+        }
         try {
-            GSON.toJson(metadata, writer);
-        } catch (JsonIOException e) {
+            new JsonMetadataStreamWriter(writer, PRETTY_PRINT).write(metadata);
+        } catch (IOException e) {
             throw new TikaException(e.getMessage());
         }
     }
@@ -55,6 +67,9 @@ public class JsonMetadata extends JsonMetadataBase{
      * @throws TikaException in case of parse failure by Gson or IO failure with Reader
      */
     public static Metadata fromJson(Reader reader) throws TikaException {
+        if (!CUSTOM_GSON) {
+            return new JsonMetadataStreamReader(reader).readMetadata();
+        }
         Metadata m = null;
         try {
             m = GSON.fromJson(reader, Metadata.class);
@@ -74,9 +89,12 @@ public class JsonMetadata extends JsonMetadataBase{
      */
     public static void setGson(Gson gson) {
         GSON = gson;
+        CUSTOM_GSON = true;
     }
 
     public static void setPrettyPrinting(boolean prettyPrint) {
+        PRETTY_PRINT = prettyPrint;
+        CUSTOM_GSON = false;
         if (prettyPrint) {
             GSON = prettyInit();
         } else {
@@ -18,6 +18,7 @@ package org.apache.tika.metadata.serialization;
  */
 
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.reflect.Type;
@@ -36,6 +37,9 @@ public class JsonMetadataList extends JsonMetadataBase {
     static {
         GSON = defaultInit();
     }
+    //the hand-written streaming writer and reader are used unless a custom Gson is set
+    private static boolean CUSTOM_GSON = false;
+    private static boolean PRETTY_PRINT = false;
 
     /**
      * Serializes a Metadata object to Json.  This does not flush or close the writer.
@@ -45,9 +49,17 @@ public class JsonMetadataList extends JsonMetadataBase {
      * @throws org.apache.tika.exception.TikaException if there is an IOException during writing
      */
     public static void toJson(List<Metadata> metadataList, Writer writer) throws TikaException {
+        if (CUSTOM_GSON) {
+            try {
+                GSON.toJson(metadataList, writer);
+            } catch (JsonIOException e) {
+                throw new TikaException(e.getMessage());
+            }
+            return;
+        }
         try {
-            GSON.toJson(metadataList, writer);
-        } catch (JsonIOException e) {
+            new JsonMetadataStreamWriter(writer, PRETTY_PRINT).write(metadataList);
+        } catch (IOException e) {
             throw new TikaException(e.getMessage());
         }
     }
@@ -64,6 +76,9 @@ public class JsonMetadataList extends JsonMetadataBase {
         if (reader == null) {
             return ms;
         }
+        if (!CUSTOM_GSON) {
+            return new JsonMetadataStreamReader(reader).readMetadataList();
+        }
         try {
             ms = GSON.fromJson(reader, listType);
         } catch (com.google.gson.JsonParseException e){
@@ -82,9 +97,12 @@ public class JsonMetadataList extends JsonMetadataBase {
      */
     public static void setGson(Gson gson) {
         GSON = gson;
+        CUSTOM_GSON = true;
     }
 
     public static void setPrettyPrinting(boolean prettyPrint) {
+        PRETTY_PRINT = prettyPrint;
+        CUSTOM_GSON = false;
         if (prettyPrint) {
             GSON = prettyInit();
         } else {
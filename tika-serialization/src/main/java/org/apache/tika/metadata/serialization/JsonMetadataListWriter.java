@@ -0,0 +1,101 @@
+package org.apache.tika.metadata.serialization;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Writes a Json array of Metadata objects one at a time, so that a list
+ * can be sent as it is being built, without holding it in memory. The
+ * result can be read with {@link JsonMetadataList#fromJson(java.io.Reader)}.
+ * <p>
+ * Each Metadata object is flushed to the writer as soon as it has been
+ * written. Call {@link #close()} to end the array; this does not close the
+ * writer.
+ * <p>
+ * This class is not thread safe.
+ */
+public class JsonMetadataListWriter {
+
+    private final Writer writer;
+
+    private final JsonMetadataStreamWriter jsonWriter;
+
+    private boolean started = false;
+
+    private boolean closed = false;
+
+    /**
+     * @param writer writer to write the array to
+     */
+    public JsonMetadataListWriter(Writer writer) {
+        this.writer = writer;
+        this.jsonWriter = new JsonMetadataStreamWriter(writer, false);
+    }
+
+    /**
+     * Writes the next Metadata object of the array and flushes the writer.
+     *
+     * @param metadata metadata to write
+     * @throws TikaException if there is an IOException during writing
+     */
+    public void write(Metadata metadata) throws TikaException {
+        if (closed) {
+            throw new IllegalStateException("Array has already been closed");
+        }
+        try {
+            start();
+            jsonWriter.writeArrayElement(metadata);
+            writer.flush();
+        } catch (IOException e) {
+            throw new TikaException(e.getMessage());
+        }
+    }
+
+    /**
+     * Ends the array and flushes the writer, which is not closed.
+     * An empty array is written if no Metadata has been written.
+     *
+     * @throws TikaException if there is an IOException during writing
+     */
+    public void close() throws TikaException {
+        if (closed) {
+            return;
+        }
+        try {
+            start();
+            jsonWriter.endArray();
+            writer.flush();
+        } catch (IOException e) {
+            throw new TikaException(e.getMessage());
+        }
+        closed = true;
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            jsonWriter.beginArray();
+            started = true;
+        }
+    }
+}
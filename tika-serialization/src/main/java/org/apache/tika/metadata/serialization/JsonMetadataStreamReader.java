@@ -0,0 +1,170 @@
+package org.apache.tika.metadata.serialization;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Reads Metadata objects token by token with Gson's {@link JsonReader},
+ * without building a JsonElement tree first. This accepts the same input
+ * as the default Gson configuration of {@link JsonMetadata} and
+ * {@link JsonMetadataList}: string, number and boolean values are set,
+ * the values of arrays are added, and nested objects are ignored.
+ * <p>
+ * This does not close the reader.
+ */
+public class JsonMetadataStreamReader {
+
+    private final JsonReader jsonReader;
+
+    /**
+     * @param reader reader to read from
+     */
+    public JsonMetadataStreamReader(Reader reader) {
+        this.jsonReader = new JsonReader(reader);
+        //Gson's fromJson is lenient, too
+        jsonReader.setLenient(true);
+    }
+
+    /**
+     * Reads a single Metadata object.
+     *
+     * @return Metadata or null if the reader is empty or holds a Json null
+     * @throws TikaException in case of a parse failure or an IOException
+     */
+    public Metadata readMetadata() throws TikaException {
+        try {
+            if (isEmpty()) {
+                return null;
+            }
+            Metadata metadata = readMetadataOrNull();
+            assertFullyConsumed();
+            return metadata;
+        } catch (IOException e) {
+            throw new TikaException(e.getMessage());
+        } catch (IllegalStateException e) {
+            //thrown by the JsonReader for unexpected tokens
+            throw new TikaException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads an array of Metadata objects.
+     *
+     * @return list of Metadata or null if the reader is empty or holds a Json null
+     * @throws TikaException in case of a parse failure or an IOException
+     */
+    public List<Metadata> readMetadataList() throws TikaException {
+        try {
+            if (isEmpty()) {
+                return null;
+            }
+            List<Metadata> list = null;
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+            } else {
+                list = new ArrayList<Metadata>();
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    list.add(readMetadataOrNull());
+                }
+                jsonReader.endArray();
+            }
+            assertFullyConsumed();
+            return list;
+        } catch (IOException e) {
+            throw new TikaException(e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new TikaException(e.getMessage());
+        }
+    }
+
+    private boolean isEmpty() throws IOException {
+        try {
+            jsonReader.peek();
+            return false;
+        } catch (EOFException e) {
+            return true;
+        }
+    }
+
+    private void assertFullyConsumed() throws IOException {
+        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new MalformedJsonException("JSON document was not fully consumed.");
+        }
+    }
+
+    private Metadata readMetadataOrNull() throws IOException, TikaException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        Metadata metadata = new Metadata();
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            switch (jsonReader.peek()) {
+                case STRING:
+                case NUMBER:
+                    metadata.set(name, jsonReader.nextString());
+                    break;
+                case BOOLEAN:
+                    metadata.set(name, Boolean.toString(jsonReader.nextBoolean()));
+                    break;
+                case BEGIN_ARRAY:
+                    //as with a tree, a later duplicate name replaces the earlier one
+                    metadata.remove(name);
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        metadata.add(name, readArrayValue());
+                    }
+                    jsonReader.endArray();
+                    break;
+                default:
+                    //nulls and nested objects are ignored
+                    jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return metadata;
+    }
+
+    private String readArrayValue() throws IOException, TikaException {
+        switch (jsonReader.peek()) {
+            case STRING:
+            case NUMBER:
+                return jsonReader.nextString();
+            case BOOLEAN:
+                return Boolean.toString(jsonReader.nextBoolean());
+            default:
+                throw new TikaException("Expected a string, number or boolean value but was "
+                        + jsonReader.peek());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.apache.tika.metadata.serialization;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Writes Metadata objects straight to a Writer, without building Gson's
+ * JsonElement tree first. The output is byte for byte the same as
+ * that of the default Gson configuration of {@link JsonMetadata} and
+ * {@link JsonMetadataList}, including their pretty printing: names are
+ * sorted, single values are written as strings and multiple values as
+ * arrays, and the same characters are escaped.
+ * <p>
+ * This does not flush or close the writer. This class is not thread safe.
+ */
+public class JsonMetadataStreamWriter {
+
+    private static final String[] REPLACEMENT_CHARS = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            REPLACEMENT_CHARS[i] = String.format(Locale.ROOT, "\\u%04x", i);
+        }
+        REPLACEMENT_CHARS['"'] = "\\\"";
+        REPLACEMENT_CHARS['\\'] = "\\\\";
+        REPLACEMENT_CHARS['\t'] = "\\t";
+        REPLACEMENT_CHARS['\b'] = "\\b";
+        REPLACEMENT_CHARS['\n'] = "\\n";
+        REPLACEMENT_CHARS['\r'] = "\\r";
+        REPLACEMENT_CHARS['\f'] = "\\f";
+        // Gson escapes these by default, to be safe to embed in html
+        REPLACEMENT_CHARS['<'] = "\\u003c";
+        REPLACEMENT_CHARS['>'] = "\\u003e";
+        REPLACEMENT_CHARS['&'] = "\\u0026";
+        REPLACEMENT_CHARS['='] = "\\u003d";
+        REPLACEMENT_CHARS['\''] = "\\u0027";
+    }
+
+    private static final Comparator<String> PRETTY_COMPARATOR = new PrettyMetadataKeyComparator();
+
+    private final Writer writer;
+
+    private final boolean prettyPrint;
+
+    //state of the array written with beginArray/writeArrayElement/endArray
+    private boolean emptyArray;
+
+    /**
+     * @param writer writer to write to
+     * @param prettyPrint whether to indent the output, as Gson's pretty
+     *                    printing does
+     */
+    public JsonMetadataStreamWriter(Writer writer, boolean prettyPrint) {
+        this.writer = writer;
+        this.prettyPrint = prettyPrint;
+    }
+
+    /**
+     * Writes a single Metadata object, or "null".
+     */
+    public void write(Metadata metadata) throws IOException {
+        writeMetadata(metadata, 0);
+    }
+
+    /**
+     * Writes an array of Metadata objects, or "null".
+     */
+    public void write(List<Metadata> metadataList) throws IOException {
+        if (metadataList == null) {
+            writer.write("null");
+            return;
+        }
+        beginArray();
+        for (Metadata metadata : metadataList) {
+            writeArrayElement(metadata);
+        }
+        endArray();
+    }
+
+    /**
+     * Starts an array, to be followed by any number of calls to
+     * {@link #writeArrayElement(Metadata)} and then {@link #endArray()}.
+     */
+    public void beginArray() throws IOException {
+        writer.write('[');
+        emptyArray = true;
+    }
+
+    public void writeArrayElement(Metadata metadata) throws IOException {
+        if (!emptyArray) {
+            writer.write(',');
+        }
+        emptyArray = false;
+        newline(1);
+        writeMetadata(metadata, 1);
+    }
+
+    public void endArray() throws IOException {
+        if (!emptyArray) {
+            newline(0);
+        }
+        writer.write(']');
+    }
+
+    private void writeMetadata(Metadata metadata, int depth) throws IOException {
+        if (metadata == null) {
+            writer.write("null");
+            return;
+        }
+        String[] names = metadata.names();
+        if (prettyPrint) {
+            Arrays.sort(names, PRETTY_COMPARATOR);
+        } else {
+            Arrays.sort(names);
+        }
+
+        writer.write('{');
+        boolean empty = true;
+        for (String name : names) {
+            String[] values = metadata.getValues(name);
+            if (values == null || (values.length == 1 && values[0] == null)) {
+                //Gson skips null members
+                continue;
+            }
+            if (!empty) {
+                writer.write(',');
+            }
+            empty = false;
+            newline(depth + 1);
+            writeString(name);
+            writer.write(prettyPrint ? ": " : ":");
+            if (values.length == 1) {
+                writeString(values[0]);
+            } else {
+                writer.write('[');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    newline(depth + 2);
+                    writeString(values[i]);
+                }
+                if (values.length > 0) {
+                    newline(depth + 1);
+                }
+                writer.write(']');
+            }
+        }
+        if (!empty) {
+            newline(depth);
+        }
+        writer.write('}');
+    }
+
+    private void newline(int depth) throws IOException {
+        if (!prettyPrint) {
+            return;
+        }
+        writer.write('\n');
+        for (int i = 0; i < depth; i++) {
+            writer.write("  ");
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        int last = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENT_CHARS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            if (last < i) {
+                writer.write(value, last, i - last);
+            }
+            writer.write(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            writer.write(value, last, length - last);
+        }
+        writer.write('"');
+    }
+}
@@ -120,4 +120,35 @@ public class JsonMetadataListTest {
         JsonMetadataList.toJson(metadataList, writer);
         assertTrue(writer.toString().startsWith("[{\"tika:content\":\"this is the content\",\"zk1\":[\"v1\",\"v2\","));
     }
+
+    @Test
+    public void testListWriter() throws Exception {
+        Metadata m1 = new Metadata();
+        m1.add("k1", "v1");
+        m1.add("k1", "v2");
+        m1.add("k2", "v1 \"quoted\" <tag>");
+
+        Metadata m2 = new Metadata();
+        m2.add("k3", "v1");
+
+        List<Metadata> metadataList = new LinkedList<Metadata>();
+        metadataList.add(m1);
+        metadataList.add(m2);
+        StringWriter expected = new StringWriter();
+        JsonMetadataList.toJson(metadataList, expected);
+
+        StringWriter writer = new StringWriter();
+        JsonMetadataListWriter listWriter = new JsonMetadataListWriter(writer);
+        listWriter.write(m1);
+        //each item is written as soon as it is added
+        assertTrue(writer.toString().startsWith("[{"));
+        listWriter.write(m2);
+        listWriter.close();
+        assertEquals(expected.toString(), writer.toString());
+        assertEquals(metadataList, JsonMetadataList.fromJson(new StringReader(writer.toString())));
+
+        writer = new StringWriter();
+        new JsonMetadataListWriter(writer).close();
+        assertEquals("[]", writer.toString());
+    }
 }
@@ -0,0 +1,134 @@
+package org.apache.tika.metadata.serialization;
+
+/*
+* Licensed to the Apache Software Foundation (ASF) under one or more
+* contributor license agreements.  See the NOTICE file distributed with
+* this work for additional information regarding copyright ownership.
+* The ASF licenses this file to You under the Apache License, Version 2.0
+* (the "License"); you may not use this file except in compliance with
+* the License.  You may obtain a copy of the License at
+*
+*     http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class JsonMetadataStreamTest {
+
+    private static final Type LIST_TYPE = new TypeToken<List<Metadata>>(){}.getType();
+
+    @Test
+    public void testSameOutputAsGson() throws Exception {
+        List<Metadata> list = new ArrayList<Metadata>();
+        list.add(new Metadata());
+        Metadata metadata = new Metadata();
+        metadata.add("k1", "v1");
+        metadata.add("k1", "v2");
+        metadata.add("html", "<html><body>&amp;&nbsp;</body></html>");
+        metadata.add("json_escapes", "the: \"quick\" brown\\ fox's\t\r\n\b\f\u0000\u001f\u007f");
+        metadata.add("separators", "line\u2028paragraph\u2029");
+        metadata.add("alma_mater", "\u666E\u6797\u65AF\u987F\u5927\u5B66");
+        metadata.add("X-TIKA:content", "content");
+        metadata.add("Content-Type", "text/plain");
+        metadata.add("\"<name>\"", "");
+        list.add(metadata);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20; i++) {
+            Metadata m = new Metadata();
+            int names = random.nextInt(5);
+            for (int j = 0; j < names; j++) {
+                String name = randomString(random);
+                int values = 1 + random.nextInt(3);
+                for (int k = 0; k < values; k++) {
+                    m.add(name, randomString(random));
+                }
+            }
+            list.add(m);
+        }
+
+        for (boolean pretty : new boolean[]{false, true}) {
+            Gson gson = pretty ? JsonMetadataBase.prettyInit() : JsonMetadataBase.defaultInit();
+            for (Metadata m : list) {
+                StringWriter writer = new StringWriter();
+                new JsonMetadataStreamWriter(writer, pretty).write(m);
+                assertEquals(gson.toJson(m), writer.toString());
+                assertEquals(m, new JsonMetadataStreamReader(
+                        new StringReader(writer.toString())).readMetadata());
+            }
+            StringWriter writer = new StringWriter();
+            new JsonMetadataStreamWriter(writer, pretty).write(list);
+            assertEquals(gson.toJson(list, LIST_TYPE), writer.toString());
+            assertEquals(list, new JsonMetadataStreamReader(
+                    new StringReader(writer.toString())).readMetadataList());
+
+            writer = new StringWriter();
+            new JsonMetadataStreamWriter(writer, pretty).write(new ArrayList<Metadata>());
+            assertEquals(gson.toJson(new ArrayList<Metadata>(), LIST_TYPE), writer.toString());
+        }
+    }
+
+    @Test
+    public void testReader() throws Exception {
+        Metadata m = new JsonMetadataStreamReader(new StringReader(
+                "{\"a\":1.50,\"b\":true,\"c\":null,\"d\":{\"e\":\"f\"},\"g\":[\"h\",2]}")).readMetadata();
+        assertEquals(3, m.names().length);
+        assertEquals("1.50", m.get("a"));
+        assertEquals("true", m.get("b"));
+        assertEquals(2, m.getValues("g").length);
+        assertEquals("2", m.getValues("g")[1]);
+
+        assertNull(new JsonMetadataStreamReader(new StringReader("")).readMetadata());
+        assertNull(new JsonMetadataStreamReader(new StringReader("null")).readMetadataList());
+
+        try {
+            new JsonMetadataStreamReader(new StringReader("{\"a\":\"b\"} {")).readMetadata();
+            fail("trailing content should not be accepted");
+        } catch (TikaException e) {
+            //expected
+        }
+        try {
+            new JsonMetadataStreamReader(new StringReader("[{\"a\":")).readMetadataList();
+            fail("truncated input should not be accepted");
+        } catch (TikaException e) {
+            //expected
+        }
+    }
+
+    private static String randomString(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(20);
+        for (int i = 0; i < length; i++) {
+            int r = random.nextInt(4);
+            if (r == 0) {
+                sb.append((char) random.nextInt(0x80));
+            } else if (r == 1) {
+                sb.append((char) (0x2000 + random.nextInt(0x40)));
+            } else {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+}
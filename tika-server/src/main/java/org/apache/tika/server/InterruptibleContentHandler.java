@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.apache.tika.sax.ContentHandlerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Stops a parse once its thread has been interrupted, by throwing a
+ * {@link SAXException} from the next event the parser writes. Used by the
+ * {@link JobManager}, so that a cancelled job stops even when the parser
+ * does not check for interruption itself, and does not write its result
+ * until the end of the parse.
+ */
+public class InterruptibleContentHandler extends ContentHandlerDecorator {
+
+    public InterruptibleContentHandler(ContentHandler handler) {
+        super(handler);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String name,
+                             Attributes atts) throws SAXException {
+        checkInterrupted();
+        super.startElement(uri, localName, name, atts);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String name)
+            throws SAXException {
+        checkInterrupted();
+        super.endElement(uri, localName, name);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length)
+            throws SAXException {
+        checkInterrupted();
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length)
+            throws SAXException {
+        checkInterrupted();
+        super.ignorableWhitespace(ch, start, length);
+    }
+
+    private static void checkInterrupted() throws SAXException {
+        // the flag is kept, so that the parser also stops at its next
+        // interruptible operation
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SAXException("The parse was interrupted");
+        }
+    }
+
+    /**
+     * Wraps the content handlers of another factory.
+     */
+    public static class Factory implements ContentHandlerFactory {
+
+        private final ContentHandlerFactory factory;
+
+        public Factory(ContentHandlerFactory factory) {
+            this.factory = factory;
+        }
+
+        public ContentHandler getNewContentHandler() {
+            return new InterruptibleContentHandler(factory.getNewContentHandler());
+        }
+
+        public ContentHandler getNewContentHandler(OutputStream os, String encoding)
+                throws UnsupportedEncodingException {
+            return new InterruptibleContentHandler(
+                    factory.getNewContentHandler(os, encoding));
+        }
+    }
+}
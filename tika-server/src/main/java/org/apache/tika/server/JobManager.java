@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tika.io.IOUtils;
+
+/**
+ * Runs parses that may take longer than an HTTP request, as jobs that are
+ * submitted, polled and fetched by separate requests. The document of a
+ * job is spooled to a file in the job directory when it is submitted, and
+ * queued for a fixed pool of threads. At most the given number of jobs
+ * wait in the queue; further submissions are rejected. The result of a
+ * job is written to another file in the job directory, and kept for the
+ * given time after the job has finished, after which the job is
+ * forgotten and its files are deleted.
+ * <p>
+ * A job can be cancelled at any time. A queued job is then never run, and
+ * the thread of a running job is interrupted. The parse stops at the next
+ * write of its result, at the next content the parser writes to an
+ * {@link InterruptibleContentHandler}, or at the next interruptible
+ * operation of the parser, such as waiting for an external process.
+ * <p>
+ * The jobs are not kept across restarts, so the documents and results
+ * left in the job directory by an earlier run are deleted on startup.
+ */
+public class JobManager {
+
+    private static final Log logger = LogFactory.getLog(JobManager.class);
+
+    private static final String DOCUMENT_SUFFIX = ".document";
+
+    private static final String RESULT_SUFFIX = ".result";
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Parse run by a job.
+     */
+    public interface Task {
+
+        /**
+         * @param document the document of the job, which is deleted afterwards
+         * @param result   stream for the result of the job
+         * @throws Exception if the job fails
+         */
+        void run(File document, OutputStream result) throws Exception;
+
+    }
+
+    private final File directory;
+
+    private final long ttl;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<String, Job>();
+
+    /**
+     * @param directory directory for the documents and results of the jobs
+     * @param threads   number of jobs that run at the same time
+     * @param queueSize maximum number of jobs waiting to run, or 0 to
+     *                  reject the jobs when all threads are busy
+     * @param ttl       time in milliseconds the results are kept after
+     *                  the jobs have finished
+     */
+    public JobManager(File directory, int threads, int queueSize, long ttl) {
+        this.directory = directory;
+        this.ttl = ttl;
+        this.executor = ParseExecutor.newThreadPool(threads, queueSize);
+        directory.mkdirs();
+        deleteStaleFiles();
+    }
+
+    /**
+     * Deletes the files of the jobs of an earlier run.
+     */
+    private void deleteStaleFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        int count = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if ((name.endsWith(DOCUMENT_SUFFIX) || name.endsWith(RESULT_SUFFIX))
+                    && file.delete()) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            logger.info("Deleted " + count + " files of earlier jobs in " + directory);
+        }
+    }
+
+    /**
+     * Spools the given document, and queues a job for it.
+     *
+     * @param document document of the job, which is not closed
+     * @param task     parse of the job
+     * @return the queued job
+     * @throws IOException                if the document can not be spooled
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Job submit(InputStream document, Task task) throws IOException {
+        purge();
+        if (isFull()) {
+            // do not spool a document that can not be queued
+            throw new RejectedExecutionException("The job queue is full");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), task);
+        boolean spooled = false;
+        try {
+            OutputStream out = new FileOutputStream(job.document);
+            try {
+                IOUtils.copy(document, out);
+            } finally {
+                out.close();
+            }
+            spooled = true;
+        } finally {
+            if (!spooled) {
+                job.delete();
+            }
+        }
+
+        jobs.put(job.id, job);
+        try {
+            job.setFuture(executor.submit(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            job.delete();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Checks whether a job submitted now would be rejected. This is only
+     * an estimate, since the threads may finish or take jobs meanwhile.
+     */
+    private boolean isFull() {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        if (queue instanceof SynchronousQueue) {
+            // no queue, so a job is only taken by an idle thread
+            return executor.getActiveCount() >= executor.getMaximumPoolSize();
+        }
+        return queue.remainingCapacity() == 0;
+    }
+
+    /**
+     * @param id identifier of a job
+     * @return the job, or null if it is unknown or has expired
+     */
+    public Job get(String id) {
+        purge();
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancels a job, and forgets it.
+     *
+     * @param id identifier of a job
+     * @return the job, or null if it is unknown or has expired
+     */
+    public Job cancel(String id) {
+        Job job = jobs.remove(id);
+        if (job != null) {
+            job.cancel();
+            executor.purge();
+        }
+        return job;
+    }
+
+    /**
+     * Cancels all the jobs.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        for (String id : jobs.keySet()) {
+            cancel(id);
+        }
+    }
+
+    /**
+     * Forgets the jobs whose results have expired.
+     */
+    private void purge() {
+        long now = System.currentTimeMillis();
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.isExpired(now)) {
+                iterator.remove();
+                job.delete();
+            }
+        }
+    }
+
+    public class Job implements Runnable {
+
+        private final String id;
+
+        private final Task task;
+
+        private final File document;
+
+        private final File result;
+
+        private Status status = Status.QUEUED;
+
+        private String error = null;
+
+        private long finished = 0;
+
+        private Future<?> future = null;
+
+        private Job(String id, Task task) {
+            this.id = id;
+            this.task = task;
+            this.document = new File(directory, id + DOCUMENT_SUFFIX);
+            this.result = new File(directory, id + RESULT_SUFFIX);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public synchronized Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the message of the exception that failed the job, or null
+         */
+        public synchronized String getError() {
+            return error;
+        }
+
+        /**
+         * @return the result file, or null if the job is not done
+         */
+        public synchronized File getResult() {
+            return status == Status.DONE ? result : null;
+        }
+
+        public void run() {
+            synchronized (this) {
+                if (status != Status.QUEUED) {
+                    return;
+                }
+                status = Status.RUNNING;
+            }
+
+            Throwable failure = null;
+            try {
+                OutputStream out = new InterruptibleOutputStream(new FileOutputStream(result));
+                try {
+                    task.run(document, out);
+                } finally {
+                    out.close();
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                document.delete();
+            }
+
+            synchronized (this) {
+                finished = System.currentTimeMillis();
+                if (status == Status.CANCELLED) {
+                    result.delete();
+                } else if (failure != null) {
+                    logger.warn("Job " + id + " failed", failure);
+                    status = Status.FAILED;
+                    error = failure.getMessage() != null ? failure.getMessage() : failure.toString();
+                    result.delete();
+                } else {
+                    status = Status.DONE;
+                }
+            }
+        }
+
+        private synchronized void setFuture(Future<?> future) {
+            this.future = future;
+            if (status == Status.CANCELLED) {
+                future.cancel(true);
+            }
+        }
+
+        private synchronized void cancel() {
+            if (status == Status.QUEUED || status == Status.RUNNING) {
+                status = Status.CANCELLED;
+                finished = System.currentTimeMillis();
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+            delete();
+        }
+
+        private synchronized boolean isExpired(long now) {
+            return finished > 0 && now - finished > ttl;
+        }
+
+        private void delete() {
+            document.delete();
+            result.delete();
+        }
+    }
+
+    /**
+     * Stops the writing of a result when the job is cancelled.
+     */
+    private static class InterruptibleOutputStream extends FilterOutputStream {
+
+        private InterruptibleOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkInterrupted();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkInterrupted();
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            checkInterrupted();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // without the flush, which would fail once the job is cancelled
+            out.close();
+        }
+
+        private static void checkInterrupted() throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("The job was cancelled");
+            }
+        }
+    }
+}
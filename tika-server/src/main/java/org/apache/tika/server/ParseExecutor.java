@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.DeferredFileOutputStream;
+
+/**
+ * Runs the parses of the /tika, /meta and /rmeta resources. By default
+ * they run on the request thread of the HTTP server, as before, and a
+ * {@link StreamingOutput} parses the document while the response is
+ * written. When an executor is given, the request is suspended, and the
+ * request body is read and parsed by a thread of the executor. A
+ * {@link StreamingOutput} is then written to memory, or to a temporary
+ * file once it is larger than {@link #MEMORY_THRESHOLD}, and the response
+ * is resumed with this copy. The HTTP server threads are thus only used
+ * to accept the requests and to send the results, and the number of
+ * concurrent parses is the size of the executor, whatever the number of
+ * open connections. When the executor rejects a parse, for example because
+ * its queue is full, the response is 503 Service Unavailable.
+ */
+public class ParseExecutor {
+
+    /**
+     * Size of the parse results kept in memory by the executor threads.
+     */
+    public static final int MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final ExecutorService executor;
+
+    /**
+     * Runs the parses on the request threads.
+     */
+    public ParseExecutor() {
+        this(null);
+    }
+
+    /**
+     * Runs the parses on the given executor.
+     *
+     * @param executor executor, or null to parse on the request threads
+     */
+    public ParseExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a pool of parse threads, in front of which at most the given
+     * number of parses wait. Further parses are rejected.
+     *
+     * @param threads   number of threads
+     * @param queueSize maximum number of waiting parses, or 0 to reject
+     *                  the parses when all threads are busy
+     * @return thread pool
+     */
+    public static ThreadPoolExecutor newThreadPool(int threads, int queueSize) {
+        BlockingQueue<Runnable> queue;
+        if (queueSize > 0) {
+            queue = new ArrayBlockingQueue<Runnable>(queueSize);
+        } else {
+            queue = new SynchronousQueue<Runnable>();
+        }
+        return new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS, queue);
+    }
+
+    /**
+     * Runs the given task, and resumes the response with its result.
+     *
+     * @param response suspended response
+     * @param task     task returning the response, or its entity
+     */
+    public void submit(final AsyncResponse response, final Callable<?> task) {
+        if (executor == null) {
+            try {
+                response.resume(task.call());
+            } catch (Throwable t) {
+                response.resume(t);
+            }
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        response.resume(spool(task.call()));
+                    } catch (Throwable t) {
+                        response.resume(t);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            response.resume(new WebApplicationException(e, Response.Status.SERVICE_UNAVAILABLE));
+        }
+    }
+
+    /**
+     * Stops the executor, after the parses that have been submitted.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Writes the streaming entity of the given result, so that the document
+     * is parsed by this thread.
+     */
+    private static Object spool(Object result) throws IOException {
+        if (result instanceof StreamingOutput) {
+            return spool((StreamingOutput) result);
+        } else if (result instanceof Response
+                && ((Response) result).getEntity() instanceof StreamingOutput) {
+            Response response = (Response) result;
+            return Response.fromResponse(response)
+                    .entity(spool((StreamingOutput) response.getEntity()))
+                    .build();
+        } else {
+            return result;
+        }
+    }
+
+    private static StreamingOutput spool(StreamingOutput output) throws IOException {
+        final DeferredFileOutputStream buffer = new DeferredFileOutputStream(
+                MEMORY_THRESHOLD, "tika-server-result", ".tmp", null);
+        boolean written = false;
+        try {
+            output.write(buffer);
+            written = true;
+        } finally {
+            buffer.close();
+            if (!written) {
+                delete(buffer);
+            }
+        }
+        return new StreamingOutput() {
+            public void write(OutputStream outputStream) throws IOException {
+                try {
+                    buffer.writeTo(outputStream);
+                } finally {
+                    delete(buffer);
+                }
+            }
+        };
+    }
+
+    private static void delete(DeferredFileOutputStream buffer) {
+        if (!buffer.isInMemory()) {
+            buffer.getFile().delete();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tika.io.IOUtils;
+
+/**
+ * Cache of server responses, keyed by a digest of the request body and the
+ * parse configuration, see {@link ParseResultCacheFilter}. Responses are
+ * kept in memory, and optionally in a directory, each tier evicting its
+ * least recently used responses once their total size in bytes exceeds
+ * its limit. Responses evicted from memory remain on disk, and are brought
+ * back into memory when they are requested again.
+ * <p>
+ * This class is thread safe.
+ */
+public class ParseResultCache {
+
+    private static final Log logger = LogFactory.getLog(ParseResultCache.class);
+
+    private static final String SUFFIX = ".response";
+
+    private final long maxMemoryBytes;
+
+    private final File directory;
+
+    private final long maxDiskBytes;
+
+    private final Map<String, Entry> memory =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private final Map<String, Long> disk =
+            new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    private long memoryBytes = 0;
+
+    private long diskBytes = 0;
+
+    private long hits = 0;
+
+    private long lookups = 0;
+
+    /**
+     * Creates a cache that only keeps responses in memory.
+     *
+     * @param maxMemoryBytes maximum total size of the responses in memory
+     */
+    public ParseResultCache(long maxMemoryBytes) {
+        this(maxMemoryBytes, null, 0);
+    }
+
+    /**
+     * @param maxMemoryBytes maximum total size of the responses in memory
+     * @param directory directory for the responses on disk, or null to only
+     *                  keep responses in memory. It is created if needed,
+     *                  and responses already in it are used.
+     * @param maxDiskBytes maximum total size of the responses on disk
+     */
+    public ParseResultCache(long maxMemoryBytes, File directory, long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (directory != null) {
+            directory.mkdirs();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                // oldest first, so that they are the first to be evicted
+                Arrays.sort(files, new Comparator<File>() {
+                    public int compare(File a, File b) {
+                        return Long.valueOf(a.lastModified()).compareTo(b.lastModified());
+                    }
+                });
+                for (File file : files) {
+                    String name = file.getName();
+                    if (name.endsWith(SUFFIX)) {
+                        disk.put(name.substring(0, name.length() - SUFFIX.length()), file.length());
+                        diskBytes += file.length();
+                    }
+                }
+                evictFromDisk();
+            }
+        }
+    }
+
+    /**
+     * Looks up a response, first in memory and then on disk.
+     *
+     * @param key digest of the request
+     * @return the cached response, or null if there is none
+     */
+    public Entry get(String key) {
+        File file;
+        synchronized (this) {
+            lookups++;
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                hits++;
+                return entry;
+            }
+            if (disk.get(key) == null) {
+                return null;
+            }
+            file = getFile(key);
+        }
+        Entry entry;
+        try {
+            entry = read(file);
+        } catch (IOException e) {
+            logger.warn("Unable to read cached response " + file, e);
+            return null;
+        }
+        synchronized (this) {
+            hits++;
+            putInMemory(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Stores a response.
+     *
+     * @param key digest of the request
+     * @param mediaType media type of the response
+     * @param body response body, which must not be changed afterwards
+     */
+    public void put(String key, String mediaType, byte[] body) {
+        Entry entry = new Entry(mediaType, body);
+        synchronized (this) {
+            putInMemory(key, entry);
+        }
+        if (directory == null || body.length > maxDiskBytes) {
+            return;
+        }
+        File file = getFile(key);
+        try {
+            // write to a temporary file first, so that readers never see
+            // a partial response
+            File tmp = File.createTempFile("response", ".tmp", directory);
+            try {
+                write(entry, tmp);
+                if (!tmp.renameTo(file) && !file.isFile()) {
+                    throw new IOException("Could not write " + file);
+                }
+            } finally {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write cached response " + file, e);
+            return;
+        }
+        synchronized (this) {
+            Long previous = disk.put(key, file.length());
+            if (previous != null) {
+                diskBytes -= previous;
+            }
+            diskBytes += file.length();
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * @return maximum size of a response that can be cached
+     */
+    public long getMaxEntryBytes() {
+        return Math.max(maxMemoryBytes, directory == null ? 0 : maxDiskBytes);
+    }
+
+    /**
+     * @return number of lookups that found a response
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups
+     */
+    public synchronized long getLookups() {
+        return lookups;
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        if (entry.body.length > maxMemoryBytes) {
+            return;
+        }
+        Entry previous = memory.put(key, entry);
+        if (previous != null) {
+            memoryBytes -= previous.body.length;
+        }
+        memoryBytes += entry.body.length;
+        Iterator<Entry> iterator = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+            memoryBytes -= iterator.next().body.length;
+            iterator.remove();
+        }
+    }
+
+    private void evictFromDisk() {
+        Iterator<Map.Entry<String, Long>> iterator = disk.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            diskBytes -= eldest.getValue();
+            iterator.remove();
+            getFile(eldest.getKey()).delete();
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    private static Entry read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            String mediaType = in.readUTF();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            IOUtils.copy(in, body);
+            return new Entry(mediaType, body.toByteArray());
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void write(Entry entry, File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        try {
+            out.writeUTF(entry.mediaType);
+            out.write(entry.body);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Cached response.
+     */
+    public static class Entry {
+
+        private final String mediaType;
+
+        private final byte[] body;
+
+        private Entry(String mediaType, byte[] body) {
+            this.mediaType = mediaType;
+            this.body = body;
+        }
+
+        /**
+         * @return media type of the response
+         */
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * @return response body, which must not be changed
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
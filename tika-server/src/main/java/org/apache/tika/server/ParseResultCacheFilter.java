@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TikaInputStream;
+
+/**
+ * Serves repeated requests to the /tika, /meta and /rmeta endpoints from a
+ * {@link ParseResultCache}, without parsing the document again. The request
+ * body is spooled to a temporary file once, while computing the SHA-256
+ * digest of the body together with the request method, path and query, and
+ * the headers that affect the parse (such as the content type and name of
+ * the document, the accepted response type, and the X-Tika OCR and PDF
+ * configuration headers). On a hit the cached response is returned at once;
+ * on a miss the resource parses the spooled file, and a successful response
+ * is stored as it is written to the client. The X-Tika-Cache response
+ * header tells whether the response came from the cache.
+ */
+@Provider
+public class ParseResultCacheFilter
+        implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    public static final String X_TIKA_CACHE_HEADER = "X-Tika-Cache";
+
+    private static final List<String> CACHED_PATHS =
+            Arrays.asList("tika", "meta", "rmeta");
+
+    private static final List<String> KEY_HEADERS = Arrays.asList(
+            "accept", "content-type", "content-disposition", "content-encoding",
+            "file-name", "password");
+
+    private static final String KEY_PROPERTY = ParseResultCacheFilter.class.getName() + ".key";
+
+    private static final String FILE_PROPERTY = ParseResultCacheFilter.class.getName() + ".file";
+
+    private static final ThreadLocal<Pending> PENDING = new ThreadLocal<Pending>();
+
+    private final ParseResultCache cache;
+
+    public ParseResultCacheFilter(ParseResultCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        String method = request.getMethod();
+        if (!"PUT".equals(method) && !"POST".equals(method)) {
+            return;
+        }
+        List<PathSegment> segments = request.getUriInfo().getPathSegments();
+        if (segments.isEmpty() || !CACHED_PATHS.contains(segments.get(0).getPath())) {
+            return;
+        }
+        MultivaluedMap<String, String> headers = request.getHeaders();
+        if (headers.containsKey("fileUrl")) {
+            // the document is not in the request body
+            return;
+        }
+
+        MessageDigest digest = getDigest();
+        digest.update(getConfiguration(request).getBytes(IOUtils.UTF_8));
+        digest.update((byte) 0);
+
+        File file = File.createTempFile("tika-server-request", ".tmp");
+        boolean spooled = false;
+        try {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                IOUtils.copy(new DigestInputStream(request.getEntityStream(), digest), out);
+            } finally {
+                out.close();
+            }
+            spooled = true;
+        } finally {
+            if (!spooled) {
+                file.delete();
+            }
+        }
+        String key = new String(Hex.encodeHex(digest.digest()));
+
+        ParseResultCache.Entry entry = cache.get(key);
+        if (entry != null) {
+            file.delete();
+            request.abortWith(Response.ok(entry.getBody(), entry.getMediaType())
+                    .header(X_TIKA_CACHE_HEADER, "hit")
+                    .build());
+            return;
+        }
+        request.setEntityStream(TikaInputStream.get(file));
+        request.setProperty(KEY_PROPERTY, key);
+        request.setProperty(FILE_PROPERTY, file);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        String key = (String) request.getProperty(KEY_PROPERTY);
+        File file = (File) request.getProperty(FILE_PROPERTY);
+        if (key == null) {
+            return;
+        }
+        response.getHeaders().putSingle(X_TIKA_CACHE_HEADER, "miss");
+        if (!response.hasEntity()) {
+            // nothing will be written
+            file.delete();
+            return;
+        }
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            key = null;
+        }
+        // The request properties are not visible to the writer interceptor,
+        // which runs next on this thread
+        PENDING.set(new Pending(key, file, response.getEntity()));
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Pending pending = PENDING.get();
+        PENDING.remove();
+        if (pending == null || pending.entity != context.getEntity()) {
+            context.proceed();
+            return;
+        }
+        try {
+            if (pending.key == null) {
+                context.proceed();
+                return;
+            }
+            CachingOutputStream out =
+                    new CachingOutputStream(context.getOutputStream(), cache.getMaxEntryBytes());
+            context.setOutputStream(out);
+            context.proceed();
+            byte[] body = out.getBody();
+            if (body != null) {
+                cache.put(pending.key, context.getMediaType().toString(), body);
+            }
+        } finally {
+            pending.file.delete();
+        }
+    }
+
+    /**
+     * Returns the request method, path, query and the request headers that
+     * affect the parse, in a canonical form.
+     */
+    private static String getConfiguration(ContainerRequestContext request) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(request.getMethod()).append(' ');
+        builder.append(request.getUriInfo().getRequestUri().getRawPath());
+        builder.append('?').append(request.getUriInfo().getRequestUri().getRawQuery());
+        List<String> names = new ArrayList<String>();
+        for (String name : request.getHeaders().keySet()) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (KEY_HEADERS.contains(lower) || lower.startsWith("x-tika-")) {
+                names.add(name);
+            }
+        }
+        Collections.sort(names, String.CASE_INSENSITIVE_ORDER);
+        for (String name : names) {
+            builder.append('\n').append(name.toLowerCase(Locale.ROOT)).append(':');
+            builder.append(request.getHeaders().get(name));
+        }
+        return builder.toString();
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Request whose response is about to be written.
+     */
+    private static class Pending {
+
+        private final String key;
+
+        private final File file;
+
+        private final Object entity;
+
+        private Pending(String key, File file, Object entity) {
+            this.key = key;
+            this.file = file;
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * Copies the response body into memory as it is written, as long as it
+     * is no larger than the given maximum.
+     */
+    private static class CachingOutputStream extends FilterOutputStream {
+
+        private final long max;
+
+        private ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private CachingOutputStream(OutputStream out, long max) {
+            super(out);
+            this.max = max;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            cache(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            cache(b, off, len);
+        }
+
+        private void cache(byte[] b, int off, int len) {
+            if (body != null) {
+                if (body.size() + len > max) {
+                    body = null;
+                } else {
+                    body.write(b, off, len);
+                }
+            }
+        }
+
+        /**
+         * @return the response body, or null if it was too large
+         */
+        private byte[] getBody() {
+            return body == null ? null : body.toByteArray();
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.tika.server;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -39,6 +40,7 @@ import org.apache.cxf.rs.security.cors.CrossOriginResourceSharingFilter;
 import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.server.resource.DetectorResource;
+import org.apache.tika.server.resource.JobResource;
 import org.apache.tika.server.resource.MetadataResource;
 import org.apache.tika.server.resource.RecursiveMetadataResource;
 import org.apache.tika.server.writer.TarWriter;
@@ -61,6 +63,11 @@ import org.apache.tika.server.writer.ZipWriter;
 public class TikaServerCli {
     public static final int DEFAULT_PORT = 9998;
     public static final String DEFAULT_HOST = "localhost";
+    public static final long DEFAULT_CACHE_DISK_SIZE = 1024;
+    public static final int DEFAULT_PARSE_QUEUE = 100;
+    public static final int DEFAULT_JOB_THREADS = 1;
+    public static final int DEFAULT_JOB_QUEUE = 100;
+    public static final long DEFAULT_JOB_TTL = 60;
     public static final Set<String> LOG_LEVELS =
             new HashSet<String>(Arrays.asList("debug", "info"));
     private static final Log logger = LogFactory.getLog(TikaServerCli.class);
@@ -72,6 +79,15 @@ public class TikaServerCli {
         options.addOption("p", "port", true, "listen port (default = " + DEFAULT_PORT + ')');
         options.addOption("l", "log", true, "request URI log level ('debug' or 'info')");
         options.addOption("s", "includeStack", false, "whether or not to return a stack trace\nif there is an exception during 'parse'");
+        options.addOption("m", "cacheMemory", true, "size in MB of the in-memory cache of parse results\nof /tika, /meta and /rmeta (default = 0, no cache)");
+        options.addOption("d", "cacheDir", true, "directory of the on-disk cache of parse results (default = none)");
+        options.addOption("D", "cacheDiskSize", true, "size in MB of the on-disk cache of parse results (default = " + DEFAULT_CACHE_DISK_SIZE + ')');
+        options.addOption("t", "parseThreads", true, "number of threads parsing the documents of /tika, /meta and /rmeta,\nwhich then do not hold the threads of the HTTP server\n(default = 0, parse on the HTTP server threads)");
+        options.addOption("Q", "parseQueue", true, "maximum number of documents waiting for a parse thread,\nbeyond which requests get a 503 response (default = " + DEFAULT_PARSE_QUEUE + ')');
+        options.addOption("j", "jobThreads", true, "number of /jobs that run at the same time (default = " + DEFAULT_JOB_THREADS + ')');
+        options.addOption("q", "jobQueue", true, "maximum number of /jobs waiting to run (default = " + DEFAULT_JOB_QUEUE + ')');
+        options.addOption("J", "jobDir", true, "directory of the documents and results of /jobs\n(default = tika-server-jobs in the temporary directory)");
+        options.addOption("T", "jobTtl", true, "minutes the results of /jobs are kept (default = " + DEFAULT_JOB_TTL + ')');
         options.addOption("?", "help", false, "this help message");
 
         return options;
@@ -130,23 +146,57 @@ public class TikaServerCli {
                 corsFilter.setAllowOrigins(origins);
             }
 
+            ParseResultCacheFilter cacheFilter = null;
+            if (line.hasOption("cacheMemory") || line.hasOption("cacheDir")) {
+                long memorySize = Long.parseLong(line.getOptionValue("cacheMemory", "0"));
+                long diskSize = Long.parseLong(line.getOptionValue(
+                        "cacheDiskSize", Long.toString(DEFAULT_CACHE_DISK_SIZE)));
+                File cacheDir = null;
+                if (line.hasOption("cacheDir")) {
+                    cacheDir = new File(line.getOptionValue("cacheDir"));
+                }
+                cacheFilter = new ParseResultCacheFilter(new ParseResultCache(
+                        memorySize * 1024 * 1024, cacheDir, diskSize * 1024 * 1024));
+            }
+
+            ParseExecutor parseExecutor = new ParseExecutor();
+            if (line.hasOption("parseThreads")) {
+                int threads = Integer.parseInt(line.getOptionValue("parseThreads"));
+                if (threads > 0) {
+                    int queueSize = Integer.parseInt(line.getOptionValue(
+                            "parseQueue", Integer.toString(DEFAULT_PARSE_QUEUE)));
+                    parseExecutor = new ParseExecutor(
+                            ParseExecutor.newThreadPool(threads, queueSize));
+                }
+            }
+
+            File jobDir = new File(System.getProperty("java.io.tmpdir"), "tika-server-jobs");
+            if (line.hasOption("jobDir")) {
+                jobDir = new File(line.getOptionValue("jobDir"));
+            }
+            JobManager jobs = new JobManager(jobDir,
+                    Integer.parseInt(line.getOptionValue("jobThreads", Integer.toString(DEFAULT_JOB_THREADS))),
+                    Integer.parseInt(line.getOptionValue("jobQueue", Integer.toString(DEFAULT_JOB_QUEUE))),
+                    Long.parseLong(line.getOptionValue("jobTtl", Long.toString(DEFAULT_JOB_TTL))) * 60 * 1000);
+
             // The Tika Configuration to use throughout
             TikaConfig tika = TikaConfig.getDefaultConfig();
 
             JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
 
             List<ResourceProvider> rCoreProviders = new ArrayList<ResourceProvider>();
-            rCoreProviders.add(new SingletonResourceProvider(new MetadataResource(tika)));
-            rCoreProviders.add(new SingletonResourceProvider(new RecursiveMetadataResource(tika)));
+            rCoreProviders.add(new SingletonResourceProvider(new MetadataResource(tika, parseExecutor)));
+            rCoreProviders.add(new SingletonResourceProvider(new RecursiveMetadataResource(tika, parseExecutor)));
             rCoreProviders.add(new SingletonResourceProvider(new DetectorResource(tika)));
             rCoreProviders.add(new SingletonResourceProvider(new LanguageResource(tika)));
             rCoreProviders.add(new SingletonResourceProvider(new TranslateResource(tika)));
-            rCoreProviders.add(new SingletonResourceProvider(new TikaResource(tika)));
+            rCoreProviders.add(new SingletonResourceProvider(new TikaResource(tika, parseExecutor)));
             rCoreProviders.add(new SingletonResourceProvider(new UnpackerResource(tika)));
             rCoreProviders.add(new SingletonResourceProvider(new TikaMimeTypes(tika)));
             rCoreProviders.add(new SingletonResourceProvider(new TikaDetectors(tika)));
             rCoreProviders.add(new SingletonResourceProvider(new TikaParsers(tika)));
             rCoreProviders.add(new SingletonResourceProvider(new TikaVersion(tika)));
+            rCoreProviders.add(new SingletonResourceProvider(new JobResource(tika, jobs)));
             List<ResourceProvider> rAllProviders = new ArrayList<ResourceProvider>(rCoreProviders);
             rAllProviders.add(new SingletonResourceProvider(new TikaWelcome(tika, rCoreProviders)));
             sf.setResourceProviders(rAllProviders);
@@ -166,6 +216,9 @@ public class TikaServerCli {
             if (corsFilter != null) {
                 providers.add(corsFilter);
             }
+            if (cacheFilter != null) {
+                providers.add(cacheFilter);
+            }
             sf.setProviders(providers);
 
             sf.setAddress("http://" + host + ":" + port + "/");
@@ -18,6 +18,7 @@
 package org.apache.tika.server.resource;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -25,15 +26,23 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.UriInfo;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.cxf.jaxrs.ext.multipart.Attachment;
+import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.tika.config.TikaConfig;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.detect.PrefixDetector;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
+import org.eclipse.jetty.util.ajax.JSON;
 
 @Path("/detect")
 public class DetectorResource {
@@ -69,4 +78,63 @@ public class DetectorResource {
         }
     }
 
+    /**
+     * Detects the media types of any number of documents, given as the
+     * parts of a multipart/form-data request, with their file names in the
+     * Content-Disposition of the parts. Only the first bytes of each
+     * document are read, as many as the detector needs for its magic
+     * matching, so that the clients can send just these prefixes. The
+     * contents of container formats, such as OLE2 or Zip, are not
+     * inspected, so they are detected from their file names, or as the
+     * container type.
+     *
+     * @return a JSON array of the media types, in the order of the parts
+     */
+    @POST
+    @Path("batch")
+    @Consumes("multipart/form-data")
+    @Produces(javax.ws.rs.core.MediaType.APPLICATION_JSON)
+    public String detectBatch(List<Attachment> attachments) throws IOException {
+        Detector detector = config.getDetector();
+        int length;
+        if (detector instanceof PrefixDetector) {
+            length = ((PrefixDetector) detector).getPrefixLength();
+        } else {
+            length = config.getMimeRepository().getMinLength();
+        }
+
+        List<String> types = new ArrayList<String>(attachments.size());
+        byte[] buffer = new byte[length];
+        for (Attachment attachment : attachments) {
+            Metadata met = new Metadata();
+            ContentDisposition disposition = attachment.getContentDisposition();
+            if (disposition != null && disposition.getParameter("filename") != null) {
+                met.add(Metadata.RESOURCE_NAME_KEY, disposition.getParameter("filename"));
+            }
+
+            InputStream is = attachment.getDataHandler().getInputStream();
+            int n = 0;
+            try {
+                int read = 0;
+                while (n < length && (read = is.read(buffer, n, length - n)) != -1) {
+                    n += read;
+                }
+            } finally {
+                is.close();
+            }
+            byte[] prefix = new byte[n];
+            System.arraycopy(buffer, 0, prefix, 0, n);
+
+            MediaType type;
+            if (detector instanceof PrefixDetector) {
+                type = ((PrefixDetector) detector).detect(null, prefix, met);
+            } else {
+                type = detector.detect(new ByteArrayInputStream(prefix), met);
+            }
+            types.add(type.toString());
+        }
+        logger.info("Detected the media types of " + types.size() + " documents");
+        return JSON.toString(types);
+    }
+
 }
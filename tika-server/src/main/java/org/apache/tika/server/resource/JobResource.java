@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server.resource;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.server.InterruptibleContentHandler;
+import org.apache.tika.server.JobManager;
+import org.eclipse.jetty.util.ajax.JSON;
+
+/**
+ * Parses documents that take too long for a single HTTP request. A
+ * document is PUT or POSTed to /jobs, with the same headers as for /rmeta,
+ * and a job is queued for it. The response, 202 Accepted, gives the status
+ * of the job and its location. The status is then polled at
+ * /jobs/{id}, and once it is "done", the result, the Json array of
+ * /rmeta/stream, is fetched from /jobs/{id}/result. A job is cancelled,
+ * and its result deleted, with a DELETE of /jobs/{id}.
+ */
+@Path("/jobs")
+public class JobResource {
+    private static final Log logger = LogFactory.getLog(JobResource.class);
+
+    private final RecursiveMetadataResource rmeta;
+
+    private final JobManager jobs;
+
+    public JobResource(TikaConfig tikaConfig, JobManager jobs) {
+        this.rmeta = new RecursiveMetadataResource(tikaConfig);
+        this.jobs = jobs;
+    }
+
+    @PUT
+    @Consumes("*/*")
+    @Produces("application/json")
+    public Response putJob(InputStream is, @Context HttpHeaders httpHeaders,
+                           @Context UriInfo info) throws IOException {
+        return submit(is, httpHeaders, info);
+    }
+
+    @POST
+    @Consumes("*/*")
+    @Produces("application/json")
+    public Response postJob(InputStream is, @Context HttpHeaders httpHeaders,
+                            @Context UriInfo info) throws IOException {
+        return submit(is, httpHeaders, info);
+    }
+
+    private Response submit(InputStream is, HttpHeaders httpHeaders,
+                            final UriInfo info) throws IOException {
+        final MultivaluedMap<String, String> headers =
+                new MultivaluedHashMap<String, String>(httpHeaders.getRequestHeaders());
+        JobManager.Job job;
+        try {
+            job = jobs.submit(TikaUtils.getInputSteam(is, httpHeaders), new JobManager.Task() {
+                public void run(File document, OutputStream result) throws Exception {
+                    TikaInputStream tis = TikaInputStream.get(document);
+                    try {
+                        // stops the parse at its next event once the job is cancelled
+                        rmeta.produceMetadataStream(tis, headers, info,
+                                new InterruptibleContentHandler.Factory(new BasicContentHandlerFactory(
+                                        BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1)))
+                                .write(result);
+                    } finally {
+                        tis.close();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.info("Rejected a job: " + e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(e.getMessage()).type("text/plain").build();
+        }
+        logger.info("Queued job " + job.getId());
+        return Response.status(Response.Status.ACCEPTED)
+                .location(info.getAbsolutePathBuilder().path(job.getId()).build())
+                .entity(getStatus(job))
+                .build();
+    }
+
+    @GET
+    @Path("{id}")
+    @Produces("application/json")
+    public String getStatus(@PathParam("id") String id) {
+        return getStatus(getJob(id));
+    }
+
+    @GET
+    @Path("{id}/result")
+    @Produces("application/json")
+    public Response getResult(@PathParam("id") String id) {
+        JobManager.Job job = getJob(id);
+        final File result = job.getResult();
+        if (result == null) {
+            Response.Status status = job.getStatus() == JobManager.Status.FAILED
+                    ? Response.Status.INTERNAL_SERVER_ERROR : Response.Status.CONFLICT;
+            return Response.status(status).entity(getStatus(job)).build();
+        }
+        return Response.ok(new StreamingOutput() {
+            public void write(OutputStream outputStream) throws IOException {
+                InputStream in = TikaInputStream.get(result);
+                try {
+                    IOUtils.copy(in, outputStream);
+                } finally {
+                    in.close();
+                }
+            }
+        }).build();
+    }
+
+    @DELETE
+    @Path("{id}")
+    public Response cancel(@PathParam("id") String id) {
+        if (jobs.cancel(id) == null) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        logger.info("Cancelled job " + id);
+        return Response.noContent().build();
+    }
+
+    private JobManager.Job getJob(String id) {
+        JobManager.Job job = jobs.get(id);
+        if (job == null) {
+            throw new WebApplicationException(Response.Status.NOT_FOUND);
+        }
+        return job;
+    }
+
+    private static String getStatus(JobManager.Job job) {
+        Map<String, Object> status = new HashMap<String, Object>();
+        status.put("id", job.getId());
+        status.put("status", job.getStatus().toString());
+        if (job.getError() != null) {
+            status.put("error", job.getError());
+        }
+        return JSON.toString(status);
+    }
+}
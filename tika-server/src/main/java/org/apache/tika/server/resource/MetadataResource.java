@@ -23,6 +23,8 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
@@ -31,6 +33,7 @@ import javax.ws.rs.core.UriInfo;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +43,7 @@ import org.apache.tika.language.ProfilingHandler;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
+import org.apache.tika.server.ParseExecutor;
 import org.xml.sax.helpers.DefaultHandler;
 
 
@@ -49,24 +53,41 @@ public class MetadataResource {
 
     private TikaConfig tikaConfig;
 
+    private final ParseExecutor executor;
+
     public MetadataResource(TikaConfig tikaConfig) {
+        this(tikaConfig, new ParseExecutor());
+    }
+
+    public MetadataResource(TikaConfig tikaConfig, ParseExecutor executor) {
         this.tikaConfig = tikaConfig;
+        this.executor = executor;
     }
 
     @POST
     @Consumes("multipart/form-data")
     @Produces({"text/csv", "application/json", "application/rdf+xml"})
     @Path("form")
-    public Response getMetadataFromMultipart(Attachment att, @Context UriInfo info) throws Exception {
-        return Response.ok(
-                parseMetadata(att.getObject(InputStream.class), att.getHeaders(), info)).build();
+    public void getMetadataFromMultipart(final Attachment att, @Context final UriInfo info,
+                                         @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<Response>() {
+            public Response call() throws Exception {
+                return Response.ok(
+                        parseMetadata(att.getObject(InputStream.class), att.getHeaders(), info)).build();
+            }
+        });
     }
 
     @PUT
     @Produces({"text/csv", "application/json", "application/rdf+xml"})
-    public Response getMetadata(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info) throws Exception {
-        return Response.ok(
-                parseMetadata(TikaUtils.getInputSteam(is, httpHeaders), httpHeaders.getRequestHeaders(), info)).build();
+    public void getMetadata(final InputStream is, @Context final HttpHeaders httpHeaders, @Context final UriInfo info,
+                            @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<Response>() {
+            public Response call() throws Exception {
+                return Response.ok(
+                        parseMetadata(TikaUtils.getInputSteam(is, httpHeaders), httpHeaders.getRequestHeaders(), info)).build();
+            }
+        });
     }
 
     /**
@@ -87,15 +108,24 @@ public class MetadataResource {
      * @param httpHeaders httpheaders
      * @param info        info
      * @param field       the tika metadata field name
-     * @return one of {@link javax.ws.rs.core.Response.Status#OK}, {@link javax.ws.rs.core.Response.Status#NOT_FOUND}, or
-     * {@link javax.ws.rs.core.Response.Status#BAD_REQUEST}
-     * @throws Exception
+     * @param response    resumed with one of {@link javax.ws.rs.core.Response.Status#OK},
+     * {@link javax.ws.rs.core.Response.Status#NOT_FOUND}, or {@link javax.ws.rs.core.Response.Status#BAD_REQUEST}
      */
     @PUT
     @Path("{field}")
     @Produces({"text/csv", "application/json", "application/rdf+xml", "text/plain"})
-    public Response getMetadataField(InputStream is, @Context HttpHeaders httpHeaders,
-                                     @Context UriInfo info, @PathParam("field") String field) throws Exception {
+    public void getMetadataField(final InputStream is, @Context final HttpHeaders httpHeaders,
+                                 @Context final UriInfo info, @PathParam("field") final String field,
+                                 @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<Response>() {
+            public Response call() throws Exception {
+                return parseMetadataField(is, httpHeaders, info, field);
+            }
+        });
+    }
+
+    private Response parseMetadataField(InputStream is, HttpHeaders httpHeaders,
+                                        UriInfo info, String field) throws Exception {
 
         // use BAD request to indicate that we may not have had enough data to
         // process the request
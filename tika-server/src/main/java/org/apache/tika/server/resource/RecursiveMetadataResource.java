@@ -22,25 +22,40 @@ import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.tika.config.TikaConfig;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.IOExceptionWithCause;
+import org.apache.tika.io.IOUtils;
 import org.apache.tika.language.ProfilingHandler;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.serialization.JsonMetadataListWriter;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.RecursiveParserWrapper;
 import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.server.MetadataList;
+import org.apache.tika.server.ParseExecutor;
+import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
 @Path("/rmeta")
@@ -49,24 +64,95 @@ public class RecursiveMetadataResource {
 
     private TikaConfig tikaConfig;
 
+    private final ParseExecutor executor;
+
     public RecursiveMetadataResource(TikaConfig tikaConfig) {
+        this(tikaConfig, new ParseExecutor());
+    }
+
+    public RecursiveMetadataResource(TikaConfig tikaConfig, ParseExecutor executor) {
         this.tikaConfig = tikaConfig;
+        this.executor = executor;
     }
 
     @POST
     @Consumes("multipart/form-data")
     @Produces({"text/csv", "application/json"})
     @Path("form")
-    public Response getMetadataFromMultipart(Attachment att, @Context UriInfo info) throws Exception {
-        return Response.ok(
-                parseMetadata(att.getObject(InputStream.class), att.getHeaders(), info)).build();
+    public void getMetadataFromMultipart(final Attachment att, @Context final UriInfo info,
+                                         @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<Response>() {
+            public Response call() throws Exception {
+                return Response.ok(
+                        parseMetadata(att.getObject(InputStream.class), att.getHeaders(), info)).build();
+            }
+        });
+    }
+
+    @PUT
+    @Produces("application/json")
+    public void getMetadata(final InputStream is, @Context final HttpHeaders httpHeaders, @Context final UriInfo info,
+                            @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<Response>() {
+            public Response call() throws Exception {
+                return Response.ok(
+                        parseMetadata(is, httpHeaders.getRequestHeaders(), info)).build();
+            }
+        });
     }
 
+    /**
+     * Like {@link #getMetadata}, but the Metadata of each embedded document
+     * is written to the Json array as soon as it has been parsed, and not
+     * kept in memory. The container document is the last element of the
+     * array instead of the first.
+     */
     @PUT
     @Produces("application/json")
-    public Response getMetadata(InputStream is, @Context HttpHeaders httpHeaders, @Context UriInfo info) throws Exception {
-        return Response.ok(
-                parseMetadata(is, httpHeaders.getRequestHeaders(), info)).build();
+    @Path("stream")
+    public void getMetadataStream(final InputStream is, @Context final HttpHeaders httpHeaders,
+                                  @Context final UriInfo info, @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() {
+                return produceMetadataStream(is, httpHeaders.getRequestHeaders(), info,
+                        new BasicContentHandlerFactory(BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1));
+            }
+        });
+    }
+
+    StreamingOutput produceMetadataStream(final InputStream is, MultivaluedMap<String, String> httpHeaders,
+                                          final UriInfo info, final ContentHandlerFactory handlerFactory) {
+        final Metadata metadata = new Metadata();
+        final ParseContext context = new ParseContext();
+        final AutoDetectParser parser = TikaResource.createParser(tikaConfig);
+        TikaResource.fillMetadata(parser, metadata, context, httpHeaders);
+        // no need to add parser to parse recursively
+        TikaResource.fillParseContext(context, httpHeaders, null);
+        TikaResource.logRequest(logger, info, metadata);
+
+        return new StreamingOutput() {
+            public void write(OutputStream outputStream) throws IOException, WebApplicationException {
+                final JsonMetadataListWriter writer = new JsonMetadataListWriter(
+                        new OutputStreamWriter(outputStream, IOUtils.UTF_8));
+                RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser, handlerFactory) {
+                    @Override
+                    protected void handleMetadata(Metadata m, boolean container) throws SAXException {
+                        try {
+                            writer.write(m);
+                        } catch (TikaException e) {
+                            throw new SAXException(e);
+                        }
+                    }
+                };
+                TikaResource.parse(wrapper, logger, info.getPath(), is,
+                        new DefaultHandler(), metadata, context);
+                try {
+                    writer.close();
+                } catch (TikaException e) {
+                    throw new IOExceptionWithCause(e);
+                }
+            }
+        };
     }
 
 	private MetadataList parseMetadata(InputStream is,
@@ -31,6 +31,7 @@ import org.apache.tika.config.TikaConfig;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.mime.MediaTypeRegistry;
 import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.LazyParser;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.server.HTMLHelper;
 import org.eclipse.jetty.util.ajax.JSON;
@@ -159,7 +160,11 @@ public class TikaMimeTypes {
                 if (p instanceof CompositeParser) {
                     p = ((CompositeParser) p).getParsers().get(type);
                 }
-                details.parser = p.getClass().getName();
+                if (p instanceof LazyParser) {
+                    details.parser = ((LazyParser) p).getParserClassName();
+                } else {
+                    details.parser = p.getClass().getName();
+                }
             }
 
             types.add(details);
@@ -32,6 +32,7 @@ import java.util.Set;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.LazyParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.ParserDecorator;
@@ -205,7 +206,10 @@ public class TikaParsers {
         private List<Parser> childParsers;
 
         private ParserDetails(Parser p) {
-            if (p instanceof ParserDecorator) {
+            if (p instanceof LazyParser) {
+                // Not a decorator, but a stand-in for the parser
+                p = ((LazyParser) p).getWrappedParser();
+            } else if (p instanceof ParserDecorator) {
                 isDecorated = true;
                 p = ((ParserDecorator) p).getWrappedParser();
             }
@@ -224,12 +228,19 @@ public class TikaParsers {
                 childParsers = new ArrayList<Parser>(children);
                 Collections.sort(childParsers, new Comparator<Parser>() {                    @Override
                     public int compare(Parser p1, Parser p2) {
-                        return p1.getClass().getName().compareTo(p2.getClass().getName());
+                        return getClassName(p1).compareTo(getClassName(p2));
                     }
                 });
             } else {
                 supportedTypes = p.getSupportedTypes(EMPTY_PC);
             }
         }
+
+        private static String getClassName(Parser p) {
+            if (p instanceof LazyParser) {
+                return ((LazyParser) p).getParserClassName();
+            }
+            return p.getClass().getName();
+        }
     }
 }
\ No newline at end of file
@@ -26,6 +26,8 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
@@ -47,6 +49,7 @@ import java.lang.reflect.Field;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -70,6 +73,7 @@ import org.apache.tika.parser.ocr.TesseractOCRConfig;
 import org.apache.tika.parser.pdf.PDFParserConfig;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.ExpandedTitleContentHandler;
+import org.apache.tika.server.ParseExecutor;
 import org.apache.tika.server.RichTextContentHandler;
 import org.apache.tika.server.TikaServerParseException;
 import org.xml.sax.ContentHandler;
@@ -86,8 +90,15 @@ public class TikaResource {
 
     private TikaConfig tikaConfig;
 
+    private final ParseExecutor executor;
+
     public TikaResource(TikaConfig tikaConfig) {
+        this(tikaConfig, new ParseExecutor());
+    }
+
+    public TikaResource(TikaConfig tikaConfig, ParseExecutor executor) {
         this.tikaConfig = tikaConfig;
+        this.executor = executor;
     }
 
     static {
@@ -288,15 +299,25 @@ public class TikaResource {
     @Consumes("multipart/form-data")
     @Produces("text/plain")
     @Path("form")
-    public StreamingOutput getTextFromMultipart(Attachment att, @Context final UriInfo info) {
-        return produceText(att.getObject(InputStream.class), att.getHeaders(), info);
+    public void getTextFromMultipart(final Attachment att, @Context final UriInfo info,
+                                     @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() {
+                return produceText(att.getObject(InputStream.class), att.getHeaders(), info);
+            }
+        });
     }
 
     @PUT
     @Consumes("*/*")
     @Produces("text/plain")
-    public StreamingOutput getText(final InputStream is, @Context HttpHeaders httpHeaders, @Context final UriInfo info) throws IOException {
-        return produceText(TikaUtils.getInputSteam(is, httpHeaders), httpHeaders.getRequestHeaders(), info);
+    public void getText(final InputStream is, @Context final HttpHeaders httpHeaders, @Context final UriInfo info,
+                        @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() throws IOException {
+                return produceText(TikaUtils.getInputSteam(is, httpHeaders), httpHeaders.getRequestHeaders(), info);
+            }
+        });
     }
 
     public StreamingOutput produceText(final InputStream is, MultivaluedMap<String, String> httpHeaders, final UriInfo info) {
@@ -330,30 +351,50 @@ public class TikaResource {
     @Consumes("multipart/form-data")
     @Produces("text/html")
     @Path("form")
-    public StreamingOutput getHTMLFromMultipart(Attachment att, @Context final UriInfo info) {
-        return produceOutput(att.getObject(InputStream.class), att.getHeaders(), info, "html");
+    public void getHTMLFromMultipart(final Attachment att, @Context final UriInfo info,
+                                     @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() {
+                return produceOutput(att.getObject(InputStream.class), att.getHeaders(), info, "html");
+            }
+        });
     }
 
     @PUT
     @Consumes("*/*")
     @Produces("text/html")
-    public StreamingOutput getHTML(final InputStream is, @Context HttpHeaders httpHeaders, @Context final UriInfo info) {
-        return produceOutput(is, httpHeaders.getRequestHeaders(), info, "html");
+    public void getHTML(final InputStream is, @Context final HttpHeaders httpHeaders, @Context final UriInfo info,
+                        @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() {
+                return produceOutput(is, httpHeaders.getRequestHeaders(), info, "html");
+            }
+        });
     }
 
     @POST
     @Consumes("multipart/form-data")
     @Produces("text/xml")
     @Path("form")
-    public StreamingOutput getXMLFromMultipart(Attachment att, @Context final UriInfo info) {
-        return produceOutput(att.getObject(InputStream.class), att.getHeaders(), info, "xml");
+    public void getXMLFromMultipart(final Attachment att, @Context final UriInfo info,
+                                    @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() {
+                return produceOutput(att.getObject(InputStream.class), att.getHeaders(), info, "xml");
+            }
+        });
     }
 
     @PUT
     @Consumes("*/*")
     @Produces("text/xml")
-    public StreamingOutput getXML(final InputStream is, @Context HttpHeaders httpHeaders, @Context final UriInfo info) {
-        return produceOutput(is, httpHeaders.getRequestHeaders(), info, "xml");
+    public void getXML(final InputStream is, @Context final HttpHeaders httpHeaders, @Context final UriInfo info,
+                       @Suspended AsyncResponse response) {
+        executor.submit(response, new Callable<StreamingOutput>() {
+            public StreamingOutput call() {
+                return produceOutput(is, httpHeaders.getRequestHeaders(), info, "xml");
+            }
+        });
     }
 
     private StreamingOutput produceOutput(final InputStream is, final MultivaluedMap<String, String> httpHeaders,
@@ -34,8 +34,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 
 import au.com.bytecode.opencsv.CSVWriter;
 import org.apache.commons.lang.mutable.MutableInt;
@@ -60,6 +60,7 @@ import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.microsoft.OfficeParser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.server.RichTextContentHandler;
+import org.apache.tika.server.writer.StreamingArchive;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
@@ -93,7 +94,7 @@ public class UnpackerResource {
     @Path("/{id:(/.*)?}")
     @PUT
     @Produces({"application/zip", "application/x-tar"})
-    public Map<String, byte[]> unpack(
+    public StreamingArchive unpack(
             InputStream is,
             @Context HttpHeaders httpHeaders,
             @Context UriInfo info
@@ -104,7 +105,7 @@ public class UnpackerResource {
     @Path("/all{id:(/.*)?}")
     @PUT
     @Produces({"application/zip", "application/x-tar"})
-    public Map<String, byte[]> unpackAll(
+    public StreamingArchive unpackAll(
             InputStream is,
             @Context HttpHeaders httpHeaders,
             @Context UriInfo info
@@ -112,56 +113,70 @@ public class UnpackerResource {
         return process(is, httpHeaders, info, true);
     }
 
-    private Map<String, byte[]> process(
-            InputStream is,
+    /**
+     * The document is parsed while the response is written, and each
+     * embedded document is written to the archive as soon as it has been
+     * extracted, so clients start receiving entries before the parse
+     * finishes and the embedded documents aren't all held in memory.
+     * <p>
+     * A parse that fails within the first
+     * {@link StreamingArchive#COMMIT_THRESHOLD} bytes of the archive gets
+     * the usual error response. A parse that fails later can no longer
+     * change the 200 status, and the archive then ends after the entries
+     * written so far, without its central directory or end blocks.
+     */
+    private StreamingArchive process(
+            final InputStream is,
             @Context HttpHeaders httpHeaders,
-            @Context UriInfo info,
-            boolean saveAll
+            @Context final UriInfo info,
+            final boolean saveAll
     ) throws Exception {
-        Metadata metadata = new Metadata();
-        ParseContext pc = new ParseContext();
+        final Metadata metadata = new Metadata();
+        final ParseContext pc = new ParseContext();
 
-        AutoDetectParser parser = TikaResource.createParser(tikaConfig);
+        final AutoDetectParser parser = TikaResource.createParser(tikaConfig);
 
         TikaResource.fillMetadata(parser, metadata, pc, httpHeaders.getRequestHeaders());
         TikaResource.logRequest(logger, info, metadata);
 
-        ContentHandler ch;
-        ByteArrayOutputStream text = new ByteArrayOutputStream();
-
-        if (saveAll) {
-            ch = new BodyContentHandler(new RichTextContentHandler(new OutputStreamWriter(text, org.apache.tika.io.IOUtils.UTF_8)));
-        } else {
-            ch = new DefaultHandler();
-        }
+        return new StreamingArchive() {
+            public void write(StreamingArchive.EntryWriter entries) throws IOException, WebApplicationException {
+                ContentHandler ch;
+                ByteArrayOutputStream text = new ByteArrayOutputStream();
 
-        Map<String, byte[]> files = new HashMap<String, byte[]>();
-        MutableInt count = new MutableInt();
+                if (saveAll) {
+                    ch = new BodyContentHandler(new RichTextContentHandler(new OutputStreamWriter(text, org.apache.tika.io.IOUtils.UTF_8)));
+                } else {
+                    ch = new DefaultHandler();
+                }
 
-        pc.set(EmbeddedDocumentExtractor.class, new MyEmbeddedDocumentExtractor(count, files));
-        TikaResource.parse(parser, logger, info.getPath(), is, ch, metadata, pc);
+                MutableInt count = new MutableInt();
 
-        if (count.intValue() == 0 && !saveAll) {
-            throw new WebApplicationException(Response.Status.NO_CONTENT);
-        }
+                pc.set(EmbeddedDocumentExtractor.class, new MyEmbeddedDocumentExtractor(count, entries));
+                TikaResource.parse(parser, logger, info.getPath(), is, ch, metadata, pc);
 
-        if (saveAll) {
-            files.put(TEXT_FILENAME, text.toByteArray());
+                if (count.intValue() == 0 && !saveAll) {
+                    throw new WebApplicationException(Response.Status.NO_CONTENT);
+                }
 
-            ByteArrayOutputStream metaStream = new ByteArrayOutputStream();
-            metadataToCsv(metadata, metaStream);
+                if (saveAll) {
+                    entries.putEntry(TEXT_FILENAME, new ByteArrayInputStream(text.toByteArray()));
 
-            files.put(META_FILENAME, metaStream.toByteArray());
-        }
+                    ByteArrayOutputStream metaStream = new ByteArrayOutputStream();
+                    metadataToCsv(metadata, metaStream);
 
-        return files;
+                    entries.putEntry(META_FILENAME, new ByteArrayInputStream(metaStream.toByteArray()));
+                }
+            }
+        };
     }
 
     private class MyEmbeddedDocumentExtractor implements EmbeddedDocumentExtractor {
         private final MutableInt count;
-        private final Map<String, byte[]> zout;
+        private final StreamingArchive.EntryWriter zout;
+        private final Set<String> names = new HashSet<String>();
 
-        MyEmbeddedDocumentExtractor(MutableInt count, Map<String, byte[]> zout) {
+        MyEmbeddedDocumentExtractor(MutableInt count, StreamingArchive.EntryWriter zout) {
             this.count = count;
             this.zout = zout;
         }
@@ -171,10 +186,6 @@ public class UnpackerResource {
         }
 
         public void parseEmbedded(InputStream inputStream, ContentHandler contentHandler, Metadata metadata, boolean b) throws SAXException, IOException {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            IOUtils.copy(inputStream, bos);
-            byte[] data = bos.toByteArray();
-
             String name = metadata.get(TikaMetadataKeys.RESOURCE_NAME_KEY);
             String contentType = metadata.get(org.apache.tika.metadata.HttpHeaders.CONTENT_TYPE);
 
@@ -195,6 +206,11 @@ public class UnpackerResource {
             }
 
             if ("application/vnd.openxmlformats-officedocument.oleObject".equals(contentType)) {
+                // OLE objects are unwrapped in memory
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                IOUtils.copy(inputStream, bos);
+                byte[] data = bos.toByteArray();
+
                 POIFSFileSystem poifs = new POIFSFileSystem(new ByteArrayInputStream(data));
                 OfficeParser.POIFSDocumentType type = OfficeParser.POIFSDocumentType.detectType(poifs);
 
@@ -218,31 +234,45 @@ public class UnpackerResource {
                 } else {
                     name += '.' + type.getExtension();
                 }
+
+                inputStream = new ByteArrayInputStream(data);
             }
 
-            final String finalName = name;
+            TikaInputStream tis = TikaInputStream.get(inputStream);
+            tis.mark(1);
+            boolean empty = tis.read() == -1;
+            tis.reset();
 
-            if (data.length > 0) {
-                zout.put(finalName, data);
+            if (!empty) {
+                zout.putEntry(uniqueName(name), tis);
 
                 count.increment();
             } else {
-                if (inputStream instanceof TikaInputStream) {
-                    TikaInputStream tin = (TikaInputStream) inputStream;
-
-                    if (tin.getOpenContainer() != null && tin.getOpenContainer() instanceof DirectoryEntry) {
-                        POIFSFileSystem fs = new POIFSFileSystem();
-                        copy((DirectoryEntry) tin.getOpenContainer(), fs.getRoot());
-                        ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
-                        fs.writeFilesystem(bos2);
-                        bos2.close();
-
-                        zout.put(finalName, bos2.toByteArray());
-                    }
+                if (tis.getOpenContainer() != null && tis.getOpenContainer() instanceof DirectoryEntry) {
+                    POIFSFileSystem fs = new POIFSFileSystem();
+                    copy((DirectoryEntry) tis.getOpenContainer(), fs.getRoot());
+                    ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
+                    fs.writeFilesystem(bos2);
+                    bos2.close();
+
+                    zout.putEntry(uniqueName(name), new ByteArrayInputStream(bos2.toByteArray()));
                 }
             }
         }
 
+        /**
+         * Entries are written as they are extracted, so a name that has
+         * already been used gets a numeric prefix instead of replacing
+         * the earlier entry.
+         */
+        private String uniqueName(String name) {
+            String unique = name;
+            for (int i = 1; !names.add(unique); i++) {
+                unique = i + "-" + name;
+            }
+            return unique;
+        }
+
         protected void copy(DirectoryEntry sourceDir, DirectoryEntry destDir)
                 throws IOException {
             for (Entry entry : sourceDir) {
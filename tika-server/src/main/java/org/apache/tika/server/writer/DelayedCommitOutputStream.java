@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Holds the start of a {@link StreamingArchive} in memory, and only writes
+ * it to the entity stream once it is larger than
+ * {@link StreamingArchive#COMMIT_THRESHOLD} bytes, or once it is closed.
+ * Until then the response is not committed, so an exception thrown while
+ * the archive is written still results in an error response.
+ */
+class DelayedCommitOutputStream extends OutputStream {
+
+    private final OutputStream out;
+
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    DelayedCommitOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (buffer == null) {
+            out.write(b, off, len);
+        } else {
+            buffer.write(b, off, len);
+            if (buffer.size() > StreamingArchive.COMMIT_THRESHOLD) {
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Does not commit the response, only flushes once it is committed.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer == null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        commit();
+        out.close();
+    }
+
+    private void commit() throws IOException {
+        if (buffer != null) {
+            buffer.writeTo(out);
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server.writer;
+
+import javax.ws.rs.WebApplicationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Archive response whose entries are written as soon as they are available,
+ * e.g. while embedded documents are being extracted, rather than being
+ * collected in memory first. Serialized by the {@link ZipWriter} and the
+ * {@link TarWriter}.
+ */
+public interface StreamingArchive {
+
+    /**
+     * Size of the start of the archive that is held in memory before
+     * anything is sent to the client.
+     */
+    int COMMIT_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Writes the entries of the archive. Nothing is sent to the client
+     * until the archive is larger than {@link #COMMIT_THRESHOLD} bytes, so
+     * if this throws before that, an error response is returned instead.
+     * Once the response has been committed, with a 200 status, an
+     * exception ends the response without the end of the archive, i.e.
+     * without the central directory of a ZIP archive or the end blocks of
+     * a TAR archive, and the archive only holds the entries written so far.
+     *
+     * @param writer writer for the entries of the archive
+     */
+    void write(EntryWriter writer) throws IOException, WebApplicationException;
+
+    /**
+     * Receives the entries of a {@link StreamingArchive}.
+     */
+    interface EntryWriter {
+
+        /**
+         * Writes an archive entry with the content of the given stream.
+         * The stream is not closed.
+         *
+         * @param name entry name
+         * @param data entry content
+         */
+        void putEntry(String name, InputStream data) throws IOException;
+    }
+}
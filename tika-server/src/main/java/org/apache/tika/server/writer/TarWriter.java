@@ -24,45 +24,107 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.Map;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
 
+/**
+ * Writes a {@link StreamingArchive} as a TAR archive. A TAR entry header
+ * needs the size of the entry, so entries of unknown length are buffered
+ * in memory up to {@link #MEMORY_THRESHOLD} bytes, and spooled to a
+ * temporary file beyond that.
+ */
 @Provider
 @Produces("application/x-tar")
-public class TarWriter implements MessageBodyWriter<Map<String, byte[]>> {
-    private static void tarStoreBuffer(TarArchiveOutputStream zip, String name, byte[] dataBuffer) throws IOException {
+public class TarWriter implements MessageBodyWriter<StreamingArchive> {
+
+    /**
+     * Largest entry of unknown length that is buffered in memory.
+     */
+    private static final int MEMORY_THRESHOLD = 1024 * 1024;
+
+    private static void tarStoreStream(TarArchiveOutputStream zip, String name, InputStream data) throws IOException {
+        if (data instanceof TikaInputStream && ((TikaInputStream) data).hasLength()) {
+            tarStoreStream(zip, name, data, ((TikaInputStream) data).getLength());
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n = 0;
+        while (buffer.size() <= MEMORY_THRESHOLD && (n = data.read(chunk)) != -1) {
+            buffer.write(chunk, 0, n);
+        }
+        if (n == -1) {
+            tarStoreStream(zip, name, new ByteArrayInputStream(buffer.toByteArray()), buffer.size());
+            return;
+        }
+
+        // Too big for memory, spool it to a temporary file
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            File file = tmp.createTemporaryFile();
+            OutputStream out = new FileOutputStream(file);
+            try {
+                buffer.writeTo(out);
+                IOUtils.copy(data, out);
+            } finally {
+                out.close();
+            }
+            InputStream in = new FileInputStream(file);
+            tmp.addResource(in);
+            tarStoreStream(zip, name, in, file.length());
+        } finally {
+            tmp.close();
+        }
+    }
+
+    private static void tarStoreStream(TarArchiveOutputStream zip, String name, InputStream data, long size) throws IOException {
         TarArchiveEntry entry = new TarArchiveEntry(name);
 
-        entry.setSize(dataBuffer.length);
+        entry.setSize(size);
 
         zip.putArchiveEntry(entry);
 
-        zip.write(dataBuffer);
+        IOUtils.copy(data, zip);
 
         zip.closeArchiveEntry();
     }
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return Map.class.isAssignableFrom(type);
+        return StreamingArchive.class.isAssignableFrom(type);
     }
 
-    public long getSize(Map<String, byte[]> stringMap, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    public long getSize(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return -1;
     }
 
-    public void writeTo(Map<String, byte[]> parts, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        TarArchiveOutputStream zip = new TarArchiveOutputStream(entityStream);
+    public void writeTo(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        final TarArchiveOutputStream zip = new TarArchiveOutputStream(
+                new DelayedCommitOutputStream(entityStream));
 
-        for (Map.Entry<String, byte[]> entry : parts.entrySet()) {
-            tarStoreBuffer(zip, entry.getKey(), entry.getValue());
-        }
+        zip.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+
+        archive.write(new StreamingArchive.EntryWriter() {
+            public void putEntry(String name, InputStream data) throws IOException {
+                tarStoreStream(zip, name, data);
+            }
+        });
 
+        // Only reached when the whole archive has been written
         zip.close();
     }
 }
@@ -25,62 +25,64 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.Map;
 import java.util.UUID;
-import java.util.zip.CRC32;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
-import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.tika.io.IOUtils;
 
+/**
+ * Writes a {@link StreamingArchive} as a ZIP archive. The entries are
+ * deflated and followed by a data descriptor, so that they can be streamed
+ * without knowing their size or checksum up front.
+ */
 @Provider
 @Produces("application/zip")
-public class ZipWriter implements MessageBodyWriter<Map<String, byte[]>> {
-    private static void zipStoreBuffer(ZipArchiveOutputStream zip, String name, byte[] dataBuffer) throws IOException {
-        ZipEntry zipEntry = new ZipEntry(name != null ? name : UUID.randomUUID().toString());
-        zipEntry.setMethod(ZipOutputStream.STORED);
-
-        zipEntry.setSize(dataBuffer.length);
-        CRC32 crc32 = new CRC32();
-        crc32.update(dataBuffer);
-        zipEntry.setCrc(crc32.getValue());
+public class ZipWriter implements MessageBodyWriter<StreamingArchive> {
+    private static void zipStoreStream(ZipArchiveOutputStream zip, String name, InputStream data) throws IOException {
+        ZipArchiveEntry zipEntry = new ZipArchiveEntry(name != null ? name : UUID.randomUUID().toString());
+        zipEntry.setMethod(ZipArchiveEntry.DEFLATED);
 
         try {
-            zip.putArchiveEntry(new ZipArchiveEntry(zipEntry));
+            zip.putArchiveEntry(zipEntry);
         } catch (ZipException ex) {
             if (name != null) {
-                zipStoreBuffer(zip, "x-" + name, dataBuffer);
+                zipStoreStream(zip, "x-" + name, data);
                 return;
             }
         }
 
-        zip.write(dataBuffer);
+        IOUtils.copy(data, zip);
 
         zip.closeArchiveEntry();
     }
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return Map.class.isAssignableFrom(type);
+        return StreamingArchive.class.isAssignableFrom(type);
     }
 
-    public long getSize(Map<String, byte[]> stringMap, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    public long getSize(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return -1;
     }
 
-    public void writeTo(Map<String, byte[]> parts, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        ZipArchiveOutputStream zip = new ZipArchiveOutputStream(entityStream);
+    public void writeTo(StreamingArchive archive, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        final ZipArchiveOutputStream zip = new ZipArchiveOutputStream(
+                new DelayedCommitOutputStream(entityStream));
 
-        zip.setMethod(ZipArchiveOutputStream.STORED);
+        zip.setMethod(ZipArchiveOutputStream.DEFLATED);
 
-        for (Map.Entry<String, byte[]> entry : parts.entrySet()) {
-            zipStoreBuffer(zip, entry.getKey(), entry.getValue());
-        }
+        archive.write(new StreamingArchive.EntryWriter() {
+            public void putEntry(String name, InputStream data) throws IOException {
+                zipStoreStream(zip, name, data);
+            }
+        });
 
+        // Only reached when the whole archive has been written
         zip.close();
     }
 }
@@ -28,10 +28,14 @@ import java.util.List;
 
 import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
 import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.ext.multipart.Attachment;
+import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
+import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.apache.tika.server.resource.DetectorResource;
 import org.apache.tika.server.writer.TarWriter;
 import org.apache.tika.server.writer.ZipWriter;
+import org.eclipse.jetty.util.ajax.JSON;
 import org.junit.Test;
 
 public class DetectorResourceTest extends CXFTestBase {
@@ -104,4 +108,34 @@ public class DetectorResourceTest extends CXFTestBase {
         assertEquals("text/csv", readMime);
 
     }
+
+    @Test
+    public void testDetectBatch() throws Exception {
+        List<Attachment> attachments = new ArrayList<Attachment>();
+        attachments.add(new Attachment("1", ClassLoader.getSystemResourceAsStream(FOO_CSV),
+                new ContentDisposition("attachment; filename=" + FOO_CSV)));
+        attachments.add(new Attachment("2", ClassLoader.getSystemResourceAsStream(CDEC_CSV_NO_EXT),
+                new ContentDisposition("attachment; filename=" + CDEC_CSV_NO_EXT)));
+        // an OLE2 container sent without a name, so the detector only sees
+        // the generic OLE2 type, not application/msword
+        attachments.add(new Attachment("3", ClassLoader.getSystemResourceAsStream("test.doc"),
+                new ContentDisposition("attachment")));
+        attachments.add(new Attachment("4", ClassLoader.getSystemResourceAsStream("2pic.docx"),
+                new ContentDisposition("attachment; filename=2pic.docx")));
+        Response response = WebClient
+                .create(endPoint + DETECT_PATH + "/batch")
+                .type("multipart/form-data")
+                .accept("application/json")
+                .post(new MultipartBody(attachments));
+        assertEquals(200, response.getStatus());
+        Object[] types = (Object[]) JSON.parse(
+                getStringFromInputStream((InputStream) response.getEntity()));
+        assertEquals(4, types.length);
+        assertEquals("text/csv", types[0]);
+        assertEquals("text/plain", types[1]);
+        assertEquals("application/x-tika-msoffice", types[2]);
+        assertEquals(
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                types[3]);
+    }
 }
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.ws.rs.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.serialization.JsonMetadataList;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.server.resource.JobResource;
+import org.eclipse.jetty.util.ajax.JSON;
+import org.junit.After;
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+
+public class JobResourceTest extends CXFTestBase {
+
+    private static final String JOBS_PATH = "/jobs";
+
+    private static final String TEST_RECURSIVE_DOC = "test_recursive_embedded.docx";
+
+    private File directory;
+
+    private JobManager jobs;
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        directory = new File("target/tika-server-jobs");
+        jobs = new JobManager(directory, 1, 10, 60 * 1000);
+        sf.setResourceClasses(JobResource.class);
+        sf.setResourceProvider(JobResource.class,
+                new SingletonResourceProvider(new JobResource(tika, jobs)));
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        List<Object> providers = new ArrayList<Object>();
+        providers.add(new TikaServerParseExceptionMapper(false));
+        sf.setProviders(providers);
+    }
+
+    @After
+    public void deleteJobs() throws Exception {
+        jobs.shutdown();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testJob() throws Exception {
+        Response response = WebClient.create(endPoint + JOBS_PATH)
+                .accept("application/json")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        assertEquals(202, response.getStatus());
+        Map<?, ?> status = getJson(response);
+        String id = (String) status.get("id");
+        assertEquals(endPoint + JOBS_PATH + "/" + id, response.getLocation().toString());
+
+        long timeout = System.currentTimeMillis() + 60 * 1000;
+        while (!"done".equals(status.get("status"))) {
+            assertTrue("Job not done: " + status, System.currentTimeMillis() < timeout);
+            Thread.sleep(100);
+            status = getJson(WebClient.create(endPoint + JOBS_PATH + "/" + id)
+                    .accept("application/json").get());
+        }
+
+        response = WebClient.create(endPoint + JOBS_PATH + "/" + id + "/result")
+                .accept("application/json").get();
+        assertEquals(200, response.getStatus());
+        Reader reader = new InputStreamReader((InputStream) response.getEntity(), IOUtils.UTF_8);
+        List<Metadata> metadataList = JsonMetadataList.fromJson(reader);
+        assertEquals(12, metadataList.size());
+
+        response = WebClient.create(endPoint + JOBS_PATH + "/" + id).delete();
+        assertEquals(204, response.getStatus());
+        response = WebClient.create(endPoint + JOBS_PATH + "/" + id)
+                .accept("application/json").get();
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    public void testPostJob() throws Exception {
+        Response response = WebClient.create(endPoint + JOBS_PATH)
+                .accept("application/json")
+                .post(ClassLoader.getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        assertEquals(202, response.getStatus());
+        String id = (String) getJson(response).get("id");
+        waitUntilDone(jobs.get(id));
+    }
+
+    @Test
+    public void testUnknownJob() throws Exception {
+        Response response = WebClient.create(endPoint + JOBS_PATH + "/unknown/result")
+                .accept("application/json").get();
+        assertEquals(404, response.getStatus());
+        response = WebClient.create(endPoint + JOBS_PATH + "/unknown").delete();
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    public void testQueueAndCancel() throws Exception {
+        JobManager manager = new JobManager(directory, 1, 1, 60 * 1000);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            JobManager.Task blocking = new JobManager.Task() {
+                public void run(File document, OutputStream result) throws Exception {
+                    started.countDown();
+                    Thread.sleep(60 * 1000);
+                }
+            };
+            JobManager.Job running = manager.submit(input(), blocking);
+            started.await();
+            assertEquals(JobManager.Status.RUNNING, running.getStatus());
+            JobManager.Job queued = manager.submit(input(), blocking);
+            assertEquals(JobManager.Status.QUEUED, queued.getStatus());
+            try {
+                manager.submit(input(), blocking);
+                fail("The queue is full");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+
+            // the running job is interrupted, and the queued one never runs
+            assertNotNull(manager.cancel(running.getId()));
+            assertNotNull(manager.cancel(queued.getId()));
+            assertEquals(JobManager.Status.CANCELLED, running.getStatus());
+            assertEquals(JobManager.Status.CANCELLED, queued.getStatus());
+            assertNull(manager.get(running.getId()));
+            assertNull(running.getResult());
+
+            // the thread is free again
+            JobManager.Job next = manager.submit(input(), new JobManager.Task() {
+                public void run(File document, OutputStream result) {
+                }
+            });
+            waitUntilDone(next);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testNoQueue() throws Exception {
+        JobManager manager = new JobManager(directory, 1, 0, 60 * 1000);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            JobManager.Task blocking = new JobManager.Task() {
+                public void run(File document, OutputStream result) throws Exception {
+                    started.countDown();
+                    Thread.sleep(60 * 1000);
+                }
+            };
+            JobManager.Job running = manager.submit(input(), blocking);
+            started.await();
+            try {
+                manager.submit(input(), blocking);
+                fail("No thread is free");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            assertNotNull(manager.cancel(running.getId()));
+
+            // the cancelled job returns its thread to the pool shortly
+            JobManager.Task empty = new JobManager.Task() {
+                public void run(File document, OutputStream result) {
+                }
+            };
+            long deadline = System.currentTimeMillis() + 10 * 1000;
+            JobManager.Job next = null;
+            while (next == null) {
+                try {
+                    next = manager.submit(input(), empty);
+                } catch (RejectedExecutionException e) {
+                    assertTrue(System.currentTimeMillis() < deadline);
+                    Thread.sleep(10);
+                }
+            }
+            waitUntilDone(next);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testCancelStopsParse() throws Exception {
+        JobManager manager = new JobManager(directory, 1, 1, 60 * 1000);
+        try {
+            final CountDownLatch started = new CountDownLatch(1);
+            // a parse that neither writes its result nor waits
+            JobManager.Job running = manager.submit(input(), new JobManager.Task() {
+                public void run(File document, OutputStream result) throws Exception {
+                    ContentHandler handler = new InterruptibleContentHandler.Factory(
+                            new BasicContentHandlerFactory(
+                                    BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1))
+                            .getNewContentHandler();
+                    char[] text = "text".toCharArray();
+                    started.countDown();
+                    while (true) {
+                        handler.characters(text, 0, text.length);
+                    }
+                }
+            });
+            started.await();
+            assertNotNull(manager.cancel(running.getId()));
+
+            // the thread is free again
+            JobManager.Job next = manager.submit(input(), new JobManager.Task() {
+                public void run(File document, OutputStream result) {
+                }
+            });
+            waitUntilDone(next);
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void testStaleFilesDeleted() throws Exception {
+        File stale = new File(directory, "earlier.document");
+        File staleResult = new File(directory, "earlier.result");
+        File other = new File(directory, "other.txt");
+        FileUtils.writeStringToFile(stale, "document", "UTF-8");
+        FileUtils.writeStringToFile(staleResult, "result", "UTF-8");
+        FileUtils.writeStringToFile(other, "other", "UTF-8");
+
+        new JobManager(directory, 1, 1, 60 * 1000).shutdown();
+        assertFalse(stale.exists());
+        assertFalse(staleResult.exists());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        JobManager manager = new JobManager(directory, 1, 1, 0);
+        try {
+            JobManager.Job job = manager.submit(input(), new JobManager.Task() {
+                public void run(File document, OutputStream result) throws Exception {
+                    result.write(FileUtils.readFileToByteArray(document));
+                }
+            });
+            waitUntilDone(job);
+            File result = job.getResult();
+            assertEquals("document", FileUtils.readFileToString(result, "UTF-8"));
+            Thread.sleep(10);
+            assertNull(manager.get(job.getId()));
+            assertTrue(!result.exists());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private static void waitUntilDone(JobManager.Job job) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10 * 1000;
+        while (job.getStatus() != JobManager.Status.DONE) {
+            assertTrue("Job not done: " + job.getStatus(), System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+    }
+
+    private static InputStream input() {
+        return new ByteArrayInputStream("document".getBytes(IOUtils.UTF_8));
+    }
+
+    private Map<?, ?> getJson(Response response) throws Exception {
+        return (Map<?, ?>) JSON.parse(
+                getStringFromInputStream((InputStream) response.getEntity()));
+    }
+}
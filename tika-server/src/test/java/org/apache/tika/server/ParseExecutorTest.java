@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.ws.rs.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.serialization.JsonMetadataList;
+import org.apache.tika.server.resource.MetadataResource;
+import org.apache.tika.server.resource.RecursiveMetadataResource;
+import org.apache.tika.server.resource.TikaResource;
+import org.apache.tika.server.writer.JSONMessageBodyWriter;
+import org.apache.tika.server.writer.MetadataListMessageBodyWriter;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParseExecutorTest extends CXFTestBase {
+
+    private static final String TEST_DOC = "test.doc";
+
+    private static final String TEST_RECURSIVE_DOC = "test_recursive_embedded.docx";
+
+    private static final int UNPROCESSEABLE = 422;
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private ThreadPoolExecutor threads;
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        threads = ParseExecutor.newThreadPool(2, 1);
+        ParseExecutor executor = new ParseExecutor(threads);
+        List<ResourceProvider> providers = new ArrayList<ResourceProvider>();
+        providers.add(new SingletonResourceProvider(new TikaResource(tika, executor)));
+        providers.add(new SingletonResourceProvider(new MetadataResource(tika, executor)));
+        providers.add(new SingletonResourceProvider(new RecursiveMetadataResource(tika, executor)));
+        sf.setResourceProviders(providers);
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        List<Object> providers = new ArrayList<Object>();
+        providers.add(new JSONMessageBodyWriter());
+        providers.add(new MetadataListMessageBodyWriter());
+        providers.add(new TikaServerParseExceptionMapper(false));
+        sf.setProviders(providers);
+    }
+
+    @After
+    public void shutdownThreads() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    public void testText() throws Exception {
+        Response response = WebClient.create(endPoint + "/tika")
+                .type("application/msword")
+                .accept("text/plain")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_DOC));
+        assertEquals(200, response.getStatus());
+        assertContains("test", getStringFromInputStream((InputStream) response.getEntity()));
+        assertEquals(1, threads.getTaskCount());
+    }
+
+    @Test
+    public void testLargeResult() throws Exception {
+        // larger than the result kept in memory
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 2 * ParseExecutor.MEMORY_THRESHOLD; i++) {
+            text.append("Line ").append(i).append(" of the document\n");
+        }
+        Response response = WebClient.create(endPoint + "/tika")
+                .type("text/plain")
+                .accept("text/plain")
+                .put(new ByteArrayInputStream(text.toString().getBytes(IOUtils.UTF_8)));
+        assertEquals(200, response.getStatus());
+        String result = getStringFromInputStream((InputStream) response.getEntity());
+        assertEquals(text.toString().trim(), result.trim());
+    }
+
+    @Test
+    public void testMetadata() throws Exception {
+        Response response = WebClient.create(endPoint + "/meta")
+                .type("application/msword")
+                .accept("application/json")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_DOC));
+        assertEquals(200, response.getStatus());
+        assertContains("\"Content-Type\":\"application/msword\"",
+                getStringFromInputStream((InputStream) response.getEntity()));
+    }
+
+    @Test
+    public void testRecursiveMetadataStream() throws Exception {
+        Response response = WebClient.create(endPoint + "/rmeta/stream")
+                .accept("application/json")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        assertEquals(200, response.getStatus());
+        Reader reader = new InputStreamReader((InputStream) response.getEntity(), IOUtils.UTF_8);
+        List<Metadata> metadataList = JsonMetadataList.fromJson(reader);
+        assertEquals(12, metadataList.size());
+        assertEquals(1, threads.getTaskCount());
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+        // keep both threads busy, and fill the queue
+        final CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            threads.execute(new Runnable() {
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        try {
+            Response response = WebClient.create(endPoint + "/tika")
+                    .type("application/msword")
+                    .accept("text/plain")
+                    .put(ClassLoader.getSystemResourceAsStream(TEST_DOC));
+            assertEquals(SERVICE_UNAVAILABLE, response.getStatus());
+        } finally {
+            latch.countDown();
+        }
+
+        // parsed again once there is room
+        Response response = WebClient.create(endPoint + "/tika")
+                .type("application/msword")
+                .accept("text/plain")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_DOC));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testParseException() throws Exception {
+        Response response = WebClient.create(endPoint + "/tika")
+                .type("application/vnd.ms-excel")
+                .accept("text/plain")
+                .put(ClassLoader.getSystemResourceAsStream("password.xls"));
+        assertEquals(UNPROCESSEABLE, response.getStatus());
+    }
+}
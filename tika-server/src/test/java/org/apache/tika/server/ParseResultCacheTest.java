@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import javax.ws.rs.core.Response;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.server.resource.MetadataResource;
+import org.apache.tika.server.resource.TikaResource;
+import org.apache.tika.server.writer.JSONMessageBodyWriter;
+import org.junit.Test;
+
+public class ParseResultCacheTest extends CXFTestBase {
+
+    private static final String TIKA_PATH = "/tika";
+
+    private static final String META_PATH = "/meta";
+
+    private ParseResultCache cache;
+
+    @Override
+    protected void setUpResources(JAXRSServerFactoryBean sf) {
+        sf.setResourceClasses(TikaResource.class, MetadataResource.class);
+        sf.setResourceProvider(TikaResource.class,
+                new SingletonResourceProvider(new TikaResource(tika)));
+        sf.setResourceProvider(MetadataResource.class,
+                new SingletonResourceProvider(new MetadataResource(tika)));
+    }
+
+    @Override
+    protected void setUpProviders(JAXRSServerFactoryBean sf) {
+        cache = new ParseResultCache(1024 * 1024);
+        List<Object> providers = new ArrayList<Object>();
+        providers.add(new JSONMessageBodyWriter());
+        providers.add(new TikaServerParseExceptionMapper(false));
+        providers.add(new ParseResultCacheFilter(cache));
+        sf.setProviders(providers);
+    }
+
+    @Test
+    public void testRepeatedRequestIsServedFromCache() throws Exception {
+        Response first = put(TIKA_PATH, "text/plain", TikaResourceTest.TEST_DOC);
+        assertEquals("miss", first.getHeaderString(ParseResultCacheFilter.X_TIKA_CACHE_HEADER));
+        String firstText = getStringFromInputStream((InputStream) first.getEntity());
+        assertContains("test", firstText);
+
+        Response second = put(TIKA_PATH, "text/plain", TikaResourceTest.TEST_DOC);
+        assertEquals("hit", second.getHeaderString(ParseResultCacheFilter.X_TIKA_CACHE_HEADER));
+        assertEquals(firstText, getStringFromInputStream((InputStream) second.getEntity()));
+        assertTrue(second.getMediaType().toString().startsWith("text/plain"));
+
+        // another response type is another parse
+        Response html = put(TIKA_PATH, "text/html", TikaResourceTest.TEST_DOC);
+        assertEquals("miss", html.getHeaderString(ParseResultCacheFilter.X_TIKA_CACHE_HEADER));
+        assertContains("<html", getStringFromInputStream((InputStream) html.getEntity()));
+
+        // as is another endpoint
+        Response meta = put(META_PATH, "application/json", TikaResourceTest.TEST_DOC);
+        assertEquals("miss", meta.getHeaderString(ParseResultCacheFilter.X_TIKA_CACHE_HEADER));
+        String json = getStringFromInputStream((InputStream) meta.getEntity());
+        meta = put(META_PATH, "application/json", TikaResourceTest.TEST_DOC);
+        assertEquals("hit", meta.getHeaderString(ParseResultCacheFilter.X_TIKA_CACHE_HEADER));
+        assertEquals(json, getStringFromInputStream((InputStream) meta.getEntity()));
+
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testFailedParseIsNotCached() throws Exception {
+        Response response = put(TIKA_PATH, "text/plain", TikaResourceTest.TEST_PASSWORD_PROTECTED);
+        assertEquals(422, response.getStatus());
+        response = put(TIKA_PATH, "text/plain", TikaResourceTest.TEST_PASSWORD_PROTECTED);
+        assertEquals(422, response.getStatus());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testDiskTier() throws Exception {
+        File dir = File.createTempFile("tika-server-cache", "");
+        dir.delete();
+        try {
+            // room for one response in memory, two on disk (22 bytes each)
+            ParseResultCache disk = new ParseResultCache(10, dir, 50);
+            disk.put("a", "text/plain", bytes("0123456789"));
+            disk.put("b", "text/plain", bytes("abcdefghij"));
+            assertEquals("0123456789", string(disk.get("a")));
+
+            // a new cache on the same directory starts with its responses
+            disk = new ParseResultCache(10, dir, 50);
+            assertEquals("abcdefghij", string(disk.get("b")));
+            assertEquals("text/plain", disk.get("b").getMediaType());
+
+            // the least recently used response is evicted from disk
+            disk.put("c", "text/plain", bytes("ABCDEFGHIJ"));
+            disk.get("b");
+            disk.put("d", "text/plain", bytes("KLMNOPQRST"));
+            assertNull(disk.get("a"));
+            assertEquals("abcdefghij", string(disk.get("b")));
+        } finally {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    private Response put(String path, String accept, String resource) {
+        return WebClient.create(endPoint + path)
+                .accept(accept)
+                .put(ClassLoader.getSystemResourceAsStream(resource));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(IOUtils.UTF_8);
+    }
+
+    private static String string(ParseResultCache.Entry entry) {
+        return new String(entry.getBody(), IOUtils.UTF_8);
+    }
+}
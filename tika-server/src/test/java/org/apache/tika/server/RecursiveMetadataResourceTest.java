@@ -19,6 +19,7 @@ package org.apache.tika.server;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import javax.ws.rs.core.Response;
 
@@ -34,6 +35,7 @@ import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.apache.tika.io.IOUtils;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.serialization.JsonMetadataList;
+import org.apache.tika.parser.RecursiveParserWrapper;
 import org.apache.tika.server.resource.RecursiveMetadataResource;
 import org.apache.tika.server.writer.MetadataListMessageBodyWriter;
 import org.junit.Test;
@@ -101,4 +103,34 @@ public class RecursiveMetadataResourceTest extends CXFTestBase {
         assertNotNull(metadataList.get(0).get("Author"));
         assertEquals("pavel", metadataList.get(0).get("Author"));
     }
+
+    @Test
+    public void testStreaming() throws Exception {
+        Response response = WebClient
+                .create(endPoint + META_PATH + "/stream")
+                .accept("application/json")
+                .put(ClassLoader
+                        .getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+
+        Reader reader = new InputStreamReader((InputStream) response.getEntity(), IOUtils.UTF_8);
+        List<Metadata> metadataList = JsonMetadataList.fromJson(reader);
+
+        assertEquals(12, metadataList.size());
+        //the container document comes last
+        Metadata container = metadataList.get(metadataList.size() - 1);
+        assertEquals("Microsoft Office Word", container.get("Application-Name"));
+        assertNull(container.get(RecursiveParserWrapper.EMBEDDED_RESOURCE_PATH));
+        int embedded = 0;
+        String content = "";
+        for (Metadata m : metadataList) {
+            if (m.get(RecursiveParserWrapper.EMBEDDED_RESOURCE_PATH) != null) {
+                embedded++;
+            }
+            if (m.get(RecursiveParserWrapper.TIKA_CONTENT) != null) {
+                content += m.get(RecursiveParserWrapper.TIKA_CONTENT);
+            }
+        }
+        assertEquals(11, embedded);
+        assertContains("plundered our seas", content);
+    }
 }
@@ -37,8 +37,10 @@ import org.apache.tika.server.resource.TikaResource;
 import org.apache.tika.server.resource.UnpackerResource;
 import org.apache.tika.server.writer.CSVMessageBodyWriter;
 import org.apache.tika.server.writer.JSONMessageBodyWriter;
+import org.apache.tika.server.writer.TarWriter;
 import org.apache.tika.server.writer.TextMessageBodyWriter;
 import org.apache.tika.server.writer.XMPMessageBodyWriter;
+import org.apache.tika.server.writer.ZipWriter;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -73,6 +75,8 @@ public class StackTraceTest extends CXFTestBase {
         providers.add(new CSVMessageBodyWriter());
         providers.add(new XMPMessageBodyWriter());
         providers.add(new TextMessageBodyWriter());
+        providers.add(new TarWriter());
+        providers.add(new ZipWriter());
         sf.setProviders(providers);
     }
 
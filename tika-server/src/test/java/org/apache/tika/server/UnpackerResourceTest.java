@@ -21,20 +21,33 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import javax.ws.rs.core.Response;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.FileUtils;
 import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.apache.tika.server.writer.TarWriter;
 import org.apache.tika.server.resource.UnpackerResource;
+import org.apache.tika.server.writer.StreamingArchive;
 import org.apache.tika.server.writer.ZipWriter;
 import org.junit.Test;
 
@@ -196,4 +209,94 @@ public class UnpackerResourceTest extends CXFTestBase {
         assertTrue(responseMsg.contains("test"));
     }
 
+    @Test
+    public void testStreamingArchiveWriters() throws Exception {
+        //bigger than what the TarWriter buffers in memory
+        final byte[] large = new byte[3 * 1024 * 1024 + 17];
+        Arrays.fill(large, (byte) 'x');
+        final byte[] small = "small".getBytes("UTF-8");
+        StreamingArchive archive = new StreamingArchive() {
+            public void write(EntryWriter writer) throws IOException {
+                writer.putEntry("large.txt", new ByteArrayInputStream(large));
+                writer.putEntry("small.txt", new ByteArrayInputStream(small));
+            }
+        };
+
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        new TarWriter().writeTo(archive, null, null, null, null, null, tar);
+        Map<String, String> data = readArchiveFromStream(
+                new TarArchiveInputStream(new ByteArrayInputStream(tar.toByteArray())));
+        assertEquals(DigestUtils.md5Hex(large), data.get("large.txt"));
+        assertEquals(DigestUtils.md5Hex(small), data.get("small.txt"));
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        new ZipWriter().writeTo(archive, null, null, null, null, null, zip);
+        data = readArchiveFromStream(
+                new ZipArchiveInputStream(new ByteArrayInputStream(zip.toByteArray())));
+        assertEquals(DigestUtils.md5Hex(large), data.get("large.txt"));
+        assertEquals(DigestUtils.md5Hex(small), data.get("small.txt"));
+    }
+
+    @Test
+    public void testParseException() throws Exception {
+        // the parse fails before anything is sent, so the status is an error
+        Response response = WebClient.create(endPoint + ALL_PATH)
+                .type("application/vnd.ms-excel").accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream("password.xls"));
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    public void testStreamingArchiveFailure() throws Exception {
+        // random, so that it is still larger than the threshold once deflated
+        final byte[] large = new byte[2 * StreamingArchive.COMMIT_THRESHOLD];
+        new Random(42).nextBytes(large);
+        final byte[] small = "small".getBytes("UTF-8");
+
+        // nothing is written when the archive fails before the threshold
+        StreamingArchive early = new StreamingArchive() {
+            public void write(EntryWriter writer) throws IOException {
+                writer.putEntry("small.txt", new ByteArrayInputStream(small));
+                throw new IOException("early failure");
+            }
+        };
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        try {
+            new TarWriter().writeTo(early, null, null, null, null, null, tar);
+            fail("The archive failed");
+        } catch (IOException e) {
+            assertEquals(0, tar.size());
+        }
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try {
+            new ZipWriter().writeTo(early, null, null, null, null, null, zip);
+            fail("The archive failed");
+        } catch (IOException e) {
+            assertEquals(0, zip.size());
+        }
+
+        // later, the archive is cut off without its central directory
+        StreamingArchive late = new StreamingArchive() {
+            public void write(EntryWriter writer) throws IOException {
+                writer.putEntry("large.txt", new ByteArrayInputStream(large));
+                throw new IOException("late failure");
+            }
+        };
+        try {
+            new ZipWriter().writeTo(late, null, null, null, null, null, zip);
+            fail("The archive failed");
+        } catch (IOException e) {
+            assertTrue(zip.size() > 0);
+        }
+        File file = File.createTempFile("tika-unpack", ".zip");
+        try {
+            FileUtils.writeByteArrayToFile(file, zip.toByteArray());
+            new ZipFile(file).close();
+            fail("The archive is incomplete");
+        } catch (ZipException e) {
+            // expected
+        } finally {
+            file.delete();
+        }
+    }
 }